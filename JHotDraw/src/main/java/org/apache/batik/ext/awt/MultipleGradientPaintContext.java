@@ -33,6 +33,9 @@ import java.awt.image.Raster;
 import java.awt.image.SinglePixelPackedSampleModel;
 import java.awt.image.WritableRaster;
 import java.lang.ref.WeakReference;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 import org.apache.batik.ext.awt.image.GraphicsUtil;
 
@@ -84,11 +87,35 @@ abstract class MultipleGradientPaintContext implements PaintContext {
          32, 0xff0000, 0xFF00, 0xFF, 0xFF000000,
          false, DataBuffer.TYPE_INT);
 
-     /** The cached colorModel */
-    protected static ColorModel cachedModel;
+    // PATCH Werner Randelshofer: The cached raster is kept per thread, so
+    // that gradients can be rasterized concurrently. The color lookup
+    // tables are shared by all instances with the same gradient.
 
-    /** The cached raster, which is reusable among instances */
-    protected static WeakReference cached;
+    /** The maximal number of rasters, which are cached per thread. */
+    private static final int MAX_CACHED_RASTERS = 2;
+
+    /** The cached rasters of the current thread, which are reusable among
+     * instances.
+     */
+    private static final ThreadLocal<RasterPool> cachedRasters =
+        new ThreadLocal<RasterPool>() {
+            protected RasterPool initialValue() {
+                return new RasterPool();
+            }
+        };
+
+    /** The maximal number of shared color lookup tables. */
+    private static final int MAX_CACHED_LUTS = 256;
+
+    /** The shared color lookup tables. The least recently used tables are
+     * discarded first.
+     */
+    private static final LinkedHashMap<LUTKey, LUT> cachedLUTs =
+        new LinkedHashMap<LUTKey, LUT>(16, 0.75f, true) {
+            protected boolean removeEldestEntry(Map.Entry<LUTKey, LUT> eldest) {
+                return size() > MAX_CACHED_LUTS;
+            }
+        };
 
     /** Raster is reused whenever possible */
     protected WritableRaster saved;
@@ -202,6 +229,60 @@ abstract class MultipleGradientPaintContext implements PaintContext {
                                         colorSpace)
         throws NoninvertibleTransformException
     {
+        // The inverse transform is needed to from device to user space.
+        // Get all the components of the inverse transform matrix.
+        AffineTransform tInv = t.createInverse();
+
+        double m[] = new double[6];
+        tInv.getMatrix(m);
+        a00 = (float)m[0];
+        a10 = (float)m[1];
+        a01 = (float)m[2];
+        a11 = (float)m[3];
+        a02 = (float)m[4];
+        a12 = (float)m[5];
+
+        //copy some flags
+        this.cycleMethod = cycleMethod;
+        this.colorSpace = colorSpace;
+
+        // PATCH Werner Randelshofer: ColorModel can be null!
+        
+        // Setup an example Model, we may refine it later.
+        if (cm != null && cm.getColorSpace() == lrgbmodel_A.getColorSpace())
+            dataModel = lrgbmodel_A;
+        else if (cm == null || cm.getColorSpace() == srgbmodel_A.getColorSpace())
+            dataModel = srgbmodel_A;
+        else
+            throw new IllegalArgumentException
+                ("Unsupported ColorSpace for interpolation");
+
+        // PATCH Werner Randelshofer: Reuse the color lookup tables of an
+        // identical gradient.
+        LUTKey key = new LUTKey(fractions, colors, cycleMethod, colorSpace,
+                                dataModel);
+        LUT lut;
+        synchronized (cachedLUTs) {
+            lut = cachedLUTs.get(key);
+        }
+        if (lut == null) {
+            calculateGradient(fractions, colors);
+            lut = new LUT(this);
+            synchronized (cachedLUTs) {
+                cachedLUTs.put(key, lut);
+            }
+        } else {
+            lut.applyTo(this);
+        }
+
+        model = GraphicsUtil.coerceColorModel(dataModel,
+                                             cm != null && cm.isAlphaPremultiplied());
+    }
+
+    /** Normalizes the fractions and calculates the color lookup tables
+     * of the gradient.
+     */
+    private void calculateGradient(float[] fractions, Color[] colors) {
         //We have to deal with the cases where the 1st gradient stop is not
         //equal to 0 and/or the last gradient stop is not equal to 1.
         //In both cases, create a new point and replicate the previous
@@ -268,38 +349,112 @@ abstract class MultipleGradientPaintContext implements PaintContext {
             this.fractions[idx] = 1;
         }
 
-        // The inverse transform is needed to from device to user space.
-        // Get all the components of the inverse transform matrix.
-        AffineTransform tInv = t.createInverse();
+        calculateGradientFractions(loColors, hiColors);
+    }
 
-        double m[] = new double[6];
-        tInv.getMatrix(m);
-        a00 = (float)m[0];
-        a10 = (float)m[1];
-        a01 = (float)m[2];
-        a11 = (float)m[3];
-        a02 = (float)m[4];
-        a12 = (float)m[5];
+    /** Key of a shared color lookup table. */
+    private static final class LUTKey {
+        private final float[] fractions;
+        private final int[] colors;
+        private final MultipleGradientPaint.CycleMethodEnum cycleMethod;
+        private final MultipleGradientPaint.ColorSpaceEnum colorSpace;
+        private final ColorModel dataModel;
+        private final int hashCode;
+
+        LUTKey(float[] fractions, Color[] colors,
+               MultipleGradientPaint.CycleMethodEnum cycleMethod,
+               MultipleGradientPaint.ColorSpaceEnum colorSpace,
+               ColorModel dataModel) {
+            this.fractions = fractions.clone();
+            this.colors = new int[colors.length];
+            for (int i = 0; i < colors.length; i++) {
+                this.colors[i] = colors[i].getRGB();
+            }
+            this.cycleMethod = cycleMethod;
+            this.colorSpace = colorSpace;
+            this.dataModel = dataModel;
+            this.hashCode = Arrays.hashCode(this.fractions) * 31 +
+                Arrays.hashCode(this.colors);
+        }
 
-        //copy some flags
-        this.cycleMethod = cycleMethod;
-        this.colorSpace = colorSpace;
+        public boolean equals(Object o) {
+            if (!(o instanceof LUTKey)) {
+                return false;
+            }
+            LUTKey that = (LUTKey) o;
+            return that.hashCode == this.hashCode &&
+                that.cycleMethod == this.cycleMethod &&
+                that.colorSpace == this.colorSpace &&
+                that.dataModel == this.dataModel &&
+                Arrays.equals(that.fractions, this.fractions) &&
+                Arrays.equals(that.colors, this.colors);
+        }
 
-        // PATCH Werner Randelshofer: ColorModel can be null!
-        
-        // Setup an example Model, we may refine it later.
-        if (cm != null && cm.getColorSpace() == lrgbmodel_A.getColorSpace())
-            dataModel = lrgbmodel_A;
-        else if (cm == null || cm.getColorSpace() == srgbmodel_A.getColorSpace())
-            dataModel = srgbmodel_A;
-        else
-            throw new IllegalArgumentException
-                ("Unsupported ColorSpace for interpolation");
+        public int hashCode() {
+            return hashCode;
+        }
+    }
 
-        calculateGradientFractions(loColors, hiColors);
+    /** A shared color lookup table. The arrays are never modified after
+     * they have been calculated, and can thus be shared by all instances.
+     */
+    private static final class LUT {
+        private final float[] fractions;
+        private final float[] normalizedIntervals;
+        private final int[] gradient;
+        private final int[][] gradients;
+        private final int gradientsLength;
+        private final int fastGradientArraySize;
+        private final boolean isSimpleLookup;
+        private final boolean hasDiscontinuity;
+        private final int gradientAverage;
+        private final int gradientUnderflow;
+        private final int gradientOverflow;
+        private final int transparencyTest;
+        private final ColorModel dataModel;
+
+        LUT(MultipleGradientPaintContext c) {
+            fractions = c.fractions;
+            normalizedIntervals = c.normalizedIntervals;
+            gradient = c.gradient;
+            gradients = c.gradients;
+            gradientsLength = c.gradientsLength;
+            fastGradientArraySize = c.fastGradientArraySize;
+            isSimpleLookup = c.isSimpleLookup;
+            hasDiscontinuity = c.hasDiscontinuity;
+            gradientAverage = c.gradientAverage;
+            gradientUnderflow = c.gradientUnderflow;
+            gradientOverflow = c.gradientOverflow;
+            transparencyTest = c.transparencyTest;
+            dataModel = c.dataModel;
+        }
 
-        model = GraphicsUtil.coerceColorModel(dataModel,
-                                             cm != null && cm.isAlphaPremultiplied());
+        void applyTo(MultipleGradientPaintContext c) {
+            c.fractions = fractions;
+            c.normalizedIntervals = normalizedIntervals;
+            c.gradient = gradient;
+            c.gradients = gradients;
+            c.gradientsLength = gradientsLength;
+            c.fastGradientArraySize = fastGradientArraySize;
+            c.isSimpleLookup = isSimpleLookup;
+            c.hasDiscontinuity = hasDiscontinuity;
+            c.gradientAverage = gradientAverage;
+            c.gradientUnderflow = gradientUnderflow;
+            c.gradientOverflow = gradientOverflow;
+            c.transparencyTest = transparencyTest;
+            c.dataModel = dataModel;
+        }
+    }
+
+    /** The rasters, which are cached by a thread. */
+    private static final class RasterPool {
+        private final ColorModel[] models = new ColorModel[MAX_CACHED_RASTERS];
+        private final WeakReference<WritableRaster>[] rasters = createReferences();
+
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        private static WeakReference<WritableRaster>[] createReferences() {
+            return new WeakReference[MAX_CACHED_RASTERS];
+        }
     }
 
 
@@ -830,6 +985,75 @@ abstract class MultipleGradientPaintContext implements PaintContext {
         return gradientOverflow;
     }
 
+    // PATCH Werner Randelshofer: Row kernel for the lookup of many
+    // positions at once.
+
+    /** Helper function to index into the gradients array for a whole row of
+     * positions at once. This produces the same colors as calling
+     * {@link #indexIntoGradientsArrays(float)} for each position, but the
+     * cycle method and the lookup method are only tested once per row, so
+     * that the inner loops only contain arithmetic and array accesses.
+     *
+     * @param positions the unmanipulated positions.
+     * @param pixels the array into which the colors are stored.
+     * @param off the offset of the first color in the pixels array.
+     * @param n the number of positions.
+     */
+    protected final void indexIntoGradientsArrays(float[] positions,
+                                                  int[] pixels,
+                                                  int off, int n) {
+        if (!isSimpleLookup) {
+            for (int i = 0; i < n; i++) {
+                pixels[off + i] = indexIntoGradientsArrays(positions[i]);
+            }
+            return;
+        }
+
+        final int [] grad = gradient;
+        final int size = fastGradientArraySize;
+
+        if (cycleMethod == MultipleGradientPaint.NO_CYCLE) {
+            final int under = gradientUnderflow;
+            final int over = gradientOverflow;
+            for (int i = 0; i < n; i++) {
+                float position = positions[i];
+                pixels[off + i] = (position >= 1) ? over :
+                    ((position <= 0) ? under : grad[(int)(position * size)]);
+            }
+        }
+
+        else if (cycleMethod == MultipleGradientPaint.REPEAT) {
+            final int length = grad.length;
+            for (int i = 0; i < n; i++) {
+                float position = positions[i];
+                position = position - (int)position;
+                if (position < 0) {
+                    position = position + 1;
+                }
+                int idx = (int)(position * length);
+                // The last entry of the array is blended with the first
+                // one, this is rare enough to do it the slow way.
+                pixels[off + i] = (idx + 1 < length) ? grad[idx] :
+                    indexIntoGradientsArrays(positions[i]);
+            }
+        }
+
+        else {  //cycleMethod == MultipleGradientPaint.REFLECT
+            for (int i = 0; i < n; i++) {
+                float position = positions[i];
+                if (position < 0) {
+                    position = -position;
+                }
+                int part = (int)position;
+                position = position - part;
+                if ((part & 0x00000001) == 1) {
+                    position = 1 - position;
+                }
+                pixels[off + i] = grad[(int)(position * size)];
+            }
+        }
+    }
+
 
     /** Helper function to index into the gradients array.  This is necessary
      * because each interval has an array of colors with uniform size 255.
@@ -1373,16 +1597,18 @@ abstract class MultipleGradientPaintContext implements PaintContext {
      * large.
      */
     protected final
-    static synchronized WritableRaster getCachedRaster
+    static WritableRaster getCachedRaster
         (ColorModel cm, int w, int h) {
-        if (cm == cachedModel) {
-            if (cached != null) {
-                WritableRaster ras = (WritableRaster) cached.get();
+        RasterPool pool = cachedRasters.get();
+        for (int i = 0; i < MAX_CACHED_RASTERS; i++) {
+            if (pool.models[i] == cm && pool.rasters[i] != null) {
+                WritableRaster ras = pool.rasters[i].get();
                 if (ras != null &&
                     ras.getWidth() >= w &&
                     ras.getHeight() >= h)
                     {
-                        cached = null;
+                        pool.models[i] = null;
+                        pool.rasters[i] = null;
                         return ras;
                     }
             }
@@ -1398,25 +1624,39 @@ abstract class MultipleGradientPaintContext implements PaintContext {
      * large.
      */
     protected final
-    static synchronized void putCachedRaster(ColorModel cm,
-                                             WritableRaster ras) {
-        if (cached != null) {
-            WritableRaster cras = (WritableRaster) cached.get();
-            if (cras != null) {
-                int cw = cras.getWidth();
-                int ch = cras.getHeight();
-                int iw = ras.getWidth();
-                int ih = ras.getHeight();
-                if (cw >= iw && ch >= ih) {
-                    return;
-                }
-                if (cw * ch >= iw * ih) {
+    static void putCachedRaster(ColorModel cm,
+                                WritableRaster ras) {
+        RasterPool pool = cachedRasters.get();
+        int iw = ras.getWidth();
+        int ih = ras.getHeight();
+
+        // Replace an empty slot, or the smallest raster of the same color
+        // model, or the smallest raster.
+        int slot = -1;
+        long slotSize = Long.MAX_VALUE;
+        for (int i = 0; i < MAX_CACHED_RASTERS; i++) {
+            WritableRaster cras = (pool.rasters[i] == null) ? null :
+                pool.rasters[i].get();
+            if (cras == null) {
+                slot = i;
+                break;
+            }
+            int cw = cras.getWidth();
+            int ch = cras.getHeight();
+            if (pool.models[i] == cm) {
+                if ((cw >= iw && ch >= ih) || (long) cw * ch >= (long) iw * ih) {
                     return;
                 }
+                slot = i;
+                break;
+            }
+            if ((long) cw * ch < slotSize) {
+                slot = i;
+                slotSize = (long) cw * ch;
             }
         }
-        cachedModel = cm;
-        cached = new WeakReference(ras);
+        pool.models[slot] = cm;
+        pool.rasters[slot] = new WeakReference<WritableRaster>(ras);
     }
 
     /**
@@ -1424,7 +1664,9 @@ abstract class MultipleGradientPaintContext implements PaintContext {
      */
     public final void dispose() {
         if (saved != null) {
-            putCachedRaster(model, saved);
+            // PATCH Werner Randelshofer: The raster has been created with
+            // the dataModel, so we must cache it for the dataModel.
+            putCachedRaster(dataModel, saved);
             saved = null;
         }
     }
@@ -57,11 +57,6 @@ final class RadialGradientPaintContext extends MultipleGradientPaintContext {
     /** Constant part of X, Y user space coordinates. */
     private float constA, constB;
        
-    /** This value represents the solution when focusX == X.  It is called
-     * trivial because it is easier to calculate than the general case.
-     */
-    private float trivial;       
-
     private static final int FIXED_POINT_IMPL = 1;
     private static final int DEFAULT_IMPL     = 2;
     private static final int ANTI_ALIAS_IMPL  = 3;
@@ -70,6 +65,19 @@ final class RadialGradientPaintContext extends MultipleGradientPaintContext {
     
     /** Amount for offset when clamping focus. */
     private static final float SCALEBACK = .97f;
+
+    // PATCH Werner Randelshofer: Constants of the closed form solution
+    // used by the row kernels.
+
+    /** Vector from the center to the (clamped) focus. */
+    private double focusDX, focusDY;
+
+    /** Reciprocal of radius^2 - |focus - center|^2. */
+    private double invFocusK;
+
+    /** Scratch buffers for the row kernels. */
+    private float[] rowPositions;
+    private double[] rowGs, prevRowGs;
     
     /** 
      * Constructor for RadialGradientPaintContext.
@@ -164,10 +172,10 @@ final class RadialGradientPaintContext extends MultipleGradientPaintContext {
           focusY = (float)(SCALEBACK * radius * Math.sin(angle)) + centerY;
         }
 
-        //calculate the solution to be used in the case where X == focusX
-        //in cyclicCircularGradientFillRaster
-        dX = focusX - centerX;
-        trivial = (float)Math.sqrt(radiusSq - (dX * dX));
+        focusDX = focusX - centerX;
+        focusDY = focusY - centerY;
+        invFocusK = 1 / ((double)radiusSq -
+                         (focusDX * focusDX + focusDY * focusDY));
 
         // constant parts of X, Y user space coordinates 
         constA = a02 - centerX;
@@ -367,132 +375,79 @@ final class RadialGradientPaintContext extends MultipleGradientPaintContext {
         invSqStepFloat = 1/sqStepFloat;
     }
     
+    /** Calculates the gradient positions of a row of points in user space.
+     *
+     *  The position of a point P is the ratio of its distance to the focus
+     *  F and the distance of the intersection of the ray from F through P
+     *  with the perimeter of the gradient circle. With d = P - F,
+     *  f = F - C and b = f . d, the ray F + t d meets the circle of radius
+     *  r around C at t^2 |d|^2 + 2 t b - (r^2 - |f|^2) = 0. The position is
+     *  1/t, which is
+     *  <pre>
+     *  g = (b + sqrt(b^2 + (r^2 - |f|^2) |d|^2)) / (r^2 - |f|^2)
+     *  </pre>
+     *  Because the focus is clamped inside the circle, r^2 - |f|^2 is
+     *  always positive, so this needs neither a special case for points
+     *  above or below the focus, nor a division per point.
+     *  <p>
+     *  The loop has no branches, and each point only depends on its
+     *  index, so that the JIT can unroll and vectorize it.
+     *
+     *  @param gs receives the positions.
+     *  @param n the number of points.
+     *  @param X,Y the user space coordinates of the first point.
+     */
+    private void calculatePositions(double[] gs, int n, double X, double Y) {
+        final double dX0 = X - focusX;
+        final double dY0 = Y - focusY;
+        final double dXStep = a00;
+        final double dYStep = a10;
+        final double fX = focusDX;
+        final double fY = focusDY;
+        final double invK = invFocusK;
+        final double k = 1 / invK;
+
+        for (int i = 0; i < n; i++) {
+            double dX = dX0 + i * dXStep;
+            double dY = dY0 + i * dYStep;
+            double b = fX * dX + fY * dY;
+            gs[i] = (b + Math.sqrt(b * b + k * (dX * dX + dY * dY))) * invK;
+        }
+    }
+
     /** Fill the raster, cycling the gradient colors when a point falls outside
      *  of the perimeter of the 100% stop circle.          
      * 
-     *  This calculation first computes the intersection point of the line
-     *  from the focus through the current point in the raster, and the
-     *  perimeter of the gradient circle.
-     * 
-     *  Then it determines the percentage distance of the current point along
-     *  that line (focus is 0%, perimeter is 100%). 
-     *
-     *  Equation of a circle centered at (a,b) with radius r:
-     *  (x-a)^2 + (y-b)^2 = r^2
-     *  Equation of a line with slope m and y-intercept b
-     *  y = mx + b
-     *  replacing y in the cirlce equation and solving using the quadratic
-     *  formula produces the following set of equations.  Constant factors have
-     *  been extracted out of the inner loop.
+     *  This calculation determines the percentage distance of the current
+     *  point along the line from the focus through the point to the
+     *  perimeter of the gradient circle (focus is 0%, perimeter is 100%),
+     *  see {@link #calculatePositions}.
      *
+     *  Each row is processed in two passes: the first one calculates the
+     *  positions, the second one looks up the colors.
      */   
     private void cyclicCircularGradientFillRaster(int pixels[], int off, 
                                                   int adjust, 
                                                   int x, int y, 
                                                   int w, int h) {
-        // Constant part of the C factor of the quadratic equation
-        final double constC = 
-            -(radiusSq) + (centerX * centerX) + (centerY * centerY);
-        double A; //coefficient of the quadratic equation (Ax^2 + Bx + C = 0)
-        double B; //coefficient of the quadratic equation
-        double C; //coefficient of the quadratic equation
-        double slope; //slope of the focus-perimeter line
-        double yintcpt; //y-intercept of the focus-perimeter line
-        double solutionX;//intersection with circle X coordinate
-        double solutionY;//intersection with circle Y coordinate       
        	final float constX = (a00*x) + (a01*y) + a02;//const part of X coord
         final float constY = (a10*x) + (a11*y) + a12; //const part of Y coord
-       	final float precalc2 = 2 * centerY;//const in inner loop quad. formula
-        final float precalc3 =-2 * centerX;//const in inner loop quad. formula
-        float X; // User space point X coordinate 
-        float Y; // User space point Y coordinate
-        float g;//value between 0 and 1 specifying position in the gradient
-        float det; //determinant of quadratic formula (should always be >0)
-        float currentToFocusSq;//sq distance from the current pt. to focus
-        float intersectToFocusSq;//sq distance from the intersect pt. to focus
-        float deltaXSq; //temp variable for a change in X squared.
-        float deltaYSq; //temp variable for a change in Y squared.
         int indexer = off; //index variable for pixels array
-        int i, j; //indexing variables for FOR loops
         int pixInc = w+adjust;//incremental index change for pixels array
 
-        for (j = 0; j < h; j++) { //for every row
-	    
-            X = (a01*j) + constX; //constants from column to column
-            Y = (a11*j) + constY;
-	    
-            //for every column (inner loop begins here)
-            for (i = 0; i < w; i++) {	       			
-	
-                // special case to avoid divide by zero or very near zero
-                if (((X-focusX)>-0.000001) &&
-                    ((X-focusX)< 0.000001)) {		   
-                    solutionX = focusX;
-		    
-                    solutionY = centerY;
-		    
-                    solutionY += (Y > focusY)?trivial:-trivial;
-                }
-		
-                else {    
-		    
-                    //slope of the focus-current line
-                    slope =   (Y - focusY) / (X - focusX);
-		    
-                    yintcpt = Y - (slope * X); //y-intercept of that same line
-		    
-                    //use the quadratic formula to calculate the intersection
-                    //point		  
-                    A = (slope * slope) + 1; 
-		    
-                    B =  precalc3 + (-2 * slope * (centerY - yintcpt));
-		    
-                    C =  constC + (yintcpt* (yintcpt - precalc2));
-		    
-                    det = (float)Math.sqrt((B * B) - ( 4 * A * C));
-		    
-                    solutionX = -B;
-		    
-                    //choose the positive or negative root depending
-                    //on where the X coord lies with respect to the focus.
-                    solutionX += (X < focusX)?-det:det;
-		    
-                    solutionX = solutionX / (2 * A);//divisor
-		    
-                    solutionY = (slope * solutionX) + yintcpt;
-                }	                    	
-
-                //calculate the square of the distance from the current point 
-                //to the focus and the square of the distance from the 
-                //intersection point to the focus. Want the squares so we can
-                //do 1 square root after division instead of 2 before.
-
-                deltaXSq = (float)solutionX - focusX;
-                deltaXSq = deltaXSq * deltaXSq;
-
-                deltaYSq = (float)solutionY - focusY;
-                deltaYSq = deltaYSq * deltaYSq;
-
-                intersectToFocusSq = deltaXSq + deltaYSq;
-
-                deltaXSq = X - focusX;
-                deltaXSq = deltaXSq * deltaXSq;
-
-                deltaYSq = Y - focusY;
-                deltaYSq = deltaYSq * deltaYSq;
-
-                currentToFocusSq = deltaXSq + deltaYSq;
-
-                //want the percentage (0-1) of the current point along the 
-                //focus-circumference line
-                g = (float)Math.sqrt(currentToFocusSq / intersectToFocusSq);
+        if (rowGs == null || rowGs.length < w) {
+            rowGs = new double[w];
+            rowPositions = new float[w];
+        }
+        final double[] gs = rowGs;
+        final float[] positions = rowPositions;
 
-                //Get the color at this point
-                pixels[indexer + i] = indexIntoGradientsArrays(g);
-		
-                X += a00; //incremental change in X, Y
-                Y += a10;	
-            } //end inner loop
+        for (int j = 0; j < h; j++) { //for every row
+            calculatePositions(gs, w, (a01*j) + constX, (a11*j) + constY);
+            for (int i = 0; i < w; i++) {
+                positions[i] = (float)gs[i];
+            }
+            indexIntoGradientsArrays(positions, pixels, indexer, w);
             indexer += pixInc;
         } //end outer loop
     }
@@ -502,273 +457,62 @@ final class RadialGradientPaintContext extends MultipleGradientPaintContext {
      *  falls outside of the perimeter of the 100% stop circle. Use
      *  the anti-aliased gradient lookup.
      *
-     *  This calculation first computes the intersection point of the line
-     *  from the focus through the current point in the raster, and the
-     *  perimeter of the gradient circle.
-     * 
-     *  Then it determines the percentage distance of the current point along
-     *  that line (focus is 0%, perimeter is 100%). 
+     *  This calculation determines the percentage distance of the
+     *  corners of each pixel along the line from the focus through the
+     *  corner to the perimeter of the gradient circle (focus is 0%,
+     *  perimeter is 100%), see {@link #calculatePositions}. The color
+     *  of a pixel is the average of the gradient between its corners.
      *
-     *  Equation of a circle centered at (a,b) with radius r:
-     *  (x-a)^2 + (y-b)^2 = r^2
-     *  Equation of a line with slope m and y-intercept b
-     *  y = mx + b
-     *  replacing y in the cirlce equation and solving using the quadratic
-     *  formula produces the following set of equations.  Constant factors have
-     *  been extracted out of the inner loop.
-     * */
+     *  The positions of the corners are calculated a row at a time, and
+     *  the positions of the bottom corners of a row of pixels are reused
+     *  as the top corners of the next row.
+     */
     private void antiAliasFillRaster(int pixels[], int off, 
                                      int adjust, 
                                      int x, int y, 
                                      int w, int h) {
-        // Constant part of the C factor of the quadratic equation
-        final double constC = 
-            -(radiusSq) + (centerX * centerX) + (centerY * centerY);
-        //coefficients of the quadratic equation (Ax^2 + Bx + C = 0)
-       	final float precalc2 = 2 * centerY;//const in inner loop quad. formula
-        final float precalc3 =-2 * centerX;//const in inner loop quad. formula
-
         //const part of X,Y coord (shifted to bottom left corner of pixel.
        	final float constX = (a00*(x-.5f)) + (a01*(y+.5f)) + a02;
         final float constY = (a10*(x-.5f)) + (a11*(y+.5f)) + a12;
-        float X; // User space point X coordinate 
-        float Y; // User space point Y coordinate
         int i, j; //indexing variables for FOR loops
         int indexer = off-1; //index variable for pixels array
 
-        double [] prevGs = new double[w+1];
-        double deltaXSq, deltaYSq;
-        double solutionX, solutionY;
-        double slope, yintcpt, A, B, C, det;
-        double intersectToFocusSq, currentToFocusSq;
+        if (prevRowGs == null || prevRowGs.length < w+1) {
+            prevRowGs = new double[w+1];
+            rowGs = new double[w+1];
+            rowPositions = new float[w+1];
+        }
+        double [] prevGs = prevRowGs;
+        double [] gs = rowGs;
         double g00, g01, g10, g11;
 
-        // Set X,Y to top left corner of first pixel of first row.
-        X = constX - a01;
-        Y = constY - a11;
-
-        // Calc top row of g's.
-        for (i=0; i <= w; i++) {
-            // special case to avoid divide by zero or very near zero
-            if (((X-focusX)>-0.000001) &&
-                ((X-focusX)< 0.000001)) {		   
-                solutionX = focusX;
-                solutionY = centerY;
-                solutionY += (Y > focusY)?trivial:-trivial;
-            }
-            else { 
-                // Formula for Circle: (X-Xc)^2 + (Y-Yc)^2 - R^2 = 0
-                // Formula line:        Y = Slope*x + Y0;
-                // 
-                // So you substitue line into Circle and apply
-                // Quadradic formula.
-
-
-                //slope of the focus-current line
-                slope =   (Y - focusY) / (X - focusX);
-		    
-                yintcpt = Y - (slope * X); //y-intercept of that same line
-		    
-                //use the quadratic formula to calculate the intersection
-                //point		  
-                A = (slope * slope) + 1; 
-		    
-                B =  precalc3 + (-2 * slope * (centerY - yintcpt));
-		    
-                C =  constC + (yintcpt* (yintcpt - precalc2));
-		    
-                det = Math.sqrt((B * B) - ( 4 * A * C));
-		    
-                solutionX = -B;
-		    
-                //choose the positive or negative root depending
-                //on where the X coord lies with respect to the focus.
-                solutionX += (X < focusX)?-det:det;
-		    
-                solutionX = solutionX / (2 * A);//divisor
-		    
-                solutionY = (slope * solutionX) + yintcpt;
-            }	                    	
-
-            //calculate the square of the distance from the current point 
-            //to the focus and the square of the distance from the 
-            //intersection point to the focus. Want the squares so we can
-            //do 1 square root after division instead of 2 before.
-            deltaXSq = solutionX - focusX;
-            deltaXSq = deltaXSq * deltaXSq;
-        
-            deltaYSq = solutionY - focusY;
-            deltaYSq = deltaYSq * deltaYSq;
-        
-            intersectToFocusSq = deltaXSq + deltaYSq;
-        
-            deltaXSq = X - focusX;
-            deltaXSq = deltaXSq * deltaXSq;
-        
-            deltaYSq = Y - focusY;
-            deltaYSq = deltaYSq * deltaYSq;
-        
-            currentToFocusSq = deltaXSq + deltaYSq;
-        
-            //want the percentage (0-1) of the current point along the 
-            //focus-circumference line
-            prevGs[i] = Math.sqrt(currentToFocusSq / intersectToFocusSq);
-
-            X += a00; //incremental change in X, Y
-            Y += a10;	
-        }
+        // Calc top row of g's at the top left corners of the first row.
+        calculatePositions(prevGs, w+1, constX - a01, constY - a11);
 
         for (j = 0; j < h; j++) { //for every row
 	    
-            // Set X,Y to bottom edge of pixel row.
-            X = (a01*j) + constX; //constants from row to row
-            Y = (a11*j) + constY;
-
-            g10 = prevGs[0];
-            // special case to avoid divide by zero or very near zero
-            if (((X-focusX)>-0.000001) &&
-                ((X-focusX)< 0.000001)) {		   
-                solutionX = focusX;
-                solutionY = centerY;
-                solutionY += (Y > focusY)?trivial:-trivial;
-            }
-            else { 
-                // Formula for Circle: (X-Xc)^2 + (Y-Yc)^2 - R^2 = 0
-                // Formula line:        Y = Slope*x + Y0;
-                // 
-                // So you substitue line into Circle and apply
-                // Quadradic formula.
-
-
-                //slope of the focus-current line
-                slope =   (Y - focusY) / (X - focusX);
-		    
-                yintcpt = Y - (slope * X); //y-intercept of that same line
-		    
-                //use the quadratic formula to calculate the intersection
-                //point		  
-                A = (slope * slope) + 1; 
-		    
-                B =  precalc3 + (-2 * slope * (centerY - yintcpt));
-		    
-                C =  constC + (yintcpt* (yintcpt - precalc2));
-		    
-                det = Math.sqrt((B * B) - ( 4 * A * C));
-		    
-                solutionX = -B;
-		    
-                //choose the positive or negative root depending
-                //on where the X coord lies with respect to the focus.
-                solutionX += (X < focusX)?-det:det;
-		    
-                solutionX = solutionX / (2 * A);//divisor
-		    
-                solutionY = (slope * solutionX) + yintcpt;
-            }	                    	
-
-            //calculate the square of the distance from the current point 
-            //to the focus and the square of the distance from the 
-            //intersection point to the focus. Want the squares so we can
-            //do 1 square root after division instead of 2 before.
-            deltaXSq = solutionX - focusX;
-            deltaXSq = deltaXSq * deltaXSq;
-        
-            deltaYSq = solutionY - focusY;
-            deltaYSq = deltaYSq * deltaYSq;
-        
-            intersectToFocusSq = deltaXSq + deltaYSq;
-        
-            deltaXSq = X - focusX;
-            deltaXSq = deltaXSq * deltaXSq;
-        
-            deltaYSq = Y - focusY;
-            deltaYSq = deltaYSq * deltaYSq;
-                
-            currentToFocusSq = deltaXSq + deltaYSq;
-            g11 = Math.sqrt(currentToFocusSq / intersectToFocusSq);
-            prevGs[0] = g11;
-            
-            X += a00; //incremental change in X, Y
-            Y += a10;	
+            // Calc g's at the bottom edge of the pixel row.
+            calculatePositions(gs, w+1, (a01*j) + constX, (a11*j) + constY);
 
             //for every column (inner loop begins here)
+            g10 = prevGs[0];
+            g11 = gs[0];
             for (i=1; i <= w; i++) {
                 g00 = g10;
                 g01 = g11;
                 g10 = prevGs[i];
-
-                // special case to avoid divide by zero or very near zero
-                if (((X-focusX)>-0.000001) &&
-                    ((X-focusX)< 0.000001)) {		   
-                    solutionX = focusX;
-                    solutionY = centerY;
-                    solutionY += (Y > focusY)?trivial:-trivial;
-                }
-                else { 
-                    // Formula for Circle: (X-Xc)^2 + (Y-Yc)^2 - R^2 = 0
-                    // Formula line:        Y = Slope*x + Y0;
-                    // 
-                    // So you substitue line into Circle and apply
-                    // Quadradic formula.
-
-
-                    //slope of the focus-current line
-                    slope =   (Y - focusY) / (X - focusX);
-		    
-                    yintcpt = Y - (slope * X); //y-intercept of that same line
-		    
-                    //use the quadratic formula to calculate the intersection
-                    //point		  
-                    A = (slope * slope) + 1; 
-		    
-                    B =  precalc3 + (-2 * slope * (centerY - yintcpt));
-		    
-                    C =  constC + (yintcpt* (yintcpt - precalc2));
-		    
-                    det = Math.sqrt((B * B) - ( 4 * A * C));
-		    
-                    solutionX = -B;
-		    
-                    //choose the positive or negative root depending
-                    //on where the X coord lies with respect to the focus.
-                    solutionX += (X < focusX)?-det:det;
-		    
-                    solutionX = solutionX / (2 * A);//divisor
-		    
-                    solutionY = (slope * solutionX) + yintcpt;
-                }	                    	
-
-                //calculate the square of the distance from the current point 
-                //to the focus and the square of the distance from the 
-                //intersection point to the focus. Want the squares so we can
-                //do 1 square root after division instead of 2 before.
-                deltaXSq = solutionX - focusX;
-                deltaXSq = deltaXSq * deltaXSq;
-        
-                deltaYSq = solutionY - focusY;
-                deltaYSq = deltaYSq * deltaYSq;
-        
-                intersectToFocusSq = deltaXSq + deltaYSq;
-        
-                deltaXSq = X - focusX;
-                deltaXSq = deltaXSq * deltaXSq;
-        
-                deltaYSq = Y - focusY;
-                deltaYSq = deltaYSq * deltaYSq;
-        
-                currentToFocusSq = deltaXSq + deltaYSq;
-                g11 = Math.sqrt(currentToFocusSq / intersectToFocusSq);
-                prevGs[i] = g11;
+                g11 = gs[i];
 
                 //Get the color at this point
                 pixels[indexer+i] = indexGradientAntiAlias
                     ((float)((g00+g01+g10+g11)/4), 
                      (float)Math.max(Math.abs(g11-g00),
                                      Math.abs(g10-g01)));
-
-                X += a00; //incremental change in X, Y
-                Y += a10;	
             } //end inner loop
+
+            double[] swap = prevGs;
+            prevGs = gs;
+            gs = swap;
             indexer += (w+adjust);
         } //end outer loop
     }
@@ -28,7 +28,9 @@ import java.io.*;
  *
  *
  * @author Werner Randelshofer
- * @version 1.3 2007-12-24 Added support for active view. 
+ * @version 1.4 2026-10-18 Resources are prefetched on a worker thread during
+ * launch. The startup phases are timed by StartupTimer.
+ * <br>1.3 2007-12-24 Added support for active view. 
  * <br>1.2 2007-11-25 Method View.clear is now invoked on a worker
  * thread.
  * <br>1.1 2006-05-01 System.exit(0) explicitly in method stop().
@@ -68,10 +70,14 @@ public abstract class AbstractApplication extends AbstractBean implements Applic
     }
 
     public void start() {
+        long begin = StartupTimer.now();
         final View p = createView();
+        StartupTimer.record("createView", begin);
         add(p);
         p.setEnabled(false);
+        begin = StartupTimer.now();
         show(p);
+        StartupTimer.record("show", begin);
         p.execute(new Worker() {
 
             public Object construct() {
@@ -206,16 +212,61 @@ public abstract class AbstractApplication extends AbstractBean implements Applic
     }
 
     public void launch(String[] args) {
+        StartupTimer.reset();
+        long begin = StartupTimer.now();
         configure(args);
+        StartupTimer.record("configure", begin);
+        prefetch();
         SwingUtilities.invokeLater(new Runnable() {
 
             public void run() {
+                long begin = StartupTimer.now();
                 init();
+                StartupTimer.record("init", begin);
                 start();
+                if (StartupTimer.isVerbose()) {
+                    // The report is printed after the events, which have
+                    // been queued by showing the first view.
+                    SwingUtilities.invokeLater(new Runnable() {
+
+                        public void run() {
+                            System.out.print(StartupTimer.getReport());
+                        }
+                    });
+                }
             }
         });
     }
 
+    /**
+     * Starts a worker thread, which invokes prefetch on the application
+     * model, if the model is a {@link PrefetchingApplicationModel}.
+     * This method is invoked by launch before the application is
+     * initialized on the AWT event dispatcher thread.
+     */
+    protected void prefetch() {
+        if (model instanceof PrefetchingApplicationModel) {
+            final PrefetchingApplicationModel prefetchingModel = (PrefetchingApplicationModel) model;
+            Thread t = new Thread(new Runnable() {
+
+                public void run() {
+                    long begin = StartupTimer.now();
+                    try {
+                        prefetchingModel.prefetch(AbstractApplication.this);
+                    } catch (Throwable e) {
+                        // Prefetching is only an optimization, the resources
+                        // are loaded again when they are needed.
+                        e.printStackTrace();
+                    }
+                    StartupTimer.record("prefetch", begin);
+                }
+            }, "Prefetch");
+            t.setDaemon(true);
+            t.setPriority(Thread.NORM_PRIORITY - 1);
+            t.start();
+        }
+    }
+
     protected void initLabels() {
         labels = ResourceBundleUtil.getBundle("org.jhotdraw.app.Labels");
     }
@@ -23,12 +23,13 @@ import org.jhotdraw.util.ResourceBundleUtil;
  * DefaultApplicationModel.
  *
  * @author Werner Randelshofer.
- * @version 1.1 2007-01-11 Changed method createToolBars.
+ * @version 1.2 2026-10-18 Prefetches the icons of the application labels.
+ * <br>1.1 2007-01-11 Changed method createToolBars.
  * <br>1.0 June 10, 2006 Created.
  */
 public class DefaultApplicationModel
         extends AbstractBean
-        implements ApplicationModel {
+        implements PrefetchingApplicationModel {
     
     private HashMap<String,Action> actions;
     private String name;
@@ -216,6 +217,10 @@ public class DefaultApplicationModel
     
     public void initApplication(Application a) {
     }
+
+    public void prefetch(Application a) {
+        ResourceBundleUtil.getBundle("org.jhotdraw.app.Labels").prefetchIcons();
+    }
     /**
      * Returns the action with the specified id.
      */
@@ -34,7 +34,8 @@ import org.jhotdraw.util.prefs.*;
  * quits the application.
  *
  * @author Werner Randelshofer
- * @version 1.5.1 2008-07-13 Don't add the view menu to the menu bar if it is
+ * @version 1.6 2026-10-18 Times the initialization of the look and feel.
+ * <br>1.5.1 2008-07-13 Don't add the view menu to the menu bar if it is
  * empty.
  * <br>1.5 2007-12-25 Added method updateViewTitle. Replaced currentProject by
  * activeProject in super class.
@@ -65,7 +66,9 @@ public class DefaultSDIApplication extends AbstractApplication {
 
     @Override
     public void init() {
+        long begin = StartupTimer.now();
         initLookAndFeel();
+        StartupTimer.record("initLookAndFeel", begin);
         super.init();
         prefs = Preferences.userNodeForPackage((getModel() == null) ? getClass() : getModel().getClass());
         initLabels();
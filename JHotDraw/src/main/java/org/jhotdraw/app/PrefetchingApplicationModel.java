@@ -0,0 +1,39 @@
+/*
+ * @(#)PrefetchingApplicationModel.java  1.0  2026-10-18
+ *
+ * Copyright (c) 1996-2026 by the original authors of JHotDraw
+ * and all its contributors.
+ * All rights reserved.
+ *
+ * The copyright of this software is owned by the authors and
+ * contributors of the JHotDraw project ("the copyright holders").
+ * You may not use, copy or modify this software, except in
+ * accordance with the license agreement you entered into with
+ * the copyright holders. For details see accompanying license terms.
+ */
+package org.jhotdraw.app;
+
+/**
+ * An ApplicationModel which prefetches resources while the application is
+ * launched.
+ * <p>
+ * Implementing this interface is optional. If the model of an
+ * {@link AbstractApplication} implements it, the application invokes
+ * {@link #prefetch} on a worker thread during launch.
+ *
+ * @author Werner Randelshofer
+ * @version 1.0 2026-10-18 Created.
+ */
+public interface PrefetchingApplicationModel extends ApplicationModel {
+
+    /**
+     * Prefetches resources, which are needed for the construction of the
+     * application and its views, such as fonts and icons.
+     * <p>
+     * This method is invoked on a worker thread when the application is
+     * launched. It runs concurrently with the initialization of the
+     * application on the AWT event dispatcher thread, and thus must not
+     * create or access Swing components.
+     */
+    public void prefetch(Application a);
+}
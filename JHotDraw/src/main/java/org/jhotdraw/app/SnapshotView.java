@@ -0,0 +1,59 @@
+/*
+ * @(#)SnapshotView.java  1.0  2026-10-18
+ *
+ * Copyright (c) 1996-2026 by the original authors of JHotDraw
+ * and all its contributors.
+ * All rights reserved.
+ *
+ * The copyright of this software is owned by the authors and
+ * contributors of the JHotDraw project ("the copyright holders").
+ * You may not use, copy or modify this software, except in
+ * accordance with the license agreement you entered into with
+ * the copyright holders. For details see accompanying license terms.
+ */
+package org.jhotdraw.app;
+
+import java.io.*;
+import org.jhotdraw.gui.ProgressIndicator;
+
+/**
+ * SnapshotView is implemented by View's which can be saved while the user
+ * continues to edit them.
+ * <p>
+ * The SaveAction takes a snapshot of the view, enables the view again,
+ * and writes the snapshot on the worker thread of the view.
+ *
+ * @author Werner Randelshofer
+ * @version 1.0 2026-10-18 Created.
+ */
+public interface SnapshotView extends View {
+
+    /**
+     * Creates a snapshot of the current state of the view. The snapshot
+     * must not be affected by subsequent changes of the view.
+     * By convention this method is invoked on the AWT Event Dispatcher
+     * Thread, while the view is disabled. It should return quickly.
+     */
+    public Object createSnapshot();
+
+    /**
+     * Writes a snapshot to the specified file.
+     * By convention this method is never invoked on the AWT Event
+     * Dispatcher Thread.
+     *
+     * @param f The file.
+     * @param snapshot A snapshot created by this view.
+     * @param progress The progress indicator. The view reports the progress
+     * of the write operation to it. If the user cancels the operation,
+     * the view throws an InterruptedIOException and leaves the file
+     * unchanged.
+     */
+    public void write(File f, Object snapshot, ProgressIndicator progress) throws IOException;
+
+    /**
+     * Marks the changes up to the specified snapshot as saved.
+     * If the view has been changed since the snapshot was created, the
+     * view keeps its unsaved changes.
+     */
+    public void markSnapshotAsSaved(Object snapshot);
+}
@@ -0,0 +1,141 @@
+/*
+ * @(#)StartupTimer.java  1.0  2026-10-18
+ *
+ * Copyright (c) 1996-2026 by the original authors of JHotDraw
+ * and all its contributors.
+ * All rights reserved.
+ *
+ * The copyright of this software is owned by the authors and
+ * contributors of the JHotDraw project ("the copyright holders").
+ * You may not use, copy or modify this software, except in
+ * accordance with the license agreement you entered into with
+ * the copyright holders. For details see accompanying license terms.
+ */
+package org.jhotdraw.app;
+
+import java.util.*;
+
+/**
+ * StartupTimer records the duration of the phases of the startup of an
+ * application, and reports them as a breakdown.
+ * <p>
+ * A phase is recorded by taking a time stamp with {@link #now} when the
+ * phase begins, and by passing it to {@link #record} when the phase ends.
+ * Phases may run concurrently on different threads. The report lists the
+ * phases in the order in which they have begun, together with the thread
+ * on which they ran.
+ * <p>
+ * This class is thread safe.
+ *
+ * @author Werner Randelshofer
+ * @version 1.0 2026-10-18 Created.
+ */
+public class StartupTimer {
+
+    /**
+     * The global verbose property.
+     */
+    private static boolean isVerbose = false;
+    /**
+     * The time stamp of the launch of the application.
+     */
+    private static long launchTime = System.nanoTime();
+    /**
+     * The recorded phases.
+     */
+    private final static ArrayList<Phase> phases = new ArrayList<Phase>();
+
+    private static class Phase {
+
+        private String name;
+        private String thread;
+        private long begin;
+        private long end;
+
+        public Phase(String name, String thread, long begin, long end) {
+            this.name = name;
+            this.thread = thread;
+            this.begin = begin;
+            this.end = end;
+        }
+    }
+
+    /** Prevent instance creation. */
+    private StartupTimer() {
+    }
+
+    /**
+     * If this is set to true, the application prints the report to
+     * System.out, after its first view has been shown.
+     */
+    public static void setVerbose(boolean newValue) {
+        isVerbose = newValue;
+    }
+
+    public static boolean isVerbose() {
+        return isVerbose;
+    }
+
+    /**
+     * Discards all recorded phases, and sets the launch time to now.
+     */
+    public static void reset() {
+        synchronized (phases) {
+            phases.clear();
+            launchTime = System.nanoTime();
+        }
+    }
+
+    /**
+     * Returns a time stamp for the beginning of a phase.
+     */
+    public static long now() {
+        return System.nanoTime();
+    }
+
+    /**
+     * Records a phase, which has begun at the specified time stamp, and
+     * which ends now.
+     *
+     * @param name The name of the phase.
+     * @param begin The time stamp returned by {@link #now} at the beginning
+     * of the phase.
+     */
+    public static void record(String name, long begin) {
+        long end = System.nanoTime();
+        synchronized (phases) {
+            phases.add(new Phase(name, Thread.currentThread().getName(), begin, end));
+        }
+    }
+
+    /**
+     * Returns the breakdown of the recorded phases. For each phase, the
+     * report contains the time in milliseconds at which it has begun
+     * relative to the launch time, its duration, its name, and the name
+     * of its thread.
+     */
+    public static String getReport() {
+        ArrayList<Phase> sorted;
+        long launch;
+        synchronized (phases) {
+            sorted = new ArrayList<Phase>(phases);
+            launch = launchTime;
+        }
+        Collections.sort(sorted, new Comparator<Phase>() {
+
+            public int compare(Phase p1, Phase p2) {
+                return (p1.begin < p2.begin) ? -1 : ((p1.begin == p2.begin) ? 0 : 1);
+            }
+        });
+        long last = launch;
+        Formatter f = new Formatter();
+        f.format("%9s %9s  %s%n", "at [ms]", "took [ms]", "phase [thread]");
+        for (Phase p : sorted) {
+            f.format("%9.1f %9.1f  %s [%s]%n",
+                    (p.begin - launch) / 1e6, (p.end - p.begin) / 1e6, p.name, p.thread);
+            last = Math.max(last, p.end);
+        }
+        f.format("%9s %9.1f  %s%n", "", (last - launch) / 1e6, "total");
+        return f.toString();
+    }
+}
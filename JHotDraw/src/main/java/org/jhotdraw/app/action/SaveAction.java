@@ -30,7 +30,9 @@ import org.jhotdraw.gui.event.*;
  * SaveAction.
  *
  * @author  Werner Randelshofer
- * @version 1.3 2008-03-23 Added call to view#canSaveTo(File) when determining
+ * @version 1.4 2026-10-18 Views which implement SnapshotView are enabled
+ * again, while a snapshot of them is being saved.
+ * <br>1.3 2008-03-23 Added call to view#canSaveTo(File) when determining
  * whether a file chooser needs to be displayed. 
  * <br>1.2.1 2006-07-25 Add saved file to recent file list of application.
  * <br>1.2 2006-05-19 Make filename acceptable by ExtensionFileFilter.
@@ -91,6 +93,10 @@ public class SaveAction extends AbstractViewAction {
     }
     
     protected void saveToFile(final View view, final File file) {
+        if (view instanceof SnapshotView) {
+            saveSnapshotToFile((SnapshotView) view, file);
+            return;
+        }
         view.execute(new Worker() {
             public Object construct() {
                 try {
@@ -105,15 +111,61 @@ public class SaveAction extends AbstractViewAction {
             }
         });
     }
+    /**
+     * Takes a snapshot of the view, and enables the view again, while
+     * the snapshot is being written on the worker thread of the view.
+     */
+    protected void saveSnapshotToFile(final SnapshotView view, final File file) {
+        final Object snapshot = view.createSnapshot();
+        view.setEnabled(true);
+        if (oldFocusOwner != null) {
+            oldFocusOwner.requestFocus();
+        }
+
+        ResourceBundleUtil labels = ResourceBundleUtil.getBundle("org.jhotdraw.app.Labels");
+        final ProgressIndicator progress = new ProgressIndicator(view.getComponent(),
+                labels.getFormatted("file.save.saving.message", file.getName()),
+                null, 0, 1);
+        view.execute(new Worker() {
+            public Object construct() {
+                try {
+                    view.write(file, snapshot, progress);
+                    return null;
+                } catch (IOException e) {
+                    return e;
+                }
+            }
+            public void finished(Object value) {
+                progress.close();
+                if (value instanceof InterruptedIOException) {
+                    // the user has canceled saving
+                    return;
+                }
+                fileSaved(view, file, snapshot, value);
+            }
+        });
+    }
     /**
      * XXX - Change type of value to Throwable
      *
      * @param value is either null for success or a Throwable on failure.
      */
     protected void fileSaved(final View view, File file, Object value) {
+        fileSaved(view, file, null, value);
+    }
+    /**
+     * @param snapshot is the snapshot of a SnapshotView which has been saved,
+     * or null if the view has been saved directly.
+     * @param value is either null for success or a Throwable on failure.
+     */
+    private void fileSaved(final View view, File file, Object snapshot, Object value) {
         if (value == null) {
             view.setFile(file);
-            view.markChangesAsSaved();
+            if (snapshot == null) {
+                view.markChangesAsSaved();
+            } else {
+                ((SnapshotView) view).markSnapshotAsSaved(snapshot);
+            }
             int multiOpenId = 1;
             for (View p : view.getApplication().views()) {
                 if (p != view && p.getFile() != null && p.getFile().equals(file)) {
@@ -130,16 +182,18 @@ public class SaveAction extends AbstractViewAction {
                 message = value.toString();
             }
             ResourceBundleUtil labels = ResourceBundleUtil.getBundle("org.jhotdraw.app.Labels");
-            JSheet.showMessageSheet(getActiveView().getComponent(),
+            JSheet.showMessageSheet(view.getComponent(),
                     "<html>" + UIManager.getString("OptionPane.css") +
                     "<b>" + labels.getFormatted("couldntSave", file.getName()) + "</b><br>" +
                     ((message == null) ? "" : message),
                     JOptionPane.ERROR_MESSAGE);
         }
-        view.setEnabled(true);
-        SwingUtilities.getWindowAncestor(view.getComponent()).toFront();
-        if (oldFocusOwner != null) {
-            oldFocusOwner.requestFocus();
+        if (snapshot == null) {
+            view.setEnabled(true);
+            SwingUtilities.getWindowAncestor(view.getComponent()).toFront();
+            if (oldFocusOwner != null) {
+                oldFocusOwner.requestFocus();
+            }
         }
     }
 }
\ No newline at end of file
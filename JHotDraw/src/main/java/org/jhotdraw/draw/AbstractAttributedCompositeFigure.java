@@ -27,17 +27,18 @@ import org.jhotdraw.xml.DOMOutput;
  * its own attribute set.
  *
  * @author Werner Randelshofer
- * @version 2.0 2007-05-18 Changed due to changes in Figure interface. 
+ * @version 2.1 2026-10-18 Store the attributes in a compact Attributes object.
+ * <br>2.0 2007-05-18 Changed due to changes in Figure interface. 
  * <br>1.0 July 9, 2006 Created.
  */
 public abstract class AbstractAttributedCompositeFigure extends AbstractCompositeFigure {
 
-    private HashMap<AttributeKey, Object> attributes = new HashMap<AttributeKey, Object>();
+    private Attributes attributes = new Attributes();
     /**
      * Forbidden attributes can't be set by the setAttribute() operation.
      * They can only be changed by setAttribute().
      */
-    private HashSet<AttributeKey> forbiddenAttributes;
+    private BitSet forbiddenAttributes;
 
     /** Creates a new instance. */
     public AbstractAttributedCompositeFigure() {
@@ -45,17 +46,13 @@ public abstract class AbstractAttributedCompositeFigure extends AbstractComposit
 
     public void setAttributeEnabled(AttributeKey key, boolean b) {
         if (forbiddenAttributes == null) {
-            forbiddenAttributes = new HashSet<AttributeKey>();
-        }
-        if (b) {
-            forbiddenAttributes.remove(key);
-        } else {
-            forbiddenAttributes.add(key);
+            forbiddenAttributes = new BitSet();
         }
+        forbiddenAttributes.set(key.getOrdinal(), !b);
     }
 
     public boolean isAttributeEnabled(AttributeKey key) {
-        return forbiddenAttributes == null || !forbiddenAttributes.contains(key);
+        return forbiddenAttributes == null || !forbiddenAttributes.get(key.getOrdinal());
     }
 
     @SuppressWarnings("unchecked")
@@ -67,7 +64,7 @@ public abstract class AbstractAttributedCompositeFigure extends AbstractComposit
 
     @Override
     public Map<AttributeKey, Object> getAttributes() {
-        return new HashMap<AttributeKey, Object>(attributes);
+        return attributes.toMap();
     }
 
     /**
@@ -77,7 +74,7 @@ public abstract class AbstractAttributedCompositeFigure extends AbstractComposit
      */
     @Override
     public <T> void setAttribute(AttributeKey<T> key, T newValue) {
-        if (forbiddenAttributes == null || !forbiddenAttributes.contains(key)) {
+        if (forbiddenAttributes == null || !forbiddenAttributes.get(key.getOrdinal())) {
             Object oldValue = attributes.put(key, newValue);
             setAttributeOnChildren(key, newValue);
             fireAttributeChanged(key, oldValue, newValue);
@@ -95,13 +92,14 @@ public abstract class AbstractAttributedCompositeFigure extends AbstractComposit
      */
     @Override
     public <T> T getAttribute(AttributeKey<T> key) {
-        return hasAttribute(key) ? key.get(attributes) : key.getDefaultValue();
+        T value = key.get(attributes);
+        return (value != null || hasAttribute(key)) ? value : key.getDefaultValue();
     }
 
     @Override
     public Object getAttributesRestoreData() {
         LinkedList<Object> list = new LinkedList<Object>();
-        list.add(new HashMap<AttributeKey, Object>(getAttributes()));
+        list.add(attributes.clone());
         for (Figure child : getChildren()) {
             list.add(child.getAttributesRestoreData());
         }
@@ -112,8 +110,11 @@ public abstract class AbstractAttributedCompositeFigure extends AbstractComposit
     @SuppressWarnings("unchecked")
     public void restoreAttributesTo(Object restoreData) {
         Iterator<Object> i = ((LinkedList<Object>) restoreData).iterator();
+        Attributes data = (Attributes) i.next();
         attributes.clear();
-        setAttributes((Map<AttributeKey, Object>) i.next());
+        for (int j = 0, n = data.size(); j < n; j++) {
+            data.getKey(j).basicSet(this, data.getValue(j));
+        }
         for (Figure child : getChildren()) {
             child.restoreAttributesTo(i.next());
         }
@@ -198,9 +199,9 @@ public abstract class AbstractAttributedCompositeFigure extends AbstractComposit
 
     public AbstractAttributedCompositeFigure clone() {
         AbstractAttributedCompositeFigure that = (AbstractAttributedCompositeFigure) super.clone();
-        that.attributes = new HashMap<AttributeKey, Object>(this.attributes);
+        that.attributes = this.attributes.clone();
         if (this.forbiddenAttributes != null) {
-            that.forbiddenAttributes = new HashSet<AttributeKey>(this.forbiddenAttributes);
+            that.forbiddenAttributes = (BitSet) this.forbiddenAttributes.clone();
         }
         return that;
     }
@@ -209,9 +210,9 @@ public abstract class AbstractAttributedCompositeFigure extends AbstractComposit
         Figure prototype = (Figure) out.getPrototype();
 
         boolean isElementOpen = false;
-        for (Map.Entry<AttributeKey, Object> entry : attributes.entrySet()) {
-            AttributeKey key = entry.getKey();
-            if (forbiddenAttributes == null || !forbiddenAttributes.contains(key)) {
+        for (int i = 0, n = attributes.size(); i < n; i++) {
+            AttributeKey key = attributes.getKey(i);
+            if (forbiddenAttributes == null || !forbiddenAttributes.get(key.getOrdinal())) {
                 Object prototypeValue = key.get(prototype);
                 Object attributeValue = key.get(this);
                 if (prototypeValue != attributeValue ||
@@ -222,7 +223,7 @@ public abstract class AbstractAttributedCompositeFigure extends AbstractComposit
                         isElementOpen = true;
                     }
                     out.openElement(key.getKey());
-                    out.writeObject(entry.getValue());
+                    out.writeObject(attributes.getValue(i));
                     out.closeElement();
                 }
             }
@@ -242,7 +243,7 @@ public abstract class AbstractAttributedCompositeFigure extends AbstractComposit
                 Object value = in.readObject();
                 AttributeKey key = getAttributeKey(name);
                 if (key != null && key.isAssignable(value)) {
-                    if (forbiddenAttributes == null || !forbiddenAttributes.contains(key)) {
+                    if (forbiddenAttributes == null || !forbiddenAttributes.get(key.getOrdinal())) {
                         key.basicSet(this, value);
                     }
                 }
@@ -261,8 +262,8 @@ public abstract class AbstractAttributedCompositeFigure extends AbstractComposit
      */
     @SuppressWarnings("unchecked")
     protected void applyAttributesTo(Figure that) {
-        for (Map.Entry<AttributeKey, Object> entry : attributes.entrySet()) {
-            entry.getKey().basicSet(that, entry.getValue());
+        for (int i = 0, n = attributes.size(); i < n; i++) {
+            attributes.getKey(i).basicSet(that, attributes.getValue(i));
         }
     }
 
@@ -286,6 +287,14 @@ public abstract class AbstractAttributedCompositeFigure extends AbstractComposit
         }
     }
 
+    /**
+     * Replaces the attributes of this figure by a copy, which shares its
+     * storage with all figures that have equal attributes.
+     */
+    public void internAttributes(AttributesInterner interner) {
+        attributes = interner.intern(attributes);
+    }
+
     public boolean hasAttribute(AttributeKey key) {
         return attributes.containsKey(key);
     }
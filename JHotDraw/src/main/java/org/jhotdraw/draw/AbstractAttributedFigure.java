@@ -27,7 +27,8 @@ import org.jhotdraw.xml.DOMOutput;
  * <p>
  *
  * @author Werner Randelshofer
- * @version 4.1 2007-05-18 Changed due to changes in Figure interface.
+ * @version 4.2 2026-10-18 Store the attributes in a compact Attributes object.
+ * <br>4.1 2007-05-18 Changed due to changes in Figure interface.
  * <br>4.0 2007-01-03 Renamed from AttributedFigure to
  * AbstractAttributedFigure.
  * <br>3.2 2006-12-07 Changed method setAttributes(HashMap)
@@ -42,12 +43,12 @@ public abstract class AbstractAttributedFigure extends AbstractFigure {
     /**
      * Holds the attributes of the figure.
      */
-    private HashMap<AttributeKey, Object> attributes = new HashMap<AttributeKey,Object>();
+    private Attributes attributes = new Attributes();
     /**
      * Forbidden attributes can't be set by the setAttribute() operation.
      * They can only be changed by setAttribute().
      */
-    private HashSet<AttributeKey> forbiddenAttributes;
+    private BitSet forbiddenAttributes;
     
     /** Creates a new instance. */
     public AbstractAttributedFigure() {
@@ -56,16 +57,12 @@ public abstract class AbstractAttributedFigure extends AbstractFigure {
     
     public void setAttributeEnabled(AttributeKey key, boolean b) {
         if (forbiddenAttributes == null) {
-            forbiddenAttributes = new HashSet<AttributeKey>();
-        }
-        if (b) {
-            forbiddenAttributes.remove(key);
-        } else {
-            forbiddenAttributes.add(key);
+            forbiddenAttributes = new BitSet();
         }
+        forbiddenAttributes.set(key.getOrdinal(), !b);
     }
     public boolean isAttributeEnabled(AttributeKey key) {
-        return forbiddenAttributes == null || ! forbiddenAttributes.contains(key);
+        return forbiddenAttributes == null || ! forbiddenAttributes.get(key.getOrdinal());
     }
     
     @SuppressWarnings("unchecked")
@@ -75,15 +72,18 @@ public abstract class AbstractAttributedFigure extends AbstractFigure {
         }
     }
     public Map<AttributeKey, Object> getAttributes() {
-        return new HashMap<AttributeKey,Object>(attributes);
+        return attributes.toMap();
     }
     public Object getAttributesRestoreData() {
-        return getAttributes();
+        return attributes.clone();
     }
     @SuppressWarnings("unchecked")
     public void restoreAttributesTo(Object restoreData) {
+        Attributes data = (Attributes) restoreData;
         attributes.clear();
-        setAttributes((HashMap<AttributeKey,Object>) restoreData);
+        for (int i = 0, n = data.size(); i < n; i++) {
+            setAttribute(data.getKey(i), data.getValue(i));
+        }
     }
     /**
      * Sets an attribute of the figure.
@@ -92,8 +92,8 @@ public abstract class AbstractAttributedFigure extends AbstractFigure {
      */
     public <T> void setAttribute(AttributeKey<T> key, T newValue) {
         if (forbiddenAttributes == null
-                || ! forbiddenAttributes.contains(key)) {
-            T oldValue = (T) key.put(attributes, newValue);
+                || ! forbiddenAttributes.get(key.getOrdinal())) {
+            T oldValue = key.put(attributes, newValue);
             fireAttributeChanged(key, oldValue, newValue);
         }
     }
@@ -101,7 +101,8 @@ public abstract class AbstractAttributedFigure extends AbstractFigure {
      * Gets an attribute from the figure.
      */
     public <T> T getAttribute(AttributeKey<T> key) {
-        return hasAttribute(key) ? key.get(attributes) : key.getDefaultValue();
+        T value = key.get(attributes);
+        return (value != null || hasAttribute(key)) ? value : key.getDefaultValue();
     }
     
     
@@ -179,9 +180,9 @@ public abstract class AbstractAttributedFigure extends AbstractFigure {
     
     public AbstractAttributedFigure clone() {
         AbstractAttributedFigure that = (AbstractAttributedFigure) super.clone();
-        that.attributes = new HashMap<AttributeKey,Object>(this.attributes);
+        that.attributes = this.attributes.clone();
         if (this.forbiddenAttributes != null) {
-            that.forbiddenAttributes = new HashSet<AttributeKey>(this.forbiddenAttributes);
+            that.forbiddenAttributes = (BitSet) this.forbiddenAttributes.clone();
         }
         return that;
     }
@@ -190,10 +191,10 @@ public abstract class AbstractAttributedFigure extends AbstractFigure {
         Figure prototype = (Figure) out.getPrototype();
         
         boolean isElementOpen = false;
-        for (Map.Entry<AttributeKey, Object> entry : attributes.entrySet()) {
-            AttributeKey key = entry.getKey();
+        for (int i = 0, n = attributes.size(); i < n; i++) {
+            AttributeKey key = attributes.getKey(i);
             if (forbiddenAttributes == null
-                    || ! forbiddenAttributes.contains(key)) {
+                    || ! forbiddenAttributes.get(key.getOrdinal())) {
                 Object prototypeValue = key.get(prototype);
                 Object attributeValue = key.get(this);
                 if (prototypeValue != attributeValue ||
@@ -204,7 +205,7 @@ public abstract class AbstractAttributedFigure extends AbstractFigure {
                         isElementOpen = true;
                     }
                     out.openElement(key.getKey());
-                    out.writeObject(entry.getValue());
+                    out.writeObject(attributes.getValue(i));
                     out.closeElement();
                 }
             }
@@ -224,7 +225,7 @@ public abstract class AbstractAttributedFigure extends AbstractFigure {
                 AttributeKey key = getAttributeKey(name);
                 if (key != null && key.isAssignable(value)) {
                     if (forbiddenAttributes == null
-                            || ! forbiddenAttributes.contains(key)) {
+                            || ! forbiddenAttributes.get(key.getOrdinal())) {
                         setAttribute(key, value);
                     }
                 }
@@ -244,8 +245,8 @@ public abstract class AbstractAttributedFigure extends AbstractFigure {
      */
     @SuppressWarnings("unchecked")
     protected void applyAttributesTo(Figure that) {
-        for (Map.Entry<AttributeKey, Object> entry : attributes.entrySet()) {
-            entry.getKey().basicSet(that, entry.getValue());
+        for (int i = 0, n = attributes.size(); i < n; i++) {
+            attributes.getKey(i).basicSet(that, attributes.getValue(i));
         }
     }
     
@@ -276,6 +277,14 @@ public abstract class AbstractAttributedFigure extends AbstractFigure {
         }
     }
     
+    /**
+     * Replaces the attributes of this figure by a copy, which shares its
+     * storage with all figures that have equal attributes.
+     */
+    public void internAttributes(AttributesInterner interner) {
+        attributes = interner.intern(attributes);
+    }
+
     public boolean hasAttribute(AttributeKey key) {
         return attributes.containsKey(key);
     }
@@ -29,7 +29,9 @@ import static org.jhotdraw.draw.AttributeKeys.*;
  * AbstractCompositeFigure.
  *
  * @author Werner Randelshofer
- * @version 1.0.2 2009-04-16 Guard against infinity in method setBounds.
+ * @version 1.0.3 2026-10-18 Method addAll adds the figures using
+ * basicAddAll. Methods remove and basicRemove use method indexOf.
+ * <br>1.0.2 2009-04-16 Guard against infinity in method setBounds.
  * <br>1.0.1 2008-03-30 Made basicRemove method non-final.
  * <br>1.0 July 17, 2007 Created.
  */
@@ -137,8 +139,11 @@ public abstract class AbstractCompositeFigure
     }
 
     public final void addAll(int index, Collection<? extends Figure> figures) {
+        // Add all figures at once, so that subclasses can bulk-load them
+        // into their data structures.
+        basicAddAll(index, figures);
         for (Figure f : figures) {
-            basicAdd(index++, f);
+            index++;
             if (getDrawing() != null) {
                 f.addNotify(getDrawing());
             }
@@ -173,7 +178,7 @@ public abstract class AbstractCompositeFigure
     }
 
     public boolean remove(final Figure figure) {
-        int index = children.indexOf(figure);
+        int index = indexOf(figure);
         if (index == -1) {
             return false;
         } else {
@@ -566,7 +571,7 @@ public abstract class AbstractCompositeFigure
     }
 
     public int basicRemove(Figure child) {
-        int index = children.indexOf(child);
+        int index = indexOf(child);
         if (index != -1) { basicRemoveChild(index); }
         return index;
     }
@@ -15,6 +15,7 @@ package org.jhotdraw.draw;
 
 import org.jhotdraw.xml.*;
 import java.awt.font.*;
+import java.awt.geom.*;
 import javax.swing.*;
 import javax.swing.event.*;
 import javax.swing.undo.*;
@@ -25,7 +26,8 @@ import java.io.*;
  * AbstractDrawing.
  *
  * @author Werner Randelshofer
- * @version 4.1 2007-12-16 Drawing hold attributes on its own. 
+ * @version 4.2 2026-10-18 Support for batches of changes added.
+ * <br>4.1 2007-12-16 Drawing hold attributes on its own. 
  * <br>4.0 2007-07-17 Adapted to changes in Drawing interface. 
  * <br>3.0 2007-05-18 Don't fire UndoableEdit events when Figures
  * are added/removed from a Drawing. The
@@ -42,11 +44,116 @@ public abstract class AbstractDrawing extends AbstractAttributedCompositeFigure
     private LinkedList<InputFormat> inputFormats = new LinkedList<InputFormat>();
     private LinkedList<OutputFormat> outputFormats = new LinkedList<OutputFormat>();
     private final static boolean DEBUG = false;
+    /**
+     * The nesting depth of beginUpdate/endUpdate calls.
+     */
+    private transient int updateDepth;
+    /**
+     * Holds the children which changed during an update.
+     */
+    private transient LinkedHashSet<Figure> changedChildren;
+    /**
+     * Holds the union of all areas which were invalidated during an update.
+     */
+    private transient Rectangle2D.Double updateArea;
+
+    /**
+     * Handles events of the children of the drawing. During an update,
+     * the events are recorded and not forwarded to the listeners of
+     * the drawing.
+     */
+    protected class DrawingEventHandler extends AbstractCompositeFigure.EventHandler {
+
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        public void figureChanged(FigureEvent e) {
+            if (isUpdating()) {
+                deferChange(e.getFigure(), e.getInvalidatedArea());
+            } else {
+                super.figureChanged(e);
+            }
+        }
+
+        @Override
+        public void areaInvalidated(FigureEvent e) {
+            if (isUpdating()) {
+                deferChange(null, e.getInvalidatedArea());
+            } else {
+                super.areaInvalidated(e);
+            }
+        }
+    }
 
     /** Creates a new instance. */
     public AbstractDrawing() {
     }
 
+    @Override
+    protected EventHandler createEventHandler() {
+        return new DrawingEventHandler();
+    }
+
+    public void beginUpdate() {
+        updateDepth++;
+    }
+
+    public void endUpdate() {
+        if (updateDepth <= 0) {
+            throw new IllegalStateException("endUpdate was called without a prior call to beginUpdate.");
+        }
+        if (--updateDepth == 0 && updateArea != null) {
+            Set<Figure> changed = changedChildren;
+            Rectangle2D.Double area = updateArea;
+            changedChildren = null;
+            updateArea = null;
+            updateEnded(changed, area);
+        }
+    }
+
+    public boolean isUpdating() {
+        return updateDepth > 0;
+    }
+
+    /**
+     * Records a change of a child during an update.
+     *
+     * @param child The child which changed, or null if only an area was
+     * invalidated.
+     * @param invalidatedArea The area which needs to be repainted.
+     */
+    protected void deferChange(Figure child, Rectangle2D.Double invalidatedArea) {
+        if (child != null) {
+            if (changedChildren == null) {
+                changedChildren = new LinkedHashSet<Figure>();
+            }
+            changedChildren.add(child);
+        }
+        if (updateArea == null) {
+            updateArea = (Rectangle2D.Double) invalidatedArea.clone();
+        } else {
+            updateArea.add(invalidatedArea);
+        }
+    }
+
+    /**
+     * This method is invoked when the outermost update ended, and changes
+     * have been recorded during the update.
+     * <p>
+     * This implementation invalidates the drawing and fires a single
+     * areaInvalidated event for the union of all invalidated areas.
+     * Subclasses which maintain data structures for their children, must
+     * update them before they call this method.
+     *
+     * @param changedChildren The children which changed during the update.
+     * This is null if no child changed.
+     * @param invalidatedArea The union of the invalidated areas.
+     */
+    protected void updateEnded(Set<Figure> changedChildren, Rectangle2D.Double invalidatedArea) {
+        invalidate();
+        fireAreaInvalidated(invalidatedArea);
+    }
+
     public void addUndoableEditListener(UndoableEditListener l) {
         listenerList.add(UndoableEditListener.class, l);
     }
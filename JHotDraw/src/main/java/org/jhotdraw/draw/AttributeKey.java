@@ -13,7 +13,7 @@
  */
 package org.jhotdraw.draw;
 
-import java.io.Serializable;
+import java.io.*;
 import java.util.*;
 import javax.swing.undo.*;
 import org.jhotdraw.util.*;
@@ -34,7 +34,8 @@ import org.jhotdraw.util.*;
  * See {@link AttributeKeys} for a list of useful attribute keys.
  * 
  * @author Werner Randelshofer
- * @version 3.0 2009-04-19 Added explicit
+ * @version 3.1 2026-10-18 Added ordinals and support for {@link Attributes}.
+ * <br>3.0 2009-04-19 Added explicit
  * <br>2.1 2009-04-15 Added method getPresentationName. The labels are now
  * part of the attribute key.
  * <br>2.0.1 2008-02-13 Fixed comments. Removed equals and hashCode.
@@ -69,6 +70,15 @@ public class AttributeKey<T> implements Serializable {
      * assignability of attribute values at runtime.
      */
     private Class<T> clazz;
+    /**
+     * Holds the ordinal of the key. Keys with equal key strings have the
+     * same ordinal.
+     */
+    private transient int ordinal;
+    /**
+     * Maps key strings to ordinals.
+     */
+    private final static HashMap<String, Integer> ordinals = new HashMap<String, Integer>();
 
     /** Creates a new instance with the specified attribute key, type token class,
      * default value null, and allowing null values. */
@@ -89,6 +99,7 @@ public class AttributeKey<T> implements Serializable {
         this.clazz = clazz;
         this.defaultValue = defaultValue;
         this.isNullValueAllowed = isNullValueAllowed;
+        this.ordinal = getOrdinal(key);
     }
 
     /** Creates a new instance with the specified attribute key, type token class,
@@ -108,6 +119,44 @@ public class AttributeKey<T> implements Serializable {
         this.defaultValue = defaultValue;
         this.isNullValueAllowed = isNullValueAllowed;
         this.labels = labels;
+        this.ordinal = getOrdinal(key);
+    }
+
+    /**
+     * Returns the ordinal for the specified key string.
+     */
+    private static int getOrdinal(String key) {
+        synchronized (ordinals) {
+            Integer value = ordinals.get(key);
+            if (value == null) {
+                value = ordinals.size();
+                ordinals.put(key, value);
+            }
+            return value;
+        }
+    }
+
+    /**
+     * Returns the ordinal of the key. Ordinals are small, dense integers,
+     * which are assigned in the order in which the key strings are created.
+     * Keys which are equal have the same ordinal.
+     * <p>
+     * Ordinals are not persistent, they can be different each time the
+     * application is run.
+     *
+     * @return the ordinal.
+     */
+    public int getOrdinal() {
+        return ordinal;
+    }
+
+    /**
+     * Returns the number of ordinals, which have been assigned so far.
+     */
+    public static int getOrdinalCount() {
+        synchronized (ordinals) {
+            return ordinals.size();
+        }
     }
 
     /**
@@ -175,6 +224,19 @@ public class AttributeKey<T> implements Serializable {
         return (value == null && !isNullValueAllowed) ? defaultValue : value;
     }
 
+    /**
+     * Gets the value of the attribute denoted by this AttributeKey from
+     * an Attributes object.
+     *
+     * @param a An Attributes object.
+     * @return The value of the attribute.
+     */
+    @SuppressWarnings("unchecked")
+    public T get(Attributes a) {
+        T value = (T) a.get(this);
+        return (value == null && !isNullValueAllowed) ? defaultValue : value;
+    }
+
     /**
      * Convenience method for setting a value on the 
      * specified figure and calling willChange before and changed 
@@ -309,6 +371,22 @@ public class AttributeKey<T> implements Serializable {
         return (T) a.put(this, value);
     }
 
+    /**
+     * Use this method to perform a typeface put operation of an attribute
+     * into an Attributes object.
+     *
+     * @param a An Attributes object.
+     * @param value The new value.
+     * @return The old value.
+     */
+    @SuppressWarnings("unchecked")
+    public T put(Attributes a, T value) {
+        if (value == null && !isNullValueAllowed) {
+            throw new NullPointerException("Null value not allowed for AttributeKey " + key);
+        }
+        return (T) a.put(this, value);
+    }
+
     /**
      * Sets a clone of the value to the Figure without firing events.
      */
@@ -345,6 +423,11 @@ public class AttributeKey<T> implements Serializable {
         return clazz.isInstance(value);
     }
 
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        ordinal = getOrdinal(key);
+    }
+
     /** Returns the key string. */
     @Override
     public String toString() {
@@ -0,0 +1,377 @@
+/*
+ * @(#)Attributes.java  1.0  2026-10-18
+ *
+ * Copyright (c) 1996-2026 by the original authors of JHotDraw
+ * and all its contributors.
+ * All rights reserved.
+ *
+ * The copyright of this software is owned by the authors and
+ * contributors of the JHotDraw project ("the copyright holders").
+ * You may not use, copy or modify this software, except in
+ * accordance with the license agreement you entered into with
+ * the copyright holders. For details see accompanying license terms.
+ */
+package org.jhotdraw.draw;
+
+import java.io.*;
+import java.util.*;
+
+/**
+ * A compact store for the attributes of a figure.
+ * <p>
+ * The attributes are kept in arrays, which are sorted by the ordinals of
+ * their {@link AttributeKey}s. Values of type Double are stored unboxed.
+ * <p>
+ * A clone shares the arrays with the original until one of them is
+ * changed, so cloning a figure does not copy its attributes.
+ * <p>
+ * Unlike a Map, this class does not create entry objects, and it does not
+ * allocate memory when it is iterated with {@link #size},
+ * {@link #getKey} and {@link #getValue}.
+ * <p>
+ * This class is not thread safe.
+ *
+ * @author Werner Randelshofer
+ * @version 1.1 2026-10-18 Use parameterized attribute keys.
+ * <br>1.0 2026-10-18 Created.
+ */
+public class Attributes implements Cloneable, Serializable {
+
+    private static final long serialVersionUID = 1L;
+    private final static AttributeKey<?>[] EMPTY_KEYS = new AttributeKey<?>[0];
+    private final static Object[] EMPTY_VALUES = new Object[0];
+    /**
+     * Marks a value which is stored unboxed in the numbers array.
+     */
+    private final static Object UNBOXED = new Object();
+    /**
+     * The keys sorted by their ordinals.
+     */
+    private transient AttributeKey<?>[] keys = EMPTY_KEYS;
+    /**
+     * The values. A value which is stored in the numbers array is
+     * marked with UNBOXED.
+     */
+    private transient Object[] values = EMPTY_VALUES;
+    /**
+     * The unboxed Double values. This array is null if there are no
+     * Double values.
+     */
+    private transient double[] numbers;
+    private transient int size;
+    /**
+     * Set to true, if the arrays are shared with a clone.
+     */
+    private transient boolean isShared;
+
+    /** Creates a new empty instance. */
+    public Attributes() {
+    }
+
+    /** Creates a new instance with the attributes of the specified map. */
+    public Attributes(Map<? extends AttributeKey<?>, ?> map) {
+        putAll(map);
+    }
+
+    /**
+     * Returns the number of attributes.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns true if there are no attributes.
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Returns the key at the specified index. The key is typed to Object, so
+     * that the value at the same index can be passed to it.
+     */
+    @SuppressWarnings("unchecked")
+    public AttributeKey<Object> getKey(int index) {
+        if (index >= size) {
+            throw new IndexOutOfBoundsException("index:" + index + ", size:" + size);
+        }
+        return (AttributeKey<Object>) keys[index];
+    }
+
+    /**
+     * Returns the value at the specified index.
+     */
+    public Object getValue(int index) {
+        if (index >= size) {
+            throw new IndexOutOfBoundsException("index:" + index + ", size:" + size);
+        }
+        Object value = values[index];
+        return (value == UNBOXED) ? Double.valueOf(numbers[index]) : value;
+    }
+
+    /**
+     * Returns true if an attribute for the specified key is present.
+     */
+    public boolean containsKey(AttributeKey<?> key) {
+        return indexOf(key) >= 0;
+    }
+
+    /**
+     * Returns the value of the specified key, or null if no
+     * attribute for the key is present.
+     * <p>
+     * Use {@link AttributeKey#get(Attributes)} for typesafe access.
+     */
+    public Object get(AttributeKey<?> key) {
+        int index = indexOf(key);
+        return (index < 0) ? null : getValue(index);
+    }
+
+    /**
+     * Sets the value of the specified key, and returns the old value.
+     * <p>
+     * Use {@link AttributeKey#put(Attributes, Object)} for typesafe access.
+     */
+    public Object put(AttributeKey<?> key, Object value) {
+        unshare();
+        int index = indexOf(key);
+        Object oldValue;
+        if (index < 0) {
+            index = -index - 1;
+            if (size == keys.length) {
+                int capacity = Math.max(4, size + (size >> 1));
+                keys = Arrays.copyOf(keys, capacity);
+                values = Arrays.copyOf(values, capacity);
+                if (numbers != null) {
+                    numbers = Arrays.copyOf(numbers, capacity);
+                }
+            }
+            System.arraycopy(keys, index, keys, index + 1, size - index);
+            System.arraycopy(values, index, values, index + 1, size - index);
+            if (numbers != null) {
+                System.arraycopy(numbers, index, numbers, index + 1, size - index);
+            }
+            keys[index] = key;
+            size++;
+            oldValue = null;
+        } else {
+            oldValue = getValue(index);
+        }
+        if (value instanceof Double) {
+            if (numbers == null) {
+                numbers = new double[keys.length];
+            }
+            numbers[index] = (Double) value;
+            values[index] = UNBOXED;
+        } else {
+            values[index] = value;
+        }
+        return oldValue;
+    }
+
+    /**
+     * Puts all attributes of the specified map.
+     */
+    public void putAll(Map<? extends AttributeKey<?>, ?> map) {
+        for (Map.Entry<? extends AttributeKey<?>, ?> entry : map.entrySet()) {
+            put(entry.getKey(), entry.getValue());
+        }
+    }
+
+    /**
+     * Removes the attribute of the specified key, and returns its value.
+     */
+    public Object remove(AttributeKey<?> key) {
+        int index = indexOf(key);
+        if (index < 0) {
+            return null;
+        }
+        unshare();
+        Object oldValue = getValue(index);
+        int n = size - index - 1;
+        System.arraycopy(keys, index + 1, keys, index, n);
+        System.arraycopy(values, index + 1, values, index, n);
+        if (numbers != null) {
+            System.arraycopy(numbers, index + 1, numbers, index, n);
+        }
+        size--;
+        keys[size] = null;
+        values[size] = null;
+        return oldValue;
+    }
+
+    /**
+     * Removes all attributes.
+     */
+    public void clear() {
+        keys = EMPTY_KEYS;
+        values = EMPTY_VALUES;
+        numbers = null;
+        size = 0;
+        isShared = false;
+    }
+
+    /**
+     * Returns the attributes as a new map. The map has the raw key type
+     * of {@link Figure#getAttributes}.
+     */
+    @SuppressWarnings("rawtypes")
+    public HashMap<AttributeKey, Object> toMap() {
+        HashMap<AttributeKey, Object> map = new HashMap<AttributeKey, Object>(Math.max(16, size * 4 / 3 + 1));
+        for (int i = 0; i < size; i++) {
+            map.put(keys[i], getValue(i));
+        }
+        return map;
+    }
+
+    /**
+     * Shrinks the arrays to the number of attributes.
+     */
+    public void trimToSize() {
+        if (size < keys.length) {
+            keys = Arrays.copyOf(keys, size);
+            values = Arrays.copyOf(values, size);
+            if (numbers != null) {
+                numbers = Arrays.copyOf(numbers, size);
+            }
+            isShared = false;
+        }
+    }
+
+    /**
+     * Returns a copy of the attributes. The copy shares its arrays with this
+     * object until one of them is changed.
+     */
+    @Override
+    public Attributes clone() {
+        try {
+            Attributes that = (Attributes) super.clone();
+            if (size > 0) {
+                this.isShared = that.isShared = true;
+            }
+            return that;
+        } catch (CloneNotSupportedException e) {
+            InternalError error = new InternalError(e.getMessage());
+            error.initCause(e);
+            throw error;
+        }
+    }
+
+    /**
+     * Returns the index of the key, or (-(insertion point) - 1) if the
+     * key is not present.
+     */
+    private int indexOf(AttributeKey<?> key) {
+        int ordinal = key.getOrdinal();
+        int low = 0;
+        int high = size - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int midOrdinal = keys[mid].getOrdinal();
+            if (midOrdinal < ordinal) {
+                low = mid + 1;
+            } else if (midOrdinal > ordinal) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -(low + 1);
+    }
+
+    /**
+     * Copies the arrays, if they are shared with a clone.
+     */
+    private void unshare() {
+        if (isShared) {
+            keys = keys.clone();
+            values = values.clone();
+            if (numbers != null) {
+                numbers = numbers.clone();
+            }
+            isShared = false;
+        }
+    }
+
+    /**
+     * Returns true, if the specified object is an Attributes object with
+     * equal keys and values. Array values are compared by their contents.
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (o == this) {
+            return true;
+        }
+        if (!(o instanceof Attributes)) {
+            return false;
+        }
+        Attributes that = (Attributes) o;
+        if (this.size != that.size) {
+            return false;
+        }
+        if (this.keys == that.keys && this.values == that.values) {
+            return true;
+        }
+        for (int i = 0; i < size; i++) {
+            if (this.keys[i].getOrdinal() != that.keys[i].getOrdinal()) {
+                return false;
+            }
+            Object v1 = this.values[i];
+            Object v2 = that.values[i];
+            if (v1 == UNBOXED || v2 == UNBOXED) {
+                if (v1 != v2 ||
+                        Double.doubleToLongBits(this.numbers[i]) != Double.doubleToLongBits(that.numbers[i])) {
+                    return false;
+                }
+            } else if (v1 != v2 && (v1 == null || v2 == null ||
+                    !Arrays.deepEquals(new Object[]{v1}, new Object[]{v2}))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = size;
+        for (int i = 0; i < size; i++) {
+            Object value = values[i];
+            int valueHash;
+            if (value == UNBOXED) {
+                long bits = Double.doubleToLongBits(numbers[i]);
+                valueHash = (int) (bits ^ (bits >>> 32));
+            } else {
+                valueHash = Arrays.deepHashCode(new Object[]{value});
+            }
+            hash = hash * 31 + keys[i].hashCode();
+            hash = hash * 31 + valueHash;
+        }
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        return toMap().toString();
+    }
+
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        out.defaultWriteObject();
+        out.writeInt(size);
+        for (int i = 0; i < size; i++) {
+            out.writeObject(keys[i]);
+            out.writeObject(getValue(i));
+        }
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        keys = EMPTY_KEYS;
+        values = EMPTY_VALUES;
+        // Ordinals are not persistent, so we have to sort the keys again
+        for (int i = in.readInt(); i > 0; i--) {
+            AttributeKey<?> key = (AttributeKey<?>) in.readObject();
+            put(key, in.readObject());
+        }
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * @(#)AttributesInterner.java  1.0  2026-10-18
+ *
+ * Copyright (c) 1996-2026 by the original authors of JHotDraw
+ * and all its contributors.
+ * All rights reserved.
+ *
+ * The copyright of this software is owned by the authors and
+ * contributors of the JHotDraw project ("the copyright holders").
+ * You may not use, copy or modify this software, except in
+ * accordance with the license agreement you entered into with
+ * the copyright holders. For details see accompanying license terms.
+ */
+package org.jhotdraw.draw;
+
+import java.util.*;
+
+/**
+ * Lets figures with equal attributes share their attributes.
+ * <p>
+ * For each distinct set of attributes, the interner keeps one canonical
+ * {@link Attributes} object, which is never changed. Figures receive
+ * copies which share the arrays of the canonical object until the
+ * attributes of a figure are changed.
+ * <p>
+ * An interner is typically used once, after a drawing has been read,
+ * and then discarded.
+ * <p>
+ * This class is thread safe.
+ *
+ * @author Werner Randelshofer
+ * @version 1.0 2026-10-18 Created.
+ */
+public class AttributesInterner {
+
+    private HashMap<Attributes, Attributes> pool = new HashMap<Attributes, Attributes>();
+    private int requestCount;
+
+    /** Creates a new instance. */
+    public AttributesInterner() {
+    }
+
+    /**
+     * Returns a copy of the canonical object, which is equal to the
+     * specified attributes.
+     */
+    public synchronized Attributes intern(Attributes a) {
+        requestCount++;
+        Attributes canonical = pool.get(a);
+        if (canonical == null) {
+            canonical = a.clone();
+            canonical.trimToSize();
+            pool.put(canonical, canonical);
+        }
+        return canonical.clone();
+    }
+
+    /**
+     * Interns the attributes of the specified figure and of its
+     * descendants.
+     */
+    public void intern(Figure f) {
+        if (f instanceof AbstractAttributedFigure) {
+            ((AbstractAttributedFigure) f).internAttributes(this);
+        } else if (f instanceof AbstractAttributedCompositeFigure) {
+            ((AbstractAttributedCompositeFigure) f).internAttributes(this);
+        }
+        if (f instanceof CompositeFigure) {
+            for (Figure child : ((CompositeFigure) f).getChildren()) {
+                intern(child);
+            }
+        }
+    }
+
+    /**
+     * Returns the number of distinct sets of attributes.
+     */
+    public synchronized int getCanonicalCount() {
+        return pool.size();
+    }
+
+    /**
+     * Returns the number of attribute sets, which have been interned.
+     */
+    public synchronized int getRequestCount() {
+        return requestCount;
+    }
+}
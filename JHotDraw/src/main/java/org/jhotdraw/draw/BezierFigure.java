@@ -41,7 +41,8 @@ import org.jhotdraw.xml.DOMOutput;
  *
  * @see org.jhotdraw.geom.BezierPath
  *
- * @version 3.2 2008-07-06 Create BezierOutlineHandle on mouse over. 
+ * @version 3.3 2026-10-18 Cache the geometry used for hit testing.
+ * <br>3.2 2008-07-06 Create BezierOutlineHandle on mouse over. 
  * <br>3.1 2008-05-23 Added method findSegment with tolerance parameter.
  * <br>3.0.1 2007-11-30 Changed method removeNode from protected to public. 
  * <br>3.0 2007-05-12 Got rid of basic methods.
@@ -65,6 +66,19 @@ public class BezierFigure extends AbstractAttributedFigure {
      * We cache it to increase the drawing speed of the figure.
      */
     private transient BezierPath cappedPath;
+    /**
+     * The outline of the path grown by the hit growth. We cache it to
+     * increase the speed of hit testing.
+     */
+    private transient Shape cachedGrowShape;
+    private transient Rectangle2D cachedGrowShapeBounds;
+    private transient double cachedGrow;
+    private transient double cachedMiterLimit;
+    /**
+     * The flattened outline of the capped path. We cache it to increase the
+     * speed of hit testing.
+     */
+    private transient FlattenedOutline cachedOutline;
     
     
     /**
@@ -175,11 +189,16 @@ public class BezierFigure extends AbstractAttributedFigure {
                 return true;
             }
             double grow = AttributeKeys.getPerpendicularHitGrowth(this) * 2d;
-            GrowStroke gs = new GrowStroke((float) grow,
-                    (float) (AttributeKeys.getStrokeTotalWidth(this) *
-                    STROKE_MITER_LIMIT.get(this))
-                    );
-            if (gs.createStrokedShape(path).contains(p)) {
+            double miterLimit = AttributeKeys.getStrokeTotalWidth(this) *
+                    STROKE_MITER_LIMIT.get(this);
+            if (cachedGrowShape == null || cachedGrow != grow || cachedMiterLimit != miterLimit) {
+                GrowStroke gs = new GrowStroke((float) grow, (float) miterLimit);
+                cachedGrowShape = gs.createStrokedShape(path);
+                cachedGrowShapeBounds = cachedGrowShape.getBounds2D();
+                cachedGrow = grow;
+                cachedMiterLimit = miterLimit;
+            }
+            if (cachedGrowShapeBounds.contains(p) && cachedGrowShape.contains(p)) {
                 return true;
             } else {
                 if (isClosed()) {
@@ -188,7 +207,10 @@ public class BezierFigure extends AbstractAttributedFigure {
             }
         }
         if (! isClosed()) {
-            if (getCappedPath().outlineContains(p, tolerance)) {
+            if (cachedOutline == null || cachedOutline.getFlatness() != tolerance) {
+                cachedOutline = new FlattenedOutline(getCappedPath(), tolerance);
+            }
+            if (cachedOutline.outlineContains(p, tolerance)) {
                 return true;
             }
             if (START_DECORATION.get(this) != null) {
@@ -270,6 +292,8 @@ public class BezierFigure extends AbstractAttributedFigure {
         super.validate();
         path.invalidatePath();
         cappedPath = null;
+        cachedGrowShape = null;
+        cachedOutline = null;
     }
     
     
@@ -327,6 +351,8 @@ public class BezierFigure extends AbstractAttributedFigure {
         super.invalidate();
         path.invalidatePath();
         cappedPath = null;
+        cachedGrowShape = null;
+        cachedOutline = null;
     }
     
     /**
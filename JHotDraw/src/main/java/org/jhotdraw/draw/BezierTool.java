@@ -19,13 +19,25 @@ import java.awt.*;
 import java.awt.geom.*;
 import java.awt.event.*;
 import java.util.*;
+import java.util.concurrent.*;
 import org.jhotdraw.geom.*;
 
 /**
  * Tool to scribble a BezierFigure
+ * <p>
+ * While the user drags the mouse, the digitized points are not added to the
+ * figure. Instead they are collected by an {@link IncrementalBezierFitter},
+ * and drawn by the tool as a polyline, of which only the newest segment is
+ * repainted. The fitter fits a bezier path to the points on a worker thread
+ * while the user is drawing. When the mouse is released, the fitted path is
+ * added to the figure.
  *
  * @author  Werner Randelshofer
- * @version 2.0.2 2009-03-15 Finish creation if the user switches to another
+ * @version 2.2 2026-10-18 Invoke calculateFittedCurve, if a subclass
+ * overrides it.
+ * <br>2.1 2026-10-18 Capture freehand strokes incrementally, and fit
+ * them while the user is drawing.
+ * <br>2.0.2 2009-03-15 Finish creation if the user switches to another
  * view.
  * <br>2.0.1 2008-06-08 FittedCurve did not include the point which
  * was digitized on mouse pressed.
@@ -62,6 +74,31 @@ public class BezierTool extends AbstractTool {
     private Point mouseLocation;
     /** Holds the view on which we are currently creating a figure. */
     private DrawingView creationView;
+    /**
+     * Fits a bezier path to the points digitized while the mouse is being
+     * dragged. This is null, if the mouse is not being dragged.
+     */
+    private IncrementalBezierFitter fitter;
+    /**
+     * The points digitized while the mouse is being dragged, as a polyline
+     * in drawing coordinates.
+     */
+    private GeneralPath capturedPath;
+    /**
+     * The points digitized while the mouse is being dragged. This is only
+     * used, if a subclass overrides method calculateFittedCurve.
+     */
+    private BezierPath digitizedPath;
+    private Point2D.Double lastCapturedPoint;
+    /**
+     * True, if a subclass overrides method calculateFittedCurve. Then the
+     * points are fitted by that method when the mouse is released, instead
+     * of incrementally while the user is drawing.
+     */
+    private final boolean isFittedCurveOverridden;
+    private volatile boolean isFitScheduled;
+    /** The executor for fitting bezier paths. */
+    private static ExecutorService fittingExecutor;
 
     /** Creates a new instance. */
     public BezierTool(BezierFigure prototype) {
@@ -81,6 +118,22 @@ public class BezierTool extends AbstractTool {
             name = labels.getString("edit.createFigure.text");
         }
         this.presentationName = name;
+        this.isFittedCurveOverridden = isOverridden("calculateFittedCurve", BezierPath.class);
+    }
+
+    /**
+     * Returns true, if a subclass overrides the specified method.
+     */
+    private boolean isOverridden(String name, Class<?>... parameterTypes) {
+        for (Class<?> c = getClass(); c != BezierTool.class; c = c.getSuperclass()) {
+            try {
+                c.getDeclaredMethod(name, parameterTypes);
+                return true;
+            } catch (NoSuchMethodException e) {
+                // Look at the superclass
+            }
+        }
+        return false;
     }
 
     public String getPresentationName() {
@@ -106,6 +159,7 @@ public class BezierTool extends AbstractTool {
                 }
                 fireAreaInvalidated(r);
             }
+            addCapturedPointsToFigure();
             finishCreation(createdFigure, creationView);
             createdFigure = null;
         }
@@ -126,6 +180,9 @@ public class BezierTool extends AbstractTool {
         mouseLocation = evt.getPoint();
         super.mousePressed(evt);
 
+        if (createdFigure != null) {
+            addCapturedPointsToFigure();
+        }
 
         if (createdFigure != null && creationView != getView()) {
             finishCreation(createdFigure, creationView);
@@ -250,21 +307,7 @@ public class BezierTool extends AbstractTool {
             System.out.println("BezierTool.mouseReleased " + evt);
         }
         isWorking = false;
-        if (createdFigure.getNodeCount() > nodeCountBeforeDrag + 1) {
-            createdFigure.willChange();
-            BezierPath figurePath = createdFigure.getBezierPath();
-            BezierPath digitizedPath = new BezierPath();
-            for (int i = nodeCountBeforeDrag - 1, n = figurePath.size(); i < n; i++) {
-                digitizedPath.add(figurePath.get(nodeCountBeforeDrag - 1));
-                figurePath.remove(nodeCountBeforeDrag - 1);
-            }
-            BezierPath fittedPath = calculateFittedCurve(digitizedPath);
-            //figurePath.addAll(digitizedPath);
-            figurePath.addAll(fittedPath);
-            createdFigure.setBezierPath(figurePath);
-            createdFigure.changed();
-            nodeCountBeforeDrag = createdFigure.getNodeCount();
-        }
+        addCapturedPointsToFigure();
 
         if (finishWhenMouseReleased == Boolean.TRUE) {
             if (createdFigure.getNodeCount() > 1) {
@@ -288,6 +331,114 @@ public class BezierTool extends AbstractTool {
         mouseLocation = evt.getPoint();
     }
 
+    /**
+     * Adds a point digitized while the mouse is being dragged to the
+     * fitter, and repaints the newest segment of the captured polyline.
+     */
+    private void addPointToCapture(Point2D.Double newPoint) {
+        if (fitter == null) {
+            fitter = createFitter();
+            lastCapturedPoint = createdFigure.getEndPoint();
+            fitter.add(lastCapturedPoint);
+            capturedPath = new GeneralPath();
+            capturedPath.moveTo((float) lastCapturedPoint.x, (float) lastCapturedPoint.y);
+            if (isFittedCurveOverridden) {
+                digitizedPath = new BezierPath();
+                digitizedPath.add(new BezierPath.Node(lastCapturedPoint));
+            }
+        }
+        if (newPoint.equals(lastCapturedPoint)) {
+            return;
+        }
+        fitter.add(newPoint);
+        capturedPath.lineTo((float) newPoint.x, (float) newPoint.y);
+        if (digitizedPath != null) {
+            digitizedPath.add(new BezierPath.Node(newPoint));
+        }
+
+        Rectangle2D.Double r = new Rectangle2D.Double(lastCapturedPoint.x, lastCapturedPoint.y, 0, 0);
+        r.add(newPoint);
+        double grow = getCaptureStrokeWidth() / 2d + 2d / getView().getScaleFactor();
+        Geom.grow(r, grow, grow);
+        fireAreaInvalidated(r);
+        lastCapturedPoint = newPoint;
+
+        if (!isFitScheduled && digitizedPath == null) {
+            isFitScheduled = true;
+            final IncrementalBezierFitter f = fitter;
+            getFittingExecutor().execute(new Runnable() {
+
+                public void run() {
+                    isFitScheduled = false;
+                    f.fitSettledSegments();
+                }
+            });
+        }
+    }
+
+    /**
+     * Adds the bezier path fitted to the points digitized while the mouse
+     * was being dragged to the created figure.
+     */
+    private void addCapturedPointsToFigure() {
+        if (fitter == null) {
+            return;
+        }
+        IncrementalBezierFitter f = fitter;
+        BezierPath digitized = digitizedPath;
+        Point2D.Double lastPoint = lastCapturedPoint;
+        Rectangle2D.Double r = new Rectangle2D.Double();
+        r.setRect(capturedPath.getBounds2D());
+        fitter = null;
+        capturedPath = null;
+        digitizedPath = null;
+        lastCapturedPoint = null;
+
+        if (f.size() > 2) {
+            BezierPath fittedPath = (digitized == null) ? f.finish() : calculateFittedCurve(digitized);
+            createdFigure.willChange();
+            BezierPath figurePath = createdFigure.getBezierPath();
+            // The fitted path starts with the last node of the figure
+            figurePath.remove(figurePath.size() - 1);
+            figurePath.addAll(fittedPath);
+            createdFigure.setBezierPath(figurePath);
+            createdFigure.changed();
+        } else if (f.size() == 2) {
+            createdFigure.willChange();
+            createdFigure.addNode(new BezierPath.Node(lastPoint));
+            createdFigure.changed();
+        }
+        nodeCountBeforeDrag = createdFigure.getNodeCount();
+
+        double grow = getCaptureStrokeWidth() / 2d + 2d / creationView.getScaleFactor();
+        Geom.grow(r, grow, grow);
+        fireAreaInvalidated(creationView.drawingToView(r));
+    }
+
+    /**
+     * Returns the width of the polyline, which is drawn while the mouse is
+     * being dragged.
+     */
+    private double getCaptureStrokeWidth() {
+        return Math.max(AttributeKeys.getStrokeTotalWidth(createdFigure),
+                1d / creationView.getScaleFactor());
+    }
+
+    private static synchronized ExecutorService getFittingExecutor() {
+        if (fittingExecutor == null) {
+            fittingExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+
+                public Thread newThread(Runnable r) {
+                    Thread t = new Thread(r, "BezierTool");
+                    t.setDaemon(true);
+                    t.setPriority(Thread.NORM_PRIORITY - 1);
+                    return t;
+                }
+            });
+        }
+        return fittingExecutor;
+    }
+
     protected void finishCreation(BezierFigure createdFigure, DrawingView creationView) {
         fireUndoEvent(createdFigure, creationView);
         creationView.addToSelection(createdFigure);
@@ -302,11 +453,23 @@ public class BezierTool extends AbstractTool {
         }
         int x = evt.getX();
         int y = evt.getY();
-        addPointToFigure(getView().viewToDrawing(new Point(x, y)));
+        if (createdFigure != null) {
+            addPointToCapture(getView().viewToDrawing(new Point(x, y)));
+        }
     }
 
     @Override
     public void draw(Graphics2D g) {
+        if (capturedPath != null && getView() == creationView) {
+            Graphics2D gg = (Graphics2D) g.create();
+            gg.transform(creationView.getDrawingToViewTransform());
+            Color color = AttributeKeys.STROKE_COLOR.get(createdFigure);
+            gg.setColor(color == null ? Color.BLACK : color);
+            gg.setStroke(new BasicStroke((float) getCaptureStrokeWidth(),
+                    BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND));
+            gg.draw(capturedPath);
+            gg.dispose();
+        }
         if (createdFigure != null && //
                 anchor != null && //
                 mouseLocation != null &&//
@@ -338,8 +501,33 @@ public class BezierTool extends AbstractTool {
         }
     }
 
+    /**
+     * Fits a bezier path to the points digitized while the mouse was
+     * being dragged.
+     * <p>
+     * By default, the tool fits the points incrementally while the user is
+     * drawing, and does not invoke this method. If a subclass overrides this
+     * method, the tool invokes it instead, when the mouse is released.
+     *
+     * @param path The digitized points. The first node is the last node of
+     * the figure before the mouse was dragged.
+     * @return The fitted path. Its first node replaces the last node of the
+     * figure.
+     */
     protected BezierPath calculateFittedCurve(BezierPath path) {
-        return Bezier.fitBezierPath(path, 1.5d / getView().getScaleFactor());
+        IncrementalBezierFitter f = createFitter();
+        for (BezierPath.Node node : path) {
+            f.add(new Point2D.Double(node.x[0], node.y[0]));
+        }
+        return f.finish();
+    }
+
+    /**
+     * Creates the fitter for the points digitized while the mouse is being
+     * dragged.
+     */
+    protected IncrementalBezierFitter createFitter() {
+        return new IncrementalBezierFitter(1.5d / getView().getScaleFactor());
     }
 
     public void setToolDoneAfterCreation(boolean b) {
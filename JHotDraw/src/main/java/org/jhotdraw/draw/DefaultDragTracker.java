@@ -41,7 +41,9 @@ import java.util.*;
  * @see SelectionTool
  *
  * @author Werner Randelshofer
- * @version 2.0.1 2007-11-05 Fixed a null pointer exception in method
+ * @version 2.1 2026-10-18 Move the selected figures in a batch of changes
+ * of the drawing.
+ * <br>2.0.1 2007-11-05 Fixed a null pointer exception in method
  * mousePressed which occured, when the user deselected the selected
  * figure using shift-click.
  * <br>2.0 2006-01-14 Changed to support double precision coordinates.
@@ -150,10 +152,16 @@ public class DefaultDragTracker extends AbstractTool implements DragTracker {
                     constrainedRect.x - previousOrigin.x,
                     constrainedRect.y - previousOrigin.y);
             Constrainer c = view.getConstrainer();
-            for (Figure f : view.getSelectedFigures()) {
+            Drawing drawing = view.getDrawing();
+            drawing.beginUpdate();
+            try {
+                for (Figure f : view.getSelectedFigures()) {
                     f.willChange();
                     f.transform(tx);
                     f.changed();
+                }
+            } finally {
+                drawing.endUpdate();
             }
 
             previousPoint = currentPoint;
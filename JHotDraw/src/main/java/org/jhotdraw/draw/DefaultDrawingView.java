@@ -26,17 +26,27 @@ import javax.swing.*;
 import javax.swing.border.EmptyBorder;
 import org.jhotdraw.app.EditableComponent;
 import org.jhotdraw.app.JHotDrawFeatures;
+import org.jhotdraw.geom.RTree;
 import static org.jhotdraw.draw.AttributeKeys.*;
 
 /**
  * The DefaultDrawingView is suited for viewing drawings with a small number
  * of Figures.
  *
+ * The drawing is rendered into the tiles of a {@link DrawingTileCache}. The
+ * tiles are only rendered again in the areas which are invalidated by the
+ * drawing. Handles and tools are drawn on top of the tiles.
+ *
  * FIXME - Implement clone Method.
- * FIXME - Use double buffering for the drawing to improve performance.
  *
  * @author Werner Randelshofer
- * @version 4.6 2009-04-25 Center drawing in view, if view is larger than
+ * @version 4.10 2026-10-18 Repaints of the drawing area requested on a worker
+ * thread are performed on the event dispatcher thread.
+ * <br>4.9 2026-10-18 Create handles only for visible figures, and
+ * use a spatial index for finding handles.
+ * <br>4.8 2026-10-18 Coalesce repaints of the drawing area.
+ * <br>4.7 2026-10-18 Draw the drawing using a tile cache.
+ * <br>4.6 2009-04-25 Center drawing in view, if view is larger than
  * the canvas size.
  * <br>4.5.3 2008-09-01 Use an ordered set for the selected figures.
  * <br>4.5.2 2008-06-09 A DrawingView must not create Handle's, if it
@@ -87,6 +97,27 @@ public class DefaultDrawingView
     private Handle activeHandle;
     private LinkedList<Handle> secondaryHandles = new LinkedList<Handle>();
     private boolean handlesAreValid = true;
+    /**
+     * The figures for which selection handles have been created.
+     */
+    private HashSet<Figure> figuresWithHandles = new HashSet<Figure>();
+    /**
+     * The area of the view for which selection handles have been created.
+     * This is null, if handles have been created for all selected figures.
+     */
+    private Rectangle handlesArea;
+    /**
+     * If more figures are selected, a single outline handle is shown
+     * instead of the handles of the figures.
+     */
+    private int maxFiguresWithHandles = 1000;
+    /**
+     * Spatial index over the selection handles. The index holds the
+     * positions of the handles in the handleIndexList. This is null if the
+     * index needs to be rebuilt.
+     */
+    private transient RTree<Integer> handleIndex;
+    private transient ArrayList<Handle> handleIndexList;
     private transient Dimension cachedPreferredSize;
     private double scaleFactor = 1;
     private Point2D.Double translate = new Point2D.Double(0, 0);
@@ -99,6 +130,23 @@ public class DefaultDrawingView
         public void figureHandlesChanged(FigureEvent e) {
             invalidateHandles();
         }
+
+        @Override
+        public void figureChanged(FigureEvent e) {
+            handleIndex = null;
+
+            // Create the handles of a selected figure, which has been moved
+            // into the area of the view for which handles are created.
+            Figure figure = e.getFigure();
+            if (handlesAreValid && handlesArea != null &&
+                    !figuresWithHandles.contains(figure) &&
+                    selectedFigures.contains(figure) && isInHandlesArea(figure)) {
+                Rectangle invalidatedArea = addHandles(figure, detailLevel, null);
+                if (invalidatedArea != null) {
+                    repaint(invalidatedArea);
+                }
+            }
+        }
     };
     private ChangeListener changeHandler = new ChangeListener() {
 
@@ -107,6 +155,16 @@ public class DefaultDrawingView
         }
     };
     private transient Rectangle2D.Double cachedDrawingArea;
+    /**
+     * Holds the rendered tiles of the drawing. This is null, if the
+     * tile cache is disabled.
+     */
+    private transient DrawingTileCache tileCache = new DrawingTileCache();
+    /**
+     * Coalesces the repaints of the drawing area, and limits them to the
+     * frame rate of the scheduler.
+     */
+    private transient RepaintScheduler repaintScheduler = new RepaintScheduler(this);
 
     public void repaintHandles() {
         validateHandles();
@@ -134,6 +192,7 @@ public class DefaultDrawingView
 
         public void figureAdded(CompositeFigureEvent evt) {
             if (drawing.getChildCount() == 1 && getEmptyDrawingMessage() != null) {
+                invalidateTileCache();
                 repaint();
             } else {
                 repaintDrawingArea(evt.getInvalidatedArea());
@@ -143,6 +202,7 @@ public class DefaultDrawingView
 
         public void figureRemoved(CompositeFigureEvent evt) {
             if (drawing.getChildCount() == 0 && getEmptyDrawingMessage() != null) {
+                invalidateTileCache();
                 repaint();
             } else {
                 repaintDrawingArea(evt.getInvalidatedArea());
@@ -157,6 +217,7 @@ public class DefaultDrawingView
         }
 
         public void areaInvalidated(HandleEvent evt) {
+            handleIndex = null;
             repaint(evt.getInvalidatedArea());
             invalidateDimension();
         }
@@ -185,6 +246,7 @@ public class DefaultDrawingView
 
         public void handleRequestRemove(HandleEvent e) {
             selectionHandles.remove(e.getHandle());
+            handleIndex = null;
             e.getHandle().dispose();
             invalidateHandles();
             repaint(e.getInvalidatedArea());
@@ -195,6 +257,7 @@ public class DefaultDrawingView
                 if (e.getAttribute().equals(CANVAS_HEIGHT) || e.getAttribute().equals(CANVAS_WIDTH)) {
                     validateViewTranslation();
                 }
+                invalidateTileCache();
                 repaint();
             } else {
                 repaintDrawingArea(e.getInvalidatedArea());
@@ -399,13 +462,16 @@ public class DefaultDrawingView
                 emptyDrawingLabel.paint(gr);
             } else {
                 Graphics2D g = (Graphics2D) gr.create();
-                AffineTransform tx = g.getTransform();
-                tx.translate(-translate.x * scaleFactor, -translate.y * scaleFactor);
-                tx.scale(scaleFactor, scaleFactor);
-                g.setTransform(tx);
-
-                drawing.setFontRenderContext(g.getFontRenderContext());
-                drawing.draw(g);
+                if (tileCache == null || isPaintingForPrint() ||
+                        !tileCache.draw(g, drawing, getDrawingToViewTransform())) {
+                    AffineTransform tx = g.getTransform();
+                    tx.translate(-translate.x * scaleFactor, -translate.y * scaleFactor);
+                    tx.scale(scaleFactor, scaleFactor);
+                    g.setTransform(tx);
+
+                    drawing.setFontRenderContext(g.getFontRenderContext());
+                    drawing.draw(g);
+                }
 
                 g.dispose();
             }
@@ -438,6 +504,7 @@ public class DefaultDrawingView
             clearSelection();
         }
         this.drawing = newValue;
+        invalidateTileCache();
         if (this.drawing != null) {
             this.drawing.addCompositeFigureListener(eventHandler);
             this.drawing.addFigureListener(eventHandler);
@@ -458,10 +525,70 @@ public class DefaultDrawingView
         repaint();
     }
 
+    /**
+     * Repaints the specified area of the drawing, and discards the rendered
+     * tiles in that area.
+     * <p>
+     * Figures can be changed on a worker thread. Since the tile cache must
+     * only be used from the event dispatcher thread, this method hops to
+     * the event dispatcher thread, when it is invoked on another thread.
+     */
     protected void repaintDrawingArea(Rectangle2D.Double r) {
+        if (!SwingUtilities.isEventDispatchThread()) {
+            final Rectangle2D.Double area = (Rectangle2D.Double) r.clone();
+            SwingUtilities.invokeLater(new Runnable() {
+
+                public void run() {
+                    repaintDrawingArea(area);
+                }
+            });
+            return;
+        }
         Rectangle vr = drawingToView(r);
         vr.grow(1, 1);
-        repaint(vr);
+        if (tileCache != null) {
+            tileCache.invalidate(vr);
+        }
+        if (repaintScheduler != null) {
+            repaintScheduler.repaint(vr);
+        } else {
+            repaint(vr);
+        }
+    }
+
+    /**
+     * Returns the scheduler which coalesces the repaints of the drawing area.
+     * The scheduler can be used to configure the maximal frame rate, and
+     * to retrieve the number of coalesced repaints.
+     */
+    public RepaintScheduler getRepaintScheduler() {
+        return repaintScheduler;
+    }
+
+    /**
+     * Discards all rendered tiles of the drawing.
+     */
+    protected void invalidateTileCache() {
+        if (tileCache != null) {
+            tileCache.invalidateAll();
+        }
+    }
+
+    /**
+     * Enables or disables the tile cache. If the tile cache is disabled,
+     * the drawing is rendered directly into the view on each paint.
+     */
+    public void setTileCacheEnabled(boolean newValue) {
+        boolean oldValue = isTileCacheEnabled();
+        if (newValue != oldValue) {
+            tileCache = (newValue) ? new DrawingTileCache() : null;
+            firePropertyChange("tileCacheEnabled", oldValue, newValue);
+            repaint();
+        }
+    }
+
+    public boolean isTileCacheEnabled() {
+        return tileCache != null;
     }
 
     @Override
@@ -483,15 +610,11 @@ public class DefaultDrawingView
             Set<Figure> newSelection = new HashSet<Figure>(selectedFigures);
             Rectangle invalidatedArea = null;
             if (handlesAreValid && getEditor() != null) {
-                for (Handle h : figure.createHandles(detailLevel)) {
-                    h.setView(this);
-                    selectionHandles.add(h);
-                    h.addHandleListener(eventHandler);
-                    if (invalidatedArea == null) {
-                        invalidatedArea = h.getDrawingArea();
-                    } else {
-                        invalidatedArea.add(h.getDrawingArea());
-                    }
+                if (selectedFigures.size() > maxFiguresWithHandles) {
+                    invalidateHandles();
+                    repaint();
+                } else {
+                    invalidatedArea = addHandles(figure, null);
                 }
             }
             fireSelectionChanged(oldSelection, newSelection);
@@ -515,15 +638,11 @@ public class DefaultDrawingView
                 newSelection.add(figure);
                 figure.addFigureListener(handleInvalidator);
                 if (handlesAreValid && getEditor() != null) {
-                    for (Handle h : figure.createHandles(detailLevel)) {
-                        h.setView(this);
-                        selectionHandles.add(h);
-                        h.addHandleListener(eventHandler);
-                        if (invalidatedArea == null) {
-                            invalidatedArea = h.getDrawingArea();
-                        } else {
-                            invalidatedArea.add(h.getDrawingArea());
-                        }
+                    if (selectedFigures.size() > maxFiguresWithHandles) {
+                        invalidateHandles();
+                        invalidatedArea = getVisibleRect();
+                    } else {
+                        invalidatedArea = addHandles(figure, invalidatedArea);
                     }
                 }
             }
@@ -669,6 +788,9 @@ public class DefaultDrawingView
             }
             selectionHandles.clear();
             secondaryHandles.clear();
+            figuresWithHandles.clear();
+            handlesArea = null;
+            handleIndex = null;
             setActiveHandle(null);
             if (invalidatedArea != null) {
                 repaint(invalidatedArea);
@@ -678,36 +800,145 @@ public class DefaultDrawingView
 
     /**
      * Validates the handles.
+     * <p>
+     * Handles are only created for the selected figures, which are in the
+     * visible area of the view or near to it. When the visible area is
+     * scrolled beyond the area for which handles have been created, handles
+     * are created for the figures which have become visible.
+     * <p>
+     * If more than {@link #getMaxFiguresWithHandles} figures are selected,
+     * a single {@link SelectionOutlineHandle} is created instead.
      */
     private void validateHandles() {
         // Validate handles only, if they are invalid, and if
         // the DrawingView has a DrawingEditor.
-        if (!handlesAreValid && getEditor() != null) {
+        if (getEditor() == null) {
+            return;
+        }
+        if (!handlesAreValid) {
             handlesAreValid = true;
             selectionHandles.clear();
+            figuresWithHandles.clear();
+            handleIndex = null;
+
+            if (selectedFigures.size() > maxFiguresWithHandles) {
+                Handle handle = new SelectionOutlineHandle(getDrawing());
+                handle.setView(this);
+                selectionHandles.add(handle);
+                handle.addHandleListener(eventHandler);
+                repaint(handle.getDrawingArea());
+                return;
+            }
+
+            handlesArea = createHandlesArea();
             Rectangle invalidatedArea = null;
             int level = detailLevel;
-            do {
+            while (true) {
+                boolean hasVisibleFigures = false;
                 for (Figure figure : getSelectedFigures()) {
-                    for (Handle handle : figure.createHandles(level)) {
-                        handle.setView(this);
-                        selectionHandles.add(handle);
-                        handle.addHandleListener(eventHandler);
-                        if (invalidatedArea == null) {
-                            invalidatedArea = handle.getDrawingArea();
-                        } else {
-                            invalidatedArea.add(handle.getDrawingArea());
-                        }
+                    if (isInHandlesArea(figure)) {
+                        hasVisibleFigures = true;
+                        invalidatedArea = addHandles(figure, level, invalidatedArea);
                     }
                 }
-            } while (level-- > 0 && selectionHandles.size() == 0);
-            detailLevel = level + 1;
+                // Fall back to a lower detail level, if the visible figures
+                // have no handles at this level
+                if (!hasVisibleFigures || selectionHandles.size() > 0 || level == 0) {
+                    break;
+                }
+                level--;
+            }
+            detailLevel = level;
 
             if (invalidatedArea != null) {
                 repaint(invalidatedArea);
             }
+        } else if (handlesArea != null && !handlesArea.contains(getVisibleRect())) {
+            // The view has been scrolled, create the handles of the figures
+            // which have become visible. The handles of the figures which
+            // are not visible anymore are kept.
+            handlesArea = createHandlesArea();
+            Rectangle invalidatedArea = null;
+            for (Figure figure : getSelectedFigures()) {
+                if (!figuresWithHandles.contains(figure) && isInHandlesArea(figure)) {
+                    invalidatedArea = addHandles(figure, detailLevel, invalidatedArea);
+                }
+            }
+            if (invalidatedArea != null) {
+                repaint(invalidatedArea);
+            }
+        }
+    }
+
+    /**
+     * Returns the area of the view for which handles are created. The area
+     * is larger than the visible area, so that handles need not be created
+     * each time the view is scrolled a little bit.
+     *
+     * @return The area, or null if handles must be created for all figures.
+     */
+    private Rectangle createHandlesArea() {
+        Rectangle visibleRect = getVisibleRect();
+        if (visibleRect.isEmpty()) {
+            return null;
         }
+        visibleRect.grow(visibleRect.width / 2, visibleRect.height / 2);
+        return visibleRect;
+    }
 
+    private boolean isInHandlesArea(Figure figure) {
+        return handlesArea == null ||
+                drawingToView(figure.getDrawingArea()).intersects(handlesArea);
+    }
+
+    /**
+     * Creates the handles of a selected figure at the current detail level,
+     * if the figure is in the area for which handles are created.
+     */
+    private Rectangle addHandles(Figure figure, Rectangle invalidatedArea) {
+        if (isInHandlesArea(figure)) {
+            invalidatedArea = addHandles(figure, detailLevel, invalidatedArea);
+        }
+        return invalidatedArea;
+    }
+
+    /**
+     * Creates the handles of a selected figure.
+     *
+     * @return The union of the invalidatedArea and the drawing areas of the
+     * created handles.
+     */
+    private Rectangle addHandles(Figure figure, int level, Rectangle invalidatedArea) {
+        figuresWithHandles.add(figure);
+        for (Handle handle : figure.createHandles(level)) {
+            handle.setView(this);
+            selectionHandles.add(handle);
+            handle.addHandleListener(eventHandler);
+            if (invalidatedArea == null) {
+                invalidatedArea = handle.getDrawingArea();
+            } else {
+                invalidatedArea.add(handle.getDrawingArea());
+            }
+        }
+        handleIndex = null;
+        return invalidatedArea;
+    }
+
+    /**
+     * Sets the maximal number of selected figures, for which individual
+     * handles are created. If more figures are selected, a single outline
+     * around all selected figures is shown instead.
+     */
+    public void setMaxFiguresWithHandles(int newValue) {
+        if (newValue != maxFiguresWithHandles) {
+            maxFiguresWithHandles = newValue;
+            invalidateHandles();
+            repaint();
+        }
+    }
+
+    public int getMaxFiguresWithHandles() {
+        return maxFiguresWithHandles;
     }
 
     /**
@@ -722,14 +953,46 @@ public class DefaultDrawingView
                 return handle;
             }
         }
-        for (Handle handle : new ReversedList<Handle>(getSelectionHandles())) {
-            if (handle.contains(p)) {
-                return handle;
+        if (selectionHandles.size() <= 32) {
+            for (Handle handle : new ReversedList<Handle>(getSelectionHandles())) {
+                if (handle.contains(p)) {
+                    return handle;
+                }
+            }
+        } else {
+            // Handles which were created later are in front of the handles
+            // which were created earlier
+            ArrayList<Integer> found = new ArrayList<Integer>(
+                    getHandleIndex().findContains(new Point2D.Double(p.x, p.y)));
+            Collections.sort(found, Collections.reverseOrder());
+            for (Integer i : found) {
+                Handle handle = handleIndexList.get(i);
+                if (handle.contains(p)) {
+                    return handle;
+                }
             }
         }
         return null;
     }
 
+    /**
+     * Returns the spatial index over the drawing areas of the selection
+     * handles.
+     */
+    private RTree<Integer> getHandleIndex() {
+        if (handleIndex == null) {
+            handleIndexList = new ArrayList<Handle>(selectionHandles);
+            HashMap<Integer, Rectangle2D.Double> bounds = new HashMap<Integer, Rectangle2D.Double>(handleIndexList.size() * 2);
+            for (int i = 0, n = handleIndexList.size(); i < n; i++) {
+                Rectangle r = handleIndexList.get(i).getDrawingArea();
+                bounds.put(i, new Rectangle2D.Double(r.x, r.y, r.width, r.height));
+            }
+            handleIndex = new RTree<Integer>();
+            handleIndex.addAll(bounds);
+        }
+        return handleIndex;
+    }
+
     /**
      * Gets compatible handles.
      * @return A collection containing the handle and all compatible handles.
@@ -980,6 +1243,7 @@ public class DefaultDrawingView
     }
 
     protected void fireViewTransformChanged() {
+        handleIndex = null;
         for (Handle handle : selectionHandles) {
             handle.viewTransformChanged();
         }
@@ -46,7 +46,9 @@ import org.jhotdraw.util.ReversedList;
  * {@link DnDDrawingViewTransferHandler} instead.
  *
  * @author Werner Randelshofer
- * @version 2.0 2009-03-13 Load drawings from files using a worker thread.
+ * @version 2.1 2026-10-18 Read pasted figures in a batch of changes of the
+ * drawing.
+ * <br>2.0 2009-03-13 Load drawings from files using a worker thread.
  * <br>1.2 2008-05-24 Adapted to changes in InputFormat. Add support for
  * automatically grouping
  * <br>1.1.2 2008-03-20 After import, only select imported figures in 
@@ -107,7 +109,12 @@ public class DefaultDrawingViewTransferHandler extends TransferHandler {
                                     System.out.println(this + ".importData importing flavor " + flavor);
                                 }
                                 LinkedList<Figure> existingFigures = new LinkedList<Figure>(drawing.getChildren());
-                                format.read(t, drawing, false);
+                                drawing.beginUpdate();
+                                try {
+                                    format.read(t, drawing, false);
+                                } finally {
+                                    drawing.endUpdate();
+                                }
                                 final LinkedList<Figure> importedFigures = new LinkedList<Figure>(drawing.getChildren());
                                 importedFigures.removeAll(existingFigures);
                                 view.clearSelection();
@@ -41,7 +41,9 @@ import java.io.*;
  * into the clipboard.
  *
  * @author Werner Randelshofer
- * @version 3.2 2009-05-15 Methods taking figure collections as parameters
+ * @version 3.3 2026-10-18 Added methods beginUpdate, endUpdate and
+ * isUpdating.
+ * <br>3.2 2009-05-15 Methods taking figure collections as parameters
  * now take collections of any extensions of figures as parameters.
  * <br>3.1 2009-04-15 Factored canvasSize out into an attribute.
  * <br>3.0 2007-07-17 Refactored Drawing from an independent interface
@@ -293,6 +295,32 @@ public interface Drawing extends CompositeFigure, Serializable, DOMStorable {
      * drawing synchronize to prevent race conditions.
      */
     Object getLock();
+
+    /**
+     * Begins a batch of changes to the figures of the drawing.
+     * <p>
+     * While the drawing is updating, it does not fire events for changes
+     * of its children, and it defers the maintenance of its internal data
+     * structures. When the outermost batch ends, the drawing updates its
+     * data structures and fires a single event for all changes.
+     * <p>
+     * Calls to this method can be nested. Each call must be balanced by
+     * a call to {@link #endUpdate}, preferably in a finally block.
+     */
+    void beginUpdate();
+
+    /**
+     * Ends a batch of changes, which has been started with
+     * {@link #beginUpdate}.
+     *
+     * @throws IllegalStateException if no batch has been started.
+     */
+    void endUpdate();
+
+    /**
+     * Returns true, if a batch of changes has been started and not yet ended.
+     */
+    boolean isUpdating();
     
     /**
      * Adds an input format to the drawing.
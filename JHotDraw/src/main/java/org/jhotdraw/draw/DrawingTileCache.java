@@ -0,0 +1,333 @@
+/*
+ * @(#)DrawingTileCache.java  1.0  2026-10-18
+ *
+ * Copyright (c) 1996-2026 by the original authors of JHotDraw
+ * and all its contributors.
+ * All rights reserved.
+ *
+ * The copyright of this software is owned by the authors and
+ * contributors of the JHotDraw project ("the copyright holders").
+ * You may not use, copy or modify this software, except in
+ * accordance with the license agreement you entered into with
+ * the copyright holders. For details see accompanying license terms.
+ */
+package org.jhotdraw.draw;
+
+import java.awt.*;
+import java.awt.geom.*;
+import java.awt.image.*;
+import java.util.*;
+
+/**
+ * A DrawingTileCache holds rendered images of a drawing in square tiles.
+ * <p>
+ * The tiles are aligned to the device pixels of the view. A tile is only
+ * rendered again, after an area of the view which overlaps the tile has been
+ * invalidated, and then only the invalidated part of the tile is rendered.
+ * All tiles are discarded, when the drawing to view transform or the device
+ * scale of the view changes.
+ * <p>
+ * The cache holds at most a fixed number of tiles. The least recently used
+ * tiles are discarded first. If a paint needs more tiles than the cache can
+ * hold, the cache is not used for that paint.
+ * <p>
+ * The tiles are rendered on the thread which paints the view, because the
+ * figures are not safe for concurrent use while the user edits them.
+ * The graphics of a tile is marked with a rendering hint, so that figures
+ * can tell with {@link #isTileGraphics} that they are drawn on the screen.
+ * <p>
+ * A DrawingTileCache must only be used from the AWT event dispatcher thread.
+ *
+ * @author Werner Randelshofer
+ * @version 1.4 2026-10-18 Use Math.floorDiv for computing tile indices.
+ * <br>1.3 2026-10-18 The graphics of a tile is marked as drawing on the
+ * screen.
+ * <br>1.2 2026-10-18 Render the tiles on the event dispatcher thread.
+ * <br>1.1 2026-10-18 Don't use the tiles, if the visible tiles do not
+ * fit into the cache.
+ * <br>1.0 2026-10-18 Created.
+ */
+public class DrawingTileCache {
+
+    /**
+     * The width and height of a tile in device pixels.
+     */
+    public final static int TILE_SIZE = 256;
+    /**
+     * The rendering hint, which marks the graphics of a tile.
+     */
+    private final static RenderingHints.Key KEY_TILE = new RenderingHints.Key(0) {
+
+        public boolean isCompatibleValue(Object value) {
+            return value == null || value instanceof Boolean;
+        }
+    };
+    /**
+     * The maximal number of tiles held by the cache.
+     */
+    private int maxTiles;
+    /**
+     * The tiles. The key is made of the column and row of the tile.
+     */
+    private LinkedHashMap<Long, Tile> tiles;
+    /**
+     * The drawing to view transform that was used to render the tiles.
+     */
+    private AffineTransform drawingToView;
+    /**
+     * The scale from view coordinates to device pixels that was used to render
+     * the tiles.
+     */
+    private double deviceScale;
+
+    /**
+     * A rendered tile.
+     */
+    private static class Tile {
+
+        /**
+         * The column of the tile.
+         */
+        final int column;
+        /**
+         * The row of the tile.
+         */
+        final int row;
+        final BufferedImage image;
+        /**
+         * The area of the tile which needs to be rendered, in tile
+         * coordinates. This is null if the tile is valid.
+         */
+        Rectangle dirtyArea = new Rectangle(0, 0, TILE_SIZE, TILE_SIZE);
+
+        public Tile(int column, int row, BufferedImage image) {
+            this.column = column;
+            this.row = row;
+            this.image = image;
+        }
+    }
+
+    /** Creates a new instance which holds at most 160 tiles. */
+    public DrawingTileCache() {
+        this(160);
+    }
+
+    /**
+     * Creates a new instance.
+     *
+     * @param maxTiles The maximal number of tiles held by the cache.
+     */
+    public DrawingTileCache(int maxTiles) {
+        this.maxTiles = maxTiles;
+        this.tiles = new LinkedHashMap<Long, Tile>(maxTiles * 2, 0.75f, true);
+    }
+
+    /**
+     * Invalidates the tiles which overlap with the specified area.
+     *
+     * @param viewArea An area in view coordinates.
+     */
+    public void invalidate(Rectangle viewArea) {
+        if (tiles.isEmpty() || viewArea.isEmpty()) {
+            return;
+        }
+        Rectangle deviceArea = toDevice(viewArea);
+        int c0 = Math.floorDiv(deviceArea.x, TILE_SIZE);
+        int r0 = Math.floorDiv(deviceArea.y, TILE_SIZE);
+        int c1 = Math.floorDiv(deviceArea.x + deviceArea.width - 1, TILE_SIZE);
+        int r1 = Math.floorDiv(deviceArea.y + deviceArea.height - 1, TILE_SIZE);
+        if ((long) (c1 - c0 + 1) * (r1 - r0 + 1) > tiles.size()) {
+            for (Tile t : tiles.values()) {
+                if (c0 <= t.column && t.column <= c1 && r0 <= t.row && t.row <= r1) {
+                    invalidate(t, deviceArea);
+                }
+            }
+        } else {
+            for (int r = r0; r <= r1; r++) {
+                for (int c = c0; c <= c1; c++) {
+                    Tile t = tiles.get(key(c, r));
+                    if (t != null) {
+                        invalidate(t, deviceArea);
+                    }
+                }
+            }
+        }
+    }
+
+    private void invalidate(Tile t, Rectangle deviceArea) {
+        Rectangle r = new Rectangle(
+                deviceArea.x - t.column * TILE_SIZE,
+                deviceArea.y - t.row * TILE_SIZE,
+                deviceArea.width, deviceArea.height).intersection(
+                new Rectangle(0, 0, TILE_SIZE, TILE_SIZE));
+        if (!r.isEmpty()) {
+            if (t.dirtyArea == null) {
+                t.dirtyArea = r;
+            } else {
+                t.dirtyArea.add(r);
+            }
+        }
+    }
+
+    /**
+     * Discards all tiles.
+     */
+    public void invalidateAll() {
+        tiles.clear();
+    }
+
+    /**
+     * Draws the drawing using the tiles of the cache. Tiles which are
+     * missing or which are invalid are rendered before they are drawn.
+     * <p>
+     * Tiles can only be used, if the graphics object does not rotate or
+     * shear, and if it scales uniformly.
+     *
+     * @param g The graphics object of the view.
+     * @param drawing The drawing.
+     * @param drawingToView The drawing to view transform.
+     * @return Returns false, if the tiles can not be used with the specified
+     * graphics object, or if the visible tiles do not fit into the cache.
+     * In this case, nothing has been drawn, and the caller should draw the
+     * drawing directly.
+     */
+    public boolean draw(Graphics2D g, Drawing drawing, AffineTransform drawingToView) {
+        AffineTransform gt = g.getTransform();
+        double ds = gt.getScaleX();
+        if (gt.getShearX() != 0 || gt.getShearY() != 0 ||
+                ds != gt.getScaleY() || !(ds > 0)) {
+            return false;
+        }
+        Rectangle clip = g.getClipBounds();
+        if (clip == null) {
+            return false;
+        }
+        if (ds != deviceScale || !drawingToView.equals(this.drawingToView)) {
+            tiles.clear();
+            deviceScale = ds;
+            this.drawingToView = (AffineTransform) drawingToView.clone();
+        }
+
+        Rectangle deviceClip = toDevice(clip);
+        int c0 = Math.floorDiv(deviceClip.x, TILE_SIZE);
+        int r0 = Math.floorDiv(deviceClip.y, TILE_SIZE);
+        int c1 = Math.floorDiv(deviceClip.x + deviceClip.width - 1, TILE_SIZE);
+        int r1 = Math.floorDiv(deviceClip.y + deviceClip.height - 1, TILE_SIZE);
+        long tileCount = (long) (c1 - c0 + 1) * (r1 - r0 + 1);
+        if (tileCount > maxTiles) {
+            // The tiles would evict each other on every paint, and each
+            // tile would draw the whole drawing. Drawing the drawing once
+            // is cheaper.
+            return false;
+        }
+
+        // Draw in device pixels, so that tiles are blitted without scaling
+        Graphics2D dg = (Graphics2D) g.create();
+        dg.scale(1d / ds, 1d / ds);
+        for (int r = r0; r <= r1; r++) {
+            for (int c = c0; c <= c1; c++) {
+                Tile t = getTile(g, c, r);
+                if (t.dirtyArea != null) {
+                    render(g, t, drawing);
+                }
+                dg.drawImage(t.image, c * TILE_SIZE, r * TILE_SIZE, null);
+            }
+        }
+        dg.dispose();
+        return true;
+    }
+
+    /**
+     * Returns the transform from drawing coordinates into the coordinates
+     * of the specified tile.
+     */
+    private AffineTransform getTileTransform(Tile t) {
+        AffineTransform tx = new AffineTransform();
+        tx.translate(-t.column * TILE_SIZE, -t.row * TILE_SIZE);
+        tx.scale(deviceScale, deviceScale);
+        tx.concatenate(drawingToView);
+        return tx;
+    }
+
+    /**
+     * Gets the specified tile. Creates a new tile, if the cache does
+     * not contain the tile.
+     */
+    private Tile getTile(Graphics2D g, int column, int row) {
+        Long key = key(column, row);
+        Tile t = tiles.get(key);
+        if (t == null) {
+            BufferedImage image = null;
+            if (tiles.size() >= maxTiles) {
+                // Reuse the image of the least recently used tile
+                Iterator<Tile> i = tiles.values().iterator();
+                image = i.next().image;
+                i.remove();
+            } else {
+                GraphicsConfiguration gc = g.getDeviceConfiguration();
+                if (gc != null) {
+                    image = gc.createCompatibleImage(TILE_SIZE, TILE_SIZE, Transparency.TRANSLUCENT);
+                }
+                if (image == null) {
+                    image = new BufferedImage(TILE_SIZE, TILE_SIZE, BufferedImage.TYPE_INT_ARGB_PRE);
+                }
+            }
+            t = new Tile(column, row, image);
+            tiles.put(key, t);
+        }
+        return t;
+    }
+
+    /**
+     * Renders the dirty area of a tile.
+     */
+    private void render(Graphics2D g, Tile t, Drawing drawing) {
+        Graphics2D tg = t.image.createGraphics();
+        tg.setRenderingHints(g.getRenderingHints());
+        tg.setRenderingHint(KEY_TILE, Boolean.TRUE);
+        Rectangle dirty = t.dirtyArea;
+        tg.setComposite(AlphaComposite.Clear);
+        tg.fillRect(dirty.x, dirty.y, dirty.width, dirty.height);
+        tg.setComposite(AlphaComposite.SrcOver);
+        tg.clipRect(dirty.x, dirty.y, dirty.width, dirty.height);
+        tg.transform(getTileTransform(t));
+        drawing.setFontRenderContext(tg.getFontRenderContext());
+        drawing.draw(tg);
+        tg.dispose();
+        t.dirtyArea = null;
+    }
+
+    /**
+     * Returns true, if the specified graphics draws into a tile of a
+     * DrawingTileCache. The tiles are drawn on the screen.
+     */
+    public static boolean isTileGraphics(Graphics2D g) {
+        return g.getRenderingHint(KEY_TILE) == Boolean.TRUE;
+    }
+
+    /**
+     * Removes the mark of a tile from the specified graphics. This must be
+     * done by figures, which copy the rendering hints of a tile into the
+     * graphics of an image that they keep for later use.
+     */
+    public static void unmarkTileGraphics(Graphics2D g) {
+        if (isTileGraphics(g)) {
+            g.setRenderingHint(KEY_TILE, null);
+        }
+    }
+
+    /**
+     * Converts a rectangle from view coordinates to device pixels.
+     */
+    private Rectangle toDevice(Rectangle r) {
+        int x0 = (int) Math.floor(r.x * deviceScale);
+        int y0 = (int) Math.floor(r.y * deviceScale);
+        int x1 = (int) Math.ceil((r.x + r.width) * deviceScale);
+        int y1 = (int) Math.ceil((r.y + r.height) * deviceScale);
+        return new Rectangle(x0, y0, x1 - x0, y1 - y0);
+    }
+
+    private static Long key(int column, int row) {
+        return ((long) column << 32) | (row & 0xffffffffL);
+    }
+}
@@ -31,7 +31,8 @@ import org.jhotdraw.io.*;
  * supported by javax.imageio.
  *
  * @author Werner Randelshofer
- * @version 1.1 2007-12-16 Adapted to changes in OutputFormat. 
+ * @version 1.2 2026-10-18 Render large images with a ParallelTileRenderer.
+ * <br>1.1 2007-12-16 Adapted to changes in OutputFormat. 
  * Added support for AttributeKeys.CANVAS_FILL_COLOR.
  * <br>1.0 January 2, 2007 Created.
  */
@@ -53,6 +54,14 @@ public class ImageOutputFormat implements OutputFormat {
      * BufferedImage.TYPE_INT_ARGB whereas GIF needs BufferedImage.TYPE_
      */
     private int imageType;
+    /**
+     * Images with more pixels than this are rendered in parallel.
+     */
+    private final static int PARALLEL_RENDERING_THRESHOLD = 1024 * 1024;
+    /**
+     * The renderer used for large images.
+     */
+    private ParallelTileRenderer renderer = new ParallelTileRenderer();
     
     /** Creates a new image output format for Portable Network Graphics PNG. */
     public ImageOutputFormat() {
@@ -252,11 +261,17 @@ public class ImageOutputFormat implements OutputFormat {
         
         // Draw the figures onto the buffered image
         setRenderingHints(g);
-        g.transform(transform);
-        for (Figure f : figures) {
-            f.draw(g);
+        if ((long) imageSize.width * imageSize.height > PARALLEL_RENDERING_THRESHOLD) {
+            RenderingHints hints = g.getRenderingHints();
+            g.dispose();
+            renderer.render(figures, transform, buf, hints);
+        } else {
+            g.transform(transform);
+            for (Figure f : figures) {
+                f.draw(g);
+            }
+            g.dispose();
         }
-        g.dispose();
         
         // Convert the image, if it does not have the specified image type
         if (imageType != BufferedImage.TYPE_INT_ARGB) {
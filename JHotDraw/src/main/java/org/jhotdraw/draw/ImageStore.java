@@ -0,0 +1,555 @@
+/*
+ * @(#)ImageStore.java  1.0  2026-10-18
+ *
+ * Copyright (c) 1996-2026 by the original authors of JHotDraw
+ * and all its contributors.
+ * All rights reserved.
+ *
+ * The copyright of this software is owned by the authors and
+ * contributors of the JHotDraw project ("the copyright holders").
+ * You may not use, copy or modify this software, except in
+ * accordance with the license agreement you entered into with
+ * the copyright holders. For details see accompanying license terms.
+ */
+package org.jhotdraw.draw;
+
+import java.awt.Dimension;
+import java.awt.image.*;
+import java.io.*;
+import java.lang.ref.*;
+import java.security.*;
+import java.util.*;
+import javax.imageio.*;
+import javax.imageio.stream.*;
+
+/**
+ * An ImageStore holds the images of ImageHolderFigures.
+ * <p>
+ * The images are stored by the content of their encoded image data. Figures
+ * which hold identical image data share the same {@link Entry}. An entry
+ * keeps the encoded image data, and decodes it lazily. When the image is
+ * drawn at a reduced scale, the image data can be decoded with subsampling.
+ * <p>
+ * The most recently used decoded images are kept in a cache, which is
+ * bounded by the number of bytes of the decoded images. Decoded images,
+ * which drop out of the cache, are only softly referenced, and are decoded
+ * again, when they are needed after being garbage collected.
+ * <p>
+ * Entries are only weakly referenced by the store. An entry is discarded,
+ * when it is no longer referenced by a figure or by an undoable edit.
+ * <p>
+ * This class is thread safe.
+ *
+ * @author Werner Randelshofer
+ * @version 1.1 2026-10-18 Added serialVersionUID to Entry.
+ * <br>1.0 2026-10-18 Created.
+ */
+public class ImageStore {
+
+    /**
+     * The default maximal number of bytes of the decoded images, which are
+     * kept in the cache.
+     */
+    public final static long DEFAULT_MAX_DECODED_BYTES = 64L * 1024L * 1024L;
+    private static ImageStore instance;
+    /**
+     * Maps the hash of the image data to a weak reference of the entry.
+     */
+    private final HashMap<String, EntryReference> entries = new HashMap<String, EntryReference>();
+    private final ReferenceQueue<Entry> queue = new ReferenceQueue<Entry>();
+    /**
+     * The most recently used decoded images.
+     */
+    private final LinkedHashMap<DecodedKey, BufferedImage> decoded = new LinkedHashMap<DecodedKey, BufferedImage>(16, 0.75f, true);
+    private long decodedBytes;
+    private long maxDecodedBytes = DEFAULT_MAX_DECODED_BYTES;
+    private long decodeCount;
+
+    private static class EntryReference extends WeakReference<Entry> {
+
+        private String hash;
+
+        public EntryReference(Entry entry, ReferenceQueue<Entry> queue) {
+            super(entry, queue);
+            this.hash = entry.hash;
+        }
+    }
+
+    private static class DecodedKey {
+
+        private Entry entry;
+        private int subsampling;
+
+        public DecodedKey(Entry entry, int subsampling) {
+            this.entry = entry;
+            this.subsampling = subsampling;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (o instanceof DecodedKey) {
+                DecodedKey that = (DecodedKey) o;
+                return that.entry == this.entry && that.subsampling == this.subsampling;
+            }
+            return false;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(entry) * 31 + subsampling;
+        }
+    }
+
+    /**
+     * An entry of the image store. An entry is immutable, and can thus be
+     * shared by any number of figures.
+     */
+    public static class Entry implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+        private transient ImageStore store;
+        /**
+         * The encoded image data. This is null, if the entry has been
+         * created from a buffered image, and the image has not been
+         * encoded yet.
+         */
+        private byte[] data;
+        private transient String hash;
+        /**
+         * The image, if the entry has been created from a buffered image,
+         * and the image has not been encoded yet.
+         */
+        private transient BufferedImage pinnedImage;
+        /**
+         * Softly referenced decoded images. The key is the subsampling.
+         */
+        private transient HashMap<Integer, SoftReference<BufferedImage>> images;
+        private transient int width = -2;
+        private transient int height = -2;
+        private transient boolean isBroken;
+
+        private Entry(ImageStore store, byte[] data, String hash) {
+            this.store = store;
+            this.data = data;
+            this.hash = hash;
+        }
+
+        private Entry(ImageStore store, BufferedImage image) {
+            this.store = store;
+            this.pinnedImage = image;
+            this.width = image.getWidth();
+            this.height = image.getHeight();
+        }
+
+        /**
+         * Returns the encoded image data. If the entry has been created
+         * from a buffered image, this method encodes the image as PNG when
+         * it is invoked for the first time.
+         * <p>
+         * The returned array is shared and must not be modified.
+         *
+         * @return The image data, or null if the image can not be encoded.
+         */
+        public synchronized byte[] getData() {
+            if (data == null && pinnedImage != null) {
+                try {
+                    ByteArrayOutputStream bout = new ByteArrayOutputStream();
+                    ImageIO.write(pinnedImage, "PNG", bout);
+                    bout.close();
+                    data = bout.toByteArray();
+                    hash = computeHash(data);
+                    // Now that we have the image data, the image can be
+                    // evicted from memory, and decoded again, if needed.
+                    store.putDecoded(this, 1, pinnedImage);
+                    pinnedImage = null;
+                    store.register(this);
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }
+            return data;
+        }
+
+        /**
+         * Returns a hash of the image data, or null if the image data has
+         * not been encoded yet.
+         */
+        public synchronized String getHash() {
+            return hash;
+        }
+
+        /**
+         * Returns the width of the image in pixels, without decoding the
+         * image. Returns -1 if the image data can not be read.
+         */
+        public int getWidth() {
+            readSize();
+            return width;
+        }
+
+        /**
+         * Returns the height of the image in pixels, without decoding the
+         * image. Returns -1 if the image data can not be read.
+         */
+        public int getHeight() {
+            readSize();
+            return height;
+        }
+
+        private synchronized void readSize() {
+            if (width == -2) {
+                Dimension d = ImageStore.readSize(data);
+                if (d == null) {
+                    width = height = -1;
+                } else {
+                    width = d.width;
+                    height = d.height;
+                }
+            }
+        }
+
+        /**
+         * Returns the image at full resolution.
+         *
+         * @return The image, or null if the image data can not be decoded.
+         */
+        public BufferedImage getImage() {
+            return getImage(1);
+        }
+
+        /**
+         * Returns the image decoded with the specified subsampling.
+         * A subsampling of n reads every n-th pixel of every n-th line of
+         * the image data.
+         *
+         * @return The image, or null if the image data can not be decoded.
+         */
+        public BufferedImage getImage(int subsampling) {
+            subsampling = Math.max(1, subsampling);
+            synchronized (this) {
+                if (pinnedImage != null) {
+                    return pinnedImage;
+                }
+                if (isBroken || data == null) {
+                    return null;
+                }
+                // Don't subsample below one pixel
+                readSize();
+                while (subsampling > 1 &&
+                        (width / subsampling < 1 || height / subsampling < 1)) {
+                    subsampling /= 2;
+                }
+            }
+            BufferedImage image = store.getDecoded(this, subsampling);
+            if (image == null) {
+                synchronized (this) {
+                    // Another thread may have decoded the image in between
+                    if (images != null && images.get(subsampling) != null) {
+                        image = images.get(subsampling).get();
+                    }
+                    if (image == null) {
+                        try {
+                            image = decode(data, subsampling);
+                        } catch (Throwable e) {
+                            // We must catch all throwables, because
+                            // ImageIO may throw runtime exceptions and
+                            // errors on malformed image data.
+                            e.printStackTrace();
+                        }
+                        if (image == null) {
+                            isBroken = true;
+                            return null;
+                        }
+                        synchronized (store) {
+                            store.decodeCount++;
+                        }
+                    }
+                }
+                store.putDecoded(this, subsampling, image);
+            }
+            return image;
+        }
+
+        private synchronized BufferedImage getSoftImage(int subsampling) {
+            SoftReference<BufferedImage> ref = (images == null) ? null : images.get(subsampling);
+            return (ref == null) ? null : ref.get();
+        }
+
+        private synchronized void putSoftImage(int subsampling, BufferedImage image) {
+            if (images == null) {
+                images = new HashMap<Integer, SoftReference<BufferedImage>>();
+            }
+            images.put(subsampling, new SoftReference<BufferedImage>(image));
+        }
+
+        /**
+         * Returns true, if the image data could not be decoded.
+         */
+        public synchronized boolean isBroken() {
+            return isBroken;
+        }
+
+        private void writeObject(ObjectOutputStream out) throws IOException {
+            getData();
+            out.defaultWriteObject();
+        }
+
+        /**
+         * Replaces a deserialized entry by the shared entry of the default
+         * image store.
+         */
+        private Object readResolve() throws ObjectStreamException {
+            return (data == null) ? null : ImageStore.getDefault().put(data);
+        }
+    }
+
+    /** Creates a new instance. */
+    public ImageStore() {
+    }
+
+    /**
+     * Returns the image store, which is shared by all drawings.
+     */
+    public static synchronized ImageStore getDefault() {
+        if (instance == null) {
+            instance = new ImageStore();
+        }
+        return instance;
+    }
+
+    /**
+     * Returns the entry for the specified image data. If the store already
+     * has an entry with identical image data, that entry is returned.
+     * <p>
+     * The image data must not be modified after it has been put into the
+     * store.
+     */
+    public Entry put(byte[] data) {
+        String hash = computeHash(data);
+        synchronized (this) {
+            expungeStaleEntries();
+            EntryReference ref = entries.get(hash);
+            Entry entry = (ref == null) ? null : ref.get();
+            if (entry == null) {
+                entry = new Entry(this, data, hash);
+                entries.put(hash, new EntryReference(entry, queue));
+            }
+            return entry;
+        }
+    }
+
+    /**
+     * Returns the entry for the specified image data, and puts the
+     * specified decoded image into the cache of the entry.
+     *
+     * @param data The encoded image data.
+     * @param image The image decoded from the data.
+     */
+    public Entry put(byte[] data, BufferedImage image) {
+        Entry entry = put(data);
+        if (entry.getSoftImage(1) == null) {
+            putDecoded(entry, 1, image);
+        }
+        return entry;
+    }
+
+    /**
+     * Returns a new entry for the specified buffered image. The image is
+     * kept in memory until the entry is asked for its image data.
+     */
+    public Entry put(BufferedImage image) {
+        return new Entry(this, image);
+    }
+
+    /**
+     * Sets the maximal number of bytes of the decoded images, which are
+     * kept in the cache.
+     */
+    public synchronized void setMaxDecodedBytes(long newValue) {
+        maxDecodedBytes = newValue;
+        trimDecoded();
+    }
+
+    public synchronized long getMaxDecodedBytes() {
+        return maxDecodedBytes;
+    }
+
+    /**
+     * Returns the number of bytes of the decoded images in the cache.
+     */
+    public synchronized long getDecodedBytes() {
+        return decodedBytes;
+    }
+
+    /**
+     * Returns the number of entries with encoded image data in the store.
+     */
+    public synchronized int getEntryCount() {
+        expungeStaleEntries();
+        return entries.size();
+    }
+
+    /**
+     * Returns the number of images, which have been decoded by the store.
+     */
+    public synchronized long getDecodeCount() {
+        return decodeCount;
+    }
+
+    /**
+     * Removes all decoded images from the cache.
+     */
+    public synchronized void clearDecoded() {
+        decoded.clear();
+        decodedBytes = 0;
+    }
+
+    /**
+     * Returns the subsampling for drawing an image at the specified scale.
+     * The subsampling is the largest power of two, which is not greater
+     * than 1 / scale.
+     *
+     * @param scale The number of device pixels per image pixel.
+     */
+    public static int getSubsampling(double scale) {
+        int subsampling = 1;
+        if (scale > 0) {
+            while (subsampling < 1024 && subsampling * 2 * scale <= 1d) {
+                subsampling *= 2;
+            }
+        }
+        return subsampling;
+    }
+
+    /**
+     * Reads the size of an image from the header of the image data.
+     *
+     * @return The size of the image, or null if the image data can not be
+     * read.
+     */
+    public static Dimension readSize(byte[] data) {
+        if (data == null) {
+            return null;
+        }
+        ImageReader reader = null;
+        try {
+            ImageInputStream in = ImageIO.createImageInputStream(new ByteArrayInputStream(data));
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(in);
+            if (!readers.hasNext()) {
+                return null;
+            }
+            reader = readers.next();
+            reader.setInput(in, true, true);
+            return new Dimension(reader.getWidth(0), reader.getHeight(0));
+        } catch (Throwable e) {
+            return null;
+        } finally {
+            if (reader != null) {
+                reader.dispose();
+            }
+        }
+    }
+
+    private static BufferedImage decode(byte[] data, int subsampling) throws IOException {
+        ImageInputStream in = ImageIO.createImageInputStream(new ByteArrayInputStream(data));
+        Iterator<ImageReader> readers = ImageIO.getImageReaders(in);
+        if (!readers.hasNext()) {
+            return null;
+        }
+        ImageReader reader = readers.next();
+        try {
+            reader.setInput(in, true, true);
+            ImageReadParam param = reader.getDefaultReadParam();
+            if (subsampling > 1) {
+                param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+            }
+            return reader.read(0, param);
+        } finally {
+            reader.dispose();
+        }
+    }
+
+    private static String computeHash(byte[] data) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-1").digest(data);
+            StringBuilder buf = new StringBuilder(digest.length * 2 + 9);
+            for (byte b : digest) {
+                buf.append(Character.forDigit((b >>> 4) & 0xf, 16));
+                buf.append(Character.forDigit(b & 0xf, 16));
+            }
+            // Include the length, to make collisions even less likely
+            buf.append(':');
+            buf.append(data.length);
+            return buf.toString();
+        } catch (NoSuchAlgorithmException e) {
+            InternalError error = new InternalError("SHA-1 not supported");
+            error.initCause(e);
+            throw error;
+        }
+    }
+
+    /**
+     * Registers an entry, which has been created from a buffered image,
+     * after its image data has been encoded.
+     */
+    private synchronized void register(Entry entry) {
+        expungeStaleEntries();
+        EntryReference ref = entries.get(entry.hash);
+        if (ref == null || ref.get() == null) {
+            entries.put(entry.hash, new EntryReference(entry, queue));
+        }
+    }
+
+    private void expungeStaleEntries() {
+        for (Reference<? extends Entry> r = queue.poll(); r != null; r = queue.poll()) {
+            EntryReference ref = (EntryReference) r;
+            if (entries.get(ref.hash) == ref) {
+                entries.remove(ref.hash);
+            }
+        }
+    }
+
+    private BufferedImage getDecoded(Entry entry, int subsampling) {
+        synchronized (this) {
+            BufferedImage image = decoded.get(new DecodedKey(entry, subsampling));
+            if (image != null) {
+                return image;
+            }
+        }
+        BufferedImage image = entry.getSoftImage(subsampling);
+        if (image != null) {
+            // The image is still softly reachable. Move it back into the
+            // cache.
+            putDecoded(entry, subsampling, image);
+        }
+        return image;
+    }
+
+    private void putDecoded(Entry entry, int subsampling, BufferedImage image) {
+        entry.putSoftImage(subsampling, image);
+        synchronized (this) {
+            DecodedKey key = new DecodedKey(entry, subsampling);
+            BufferedImage old = decoded.put(key, image);
+            if (old == null) {
+                decodedBytes += getByteCount(image);
+            } else {
+                decodedBytes += getByteCount(image) - getByteCount(old);
+            }
+            trimDecoded();
+        }
+    }
+
+    private void trimDecoded() {
+        for (Iterator<BufferedImage> i = decoded.values().iterator();
+                decodedBytes > maxDecodedBytes && i.hasNext();) {
+            BufferedImage image = i.next();
+            decodedBytes -= getByteCount(image);
+            i.remove();
+        }
+    }
+
+    private static long getByteCount(BufferedImage image) {
+        DataBuffer buf = image.getRaster().getDataBuffer();
+        return (long) buf.getSize() * buf.getNumBanks() * DataBuffer.getDataTypeSize(buf.getDataType()) / 8;
+    }
+}
@@ -0,0 +1,229 @@
+/*
+ * @(#)ParallelTileRenderer.java  1.0  2026-10-18
+ *
+ * Copyright (c) 1996-2026 by the original authors of JHotDraw
+ * and all its contributors.
+ * All rights reserved.
+ *
+ * The copyright of this software is owned by the authors and
+ * contributors of the JHotDraw project ("the copyright holders").
+ * You may not use, copy or modify this software, except in
+ * accordance with the license agreement you entered into with
+ * the copyright holders. For details see accompanying license terms.
+ */
+package org.jhotdraw.draw;
+
+import java.awt.*;
+import java.awt.geom.*;
+import java.awt.image.*;
+import java.util.*;
+import java.util.List;
+import java.util.concurrent.*;
+import org.jhotdraw.geom.RTree;
+
+/**
+ * A ParallelTileRenderer renders figures into disjoint tiles of images
+ * using the threads of a {@link ForkJoinPool}.
+ * <p>
+ * The figures of each tile are determined on the calling thread, and then
+ * the tiles are rasterized concurrently. Since all tiles write into disjoint
+ * areas of the images, the tiles can share the same image.
+ * <p>
+ * The figures must not be changed while they are being rendered. Therefore
+ * a ParallelTileRenderer must not be used to render the figures of a
+ * drawing, which is shown in an editable view.
+ * <p>
+ * Many figures compute cached state lazily, for example their path or their
+ * drawing area. This state is not safe for concurrent publication. Method
+ * {@link #render(List, AffineTransform, BufferedImage, RenderingHints)}
+ * computes the drawing area of all figures on the calling thread before the
+ * tiles are rendered. Callers of {@link #render(List, RenderingHints)} must
+ * do the same.
+ *
+ * @author Werner Randelshofer
+ * @version 1.1 2026-10-18 Document that the renderer must not be used with
+ * editable views.
+ * <br>1.0 2026-10-18 Created.
+ */
+public class ParallelTileRenderer {
+
+    /**
+     * The default width and height of a tile in pixels.
+     */
+    public final static int DEFAULT_TILE_SIZE = 256;
+    private ForkJoinPool pool;
+    private int tileSize;
+
+    /**
+     * A job renders a list of figures into an area of an image.
+     */
+    public static class TileJob {
+
+        private final BufferedImage image;
+        private final Rectangle area;
+        private final AffineTransform transform;
+        private final List<Figure> figures;
+        private final boolean clear;
+
+        /**
+         * Creates a new job.
+         *
+         * @param image The image.
+         * @param area The area of the image into which the figures are
+         * rendered.
+         * @param transform The transform from drawing coordinates into
+         * image coordinates.
+         * @param figures The figures in z-order from back to front.
+         * @param clear Whether the area is cleared to transparent before the
+         * figures are rendered.
+         */
+        public TileJob(BufferedImage image, Rectangle area,
+                AffineTransform transform, List<Figure> figures, boolean clear) {
+            this.image = image;
+            this.area = area;
+            this.transform = transform;
+            this.figures = figures;
+            this.clear = clear;
+        }
+    }
+
+    /** Creates a new instance which uses the common fork join pool. */
+    public ParallelTileRenderer() {
+        this(ForkJoinPool.commonPool(), DEFAULT_TILE_SIZE);
+    }
+
+    /**
+     * Creates a new instance.
+     *
+     * @param pool The pool which renders the tiles.
+     * @param tileSize The width and height of a tile in pixels.
+     */
+    public ParallelTileRenderer(ForkJoinPool pool, int tileSize) {
+        this.pool = pool;
+        this.tileSize = tileSize;
+    }
+
+    public int getTileSize() {
+        return tileSize;
+    }
+
+    /**
+     * Renders the specified figures into the image.
+     * <p>
+     * The image is split into tiles. A spatial index is used to find the
+     * figures which intersect with each tile.
+     *
+     * @param figures The figures in z-order from back to front.
+     * @param transform The transform from drawing coordinates into image
+     * coordinates.
+     * @param image The image.
+     * @param hints The rendering hints.
+     */
+    public void render(List<Figure> figures, AffineTransform transform,
+            BufferedImage image, RenderingHints hints) {
+        AffineTransform inverse;
+        try {
+            inverse = transform.createInverse();
+        } catch (NoninvertibleTransformException e) {
+            // Nothing can be seen
+            return;
+        }
+
+        // Index the figures by their position in the list, so that the
+        // figures of a tile can be sorted back into z-order. Computing the
+        // drawing areas here also fills the lazily computed caches of the
+        // figures before they are shared with the worker threads.
+        RTree<Integer> index = new RTree<Integer>();
+        HashMap<Integer, Rectangle2D.Double> bounds = new HashMap<Integer, Rectangle2D.Double>(figures.size() * 2);
+        for (int i = 0, n = figures.size(); i < n; i++) {
+            bounds.put(i, figures.get(i).getDrawingArea());
+        }
+        index.addAll(bounds);
+
+        ArrayList<TileJob> jobs = new ArrayList<TileJob>();
+        for (int y = 0, h = image.getHeight(); y < h; y += tileSize) {
+            for (int x = 0, w = image.getWidth(); x < w; x += tileSize) {
+                Rectangle area = new Rectangle(x, y,
+                        Math.min(tileSize, w - x), Math.min(tileSize, h - y));
+                Rectangle2D r = inverse.createTransformedShape(new Rectangle(
+                        area.x - 1, area.y - 1, area.width + 2, area.height + 2)).getBounds2D();
+                ArrayList<Integer> found = new ArrayList<Integer>(index.findIntersects(r));
+                if (!found.isEmpty()) {
+                    Collections.sort(found);
+                    ArrayList<Figure> tileFigures = new ArrayList<Figure>(found.size());
+                    for (Integer i : found) {
+                        tileFigures.add(figures.get(i));
+                    }
+                    jobs.add(new TileJob(image, area, transform, tileFigures, false));
+                }
+            }
+        }
+        render(jobs, hints);
+    }
+
+    /**
+     * Renders the specified jobs. Returns after all jobs have been rendered.
+     * The areas of the jobs must not overlap.
+     */
+    public void render(List<TileJob> jobs, RenderingHints hints) {
+        if (jobs.size() < 2 || pool.getParallelism() < 2) {
+            for (TileJob job : jobs) {
+                render(job, hints);
+            }
+        } else {
+            pool.invoke(new RenderTask(jobs, hints));
+        }
+    }
+
+    /**
+     * Renders a single job.
+     */
+    protected void render(TileJob job, RenderingHints hints) {
+        Rectangle area = job.area;
+        BufferedImage tile = job.image.getSubimage(area.x, area.y, area.width, area.height);
+        Graphics2D g = tile.createGraphics();
+        if (hints != null) {
+            g.setRenderingHints(hints);
+        }
+        if (job.clear) {
+            g.setComposite(AlphaComposite.Clear);
+            g.fillRect(0, 0, area.width, area.height);
+            g.setComposite(AlphaComposite.SrcOver);
+        }
+        g.translate(-area.x, -area.y);
+        g.transform(job.transform);
+        for (Figure f : job.figures) {
+            if (f.isVisible()) {
+                f.draw(g);
+            }
+        }
+        g.dispose();
+    }
+
+    /**
+     * Renders a range of jobs, and splits the range until it contains
+     * only one job.
+     */
+    private class RenderTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+        private final List<TileJob> jobs;
+        private final RenderingHints hints;
+
+        public RenderTask(List<TileJob> jobs, RenderingHints hints) {
+            this.jobs = jobs;
+            this.hints = hints;
+        }
+
+        @Override
+        protected void compute() {
+            if (jobs.size() == 1) {
+                render(jobs.get(0), hints);
+            } else {
+                int half = jobs.size() / 2;
+                invokeAll(new RenderTask(jobs.subList(0, half), hints),
+                        new RenderTask(jobs.subList(half, jobs.size()), hints));
+            }
+        }
+    }
+}
@@ -15,7 +15,8 @@ package org.jhotdraw.draw;
 
 import dk.sdu.mmmi.featuretracer.lib.FeatureEntryPoint;
 import org.jhotdraw.geom.Dimension2DDouble;
-import org.jhotdraw.geom.QuadTree;
+import org.jhotdraw.geom.RTree;
+import org.jhotdraw.geom.SpatialIndex;
 import java.awt.*;
 import java.awt.geom.*;
 import org.jhotdraw.util.*;
@@ -24,11 +25,23 @@ import org.jhotdraw.app.JHotDrawFeatures;
 import org.jhotdraw.geom.Geom;
 
 /**
- * QuadTreeDrawing uses a QuadTree2DDouble to improve responsiveness of drawings
- * which contain many children.
+ * QuadTreeDrawing uses a {@link SpatialIndex} to improve responsiveness of
+ * drawings which contain many children.
+ * <p>
+ * Despite its name, QuadTreeDrawing uses an {@link RTree} as its spatial
+ * index, because an RTree does not need to know the extent of the drawing
+ * in advance, and because it can be bulk-loaded when many figures are
+ * added at once.
  *
  * @author Werner Randelshofer
- * @version 2.2.2 2009-04-04 draw() method did not check isVisible() property.
+ * @version 2.5 2026-10-18 Defer updates of the spatial index during a
+ * batch of changes.
+ * <br>2.4 2026-10-18 Children carry a z-index, so that the
+ * results of spatial queries can be sorted without scanning all children.
+ * <br>2.3 2026-10-18 Replaced QuadTree by SpatialIndex. Figures added
+ * with addAll are bulk-loaded into the index. Changed figures are updated
+ * in place in the index. Fixed cloning of the spatial index.
+ * <br>2.2.2 2009-04-04 draw() method did not check isVisible() property.
  * <br>2.2.1 2008-03-26 Fixed NullPointerException when setting the
  * canvas size. Fixed cloning of quadTree and canvasSize. 
  * <br>2.2 2007-04-09 Added methods setCanvasSize, getCanvasSize.
@@ -39,39 +52,175 @@ import org.jhotdraw.geom.Geom;
  */
 public class QuadTreeDrawing extends AbstractDrawing {
 
-    private QuadTree<Figure> quadTree = new QuadTree<Figure>();
+    /**
+     * The gap between the z-indices of adjacent children after the
+     * z-indices have been renumbered. The gap allows to insert children
+     * between two other children without having to renumber all children.
+     */
+    private final static long Z_INDEX_GAP = 1L << 16;
+    private SpatialIndex<Figure> spatialIndex = createSpatialIndex();
+    /**
+     * Maps the children to their z-order.
+     * The z-indices increase monotonically with the position of the children
+     * in the {@code children} list.
+     */
+    private HashMap<Figure, ZOrder> zOrders = new HashMap<Figure, ZOrder>();
     private boolean needsSorting = false;
     private Dimension2DDouble canvasSize;
 
+    /**
+     * Holds the z-order of a child.
+     */
+    private static class ZOrder {
+
+        /**
+         * The z-index of the child.
+         */
+        long index;
+        /**
+         * The layer of the child at the time the child was added or changed.
+         */
+        int layer;
+
+        public ZOrder(Figure f) {
+            layer = f.getLayer();
+        }
+    }
+    /**
+     * Compares figures by their z-index. Figures which are not children of
+     * this drawing must not be compared.
+     */
+    private final Comparator<Figure> zOrderComparator = new Comparator<Figure>() {
+
+        public int compare(Figure f1, Figure f2) {
+            long z1 = zOrders.get(f1).index;
+            long z2 = zOrders.get(f2).index;
+            return (z1 < z2) ? -1 : ((z1 == z2) ? 0 : 1);
+        }
+    };
+
     @Override
     public int indexOf(Figure figure) {
+        ZOrder z = zOrders.get(figure);
+        if (z == null) {
+            return -1;
+        }
+        // The children list is sorted by z-index, so we can do a binary search
+        int low = 0;
+        int high = children.size() - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            long midIndex = zOrders.get(children.get(mid)).index;
+            if (midIndex < z.index) {
+                low = mid + 1;
+            } else if (midIndex > z.index) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
         return children.indexOf(figure);
     }
 
     @Override
     public void basicAdd(int index, Figure figure) {
         super.basicAdd(index, figure);
-        quadTree.add(figure, figure.getDrawingArea());
-        needsSorting = true;
+        spatialIndex.add(figure, figure.getDrawingArea());
+        zOrders.put(figure, new ZOrder(figure));
+        updateZIndices(index, 1);
+    }
+
+    /**
+     * Adds all figures to the children list and bulk-loads them into the
+     * spatial index.
+     */
+    @Override
+    public void basicAddAll(int index, Collection<? extends Figure> figures) {
+        HashMap<Figure, Rectangle2D.Double> bounds = new HashMap<Figure, Rectangle2D.Double>(figures.size() * 2);
+        children.addAll(index, figures);
+        for (Figure f : figures) {
+            f.addFigureListener(eventHandler);
+            bounds.put(f, f.getDrawingArea());
+            zOrders.put(f, new ZOrder(f));
+        }
+        spatialIndex.addAll(bounds);
+        updateZIndices(index, figures.size());
     }
 
     @Override
     public Figure basicRemoveChild(int index) {
         Figure figure = getChild(index);
-        quadTree.remove(figure);
-        needsSorting = true;
+        spatialIndex.remove(figure);
+        zOrders.remove(figure);
         super.basicRemoveChild(index);
         return figure;
     }
 
+    /**
+     * Assigns z-indices to children which have been inserted into the
+     * children list, and checks whether the layers of the inserted children
+     * fit between their neighbours.
+     *
+     * @param index The index of the first inserted child.
+     * @param count The number of inserted children.
+     */
+    private void updateZIndices(int index, int count) {
+        if (count == 0) {
+            return;
+        }
+        int end = index + count;
+        int prevLayer = (index == 0) ? Integer.MIN_VALUE : zOrders.get(children.get(index - 1)).layer;
+        for (int i = index; i <= end && i < children.size(); i++) {
+            int layer = zOrders.get(children.get(i)).layer;
+            if (layer < prevLayer) {
+                needsSorting = true;
+            }
+            prevLayer = layer;
+        }
+
+        long low;
+        long high;
+        if (index == 0) {
+            high = (end < children.size()) ? zOrders.get(children.get(end)).index : 0L;
+            low = high - Z_INDEX_GAP * (count + 1);
+        } else if (end == children.size()) {
+            low = zOrders.get(children.get(index - 1)).index;
+            high = low + Z_INDEX_GAP * (count + 1);
+        } else {
+            low = zOrders.get(children.get(index - 1)).index;
+            high = zOrders.get(children.get(end)).index;
+        }
+        long step = (high - low) / (count + 1);
+        if (step < 1 || low < Long.MIN_VALUE / 4 || high > Long.MAX_VALUE / 4) {
+            renumberZIndices();
+        } else {
+            for (int i = 0; i < count; i++) {
+                zOrders.get(children.get(index + i)).index = low + step * (i + 1);
+            }
+        }
+    }
+
+    /**
+     * Assigns new z-indices to all children, so that they are evenly
+     * spaced again.
+     */
+    private void renumberZIndices() {
+        long zIndex = 0;
+        for (Figure f : children) {
+            zOrders.get(f).index = zIndex;
+            zIndex += Z_INDEX_GAP;
+        }
+    }
+
     @Override
     public void draw(Graphics2D g) {
         Rectangle2D clipBounds = g.getClipBounds();
         if (clipBounds != null) {
-            Collection<Figure> c = quadTree.findIntersects(clipBounds);
+            Collection<Figure> c = spatialIndex.findIntersects(clipBounds);
             Collection<Figure> toDraw = sort(c);
             draw(g, toDraw);
         } else {
+            ensureSorted();
             draw(g, children);
         }
     }
@@ -82,14 +231,39 @@ public class QuadTreeDrawing extends AbstractDrawing {
     public java.util.List<Figure> sort(Collection<? extends Figure> c) {
         ensureSorted();
         ArrayList<Figure> sorted = new ArrayList<Figure>(c.size());
-        for (Figure f : children) {
-            if (c.contains(f)) {
+        for (Figure f : c) {
+            if (zOrders.containsKey(f)) {
                 sorted.add(f);
             }
         }
+        Collections.sort(sorted, zOrderComparator);
+
+        // Remove duplicates. They are adjacent after sorting.
+        if (!(c instanceof Set)) {
+            int j = 0;
+            for (int i = 0, n = sorted.size(); i < n; i++) {
+                Figure f = sorted.get(i);
+                if (j == 0 || sorted.get(j - 1) != f) {
+                    sorted.set(j++, f);
+                }
+            }
+            while (sorted.size() > j) {
+                sorted.remove(sorted.size() - 1);
+            }
+        }
         return sorted;
     }
 
+    /**
+     * Returns the figures which contain the specified point in their
+     * drawing area, sorted in z-order from front to back.
+     */
+    private java.util.List<Figure> findCandidatesFrontToBack(Point2D.Double p) {
+        java.util.List<Figure> c = sort(spatialIndex.findContains(p));
+        Collections.reverse(c);
+        return c;
+    }
+
     public void draw(Graphics2D g, Collection<Figure> c) {
         for (Figure f : c) {
             if (f.isVisible()) {
@@ -99,7 +273,7 @@ public class QuadTreeDrawing extends AbstractDrawing {
     }
 
     public java.util.List<Figure> getChildren(Rectangle2D.Double bounds) {
-        return new LinkedList<Figure>(quadTree.findInside(bounds));
+        return new LinkedList<Figure>(spatialIndex.findInside(bounds));
     }
 
     @Override
@@ -109,9 +283,8 @@ public class QuadTreeDrawing extends AbstractDrawing {
 
     @Override
     public Figure findFigureInside(Point2D.Double p) {
-        Collection<Figure> c = quadTree.findContains(p);
-        for (Figure f : getFiguresFrontToBack()) {
-            if (c.contains(f) && f.contains(p)) {
+        for (Figure f : findCandidatesFrontToBack(p)) {
+            if (f.contains(p)) {
                 return f.findFigureInside(p);
             }
         }
@@ -129,99 +302,68 @@ public class QuadTreeDrawing extends AbstractDrawing {
     }
 
     public Figure findFigure(Point2D.Double p) {
-        Collection<Figure> c = quadTree.findContains(p);
-        switch (c.size()) {
-            case 0:
-                return null;
-            case 1: {
-                Figure f = c.iterator().next();
-                return (f.contains(p)) ? f : null;
-            }
-            default: {
-                for (Figure f : getFiguresFrontToBack()) {
-                    if (c.contains(f) && f.contains(p)) {
-                        return f;
-                    }
-                }
-                return null;
+        for (Figure f : findCandidatesFrontToBack(p)) {
+            if (f.contains(p)) {
+                return f;
             }
         }
+        return null;
     }
 
     public Figure findFigureExcept(Point2D.Double p, Figure ignore) {
-        Collection<Figure> c = quadTree.findContains(p);
-        switch (c.size()) {
-            case 0: {
-                return null;
-            }
-            case 1: {
-                Figure f = c.iterator().next();
-                return (f == ignore || !f.contains(p)) ? null : f;
-            }
-            default: {
-                for (Figure f : getFiguresFrontToBack()) {
-                    if (f != ignore && f.contains(p)) {
-                        return f;
-                    }
-                }
-                return null;
+        for (Figure f : findCandidatesFrontToBack(p)) {
+            if (f != ignore && f.contains(p)) {
+                return f;
             }
         }
+        return null;
     }
 
     public Figure findFigureExcept(Point2D.Double p, Collection<? extends Figure> ignore) {
-        Collection<Figure> c = quadTree.findContains(p);
-        switch (c.size()) {
-            case 0: {
-                return null;
-            }
-            case 1: {
-                Figure f = c.iterator().next();
-                return (!ignore.contains(f) || !f.contains(p)) ? null : f;
-            }
-            default: {
-                for (Figure f : getFiguresFrontToBack()) {
-                    if (!ignore.contains(f) && f.contains(p)) {
-                        return f;
-                    }
-                }
-                return null;
+        for (Figure f : findCandidatesFrontToBack(p)) {
+            if (!ignore.contains(f) && f.contains(p)) {
+                return f;
             }
         }
+        return null;
     }
 
     public Figure findFigureBehind(Point2D.Double p, Figure figure) {
-        boolean isBehind = false;
-        for (Figure f : getFiguresFrontToBack()) {
-            if (isBehind) {
-                if (f.isVisible() && f.contains(p)) {
-                    return f;
-                }
-            } else {
-                isBehind = figure == f;
+        ensureSorted();
+        ZOrder z = zOrders.get(figure);
+        if (z == null) {
+            return null;
+        }
+        for (Figure f : findCandidatesFrontToBack(p)) {
+            if (zOrders.get(f).index < z.index &&
+                    f.isVisible() && f.contains(p)) {
+                return f;
             }
         }
         return null;
     }
 
     public Figure findFigureBehind(Point2D.Double p, Collection<? extends Figure> children) {
-        int inFrontOf = children.size();
-        for (Figure f : getFiguresFrontToBack()) {
-            if (inFrontOf == 0) {
-                if (f.isVisible() && f.contains(p)) {
-                    return f;
-                }
-            } else {
-                if (children.contains(f)) {
-                    inFrontOf--;
-                }
+        ensureSorted();
+        long behind = Long.MAX_VALUE;
+        for (Figure child : children) {
+            ZOrder z = zOrders.get(child);
+            if (z == null) {
+                return null;
+            }
+            behind = Math.min(behind, z.index);
+        }
+        for (Figure f : findCandidatesFrontToBack(p)) {
+            if (zOrders.get(f).index < behind &&
+                    f.isVisible() && f.contains(p)) {
+                return f;
             }
         }
         return null;
     }
 
     public java.util.List<Figure> findFigures(Rectangle2D.Double r) {
-        LinkedList<Figure> c = new LinkedList<Figure>(quadTree.findIntersects(r));
+        LinkedList<Figure> c = new LinkedList<Figure>(spatialIndex.findIntersects(r));
         switch (c.size()) {
             case 0:
             // fall through
@@ -234,7 +376,7 @@ public class QuadTreeDrawing extends AbstractDrawing {
 
     public java.util.List<Figure> findFiguresWithin(Rectangle2D.Double bounds) {
         LinkedList<Figure> contained = new LinkedList<Figure>();
-        for (Figure f : children) {
+        for (Figure f : sort(spatialIndex.findIntersects(bounds))) {
             Rectangle2D.Double r = f.getBounds();
             if (AttributeKeys.TRANSFORM.get(f) != null) {
                 Rectangle2D rt = AttributeKeys.TRANSFORM.get(f).createTransformedShape(r).getBounds2D();
@@ -250,9 +392,11 @@ public class QuadTreeDrawing extends AbstractDrawing {
     @Override
     @FeatureEntryPoint(JHotDrawFeatures.ARRANGE)
     public void bringToFront(Figure figure) {
-        if (children.remove(figure)) {
+        int index = indexOf(figure);
+        if (index != -1) {
+            children.remove(index);
             children.add(figure);
-            needsSorting = true;
+            updateZIndices(children.size() - 1, 1);
             fireAreaInvalidated(figure.getDrawingArea());
         }
     }
@@ -260,16 +404,18 @@ public class QuadTreeDrawing extends AbstractDrawing {
     @Override
     @FeatureEntryPoint(JHotDrawFeatures.ARRANGE)
     public void sendToBack(Figure figure) {
-        if (children.remove(figure)) {
+        int index = indexOf(figure);
+        if (index != -1) {
+            children.remove(index);
             children.add(0, figure);
-            needsSorting = true;
+            updateZIndices(0, 1);
             fireAreaInvalidated(figure.getDrawingArea());
         }
     }
 
     @Override
     public boolean contains(Figure f) {
-        return children.contains(f);
+        return zOrders.containsKey(f);
     }
 
     /**
@@ -278,6 +424,7 @@ public class QuadTreeDrawing extends AbstractDrawing {
     private void ensureSorted() {
         if (needsSorting) {
             Collections.sort(children, FigureLayerComparator.INSTANCE);
+            renumberZIndices();
             needsSorting = false;
         }
     }
@@ -300,13 +447,26 @@ public class QuadTreeDrawing extends AbstractDrawing {
     public QuadTreeDrawing clone() {
         QuadTreeDrawing that = (QuadTreeDrawing) super.clone();
         that.canvasSize = (this.canvasSize == null) ? null : (Dimension2DDouble) this.canvasSize.clone();
-        that.quadTree = new QuadTree<Figure>();
-        for (Figure f : getChildren()) {
-            quadTree.add(f, f.getDrawingArea());
+        that.spatialIndex = that.createSpatialIndex();
+        that.zOrders = new HashMap<Figure, ZOrder>(that.children.size() * 2);
+        HashMap<Figure, Rectangle2D.Double> bounds = new HashMap<Figure, Rectangle2D.Double>(that.children.size() * 2);
+        for (Figure f : that.children) {
+            bounds.put(f, f.getDrawingArea());
+            that.zOrders.put(f, new ZOrder(f));
         }
+        that.spatialIndex.addAll(bounds);
+        that.renumberZIndices();
         return that;
     }
 
+    /**
+     * Creates the spatial index which is used for finding the children
+     * of this drawing.
+     */
+    protected SpatialIndex<Figure> createSpatialIndex() {
+        return new RTree<Figure>();
+    }
+
     protected EventHandler createEventHandler() {
         return new QuadTreeEventHandler();
     }
@@ -314,16 +474,42 @@ public class QuadTreeDrawing extends AbstractDrawing {
     /**
      * Handles all figure events fired by Figures contained in the Drawing.
      */
-    protected class QuadTreeEventHandler extends AbstractCompositeFigure.EventHandler {
+    protected class QuadTreeEventHandler extends AbstractDrawing.DrawingEventHandler {
 
         @Override
         public void figureChanged(FigureEvent e) {
-            quadTree.remove(e.getFigure());
-            quadTree.add(e.getFigure(), e.getFigure().getDrawingArea());
-            needsSorting = true;
-            invalidate();
-            fireAreaInvalidated(e.getInvalidatedArea());
+            if (isUpdating()) {
+                deferChange(e.getFigure(), e.getInvalidatedArea());
+            } else {
+                childChanged(e.getFigure());
+                invalidate();
+                fireAreaInvalidated(e.getInvalidatedArea());
+            }
+        }
+    }
+
+    /**
+     * Updates the spatial index and the layer of a child which has changed.
+     */
+    private void childChanged(Figure f) {
+        ZOrder z = zOrders.get(f);
+        if (z != null) {
+            spatialIndex.update(f, f.getDrawingArea());
+            if (z.layer != f.getLayer()) {
+                z.layer = f.getLayer();
+                needsSorting = true;
+            }
+        }
+    }
+
+    @Override
+    protected void updateEnded(Set<Figure> changedChildren, Rectangle2D.Double invalidatedArea) {
+        if (changedChildren != null) {
+            for (Figure f : changedChildren) {
+                childChanged(f);
+            }
         }
+        super.updateEnded(changedChildren, invalidatedArea);
     }
 
     @Override
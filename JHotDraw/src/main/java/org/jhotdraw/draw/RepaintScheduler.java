@@ -0,0 +1,247 @@
+/*
+ * @(#)RepaintScheduler.java  1.0  2026-10-18
+ *
+ * Copyright (c) 1996-2026 by the original authors of JHotDraw
+ * and all its contributors.
+ * All rights reserved.
+ *
+ * The copyright of this software is owned by the authors and
+ * contributors of the JHotDraw project ("the copyright holders").
+ * You may not use, copy or modify this software, except in
+ * accordance with the license agreement you entered into with
+ * the copyright holders. For details see accompanying license terms.
+ */
+package org.jhotdraw.draw;
+
+import java.awt.*;
+import java.awt.event.*;
+import java.util.*;
+import javax.swing.Timer;
+import javax.swing.*;
+
+/**
+ * A RepaintScheduler accumulates the areas of a component which need to be
+ * repainted, and repaints them at most once per frame.
+ * <p>
+ * Requested areas are merged into a small number of rectangles. If an area
+ * overlaps with a pending rectangle, or if merging wastes only little space,
+ * the area is merged into the rectangle. When the maximal number of pending
+ * rectangles is exceeded, the two rectangles whose union wastes the least
+ * space are merged.
+ * <p>
+ * The pending rectangles are repainted by a Swing timer, which limits the
+ * repaints to the maximal frame rate. A frame rate of 0 turns coalescing
+ * off, in which case each requested area is repainted immediately.
+ * <p>
+ * This class must only be used on the AWT event dispatcher thread.
+ *
+ * @author Werner Randelshofer
+ * @version 1.0 2026-10-18 Created.
+ */
+public class RepaintScheduler {
+
+    /**
+     * The default maximal number of frames per second.
+     */
+    public final static int DEFAULT_MAX_FRAMES_PER_SECOND = 60;
+    /**
+     * The default maximal number of pending rectangles.
+     */
+    public final static int DEFAULT_MAX_RECTANGLES = 4;
+    private JComponent component;
+    private ArrayList<Rectangle> pending = new ArrayList<Rectangle>();
+    private int maxRectangles = DEFAULT_MAX_RECTANGLES;
+    private int maxFramesPerSecond;
+    private Timer timer;
+    private long lastFlush;
+    private long requestCount;
+    private long repaintCount;
+    private long frameCount;
+
+    /** Creates a new instance for the specified component. */
+    public RepaintScheduler(JComponent component) {
+        this.component = component;
+        timer = new Timer(0, new ActionListener() {
+
+            public void actionPerformed(ActionEvent e) {
+                flush();
+            }
+        });
+        timer.setRepeats(false);
+        setMaxFramesPerSecond(DEFAULT_MAX_FRAMES_PER_SECOND);
+    }
+
+    /**
+     * Sets the maximal number of frames per second. Set this to 0 to
+     * repaint requested areas immediately.
+     */
+    public void setMaxFramesPerSecond(int newValue) {
+        maxFramesPerSecond = Math.max(0, newValue);
+        if (maxFramesPerSecond == 0) {
+            flush();
+        }
+    }
+
+    public int getMaxFramesPerSecond() {
+        return maxFramesPerSecond;
+    }
+
+    /**
+     * Sets the maximal number of pending rectangles.
+     */
+    public void setMaxRectangles(int newValue) {
+        maxRectangles = Math.max(1, newValue);
+        while (pending.size() > maxRectangles) {
+            mergeCheapestPair();
+        }
+    }
+
+    public int getMaxRectangles() {
+        return maxRectangles;
+    }
+
+    /**
+     * Requests a repaint of the specified area of the component.
+     */
+    public void repaint(Rectangle r) {
+        if (r.isEmpty()) {
+            return;
+        }
+        requestCount++;
+        if (maxFramesPerSecond == 0) {
+            repaintCount++;
+            frameCount++;
+            component.repaint(r);
+            return;
+        }
+
+        add(new Rectangle(r));
+        if (!timer.isRunning()) {
+            long frameInterval = 1000L / maxFramesPerSecond;
+            long elapsed = System.currentTimeMillis() - lastFlush;
+            timer.setInitialDelay((int) Math.max(0, Math.min(frameInterval, frameInterval - elapsed)));
+            timer.start();
+        }
+    }
+
+    /**
+     * Repaints all pending rectangles now.
+     */
+    public void flush() {
+        timer.stop();
+        if (!pending.isEmpty()) {
+            frameCount++;
+            repaintCount += pending.size();
+            for (Rectangle r : pending) {
+                component.repaint(r);
+            }
+            pending.clear();
+        }
+        lastFlush = System.currentTimeMillis();
+    }
+
+    /**
+     * Discards all pending rectangles. This method can be used when the
+     * whole component is going to be repainted anyway.
+     */
+    public void cancel() {
+        timer.stop();
+        pending.clear();
+    }
+
+    /**
+     * Returns the number of areas, for which a repaint has been requested.
+     */
+    public long getRequestCount() {
+        return requestCount;
+    }
+
+    /**
+     * Returns the number of rectangles, which have been repainted on the
+     * component.
+     */
+    public long getRepaintCount() {
+        return repaintCount;
+    }
+
+    /**
+     * Returns the number of requested areas, which have been coalesced
+     * with other areas.
+     */
+    public long getCoalescedCount() {
+        return requestCount - repaintCount - pending.size();
+    }
+
+    /**
+     * Returns the number of frames, in which pending rectangles have been
+     * repainted.
+     */
+    public long getFrameCount() {
+        return frameCount;
+    }
+
+    /**
+     * Sets all counters to zero.
+     */
+    public void resetCounters() {
+        repaintCount = frameCount = 0;
+        requestCount = pending.size();
+    }
+
+    private void add(Rectangle r) {
+        // Merge the area with all pending rectangles, which it overlaps, or
+        // with which it can be merged without wasting much space. Merging may
+        // make the rectangle overlap with other rectangles, so we repeat
+        // until nothing changes.
+        boolean merged;
+        do {
+            merged = false;
+            for (Iterator<Rectangle> i = pending.iterator(); i.hasNext();) {
+                Rectangle p = i.next();
+                if (p.intersects(r) || waste(p, r) <= Math.min(area(p), area(r))) {
+                    r.add(p);
+                    i.remove();
+                    merged = true;
+                }
+            }
+        } while (merged);
+        pending.add(r);
+        while (pending.size() > maxRectangles) {
+            mergeCheapestPair();
+        }
+    }
+
+    private void mergeCheapestPair() {
+        int bestI = 0, bestJ = 1;
+        long bestWaste = Long.MAX_VALUE;
+        for (int i = 0, n = pending.size(); i < n - 1; i++) {
+            for (int j = i + 1; j < n; j++) {
+                long w = waste(pending.get(i), pending.get(j));
+                if (w < bestWaste) {
+                    bestWaste = w;
+                    bestI = i;
+                    bestJ = j;
+                }
+            }
+        }
+        Rectangle r = pending.remove(bestJ);
+        pending.get(bestI).add(r);
+    }
+
+    /**
+     * Returns the number of pixels which are painted in excess, if the
+     * two rectangles are repainted as their union instead of separately.
+     */
+    private static long waste(Rectangle a, Rectangle b) {
+        int x0 = Math.min(a.x, b.x);
+        int y0 = Math.min(a.y, b.y);
+        int x1 = Math.max(a.x + a.width, b.x + b.width);
+        int y1 = Math.max(a.y + a.height, b.y + b.height);
+        long union = (long) (x1 - x0) * (y1 - y0);
+        return union - area(a) - area(b) + area(a.intersection(b));
+    }
+
+    private static long area(Rectangle r) {
+        return (r.isEmpty()) ? 0 : (long) r.width * r.height;
+    }
+}
@@ -0,0 +1,155 @@
+/*
+ * @(#)SelectionOutlineHandle.java  1.0  2026-10-18
+ *
+ * Copyright (c) 1996-2026 by the original authors of JHotDraw
+ * and all its contributors.
+ * All rights reserved.
+ *
+ * The copyright of this software is owned by the authors and
+ * contributors of the JHotDraw project ("the copyright holders").
+ * You may not use, copy or modify this software, except in
+ * accordance with the license agreement you entered into with
+ * the copyright holders. For details see accompanying license terms.
+ */
+package org.jhotdraw.draw;
+
+import java.awt.*;
+import java.awt.geom.*;
+
+/**
+ * Draws the outline of the bounds of all selected figures of a drawing view.
+ * <p>
+ * This handle is used by {@link DefaultDrawingView} instead of the handles of
+ * the individual figures, when a very large number of figures is selected.
+ * The owner of the handle is the drawing. The outline is computed lazily,
+ * after a figure of the drawing has changed.
+ *
+ * @author Werner Randelshofer
+ * @version 1.0 2026-10-18 Created.
+ */
+public class SelectionOutlineHandle extends AbstractHandle {
+
+    /**
+     * The bounds of the selected figures in drawing coordinates. This is null
+     * if the bounds need to be computed.
+     */
+    private Rectangle2D.Double selectionBounds;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param drawing The drawing which holds the selected figures.
+     */
+    public SelectionOutlineHandle(Drawing drawing) {
+        super(drawing);
+    }
+
+    @Override
+    protected Rectangle basicGetBounds() {
+        Rectangle r = view.drawingToView(getSelectionBounds());
+        r.grow(2, 2);
+        return r;
+    }
+
+    /**
+     * Returns the bounds of the selected figures in drawing coordinates.
+     */
+    protected Rectangle2D.Double getSelectionBounds() {
+        if (selectionBounds == null) {
+            Rectangle2D.Double r = null;
+            for (Figure f : view.getSelectedFigures()) {
+                Rectangle2D.Double b = f.getBounds();
+                if (AttributeKeys.TRANSFORM.get(f) != null) {
+                    Rectangle2D tb = AttributeKeys.TRANSFORM.get(f).createTransformedShape(b).getBounds2D();
+                    b = new Rectangle2D.Double(tb.getX(), tb.getY(), tb.getWidth(), tb.getHeight());
+                }
+                if (r == null) {
+                    r = b;
+                } else {
+                    r.add(b);
+                }
+            }
+            selectionBounds = (r == null) ? new Rectangle2D.Double() : r;
+        }
+        return selectionBounds;
+    }
+
+    @Override
+    public void invalidate() {
+        super.invalidate();
+        selectionBounds = null;
+    }
+
+    /**
+     * Invalidates the outline, when a figure of the drawing has changed. The
+     * outline is not computed here, because the drawing fires an event for
+     * each changed figure.
+     */
+    @Override
+    public void areaInvalidated(FigureEvent evt) {
+        invalidateOutline();
+    }
+
+    @Override
+    public void figureChanged(FigureEvent evt) {
+        invalidateOutline();
+    }
+
+    private void invalidateOutline() {
+        if (selectionBounds != null) {
+            fireAreaInvalidated(getDrawingArea());
+            invalidate();
+        }
+    }
+
+    @Override
+    public boolean contains(Point p) {
+        return false;
+    }
+
+    public void trackStart(Point anchor, int modifiersEx) {
+    }
+
+    public void trackStep(Point anchor, Point lead, int modifiersEx) {
+    }
+
+    public void trackEnd(Point anchor, Point lead, int modifiersEx) {
+    }
+
+    @Override
+    public void draw(Graphics2D g) {
+        boolean isInvalid = selectionBounds == null;
+        Rectangle bounds = getBounds();
+        if (isInvalid) {
+            // The area of the new outline may not have been repainted yet
+            fireAreaInvalidated(getDrawingArea());
+        }
+        bounds.grow(-2, -2);
+
+        Stroke stroke1;
+        Color strokeColor1;
+        Stroke stroke2;
+        Color strokeColor2;
+        if (getEditor().getTool() == null || getEditor().getTool().supportsHandleInteraction()) {
+            stroke1 = getEditor().getHandleAttribute(HandleAttributeKeys.RESIZE_BOUNDS_STROKE_1);
+            strokeColor1 = getEditor().getHandleAttribute(HandleAttributeKeys.RESIZE_BOUNDS_COLOR_1);
+            stroke2 = getEditor().getHandleAttribute(HandleAttributeKeys.RESIZE_BOUNDS_STROKE_2);
+            strokeColor2 = getEditor().getHandleAttribute(HandleAttributeKeys.RESIZE_BOUNDS_COLOR_2);
+        } else {
+            stroke1 = getEditor().getHandleAttribute(HandleAttributeKeys.RESIZE_BOUNDS_STROKE_1_DISABLED);
+            strokeColor1 = getEditor().getHandleAttribute(HandleAttributeKeys.RESIZE_BOUNDS_COLOR_1_DISABLED);
+            stroke2 = getEditor().getHandleAttribute(HandleAttributeKeys.RESIZE_BOUNDS_STROKE_2_DISABLED);
+            strokeColor2 = getEditor().getHandleAttribute(HandleAttributeKeys.RESIZE_BOUNDS_COLOR_2_DISABLED);
+        }
+        if (stroke1 != null && strokeColor1 != null) {
+            g.setStroke(stroke1);
+            g.setColor(strokeColor1);
+            g.draw(bounds);
+        }
+        if (stroke2 != null && strokeColor2 != null) {
+            g.setStroke(stroke2);
+            g.setColor(strokeColor2);
+            g.draw(bounds);
+        }
+    }
+}
@@ -30,7 +30,9 @@ import java.util.*;
  * FIXME - Maybe TransformEdit should be replaced by GeometryEdit?
  *
  * @author Werner Randelshofer
- * @version 2.0 2006-01-14 Changed to support double precision coordinates.
+ * @version 2.1 2026-10-18 Undo and redo transform the figures in a batch
+ * of changes of their drawing.
+ * <br>2.0 2006-01-14 Changed to support double precision coordinates.
  * <br>1.0 2003-12-01 Derived from JHotDraw 5.4b1.
  */
 public class TransformEdit extends AbstractUndoableEdit {
@@ -81,25 +83,44 @@ public class TransformEdit extends AbstractUndoableEdit {
     
     public void redo() throws CannotRedoException {
         super.redo();
-        for (Figure f : figures) {
-            f.willChange();
-            f.transform(tx);
-                f.changed();
-            
-        }
+        transform(tx);
     }
     public void undo() throws CannotUndoException {
         super.undo();
         try {
-            AffineTransform inverse = tx.createInverse();
+            transform(tx.createInverse());
+        } catch (NoninvertibleTransformException e) {
+            e.printStackTrace();
+        }
+    }
+    private void transform(AffineTransform t) {
+        Drawing drawing = getDrawing();
+        if (drawing != null) {
+            drawing.beginUpdate();
+        }
+        try {
             for (Figure f : figures) {
                 f.willChange();
-                f.transform(inverse);
+                f.transform(t);
                 f.changed();
             }
-        } catch (NoninvertibleTransformException e) {
-            e.printStackTrace();
+        } finally {
+            if (drawing != null) {
+                drawing.endUpdate();
+            }
+        }
+    }
+    /**
+     * Returns the drawing of the figures, or null if the figures are not
+     * part of a drawing.
+     */
+    private Drawing getDrawing() {
+        for (Figure f : figures) {
+            if (f instanceof AbstractFigure) {
+                return ((AbstractFigure) f).getDrawing();
+            }
         }
+        return null;
     }
     public String toString() {
         return getClass().getName()+'@'+hashCode()+" tx:"+tx;
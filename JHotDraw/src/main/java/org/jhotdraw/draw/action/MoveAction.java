@@ -28,7 +28,9 @@ import javax.swing.undo.*;
  * Moves the selected figures by one unit.
  *
  * @author  Werner Randelshofer
- * @version 1.0 17. March 2004  Created.
+ * @version 1.1 2026-10-18 Move the figures in a batch of changes of the
+ * drawing.
+ * <br>1.0 17. March 2004  Created.
  */
 public abstract class MoveAction extends AbstractSelectedAction {
     private int dx, dy;
@@ -44,10 +46,15 @@ public abstract class MoveAction extends AbstractSelectedAction {
         CompositeEdit edit;
         AffineTransform tx = new AffineTransform();
         tx.translate(dx, dy);
-        for (Figure f : getView().getSelectedFigures()) {
-            f.willChange();
-            f.transform(tx);
-            f.changed();
+        getDrawing().beginUpdate();
+        try {
+            for (Figure f : getView().getSelectedFigures()) {
+                f.willChange();
+                f.transform(tx);
+                f.changed();
+            }
+        } finally {
+            getDrawing().endUpdate();
         }
         fireUndoableEditHappened(new TransformEdit(getView().getSelectedFigures(), tx));
         
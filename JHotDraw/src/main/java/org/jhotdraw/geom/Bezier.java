@@ -30,7 +30,9 @@ import java.util.*;
  * <p>
  * http://autotrace.sourceforge.net/Interactive_Curve_Design.ps.gz
  *
- * @version 3.0 2008-06-03 Totally rewritten.
+ * @version 3.1 2026-10-18 Factored the fitting of a segment out into
+ * method fitSegment, so that it can be used by IncrementalBezierFitter.
+ * <br>3.0 2008-06-03 Totally rewritten.
  * <br>2.0.1 2006-06-14 Fit bezier curve must preserve closed state of
  * fitted BezierPath object.
  * <br>2.0 2006-01-14 Changed to support double precision coordinates.
@@ -39,6 +41,13 @@ import java.util.*;
  */
 public class Bezier {
 
+    /**
+     * The minimal angle between a point and its predecessor and successor,
+     * at which method fitBezierPath splits the digitized points into
+     * segments.
+     */
+    static final double CORNER_ANGLE = 77 / 180d * Math.PI;
+
     /** Prevent instance creation. */
     private Bezier() {
     }
@@ -82,62 +91,59 @@ public class Bezier {
     public static BezierPath fitBezierPath(java.util.List<Point2D.Double> digitizedPoints, double error) {
         // Split into segments at corners
         ArrayList<ArrayList<Point2D.Double>> segments = new ArrayList<ArrayList<Point2D.Double>>();
-        segments = splitAtCorners(digitizedPoints, 77 / 180d * Math.PI, error * error);
-        
-        // Clean up the data in the segments
-        for (int i = 0, n = segments.size(); i < n; i++) {
-            ArrayList<Point2D.Double> seg = segments.get(i);
-            seg = removeClosePoints(seg, error * 2);
-            seg = reduceNoise(seg, 0.8);
-
-            segments.set(i, seg);
-        }
-
+        segments = splitAtCorners(digitizedPoints, CORNER_ANGLE, error * error);
 
         // Create fitted bezier path
         BezierPath fittedPath = new BezierPath();
 
-
-        // Quickly deal with empty dataset
-        boolean isEmpty = false;
+        // Process each segment of digitized points
         for (ArrayList<Point2D.Double> seg : segments) {
-            if (seg.isEmpty()) {
-                isEmpty = false;
-                break;
-            }
+            fitSegment(seg, error, fittedPath);
         }
-        if (!isEmpty) {
-            // Process each segment of digitized points
-            double errorSquared = error * error;
-            for (ArrayList<Point2D.Double> seg : segments) {
-                switch (seg.size()) {
-                    case 0:
-                        break;
-                    case 1:
-                        fittedPath.add(new BezierPath.Node(seg.get(0)));
-                        break;
-                    case 2:
-                        if (fittedPath.isEmpty()) {
-                            fittedPath.add(new BezierPath.Node(seg.get(0)));
-                        }
-                        fittedPath.lineTo(seg.get(1).x, seg.get(1).y);
-                        break;
-                    default:
-                        if (fittedPath.isEmpty()) {
-                            fittedPath.add(new BezierPath.Node(seg.get(0)));
-                        }
-                        /*  Unit tangent vectors at endpoints */
-                        Point2D.Double tHat1 = new Point2D.Double();
-                        Point2D.Double tHat2 = new Point2D.Double();
-                        tHat1 = computeLeftTangent(seg, 0);
-                        tHat2 = computeRightTangent(seg, seg.size() - 1);
-
-                        fitCubic(seg, 0, seg.size() - 1, tHat1, tHat2, errorSquared, fittedPath);
-                        break;
+        return fittedPath;
+    }
+
+    /**
+     * Cleans up a segment of digitized points, which has been split at
+     * corners by method {@link #splitAtCorners}, and adds the bezier curves
+     * fitted to the segment to the specified path.
+     *
+     * @param seg A segment of digitized points.
+     * @param error the maximal allowed error between the bezier path and the
+     * digitized points.
+     * @param fittedPath The path to which the bezier curves are added.
+     */
+    static void fitSegment(ArrayList<Point2D.Double> seg, double error, BezierPath fittedPath) {
+        // Clean up the data in the segment
+        seg = removeClosePoints(seg, error * 2);
+        seg = reduceNoise(seg, 0.8);
+
+        double errorSquared = error * error;
+        switch (seg.size()) {
+            case 0:
+                break;
+            case 1:
+                fittedPath.add(new BezierPath.Node(seg.get(0)));
+                break;
+            case 2:
+                if (fittedPath.isEmpty()) {
+                    fittedPath.add(new BezierPath.Node(seg.get(0)));
                 }
-            }
+                fittedPath.lineTo(seg.get(1).x, seg.get(1).y);
+                break;
+            default:
+                if (fittedPath.isEmpty()) {
+                    fittedPath.add(new BezierPath.Node(seg.get(0)));
+                }
+                /*  Unit tangent vectors at endpoints */
+                Point2D.Double tHat1 = new Point2D.Double();
+                Point2D.Double tHat2 = new Point2D.Double();
+                tHat1 = computeLeftTangent(seg, 0);
+                tHat2 = computeRightTangent(seg, seg.size() - 1);
+
+                fitCubic(seg, 0, seg.size() - 1, tHat1, tHat2, errorSquared, fittedPath);
+                break;
         }
-        return fittedPath;
     }
 
     /**
@@ -17,6 +17,7 @@ import java.awt.*;
 import java.awt.geom.*;
 import java.io.Serializable;
 import java.util.*;
+import java.util.function.*;
 
 /**
  * BezierPath allows the construction of paths consisting of straight lines,
@@ -27,9 +28,20 @@ import java.util.*;
  * A mask defines which control points are in use. The path passes through
  * C0. C1 controls the curve going towards C0. C2 controls the curve going
  * away from C0.
+ * <p>
+ * A BezierPath with a large number of nodes, which is only drawn and not
+ * edited, can be packed with method {@link #pack}. A packed BezierPath
+ * stores its control points in a single array of coordinates, instead of
+ * in Node objects. Methods {@link #toGeneralPath}, {@link #getBounds2D},
+ * {@link #transform} and the {@link BezierPathIterator} work directly on
+ * the array. All methods which access the nodes through the List interface
+ * unpack the BezierPath first.
  *
  * @author Werner Randelshofer
- * @version 1.4 2008-05-23 Method findSegment uses now double precision for
+ * @version 1.6 2026-10-18 Added method isLinear. Method getBounds2D does
+ * not unpack a packed BezierPath.
+ * <br>1.5 2026-10-18 Added methods pack and isPacked.
+ * <br>1.4 2008-05-23 Method findSegment uses now double precision for
  * the tolerance paremeters. 
  * <br>1.3 BezierPath has now its own BezierPathIterator.
  * <br>1.2.1 Issue #1628647: Method splitSegment created incorrect control
@@ -74,6 +86,32 @@ public class BezierPath extends ArrayList<BezierPath.Node>
      * The winding rule for filling the bezier path.
      */
     private int windingRule = GeneralPath.WIND_EVEN_ODD;
+    /**
+     * Flag of a packed node, which is set, if the node keeps its control
+     * points colinear. The lower two bits of a packed node hold its mask.
+     */
+    final static int PACKED_KEEP_COLINEAR = 4;
+    /**
+     * Flag of a packed node, which is set, if the coordinates of control
+     * point C1 are stored. Otherwise C1 is at C0.
+     */
+    final static int PACKED_C1 = 8;
+    /**
+     * Flag of a packed node, which is set, if the coordinates of control
+     * point C2 are stored. Otherwise C2 is at C0.
+     */
+    final static int PACKED_C2 = 16;
+    /**
+     * The flags of the nodes of a packed BezierPath, or null, if the
+     * BezierPath is not packed.
+     */
+    byte[] packedNodes;
+    /**
+     * The coordinates of the control points of a packed BezierPath.
+     * For each node, the array holds x and y of C0 followed by x and y of
+     * C1 and of C2, if they are stored.
+     */
+    double[] packedCoords;
 
     /**
      * Defines a vertex (node) of the bezier path.
@@ -248,6 +286,332 @@ public class BezierPath extends ArrayList<BezierPath.Node>
     public BezierPath() {
     }
 
+    /**
+     * Packs the nodes of the BezierPath into an array of coordinates.
+     * <p>
+     * A node of a straight line needs only 17 bytes in a packed BezierPath,
+     * whereas a Node object needs more than 100 bytes. The nodes are
+     * unpacked again, as soon as they are accessed through the List
+     * interface.
+     * <p>
+     * An empty BezierPath, and a BezierPath which contains instances of
+     * subclasses of Node, are not packed.
+     */
+    public void pack() {
+        if (packedNodes != null || super.isEmpty()) {
+            return;
+        }
+        int n = super.size();
+        int length = 0;
+        for (int i = 0; i < n; i++) {
+            Node node = super.get(i);
+            if (node.getClass() != Node.class || (node.mask & ~C1C2_MASK) != 0) {
+                return;
+            }
+            length += 2;
+            if ((node.mask & C1_MASK) != 0 || node.x[1] != node.x[0] || node.y[1] != node.y[0]) {
+                length += 2;
+            }
+            if ((node.mask & C2_MASK) != 0 || node.x[2] != node.x[0] || node.y[2] != node.y[0]) {
+                length += 2;
+            }
+        }
+
+        byte[] nodes = new byte[n];
+        double[] coords = new double[length];
+        for (int i = 0, j = 0; i < n; i++) {
+            Node node = super.get(i);
+            int flags = node.mask;
+            if (node.keepColinear) {
+                flags |= PACKED_KEEP_COLINEAR;
+            }
+            coords[j++] = node.x[0];
+            coords[j++] = node.y[0];
+            if ((node.mask & C1_MASK) != 0 || node.x[1] != node.x[0] || node.y[1] != node.y[0]) {
+                flags |= PACKED_C1;
+                coords[j++] = node.x[1];
+                coords[j++] = node.y[1];
+            }
+            if ((node.mask & C2_MASK) != 0 || node.x[2] != node.x[0] || node.y[2] != node.y[0]) {
+                flags |= PACKED_C2;
+                coords[j++] = node.x[2];
+                coords[j++] = node.y[2];
+            }
+            nodes[i] = (byte) flags;
+        }
+        super.clear();
+        super.trimToSize();
+        packedNodes = nodes;
+        packedCoords = coords;
+    }
+
+    /**
+     * Returns true, if the nodes of the BezierPath are packed.
+     */
+    public boolean isPacked() {
+        return packedNodes != null;
+    }
+
+    /**
+     * Returns true, if none of the nodes of the BezierPath has a control
+     * point. This method does not unpack a packed BezierPath.
+     */
+    public boolean isLinear() {
+        if (packedNodes != null) {
+            for (byte flags : packedNodes) {
+                if ((flags & C1C2_MASK) != 0) {
+                    return false;
+                }
+            }
+        } else {
+            for (Node node : this) {
+                if (node.mask != 0) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Creates Node objects for the nodes of a packed BezierPath.
+     */
+    private void unpack() {
+        if (packedNodes == null) {
+            return;
+        }
+        byte[] nodes = packedNodes;
+        double[] coords = packedCoords;
+        packedNodes = null;
+        packedCoords = null;
+        super.ensureCapacity(nodes.length);
+        for (int i = 0, j = 0; i < nodes.length; i++) {
+            int flags = nodes[i];
+            Node node = new Node(coords[j], coords[j + 1]);
+            j += 2;
+            node.mask = flags & C1C2_MASK;
+            node.keepColinear = (flags & PACKED_KEEP_COLINEAR) != 0;
+            if ((flags & PACKED_C1) != 0) {
+                node.x[1] = coords[j++];
+                node.y[1] = coords[j++];
+            }
+            if ((flags & PACKED_C2) != 0) {
+                node.x[2] = coords[j++];
+                node.y[2] = coords[j++];
+            }
+            super.add(node);
+        }
+    }
+
+    /**
+     * Returns the number of coordinates, which are stored for a packed node.
+     */
+    static int getPackedLength(int flags) {
+        int length = 2;
+        if ((flags & PACKED_C1) != 0) {
+            length += 2;
+        }
+        if ((flags & PACKED_C2) != 0) {
+            length += 2;
+        }
+        return length;
+    }
+
+    // The following methods unpack the BezierPath before they access its
+    // nodes.
+    @Override
+    public int size() {
+        return (packedNodes == null) ? super.size() : packedNodes.length;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    @Override
+    public void trimToSize() {
+        unpack();
+        super.trimToSize();
+    }
+
+    @Override
+    public void ensureCapacity(int minCapacity) {
+        unpack();
+        super.ensureCapacity(minCapacity);
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        unpack();
+        return super.contains(o);
+    }
+
+    @Override
+    public int indexOf(Object o) {
+        unpack();
+        return super.indexOf(o);
+    }
+
+    @Override
+    public int lastIndexOf(Object o) {
+        unpack();
+        return super.lastIndexOf(o);
+    }
+
+    @Override
+    public Object[] toArray() {
+        unpack();
+        return super.toArray();
+    }
+
+    @Override
+    public <T> T[] toArray(T[] a) {
+        unpack();
+        return super.toArray(a);
+    }
+
+    @Override
+    public Node get(int index) {
+        unpack();
+        return super.get(index);
+    }
+
+    @Override
+    public Node set(int index, Node element) {
+        unpack();
+        return super.set(index, element);
+    }
+
+    @Override
+    public boolean add(Node e) {
+        unpack();
+        return super.add(e);
+    }
+
+    @Override
+    public void add(int index, Node element) {
+        unpack();
+        super.add(index, element);
+    }
+
+    @Override
+    public Node remove(int index) {
+        unpack();
+        return super.remove(index);
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        unpack();
+        return super.remove(o);
+    }
+
+    @Override
+    public void clear() {
+        unpack();
+        super.clear();
+    }
+
+    @Override
+    public boolean addAll(Collection<? extends Node> c) {
+        unpack();
+        return super.addAll(c);
+    }
+
+    @Override
+    public boolean addAll(int index, Collection<? extends Node> c) {
+        unpack();
+        return super.addAll(index, c);
+    }
+
+    @Override
+    protected void removeRange(int fromIndex, int toIndex) {
+        unpack();
+        super.removeRange(fromIndex, toIndex);
+    }
+
+    @Override
+    public boolean removeAll(Collection<?> c) {
+        unpack();
+        return super.removeAll(c);
+    }
+
+    @Override
+    public boolean retainAll(Collection<?> c) {
+        unpack();
+        return super.retainAll(c);
+    }
+
+    @Override
+    public ListIterator<Node> listIterator(int index) {
+        unpack();
+        return super.listIterator(index);
+    }
+
+    @Override
+    public ListIterator<Node> listIterator() {
+        unpack();
+        return super.listIterator();
+    }
+
+    @Override
+    public Iterator<Node> iterator() {
+        unpack();
+        return super.iterator();
+    }
+
+    @Override
+    public java.util.List<Node> subList(int fromIndex, int toIndex) {
+        unpack();
+        return super.subList(fromIndex, toIndex);
+    }
+
+    @Override
+    public void forEach(Consumer<? super Node> action) {
+        unpack();
+        super.forEach(action);
+    }
+
+    @Override
+    public Spliterator<Node> spliterator() {
+        unpack();
+        return super.spliterator();
+    }
+
+    @Override
+    public boolean removeIf(Predicate<? super Node> filter) {
+        unpack();
+        return super.removeIf(filter);
+    }
+
+    @Override
+    public void replaceAll(UnaryOperator<Node> operator) {
+        unpack();
+        super.replaceAll(operator);
+    }
+
+    @Override
+    public void sort(Comparator<? super Node> c) {
+        unpack();
+        super.sort(c);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        unpack();
+        if (o instanceof BezierPath) {
+            ((BezierPath) o).unpack();
+        }
+        return super.equals(o);
+    }
+
+    @Override
+    public int hashCode() {
+        unpack();
+        return super.hashCode();
+    }
+
     /**
      * Convenience method for adding a control point with a single
      * coordinate C0.
@@ -317,70 +681,19 @@ public class BezierPath extends ArrayList<BezierPath.Node>
             gp.moveTo(0, 0);
             gp.lineTo(0, 0 + 1);
         } else if (size() == 1) {
-            Node current = get(0);
-            gp.moveTo((float) current.x[0], (float) current.y[0]);
-            gp.lineTo((float) current.x[0], (float) current.y[0] + 1);
-        } else {
-            Node previous;
-            Node current;
-
-            previous = current = get(0);
-            gp.moveTo((float) current.x[0], (float) current.y[0]);
-            for (int i = 1, n = size(); i < n; i++) {
-                previous = current;
-                current = get(i);
-
-                if ((previous.mask & C2_MASK) == 0) {
-                    if ((current.mask & C1_MASK) == 0) {
-                        gp.lineTo(
-                                (float) current.x[0], (float) current.y[0]);
-                    } else {
-                        gp.quadTo(
-                                (float) current.x[1], (float) current.y[1],
-                                (float) current.x[0], (float) current.y[0]);
-                    }
-                } else {
-                    if ((current.mask & C1_MASK) == 0) {
-                        gp.quadTo(
-                                (float) previous.x[2], (float) previous.y[2],
-                                (float) current.x[0], (float) current.y[0]);
-                    } else {
-                        gp.curveTo(
-                                (float) previous.x[2], (float) previous.y[2],
-                                (float) current.x[1], (float) current.y[1],
-                                (float) current.x[0], (float) current.y[0]);
-                    }
-                }
-            }
-            if (isClosed) {
-                if (size() > 1) {
-                    previous = get(size() - 1);
-                    current = get(0);
-
-                    if ((previous.mask & C2_MASK) == 0) {
-                        if ((current.mask & C1_MASK) == 0) {
-                            gp.lineTo(
-                                    (float) current.x[0], (float) current.y[0]);
-                        } else {
-                            gp.quadTo(
-                                    (float) current.x[1], (float) current.y[1],
-                                    (float) current.x[0], (float) current.y[0]);
-                        }
-                    } else {
-                        if ((current.mask & C1_MASK) == 0) {
-                            gp.quadTo(
-                                    (float) previous.x[2], (float) previous.y[2],
-                                    (float) current.x[0], (float) current.y[0]);
-                        } else {
-                            gp.curveTo(
-                                    (float) previous.x[2], (float) previous.y[2],
-                                    (float) current.x[1], (float) current.y[1],
-                                    (float) current.x[0], (float) current.y[0]);
-                        }
-                    }
-                }
-                gp.closePath();
+            double x0, y0;
+            if (packedNodes != null) {
+                x0 = packedCoords[0];
+                y0 = packedCoords[1];
+            } else {
+                Node current = get(0);
+                x0 = current.x[0];
+                y0 = current.y[0];
             }
+            gp.moveTo((float) x0, (float) y0);
+            gp.lineTo((float) x0, (float) y0 + 1);
+        } else {
+            gp.append(new BezierPathIterator(this), false);
         }
         return gp;
     }
@@ -479,6 +792,35 @@ public class BezierPath extends ArrayList<BezierPath.Node>
             int size = size();
             if (size == 0) {
                 x1 = y1 = x2 = y2 = 0.0f;
+            } else if (packedNodes != null) {
+                byte[] nodes = packedNodes;
+                double[] coords = packedCoords;
+                double[] b = {coords[0], coords[1], coords[0], coords[1]};
+                for (int i = 0, j = 0; i < size; i++) {
+                    int flags = nodes[i];
+                    addToBounds(b, coords[j], coords[j + 1]);
+                    j += 2;
+                    if ((flags & PACKED_C1) != 0) {
+                        // C1 of the first node is only in effect if the
+                        // path is closed
+                        if ((flags & C1_MASK) != 0 && (i != 0 || isClosed || size == 1)) {
+                            addToBounds(b, coords[j], coords[j + 1]);
+                        }
+                        j += 2;
+                    }
+                    if ((flags & PACKED_C2) != 0) {
+                        // C2 of the last node is only in effect if the
+                        // path is closed
+                        if ((flags & C2_MASK) != 0 && (i != size - 1 || isClosed || size == 1)) {
+                            addToBounds(b, coords[j], coords[j + 1]);
+                        }
+                        j += 2;
+                    }
+                }
+                x1 = b[0];
+                y1 = b[1];
+                x2 = b[2];
+                y2 = b[3];
             } else {
                 double x, y;
 
@@ -623,6 +965,24 @@ public class BezierPath extends ArrayList<BezierPath.Node>
         return (Rectangle2D.Double) bounds.clone();
     }
 
+    /**
+     * Widens the bounds {x1, y1, x2, y2} to include the specified point.
+     */
+    private static void addToBounds(double[] bounds, double x, double y) {
+        if (x < bounds[0]) {
+            bounds[0] = x;
+        }
+        if (y < bounds[1]) {
+            bounds[1] = y;
+        }
+        if (x > bounds[2]) {
+            bounds[2] = x;
+        }
+        if (y > bounds[3]) {
+            bounds[3] = y;
+        }
+    }
+
     public Rectangle getBounds() {
         return getBounds2D().getBounds();
     }
@@ -651,8 +1011,13 @@ public class BezierPath extends ArrayList<BezierPath.Node>
     /** Creates a deep copy of the BezierPath. */
     public BezierPath clone() {
         BezierPath that = (BezierPath) super.clone();
-        for (int i = 0, n = this.size(); i < n; i++) {
-            that.set(i, (Node) this.get(i).clone());
+        if (packedNodes != null) {
+            // the flags are never changed, so we can share them
+            that.packedCoords = packedCoords.clone();
+        } else {
+            for (int i = 0, n = this.size(); i < n; i++) {
+                that.set(i, (Node) this.get(i).clone());
+            }
         }
         return that;
     }
@@ -662,6 +1027,11 @@ public class BezierPath extends ArrayList<BezierPath.Node>
      * @param tx the transformation.
      */
     public void transform(AffineTransform tx) {
+        if (packedNodes != null) {
+            tx.transform(packedCoords, 0, packedCoords, 0, packedCoords.length / 2);
+            invalidatePath();
+            return;
+        }
         Point2D.Double p = new Point2D.Double();
         for (Node cp : this) {
             for (int i = 0; i < 3; i++) {
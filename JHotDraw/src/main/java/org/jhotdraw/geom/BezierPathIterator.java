@@ -26,7 +26,9 @@ import java.awt.geom.*;
  * Subsequent iterations require a new iterator.
  *
  * @author Werner Randelshofer
- * @version 1.0 7. Mai 2007 Created.
+ * @version 1.1 2026-10-18 Iterates directly over the coordinates of a
+ * packed BezierPath.
+ * <br>1.0 7. Mai 2007 Created.
  */
 public class BezierPathIterator implements PathIterator {
     /**
@@ -41,6 +43,32 @@ public class BezierPathIterator implements PathIterator {
      * The transformation.
      */
     private AffineTransform affine;
+    /**
+     * The flags of the nodes, if the bezier path was packed when the
+     * iterator was created, or null.
+     */
+    private byte[] packedNodes;
+    /**
+     * The coordinates of the nodes, if the bezier path was packed.
+     */
+    private double[] packedCoords;
+    /**
+     * Offset of the coordinates of the node at index in packedCoords.
+     */
+    private int offset;
+    /**
+     * Offset of the coordinates of the node before index in packedCoords.
+     */
+    private int previousOffset;
+    /**
+     * Holds the segment of a packed bezier path, when the float coordinates
+     * of the segment are requested.
+     */
+    private double[] packedSegment;
+    /**
+     * The number of points of the current segment of a packed bezier path.
+     */
+    private int numPackedCoords;
     
     /** ?? */
     private static final int curvesize[] = {2, 2, 4, 6, 0};
@@ -61,6 +89,8 @@ public class BezierPathIterator implements PathIterator {
     public BezierPathIterator(BezierPath path, AffineTransform at) {
         this.path = path;
         this.affine = at;
+        this.packedNodes = path.packedNodes;
+        this.packedCoords = path.packedCoords;
     }
     
     /**
@@ -88,6 +118,10 @@ public class BezierPathIterator implements PathIterator {
      */
     public void next() {
         if (! isDone()) {
+            if (packedNodes != null && index < packedNodes.length) {
+                previousOffset = offset;
+                offset += BezierPath.getPackedLength(packedNodes[index]);
+            }
             index++;
         }
     }
@@ -111,6 +145,19 @@ public class BezierPathIterator implements PathIterator {
      * @see PathIterator#SEG_CLOSE
      */
     public int currentSegment(float[] coords) {
+        if (packedNodes != null) {
+            if (packedSegment == null) {
+                packedSegment = new double[6];
+            }
+            int type = currentPackedSegment(packedSegment);
+            for (int i = 0, n = numPackedCoords * 2; i < n; i++) {
+                coords[i] = (float) packedSegment[i];
+            }
+            if (affine != null) {
+                affine.transform(coords, 0, coords, 0, numPackedCoords);
+            }
+            return type;
+        }
         int numCoords = 0;
         int type = 0;
         if (index == path.size()) {
@@ -229,6 +276,13 @@ public class BezierPathIterator implements PathIterator {
      * @see PathIterator#SEG_CLOSE
      */
     public int currentSegment(double[] coords) {
+        if (packedNodes != null) {
+            int type = currentPackedSegment(coords);
+            if (affine != null) {
+                affine.transform(coords, 0, coords, 0, numPackedCoords);
+            }
+            return type;
+        }
         int numCoords = 0;
         int type = 0;
         if (index == path.size()) {
@@ -329,4 +383,78 @@ public class BezierPathIterator implements PathIterator {
         }
         return type;
     }
+
+    /**
+     * Returns the untransformed coordinates and type of the current path
+     * segment of a packed bezier path, and sets numPackedCoords to the
+     * number of points of the segment.
+     */
+    private int currentPackedSegment(double[] coords) {
+        byte[] nodes = packedNodes;
+        double[] c = packedCoords;
+        int size = nodes.length;
+        int previousFlags, currentFlags;
+        int previous, current;
+        numPackedCoords = 0;
+        if (index > size) {
+            // We only get here for closed paths
+            return SEG_CLOSE;
+        } else if (index == size) {
+            // We only get here for closed paths
+            if (size < 2) {
+                return 0;
+            }
+            previousFlags = nodes[size - 1];
+            previous = previousOffset;
+            currentFlags = nodes[0];
+            current = 0;
+        } else if (index == 0) {
+            coords[0] = c[0];
+            coords[1] = c[1];
+            numPackedCoords = 1;
+            return SEG_MOVETO;
+        } else {
+            previousFlags = nodes[index - 1];
+            previous = previousOffset;
+            currentFlags = nodes[index];
+            current = offset;
+        }
+
+        // C1 of the current node directly follows C0, C2 of the previous
+        // node follows C1, if C1 is stored
+        int previousC2 = previous + ((previousFlags & BezierPath.PACKED_C1) == 0 ? 2 : 4);
+        if ((previousFlags & BezierPath.C2_MASK) == 0) {
+            if ((currentFlags & BezierPath.C1_MASK) == 0) {
+                numPackedCoords = 1;
+                coords[0] = c[current];
+                coords[1] = c[current + 1];
+                return SEG_LINETO;
+            } else {
+                numPackedCoords = 2;
+                coords[0] = c[current + 2];
+                coords[1] = c[current + 3];
+                coords[2] = c[current];
+                coords[3] = c[current + 1];
+                return SEG_QUADTO;
+            }
+        } else {
+            if ((currentFlags & BezierPath.C1_MASK) == 0) {
+                numPackedCoords = 2;
+                coords[0] = c[previousC2];
+                coords[1] = c[previousC2 + 1];
+                coords[2] = c[current];
+                coords[3] = c[current + 1];
+                return SEG_QUADTO;
+            } else {
+                numPackedCoords = 3;
+                coords[0] = c[previousC2];
+                coords[1] = c[previousC2 + 1];
+                coords[2] = c[current + 2];
+                coords[3] = c[current + 3];
+                coords[4] = c[current];
+                coords[5] = c[current + 1];
+                return SEG_CUBICTO;
+            }
+        }
+    }
 }
@@ -0,0 +1,185 @@
+/*
+ * @(#)FlattenedOutline.java  1.0  2026-10-18
+ *
+ * Copyright (c) 1996-2026 by the original authors of JHotDraw
+ * and all its contributors.
+ * All rights reserved.
+ *
+ * The copyright of this software is owned by the authors and
+ * contributors of the JHotDraw project ("the copyright holders").
+ * You may not use, copy or modify this software, except in
+ * accordance with the license agreement you entered into with
+ * the copyright holders. For details see accompanying license terms.
+ */
+package org.jhotdraw.geom;
+
+import java.awt.*;
+import java.awt.geom.*;
+
+/**
+ * A FlattenedOutline holds the outline of a shape as a list of line segments,
+ * for fast repeated hit testing of the outline.
+ * <p>
+ * The segments are grouped into chunks of consecutive segments. The bounding
+ * box of each chunk is used to skip all segments of the chunk, which are too
+ * far away from the point being tested. The segments of the remaining chunks
+ * are tested with {@link Geom#lineContainsPoint}.
+ * <p>
+ * A FlattenedOutline does not change, when the shape changes. Create a new
+ * instance after the shape has been changed.
+ *
+ * @author Werner Randelshofer
+ * @version 1.0 2026-10-18 Created.
+ */
+public class FlattenedOutline {
+
+    /**
+     * The number of segments in a chunk.
+     */
+    private final static int CHUNK_SIZE = 16;
+    private double flatness;
+    /**
+     * The coordinates of the segments. Each segment is made of four values:
+     * x1, y1, x2, y2.
+     */
+    private double[] segments;
+    private int segmentCount;
+    /**
+     * The bounding boxes of the chunks. Each bounding box is made of four
+     * values: minX, minY, maxX, maxY.
+     */
+    private double[] chunkBounds;
+    private Rectangle2D.Double bounds;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param shape The shape.
+     * @param flatness The maximal distance between the line segments and
+     * the curves of the shape.
+     */
+    public FlattenedOutline(Shape shape, double flatness) {
+        this.flatness = flatness;
+        segments = new double[64];
+
+        double[] coords = new double[6];
+        double moveX = 0, moveY = 0;
+        double prevX = 0, prevY = 0;
+        boolean hasPrev = false;
+        for (PathIterator i = shape.getPathIterator(new AffineTransform(), flatness); !i.isDone(); i.next()) {
+            switch (i.currentSegment(coords)) {
+                case PathIterator.SEG_MOVETO:
+                    moveX = prevX = coords[0];
+                    moveY = prevY = coords[1];
+                    hasPrev = true;
+                    break;
+                case PathIterator.SEG_CLOSE:
+                    if (hasPrev) {
+                        addSegment(prevX, prevY, moveX, moveY);
+                        prevX = moveX;
+                        prevY = moveY;
+                    }
+                    break;
+                default:
+                    if (hasPrev) {
+                        addSegment(prevX, prevY, coords[0], coords[1]);
+                    }
+                    prevX = coords[0];
+                    prevY = coords[1];
+                    hasPrev = true;
+                    break;
+            }
+        }
+
+        int chunkCount = (segmentCount + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        chunkBounds = new double[chunkCount * 4];
+        double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY;
+        for (int c = 0; c < chunkCount; c++) {
+            double cMinX = Double.POSITIVE_INFINITY, cMinY = Double.POSITIVE_INFINITY;
+            double cMaxX = Double.NEGATIVE_INFINITY, cMaxY = Double.NEGATIVE_INFINITY;
+            for (int s = c * CHUNK_SIZE, end = Math.min(segmentCount, s + CHUNK_SIZE); s < end; s++) {
+                int j = s * 4;
+                cMinX = Math.min(cMinX, Math.min(segments[j], segments[j + 2]));
+                cMinY = Math.min(cMinY, Math.min(segments[j + 1], segments[j + 3]));
+                cMaxX = Math.max(cMaxX, Math.max(segments[j], segments[j + 2]));
+                cMaxY = Math.max(cMaxY, Math.max(segments[j + 1], segments[j + 3]));
+            }
+            chunkBounds[c * 4] = cMinX;
+            chunkBounds[c * 4 + 1] = cMinY;
+            chunkBounds[c * 4 + 2] = cMaxX;
+            chunkBounds[c * 4 + 3] = cMaxY;
+            minX = Math.min(minX, cMinX);
+            minY = Math.min(minY, cMinY);
+            maxX = Math.max(maxX, cMaxX);
+            maxY = Math.max(maxY, cMaxY);
+        }
+        bounds = (segmentCount == 0) ? new Rectangle2D.Double() : new Rectangle2D.Double(minX, minY, maxX - minX, maxY - minY);
+    }
+
+    private void addSegment(double x1, double y1, double x2, double y2) {
+        int j = segmentCount * 4;
+        if (j + 4 > segments.length) {
+            double[] newSegments = new double[segments.length * 2];
+            System.arraycopy(segments, 0, newSegments, 0, j);
+            segments = newSegments;
+        }
+        segments[j] = x1;
+        segments[j + 1] = y1;
+        segments[j + 2] = x2;
+        segments[j + 3] = y2;
+        segmentCount++;
+    }
+
+    /**
+     * Returns the flatness, which was used for flattening the shape.
+     */
+    public double getFlatness() {
+        return flatness;
+    }
+
+    /**
+     * Returns the number of line segments.
+     */
+    public int getSegmentCount() {
+        return segmentCount;
+    }
+
+    /**
+     * Returns the bounds of the line segments.
+     */
+    public Rectangle2D.Double getBounds() {
+        return (Rectangle2D.Double) bounds.clone();
+    }
+
+    /**
+     * Returns true, if the outline contains the specified point.
+     *
+     * @param p The point to be tested.
+     * @param tolerance The tolerance for the test.
+     */
+    public boolean outlineContains(Point2D.Double p, double tolerance) {
+        // Geom.lineContainsPoint rejects all points outside of the bounds
+        // of a segment grown by this value
+        double grow = Math.max(2, (int) Math.ceil(tolerance));
+        if (segmentCount == 0 ||
+                p.x < bounds.x - grow || p.x > bounds.x + bounds.width + grow ||
+                p.y < bounds.y - grow || p.y > bounds.y + bounds.height + grow) {
+            return false;
+        }
+        for (int c = 0, n = chunkBounds.length; c < n; c += 4) {
+            if (p.x < chunkBounds[c] - grow || p.x > chunkBounds[c + 2] + grow ||
+                    p.y < chunkBounds[c + 1] - grow || p.y > chunkBounds[c + 3] + grow) {
+                continue;
+            }
+            for (int s = c / 4 * CHUNK_SIZE, end = Math.min(segmentCount, s + CHUNK_SIZE); s < end; s++) {
+                int j = s * 4;
+                if (Geom.lineContainsPoint(segments[j], segments[j + 1],
+                        segments[j + 2], segments[j + 3], p.x, p.y, tolerance)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+}
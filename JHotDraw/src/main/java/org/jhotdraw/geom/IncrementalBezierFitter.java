@@ -0,0 +1,210 @@
+/*
+ * @(#)IncrementalBezierFitter.java  1.0  2026-10-18
+ *
+ * Copyright (c) 1996-2026 by the original authors of JHotDraw
+ * and all its contributors.
+ * All rights reserved.
+ *
+ * The copyright of this software is owned by the authors and
+ * contributors of the JHotDraw project ("the copyright holders").
+ * You may not use, copy or modify this software, except in
+ * accordance with the license agreement you entered into with
+ * the copyright holders. For details see accompanying license terms.
+ */
+package org.jhotdraw.geom;
+
+import java.awt.geom.*;
+import java.util.*;
+
+/**
+ * Fits a bezier path to digitized points, while the points are being
+ * digitized.
+ * <p>
+ * The points are split into segments at corners, and each segment is
+ * fitted separately, as in {@link Bezier#fitBezierPath}. Whether a point is
+ * a corner only depends on the points before it, and on the first point
+ * after it, which is far enough away from it. Thus, as soon as such a point
+ * has been added, the decision is final, and the segment which ends at the
+ * corner can be fitted. When all points have been added, method
+ * {@link #finish} fits the remaining segment. The resulting path is the same
+ * as the one returned by {@code Bezier.fitBezierPath}.
+ * <p>
+ * Method {@link #add} may be invoked on one thread, while methods
+ * {@link #fitSettledSegments} and {@link #finish} are invoked on another
+ * thread.
+ *
+ * @author Werner Randelshofer
+ * @version 1.0 2026-10-18 Created.
+ */
+public class IncrementalBezierFitter {
+
+    /**
+     * The maximal allowed error between the bezier path and the
+     * digitized points.
+     */
+    private final double error;
+    /**
+     * The squared minimal distance between a point and its predecessor and
+     * successor for corner detection.
+     */
+    private final double squaredCornerDistance;
+    /**
+     * Points, which have been added, but which have not been transferred
+     * into the points list yet. Guarded by this.
+     */
+    private ArrayList<Point2D.Double> addedPoints = new ArrayList<Point2D.Double>();
+    /**
+     * The number of points, which have been added. Guarded by this.
+     */
+    private int size;
+    /**
+     * Guards the fitting state below.
+     */
+    private final Object fitLock = new Object();
+    /**
+     * The digitized points.
+     */
+    private final ArrayList<Point2D.Double> points = new ArrayList<Point2D.Double>();
+    /**
+     * The index of the next point, which needs to be tested for being a
+     * corner.
+     */
+    private int nextCandidate = 1;
+    /**
+     * The index of the most recent corner, or -1.
+     */
+    private int previousCorner = -1;
+    /**
+     * The index of the first point of the segment, which has not been
+     * fitted yet.
+     */
+    private int segmentStart = 0;
+    /**
+     * The fitted path.
+     */
+    private final BezierPath fittedPath = new BezierPath();
+    private boolean isFinished;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param error the maximal allowed error between the bezier path and the
+     * digitized points.
+     */
+    public IncrementalBezierFitter(double error) {
+        this.error = error;
+        double cornerDistance = error * error;
+        this.squaredCornerDistance = cornerDistance * cornerDistance;
+    }
+
+    /**
+     * Adds a digitized point.
+     */
+    public synchronized void add(Point2D.Double p) {
+        addedPoints.add(p);
+        size++;
+    }
+
+    /**
+     * Returns the number of points, which have been added.
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Fits all segments of the points added so far, which end at a corner
+     * that can not change anymore.
+     */
+    public void fitSettledSegments() {
+        synchronized (fitLock) {
+            if (!isFinished) {
+                transferAddedPoints();
+                fitSegments(false);
+            }
+        }
+    }
+
+    /**
+     * Fits the remaining segments, and returns the fitted path. After
+     * this method has been invoked, no more points can be added.
+     */
+    public BezierPath finish() {
+        synchronized (fitLock) {
+            if (!isFinished) {
+                transferAddedPoints();
+                fitSegments(true);
+                Bezier.fitSegment(
+                        new ArrayList<Point2D.Double>(points.subList(segmentStart, points.size())),
+                        error, fittedPath);
+                isFinished = true;
+            }
+            return fittedPath;
+        }
+    }
+
+    private void transferAddedPoints() {
+        ArrayList<Point2D.Double> added;
+        synchronized (this) {
+            added = addedPoints;
+            addedPoints = new ArrayList<Point2D.Double>();
+        }
+        points.addAll(added);
+    }
+
+    /**
+     * Searches for corners in the same way as {@link Bezier#findCorners},
+     * and fits the segment which ends at each corner.
+     *
+     * @param isComplete True if no more points will be added.
+     */
+    private void fitSegments(boolean isComplete) {
+        ArrayList<Point2D.Double> d = points;
+        double minAngle = Bezier.CORNER_ANGLE;
+        int i;
+        for (i = nextCandidate; i < d.size() - 1; i++) {
+            Point2D.Double p = d.get(i);
+
+            // search for a preceding point for corner detection
+            Point2D.Double prev = null;
+            for (int j = i - 1; j >= 0; j--) {
+                if (j == previousCorner || p.distanceSq(d.get(j)) >= squaredCornerDistance) {
+                    prev = d.get(j);
+                    break;
+                }
+            }
+            if (prev == null) {
+                continue;
+            }
+
+            // search for a succeeding point for corner detection
+            Point2D.Double next = null;
+            for (int j = i + 1, n = d.size(); j < n; j++) {
+                if (p.distanceSq(d.get(j)) >= squaredCornerDistance) {
+                    next = d.get(j);
+                    break;
+                }
+            }
+            if (next == null) {
+                if (isComplete) {
+                    continue;
+                }
+                // the decision depends on points which have not been
+                // digitized yet
+                break;
+            }
+
+            double aPrev = Math.atan2(prev.y - p.y, prev.x - p.x);
+            double aNext = Math.atan2(next.y - p.y, next.x - p.x);
+            double angle = Math.abs(aPrev - aNext);
+            if (angle < Math.PI - minAngle || angle > Math.PI + minAngle) {
+                Bezier.fitSegment(
+                        new ArrayList<Point2D.Double>(d.subList(segmentStart, i + 1)),
+                        error, fittedPath);
+                segmentStart = i;
+                previousCorner = i;
+            }
+        }
+        nextCandidate = i;
+    }
+}
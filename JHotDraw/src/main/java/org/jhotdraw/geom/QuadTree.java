@@ -27,11 +27,12 @@ import java.awt.*;
  * lower left and lower right quadrant of the parent rectangle. 
  *
  * @author  Werner Randelshofer
- * @version 2.0 2006-12-06 Renamed from QuadTree2DDouble to QuadTree because
+ * @version 2.1 2026-10-18 Implements SpatialIndex.
+ * <br>2.0 2006-12-06 Renamed from QuadTree2DDouble to QuadTree because
  * this class isn't a Shape2D class.
  * <br>1.0 2006-01-14 Derived from class QuadTree.
  */
-public class QuadTree<T> {
+public class QuadTree<T> implements SpatialIndex<T> {
     private HashMap<T,Rectangle2D.Double> outside = new HashMap<T,Rectangle2D.Double>();
     private QuadNode root;
     private int maxCapacity = 32;
@@ -57,6 +58,28 @@ public class QuadTree<T> {
             }
         }
     }
+    public void addAll(Map<? extends T, Rectangle2D.Double> objects) {
+        for (Map.Entry<? extends T, Rectangle2D.Double> entry : objects.entrySet()) {
+            add(entry.getKey(), entry.getValue());
+        }
+    }
+
+    public void update(T o, Rectangle2D.Double bounds) {
+        remove(o);
+        add(o, bounds);
+    }
+
+    public void clear() {
+        root = new QuadNode(root.bounds);
+        outside.clear();
+    }
+
+    public int size() {
+        HashSet<T> all = new HashSet<T>(outside.keySet());
+        root.collect(all);
+        return all.size();
+    }
+
     public void reorganize() {
         root.join();
         outside.putAll(root.objects);
@@ -223,6 +246,16 @@ public class QuadTree<T> {
             }
         }
         
+        public void collect(HashSet<T> result) {
+            result.addAll(objects.keySet());
+            if (! isLeaf()) {
+                northWest.collect(result);
+                northEast.collect(result);
+                southWest.collect(result);
+                southEast.collect(result);
+            }
+        }
+
         public void findContains(Point2D.Double p, HashSet<T> result) {
             if (bounds.contains(p)) {
                 for (Map.Entry<T,Rectangle2D.Double> entry : objects.entrySet()) {
@@ -0,0 +1,575 @@
+/*
+ * @(#)RTree.java  1.0  2026-10-18
+ *
+ * Copyright (c) 1996-2026 by the original authors of JHotDraw
+ * and all its contributors.
+ * All rights reserved.
+ *
+ * The copyright of this software is owned by the authors and
+ * contributors of the JHotDraw project ("the copyright holders").
+ * You may not use, copy or modify this software, except in
+ * accordance with the license agreement you entered into with
+ * the copyright holders. For details see accompanying license terms.
+ */
+package org.jhotdraw.geom;
+
+import java.awt.geom.*;
+import java.util.*;
+
+/**
+ * An RTree allows to quickly find an object on a two-dimensional space.
+ * <p>
+ * Unlike {@link QuadTree}, an RTree does not need to know the extent of the
+ * space in advance. Each node of the tree stores the bounding rectangle of
+ * all the objects in its subtree. The tree grows and shrinks as objects are
+ * added and removed, and it stays balanced.
+ * <p>
+ * Objects added with method {@code addAll} are bulk-loaded using the
+ * Sort-Tile-Recursive (STR) algorithm. Objects added with method {@code add}
+ * are inserted using Guttman's quadratic split algorithm. Method
+ * {@code update} changes the bounds of an object in place, if the new bounds
+ * still fit into the leaf node holding the object.
+ *
+ * @author Werner Randelshofer
+ * @version 1.0 2026-10-18 Created.
+ */
+public class RTree<T> implements SpatialIndex<T> {
+
+    /**
+     * The maximal number of children of a node.
+     */
+    private final int maxEntries;
+    /**
+     * The minimal number of children of a node (except the root node).
+     */
+    private final int minEntries;
+    private Node root;
+    /**
+     * Maps objects to the entries that hold them in the leaf nodes.
+     */
+    private HashMap<T, Entry<T>> entries = new HashMap<T, Entry<T>>();
+
+    /** Creates a new instance. */
+    public RTree() {
+        this(16);
+    }
+
+    /**
+     * Creates a new instance.
+     *
+     * @param maxEntries The maximal number of children of a node.
+     */
+    public RTree(int maxEntries) {
+        if (maxEntries < 4) {
+            throw new IllegalArgumentException("maxEntries must be at least 4: " + maxEntries);
+        }
+        this.maxEntries = maxEntries;
+        this.minEntries = Math.max(2, maxEntries * 2 / 5);
+        this.root = new Node(true, maxEntries);
+    }
+
+    public void add(T o, Rectangle2D.Double bounds) {
+        Entry<T> e = entries.get(o);
+        if (e != null) {
+            update(o, bounds);
+        } else {
+            e = new Entry<T>(o);
+            e.setBounds(bounds);
+            entries.put(o, e);
+            insert(e);
+        }
+    }
+
+    public void addAll(Map<? extends T, Rectangle2D.Double> objects) {
+        if (objects.isEmpty()) {
+            return;
+        }
+        if (entries.size() < objects.size()) {
+            // Rebuild the whole tree in a single pass
+            for (Map.Entry<? extends T, Rectangle2D.Double> entry : objects.entrySet()) {
+                Entry<T> e = entries.get(entry.getKey());
+                if (e == null) {
+                    e = new Entry<T>(entry.getKey());
+                    entries.put(entry.getKey(), e);
+                }
+                e.setBounds(entry.getValue());
+            }
+            root = bulkLoad(new ArrayList<Box>(entries.values()));
+        } else {
+            for (Map.Entry<? extends T, Rectangle2D.Double> entry : objects.entrySet()) {
+                add(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    public void update(T o, Rectangle2D.Double bounds) {
+        Entry<T> e = entries.get(o);
+        if (e == null) {
+            add(o, bounds);
+            return;
+        }
+        Node leaf = e.parent;
+        if (leaf.contains(bounds)) {
+            // The entry stays in its leaf. We only need to shrink the
+            // bounds of the ancestors, if the entry was on their border.
+            e.setBounds(bounds);
+            shrink(leaf);
+        } else {
+            leaf.removeChild(e);
+            e.setBounds(bounds);
+            condense(leaf);
+            insert(e);
+        }
+    }
+
+    public void remove(T o) {
+        Entry<T> e = entries.remove(o);
+        if (e != null) {
+            Node leaf = e.parent;
+            leaf.removeChild(e);
+            condense(leaf);
+        }
+    }
+
+    public void clear() {
+        entries.clear();
+        root = new Node(true, maxEntries);
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Returns the bounds of all objects in the tree, or an empty rectangle
+     * if the tree is empty.
+     */
+    public Rectangle2D.Double getBounds() {
+        if (root.count == 0) {
+            return new Rectangle2D.Double();
+        }
+        return new Rectangle2D.Double(root.minX, root.minY,
+                root.maxX - root.minX, root.maxY - root.minY);
+    }
+
+    public Collection<T> findContains(Point2D.Double p) {
+        ArrayList<T> result = new ArrayList<T>();
+        findContains(root, p.x, p.y, result);
+        return result;
+    }
+
+    public Collection<T> findIntersects(Rectangle2D r) {
+        ArrayList<T> result = new ArrayList<T>();
+        findIntersects(root, r.getMinX(), r.getMinY(), r.getMaxX(), r.getMaxY(), result);
+        return result;
+    }
+
+    public Collection<T> findIntersects(Rectangle2D.Double r) {
+        ArrayList<T> result = new ArrayList<T>();
+        findIntersects(root, r.x, r.y, r.x + r.width, r.y + r.height, result);
+        return result;
+    }
+
+    public Collection<T> findInside(Rectangle2D.Double r) {
+        ArrayList<T> result = new ArrayList<T>();
+        findInside(root, r.x, r.y, r.x + r.width, r.y + r.height, result);
+        return result;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void findContains(Node node, double x, double y, ArrayList<T> result) {
+        for (int i = 0; i < node.count; i++) {
+            Box child = node.children[i];
+            if (child.minX <= x && x <= child.maxX && child.minY <= y && y <= child.maxY) {
+                if (node.isLeaf) {
+                    result.add(((Entry<T>) child).object);
+                } else {
+                    findContains((Node) child, x, y, result);
+                }
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void findIntersects(Node node, double minX, double minY, double maxX, double maxY, ArrayList<T> result) {
+        for (int i = 0; i < node.count; i++) {
+            Box child = node.children[i];
+            if (child.minX <= maxX && minX <= child.maxX && child.minY <= maxY && minY <= child.maxY) {
+                if (node.isLeaf) {
+                    result.add(((Entry<T>) child).object);
+                } else {
+                    findIntersects((Node) child, minX, minY, maxX, maxY, result);
+                }
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void findInside(Node node, double minX, double minY, double maxX, double maxY, ArrayList<T> result) {
+        for (int i = 0; i < node.count; i++) {
+            Box child = node.children[i];
+            if (node.isLeaf) {
+                if (minX <= child.minX && child.maxX <= maxX && minY <= child.minY && child.maxY <= maxY) {
+                    result.add(((Entry<T>) child).object);
+                }
+            } else if (child.minX <= maxX && minX <= child.maxX && child.minY <= maxY && minY <= child.maxY) {
+                findInside((Node) child, minX, minY, maxX, maxY, result);
+            }
+        }
+    }
+
+    /**
+     * Inserts an entry into the leaf which needs the least enlargement
+     * to include it, and splits nodes on the path to the root which
+     * overflow.
+     */
+    private void insert(Entry<T> e) {
+        Node node = root;
+        while (!node.isLeaf) {
+            node = (Node) node.children[chooseSubtree(node, e)];
+        }
+        node.append(e);
+        for (Node n = node; n != null; n = n.parent) {
+            n.include(e);
+        }
+        while (node != null && node.count > maxEntries) {
+            Node sibling = split(node);
+            if (node == root) {
+                root = new Node(false, maxEntries);
+                root.append(node);
+                root.append(sibling);
+                root.recomputeBounds();
+                node = null;
+            } else {
+                node.parent.append(sibling);
+                node = node.parent;
+            }
+        }
+    }
+
+    private int chooseSubtree(Node node, Box b) {
+        int best = 0;
+        double bestEnlargement = Double.POSITIVE_INFINITY;
+        double bestArea = Double.POSITIVE_INFINITY;
+        for (int i = 0; i < node.count; i++) {
+            Box child = node.children[i];
+            double area = child.area();
+            double enlargement = child.unionArea(b) - area;
+            if (enlargement < bestEnlargement ||
+                    enlargement == bestEnlargement && area < bestArea) {
+                best = i;
+                bestEnlargement = enlargement;
+                bestArea = area;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Splits an overflowing node using Guttman's quadratic split algorithm.
+     * The node keeps one half of its children, the other half is moved into
+     * the returned sibling node.
+     */
+    private Node split(Node node) {
+        Box[] all = new Box[node.count];
+        System.arraycopy(node.children, 0, all, 0, node.count);
+        node.clearChildren();
+        Node sibling = new Node(node.isLeaf, maxEntries);
+
+        // Pick the two children which would waste the most area if they
+        // were put into the same node.
+        int seedA = 0, seedB = 1;
+        double worst = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < all.length; i++) {
+            for (int j = i + 1; j < all.length; j++) {
+                double waste = all[i].unionArea(all[j]) - all[i].area() - all[j].area();
+                if (waste > worst) {
+                    worst = waste;
+                    seedA = i;
+                    seedB = j;
+                }
+            }
+        }
+        node.append(all[seedA]);
+        node.include(all[seedA]);
+        sibling.append(all[seedB]);
+        sibling.include(all[seedB]);
+        all[seedA] = null;
+        all[seedB] = null;
+
+        int remaining = all.length - 2;
+        while (remaining > 0) {
+            if (node.count + remaining <= minEntries) {
+                moveAll(all, node);
+                break;
+            }
+            if (sibling.count + remaining <= minEntries) {
+                moveAll(all, sibling);
+                break;
+            }
+            // Pick the child with the greatest preference for one group
+            int next = -1;
+            double nextDiff = Double.NEGATIVE_INFINITY;
+            double nextA = 0, nextB = 0;
+            for (int i = 0; i < all.length; i++) {
+                if (all[i] != null) {
+                    double dA = node.unionArea(all[i]) - node.area();
+                    double dB = sibling.unionArea(all[i]) - sibling.area();
+                    double diff = Math.abs(dA - dB);
+                    if (diff > nextDiff) {
+                        next = i;
+                        nextDiff = diff;
+                        nextA = dA;
+                        nextB = dB;
+                    }
+                }
+            }
+            Node target;
+            if (nextA < nextB) {
+                target = node;
+            } else if (nextB < nextA) {
+                target = sibling;
+            } else if (node.area() != sibling.area()) {
+                target = (node.area() < sibling.area()) ? node : sibling;
+            } else {
+                target = (node.count <= sibling.count) ? node : sibling;
+            }
+            target.append(all[next]);
+            target.include(all[next]);
+            all[next] = null;
+            remaining--;
+        }
+        return sibling;
+    }
+
+    private void moveAll(Box[] boxes, Node target) {
+        for (int i = 0; i < boxes.length; i++) {
+            if (boxes[i] != null) {
+                target.append(boxes[i]);
+                target.include(boxes[i]);
+                boxes[i] = null;
+            }
+        }
+    }
+
+    /**
+     * Recomputes the bounds of the specified node and of its ancestors
+     * until a node does not change.
+     */
+    private void shrink(Node node) {
+        for (Node n = node; n != null; n = n.parent) {
+            if (!n.recomputeBounds()) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * Removes underfull nodes on the path from the specified node to the
+     * root, and reinserts their entries.
+     */
+    private void condense(Node node) {
+        ArrayList<Entry<T>> orphans = null;
+        Node n = node;
+        while (n != root) {
+            Node parent = n.parent;
+            if (n.count < minEntries) {
+                parent.removeChild(n);
+                if (orphans == null) {
+                    orphans = new ArrayList<Entry<T>>();
+                }
+                collectEntries(n, orphans);
+            } else {
+                n.recomputeBounds();
+            }
+            n = parent;
+        }
+        root.recomputeBounds();
+        while (!root.isLeaf && root.count == 1) {
+            root = (Node) root.children[0];
+            root.parent = null;
+        }
+        if (!root.isLeaf && root.count == 0) {
+            root = new Node(true, maxEntries);
+        }
+        if (orphans != null) {
+            for (Entry<T> orphan : orphans) {
+                insert(orphan);
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void collectEntries(Node node, ArrayList<Entry<T>> result) {
+        for (int i = 0; i < node.count; i++) {
+            if (node.isLeaf) {
+                result.add((Entry<T>) node.children[i]);
+            } else {
+                collectEntries((Node) node.children[i], result);
+            }
+        }
+    }
+
+    /**
+     * Builds a tree bottom-up from the specified entries using the
+     * Sort-Tile-Recursive algorithm.
+     */
+    private Node bulkLoad(ArrayList<Box> boxes) {
+        boolean isLeaf = true;
+        while (boxes.size() > maxEntries) {
+            int size = boxes.size();
+            int nodeCount = (size + maxEntries - 1) / maxEntries;
+            int sliceCount = (int) Math.ceil(Math.sqrt(nodeCount));
+            int sliceSize = sliceCount * maxEntries;
+
+            Collections.sort(boxes, X_COMPARATOR);
+            ArrayList<Box> parents = new ArrayList<Box>(nodeCount);
+            for (int i = 0; i < size; i += sliceSize) {
+                java.util.List<Box> slice = boxes.subList(i, Math.min(size, i + sliceSize));
+                Collections.sort(slice, Y_COMPARATOR);
+                for (int j = 0, n = slice.size(); j < n; j += maxEntries) {
+                    Node node = new Node(isLeaf, maxEntries);
+                    for (int k = j, m = Math.min(n, j + maxEntries); k < m; k++) {
+                        node.append(slice.get(k));
+                    }
+                    node.recomputeBounds();
+                    parents.add(node);
+                }
+            }
+            boxes = parents;
+            isLeaf = false;
+        }
+        Node node = new Node(isLeaf, maxEntries);
+        for (Box b : boxes) {
+            node.append(b);
+        }
+        node.recomputeBounds();
+        return node;
+    }
+    private final static Comparator<Box> X_COMPARATOR = new Comparator<Box>() {
+
+        public int compare(Box a, Box b) {
+            return Double.compare(a.minX + a.maxX, b.minX + b.maxX);
+        }
+    };
+    private final static Comparator<Box> Y_COMPARATOR = new Comparator<Box>() {
+
+        public int compare(Box a, Box b) {
+            return Double.compare(a.minY + a.maxY, b.minY + b.maxY);
+        }
+    };
+
+    /**
+     * A bounding box. The box is empty if minX is greater than maxX.
+     */
+    private static class Box {
+
+        protected double minX = Double.POSITIVE_INFINITY;
+        protected double minY = Double.POSITIVE_INFINITY;
+        protected double maxX = Double.NEGATIVE_INFINITY;
+        protected double maxY = Double.NEGATIVE_INFINITY;
+        protected Node parent;
+
+        public double area() {
+            return (minX > maxX) ? 0d : (maxX - minX) * (maxY - minY);
+        }
+
+        public double unionArea(Box b) {
+            if (minX > maxX) {
+                return b.area();
+            }
+            return (Math.max(maxX, b.maxX) - Math.min(minX, b.minX)) *
+                    (Math.max(maxY, b.maxY) - Math.min(minY, b.minY));
+        }
+
+        /**
+         * Enlarges this box to include the specified box. NaN coordinates
+         * are ignored.
+         */
+        public void include(Box b) {
+            if (b.minX < minX) {
+                minX = b.minX;
+            }
+            if (b.minY < minY) {
+                minY = b.minY;
+            }
+            if (b.maxX > maxX) {
+                maxX = b.maxX;
+            }
+            if (b.maxY > maxY) {
+                maxY = b.maxY;
+            }
+        }
+
+        public boolean contains(Rectangle2D.Double r) {
+            return minX <= r.x && r.x + r.width <= maxX &&
+                    minY <= r.y && r.y + r.height <= maxY;
+        }
+    }
+
+    private static class Entry<T> extends Box {
+
+        private final T object;
+
+        public Entry(T object) {
+            this.object = object;
+        }
+
+        public void setBounds(Rectangle2D.Double r) {
+            minX = r.x;
+            minY = r.y;
+            maxX = r.x + r.width;
+            maxY = r.y + r.height;
+        }
+    }
+
+    private static class Node extends Box {
+
+        private final boolean isLeaf;
+        private final Box[] children;
+        private int count;
+
+        public Node(boolean isLeaf, int maxEntries) {
+            this.isLeaf = isLeaf;
+            this.children = new Box[maxEntries + 1];
+        }
+
+        public void append(Box child) {
+            children[count++] = child;
+            child.parent = this;
+        }
+
+        public void removeChild(Box child) {
+            for (int i = 0; i < count; i++) {
+                if (children[i] == child) {
+                    System.arraycopy(children, i + 1, children, i, count - i - 1);
+                    children[--count] = null;
+                    child.parent = null;
+                    return;
+                }
+            }
+        }
+
+        public void clearChildren() {
+            Arrays.fill(children, 0, count, null);
+            count = 0;
+            minX = minY = Double.POSITIVE_INFINITY;
+            maxX = maxY = Double.NEGATIVE_INFINITY;
+        }
+
+        /**
+         * Recomputes the bounds of this node from its children.
+         *
+         * @return Returns true if the bounds have changed.
+         */
+        public boolean recomputeBounds() {
+            double oldMinX = minX, oldMinY = minY, oldMaxX = maxX, oldMaxY = maxY;
+            minX = minY = Double.POSITIVE_INFINITY;
+            maxX = maxY = Double.NEGATIVE_INFINITY;
+            for (int i = 0; i < count; i++) {
+                include(children[i]);
+            }
+            return oldMinX != minX || oldMinY != minY || oldMaxX != maxX || oldMaxY != maxY;
+        }
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * @(#)SpatialIndex.java  1.0  2026-10-18
+ *
+ * Copyright (c) 1996-2026 by the original authors of JHotDraw
+ * and all its contributors.
+ * All rights reserved.
+ *
+ * The copyright of this software is owned by the authors and
+ * contributors of the JHotDraw project ("the copyright holders").
+ * You may not use, copy or modify this software, except in
+ * accordance with the license agreement you entered into with
+ * the copyright holders. For details see accompanying license terms.
+ */
+package org.jhotdraw.geom;
+
+import java.awt.geom.*;
+import java.util.*;
+
+/**
+ * A SpatialIndex allows to quickly find objects on a two-dimensional space
+ * by their bounding rectangles.
+ * <p>
+ * An object can be stored only once in a spatial index. The collections
+ * returned by the find methods do not contain duplicates, and they are
+ * not sorted in any particular order.
+ *
+ * @author Werner Randelshofer
+ * @version 1.0 2026-10-18 Created.
+ */
+public interface SpatialIndex<T> {
+
+    /**
+     * Adds an object with the specified bounds to the index.
+     * If the object is already in the index, its bounds are updated.
+     */
+    public void add(T o, Rectangle2D.Double bounds);
+
+    /**
+     * Adds all objects of the specified map to the index.
+     * <p>
+     * Implementations may use this method to bulk-load the index in a single
+     * pass, which is considerably faster than adding the objects one by one.
+     *
+     * @param objects A map with the objects as keys and their bounds as values.
+     */
+    public void addAll(Map<? extends T, Rectangle2D.Double> objects);
+
+    /**
+     * Updates the bounds of an object which is already in the index.
+     * If the object is not in the index, it is added.
+     */
+    public void update(T o, Rectangle2D.Double bounds);
+
+    /**
+     * Removes an object from the index.
+     */
+    public void remove(T o);
+
+    /**
+     * Removes all objects from the index.
+     */
+    public void clear();
+
+    /**
+     * Returns the number of objects in the index.
+     */
+    public int size();
+
+    /**
+     * Returns all objects whose bounds contain the specified point.
+     */
+    public Collection<T> findContains(Point2D.Double p);
+
+    /**
+     * Returns all objects whose bounds intersect the specified rectangle.
+     */
+    public Collection<T> findIntersects(Rectangle2D r);
+
+    /**
+     * Returns all objects whose bounds intersect the specified rectangle.
+     */
+    public Collection<T> findIntersects(Rectangle2D.Double r);
+
+    /**
+     * Returns all objects whose bounds lie inside the specified rectangle.
+     */
+    public Collection<T> findInside(Rectangle2D.Double r);
+}
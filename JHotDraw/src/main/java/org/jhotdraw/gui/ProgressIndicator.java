@@ -0,0 +1,177 @@
+/*
+ * @(#)ProgressIndicator.java  1.0  2026-10-18
+ *
+ * Copyright (c) 1996-2026 by the original authors of JHotDraw
+ * and all its contributors.
+ * All rights reserved.
+ *
+ * The copyright of this software is owned by the authors and
+ * contributors of the JHotDraw project ("the copyright holders").
+ * You may not use, copy or modify this software, except in
+ * accordance with the license agreement you entered into with
+ * the copyright holders. For details see accompanying license terms.
+ */
+package org.jhotdraw.gui;
+
+import java.awt.*;
+import javax.swing.*;
+
+/**
+ * Indicates the progress of a lengthy operation, which is performed on a
+ * worker thread.
+ * <p>
+ * ProgressIndicator uses a {@code ProgressMonitor}, which pops up a dialog,
+ * if the operation takes a while. Unlike the ProgressMonitor, the methods
+ * of this class can be invoked on any thread. Updates of the progress are
+ * coalesced and passed to the ProgressMonitor on the AWT Event Dispatcher
+ * Thread.
+ *
+ * @author Werner Randelshofer
+ * @version 1.0 2026-10-18 Created.
+ */
+public class ProgressIndicator {
+
+    private final Component parentComponent;
+    private final String message;
+    /**
+     * The ProgressMonitor. Is only accessed on the AWT Event Dispatcher
+     * Thread.
+     */
+    private ProgressMonitor monitor;
+    /**
+     * The state below is guarded by this.
+     */
+    private String note;
+    private int min;
+    private int max;
+    private int progress;
+    private boolean isClosed;
+    /**
+     * This is set to true, when an update of the ProgressMonitor has been
+     * scheduled on the AWT Event Dispatcher Thread.
+     */
+    private boolean isUpdatePending;
+    /**
+     * This is set to true, when the user has canceled the operation.
+     */
+    private volatile boolean isCanceled;
+    private final Runnable updater = new Runnable() {
+
+        public void run() {
+            update();
+        }
+    };
+
+    /**
+     * Creates a new ProgressIndicator.
+     *
+     * @param parentComponent The parent component of the dialog.
+     * @param message The message which is shown in the dialog.
+     * @param note A note which describes the current state of the
+     * operation. This can be null.
+     * @param min The lower bound of the progress.
+     * @param max The upper bound of the progress.
+     */
+    public ProgressIndicator(Component parentComponent, String message, String note, int min, int max) {
+        this.parentComponent = parentComponent;
+        this.message = message;
+        this.note = note;
+        this.min = min;
+        this.max = max;
+        this.progress = min;
+    }
+
+    /**
+     * Sets the progress of the operation. If the progress reaches the
+     * upper bound, the indicator is closed.
+     */
+    public synchronized void setProgress(int newValue) {
+        progress = newValue;
+        scheduleUpdate();
+    }
+
+    public synchronized int getProgress() {
+        return progress;
+    }
+
+    /**
+     * Sets the upper and the lower bound of the progress.
+     */
+    public synchronized void setRange(int min, int max) {
+        this.min = min;
+        this.max = max;
+        scheduleUpdate();
+    }
+
+    /**
+     * Sets the note which describes the current state of the operation.
+     */
+    public synchronized void setNote(String newValue) {
+        note = newValue;
+        scheduleUpdate();
+    }
+
+    /**
+     * Returns true, if the user has canceled the operation.
+     */
+    public boolean isCanceled() {
+        return isCanceled;
+    }
+
+    /**
+     * Closes the indicator. This method must be invoked, when the
+     * operation is done.
+     */
+    public synchronized void close() {
+        isClosed = true;
+        scheduleUpdate();
+    }
+
+    private void scheduleUpdate() {
+        if (!isUpdatePending) {
+            isUpdatePending = true;
+            SwingUtilities.invokeLater(updater);
+        }
+    }
+
+    /**
+     * Passes the state of the indicator to the ProgressMonitor.
+     * This method is invoked on the AWT Event Dispatcher Thread.
+     */
+    private void update() {
+        String currentNote;
+        int currentMin, currentMax, currentProgress;
+        boolean isCurrentlyClosed;
+        synchronized (this) {
+            isUpdatePending = false;
+            currentNote = note;
+            currentMin = min;
+            currentMax = max;
+            currentProgress = progress;
+            isCurrentlyClosed = isClosed;
+        }
+        if (isCurrentlyClosed) {
+            if (monitor != null) {
+                monitor.close();
+                monitor = null;
+            }
+            return;
+        }
+        if (monitor == null) {
+            // Reserve room for the note, so that the dialog does not
+            // change its size, when the note is set later.
+            monitor = new ProgressMonitor(parentComponent, message,
+                    (currentNote == null) ? " " : currentNote, currentMin, currentMax);
+        } else {
+            monitor.setMinimum(currentMin);
+            monitor.setMaximum(currentMax);
+            if (currentNote != null) {
+                monitor.setNote(currentNote);
+            }
+        }
+        monitor.setProgress(currentProgress);
+        if (monitor.isCanceled()) {
+            isCanceled = true;
+        }
+    }
+}
@@ -25,7 +25,8 @@ import static org.jhotdraw.samples.svg.SVGAttributeKeys.*;
  * Represents an SVG LinearGradient.
  *
  * @author Werner Randelshofer
- * @version 1.0.2 2009-04-17 Gracefully handle non-invertible transforms.
+ * @version 1.0.3 2026-10-18 hashCode supports gradients without stops.
+ * <br>1.0.2 2009-04-17 Gracefully handle non-invertible transforms.
  * <br>1.0.1 2009-03-29 Handle gradients which consist of only a single
  * stop color, or which have illegal stop offsets.
  * <br>1.0 December 9, 2006 Created.
@@ -215,8 +216,10 @@ public class LinearGradient implements Gradient {
 	bits += Double.doubleToLongBits(y1) * 31;
 	bits += Double.doubleToLongBits(x2) * 35;
 	bits += Double.doubleToLongBits(y2) * 39;
-	bits += stopColors[0].hashCode() * 43;
-	bits += stopColors[stopColors.length - 1].hashCode() * 47;
+	if (stopColors.length > 0) {
+	    bits += stopColors[0].hashCode() * 43;
+	    bits += stopColors[stopColors.length - 1].hashCode() * 47;
+	}
 	return (((int) bits) ^ ((int) (bits >> 32)));
     }
     
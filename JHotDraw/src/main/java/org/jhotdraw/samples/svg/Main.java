@@ -20,7 +20,9 @@ import org.jhotdraw.util.ResourceBundleUtil;
  * Main.
  *
  * @author Werner Randelshofer.
- * @version 1.0 July 8, 2006 Created.
+ * @version 1.1 2026-10-18 Reports the durations of the startup phases,
+ * if the system property "org.jhotdraw.app.StartupTimer.verbose" is true.
+ * <br>1.0 July 8, 2006 Created.
  */
 public class Main {
     
@@ -28,6 +30,10 @@ public class Main {
     public static void main(String[] args) {
         // Debug resource bundle
         ResourceBundleUtil.setVerbose(true);
+        // Report the durations of the startup phases
+        if (Boolean.getBoolean("org.jhotdraw.app.StartupTimer.verbose")) {
+            StartupTimer.setVerbose(true);
+        }
 
         Application app;
         String os = System.getProperty("os.name").toLowerCase();
@@ -25,7 +25,8 @@ import static org.jhotdraw.samples.svg.SVGAttributeKeys.*;
  * Represents an SVG RadialGradient.
  *
  * @author Werner Randelshofer
- * @version 1.0.2 2009-04-17 Gracefully handle non-invertible transforms.
+ * @version 1.0.3 2026-10-18 hashCode supports gradients without stops.
+ * <br>1.0.2 2009-04-17 Gracefully handle non-invertible transforms.
  * <br>1.0.1 2007-04-10 Radius for gradients which are relative to figure
  * boudns is computed better.
  * <br>1.0 December 9, 2006 Created.
@@ -197,8 +198,10 @@ public class RadialGradient implements Gradient {
     public int hashCode() {
 	long bits = Double.doubleToLongBits(cx);
 	bits += Double.doubleToLongBits(cy) * 37;
-	bits += stopColors[0].hashCode() * 43;
-	bits += stopColors[stopColors.length - 1].hashCode() * 47;
+	if (stopColors.length > 0) {
+	    bits += stopColors[0].hashCode() * 43;
+	    bits += stopColors[stopColors.length - 1].hashCode() * 47;
+	}
 	return (((int) bits) ^ ((int) (bits >> 32)));
     }
     
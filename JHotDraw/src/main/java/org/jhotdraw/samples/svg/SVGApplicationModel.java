@@ -23,6 +23,7 @@ import org.jhotdraw.draw.DefaultDrawingEditor;
 import org.jhotdraw.draw.DrawingEditor;
 import org.jhotdraw.draw.GridConstrainer;
 import org.jhotdraw.draw.action.*;
+import org.jhotdraw.gui.JFontChooser;
 import org.jhotdraw.samples.svg.action.CombineAction;
 import org.jhotdraw.samples.svg.action.SplitAction;
 import org.jhotdraw.samples.svg.action.ViewSourceAction;
@@ -30,6 +31,7 @@ import org.jhotdraw.samples.svg.figures.SVGGroupFigure;
 import org.jhotdraw.util.ResourceBundleUtil;
 
 import javax.swing.*;
+import javax.swing.filechooser.FileSystemView;
 import java.util.Collection;
 import java.util.LinkedList;
 import java.util.List;
@@ -38,7 +40,8 @@ import java.util.List;
  * SVGApplicationModel.
  *
  * @author Werner Randelshofer.
- * @version 2.0 2009-04-10 Moved all drawing related toolbars into SVGDrawingPanel.
+ * @version 2.1 2026-10-18 Prefetches fonts, icons and the file system view.
+ * <br>2.0 2009-04-10 Moved all drawing related toolbars into SVGDrawingPanel.
  * <br>1.0 June 10, 2006 Created.
  */
 public class SVGApplicationModel extends DefaultApplicationModel {
@@ -85,6 +88,22 @@ public class SVGApplicationModel extends DefaultApplicationModel {
         putAction(ExportAction.ID, new ExportAction(a));
     }
 
+    @Override
+    public void prefetch(Application a) {
+        super.prefetch(a);
+        JFontChooser.loadAllFonts();
+        ResourceBundleUtil.getBundle("org.jhotdraw.draw.Labels").prefetchIcons();
+        ResourceBundleUtil.getBundle("org.jhotdraw.samples.svg.Labels").prefetchIcons();
+
+        // The file choosers of SVGView must be created on the AWT event
+        // dispatcher thread. We can speed up their creation by warming up
+        // the file system view, which they share.
+        FileSystemView fsv = FileSystemView.getFileSystemView();
+        fsv.getRoots();
+        fsv.getHomeDirectory();
+        fsv.getDefaultDirectory();
+    }
+
     public Collection<Action> createDrawingActions(Application app, DrawingEditor editor) {
         LinkedList<Action> a = new LinkedList<Action>();
         a.add(new CutAction());
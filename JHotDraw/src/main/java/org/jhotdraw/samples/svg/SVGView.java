@@ -17,6 +17,9 @@ package org.jhotdraw.samples.svg;
 import dk.sdu.mmmi.featuretracer.lib.FeatureEntryPoint;
 import java.awt.image.BufferedImage;
 import java.awt.print.Pageable;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.prefs.Preferences;
@@ -32,19 +35,23 @@ import javax.swing.*;
 import org.jhotdraw.app.*;
 import org.jhotdraw.app.action.*;
 import org.jhotdraw.draw.*;
+import org.jhotdraw.gui.ProgressIndicator;
 
 /**
  * A view for SVG drawings.
  *
  * @author Werner Randelshofer
- * @version 2.0 2009-04-10 Moved all drawing related toolbars into SVGDrawingPanel.
+ * @version 2.2 2026-10-18 Implements SnapshotView, so that the view can be
+ * edited while it is being saved.
+ * <br>2.1 2026-10-18 Times the initialization of the view.
+ * <br>2.0 2009-04-10 Moved all drawing related toolbars into SVGDrawingPanel.
  * <br>1.3.1 2008-03-19 Method read() tries out now all supported files format.
  * <br>1.3 2007-11-25 Method clear is now invoked on a worker thread. 
  * <br>1.2 2006-12-10 Used SVGStorage for reading SVG drawing (experimental).
  * <br>1.1 2006-06-10 Extended to support DefaultDrawApplicationModel.
  * <br>1.0 2006-02-07 Created.
  */
-public class SVGView extends AbstractView implements ExportableView {
+public class SVGView extends AbstractView implements ExportableView, SnapshotView {
     public final static String GRID_VISIBLE_PROPERTY = "gridVisible";
 
     protected JFileChooser exportChooser;
@@ -57,6 +64,25 @@ public class SVGView extends AbstractView implements ExportableView {
     private HashMap<javax.swing.filechooser.FileFilter, InputFormat> fileFilterInputFormatMap;
     private HashMap<javax.swing.filechooser.FileFilter, OutputFormat> fileFilterOutputFormatMap;
 
+    /**
+     * A snapshot of the drawing of the view.
+     */
+    private static class Snapshot {
+
+        /**
+         * An empty drawing with the attributes of the drawing.
+         */
+        private Drawing drawing;
+        /**
+         * Clones of the figures of the drawing.
+         */
+        private ArrayList<Figure> figures;
+        /**
+         * The revision of the undo manager at the time of the snapshot.
+         */
+        private int revision;
+    }
+
     /**
      * Creates a new View.
      */
@@ -70,12 +96,16 @@ public class SVGView extends AbstractView implements ExportableView {
     public void init() {
         super.init();
 
+        long begin = StartupTimer.now();
         initComponents();
+        StartupTimer.record("SVGView.initComponents", begin);
 
         JPanel zoomButtonPanel = new JPanel(new BorderLayout());
 
         undo = new UndoRedoManager();
+        begin = StartupTimer.now();
         svgPanel.setDrawing(createDrawing());
+        StartupTimer.record("SVGView.createDrawing", begin);
         svgPanel.getDrawing().addUndoableEditListener(undo);
         initActions();
         undo.addPropertyChangeListener(new PropertyChangeListener() {
@@ -157,6 +187,62 @@ public class SVGView extends AbstractView implements ExportableView {
         }
     }
 
+    /**
+     * Creates a snapshot of the drawing by cloning its figures.
+     */
+    public Object createSnapshot() {
+        Drawing drawing = svgPanel.getDrawing();
+        Snapshot snapshot = new Snapshot();
+        DefaultDrawing attributes = new DefaultDrawing();
+        attributes.setAttributes(drawing.getAttributes());
+        snapshot.drawing = attributes;
+        snapshot.figures = new ArrayList<Figure>(drawing.getChildCount());
+        for (Figure f : drawing.getChildren()) {
+            snapshot.figures.add((Figure) f.clone());
+        }
+        snapshot.revision = undo.getRevision();
+        return snapshot;
+    }
+
+    /**
+     * Writes a snapshot to the specified file.
+     * The snapshot is written into a temporary file, which replaces the
+     * specified file, when the snapshot has been written completely.
+     */
+    @FeatureEntryPoint(JHotDrawFeatures.DRAWING_PERSITENCE)
+    public void write(File f, Object snapshot, ProgressIndicator progress) throws IOException {
+        Snapshot s = (Snapshot) snapshot;
+        File dir = f.getAbsoluteFile().getParentFile();
+        File tmp = File.createTempFile(f.getName() + "-save", ".tmp", dir);
+        boolean success = false;
+        try {
+            OutputStream out = new BufferedOutputStream(new FileOutputStream(tmp));
+            try {
+                SVGOutputFormat format = new SVGOutputFormat();
+                format.setProgressIndicator(progress);
+                format.write(out, s.drawing, s.figures);
+            } finally {
+                out.close();
+            }
+            Files.move(tmp.toPath(), f.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            success = true;
+        } finally {
+            if (!success) {
+                tmp.delete();
+            }
+        }
+    }
+
+    /**
+     * Marks the changes as saved, if the drawing has not been edited
+     * since the snapshot has been created.
+     */
+    public void markSnapshotAsSaved(Object snapshot) {
+        if (((Snapshot) snapshot).revision == undo.getRevision()) {
+            markChangesAsSaved();
+        }
+    }
+
     /**
      * Reads the view from the specified file.
      */
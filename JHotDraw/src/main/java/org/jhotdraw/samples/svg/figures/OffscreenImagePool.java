@@ -0,0 +1,131 @@
+/*
+ * @(#)OffscreenImagePool.java  1.0  2026-10-18
+ *
+ * Copyright (c) 1996-2026 by the original authors of JHotDraw
+ * and all its contributors.
+ * All rights reserved.
+ *
+ * The copyright of this software is owned by the authors and
+ * contributors of the JHotDraw project ("the copyright holders").
+ * You may not use, copy or modify this software, except in
+ * accordance with the license agreement you entered into with
+ * the copyright holders. For details see accompanying license terms.
+ */
+package org.jhotdraw.samples.svg.figures;
+
+import java.awt.*;
+import java.awt.image.*;
+import java.util.*;
+
+/**
+ * An OffscreenImagePool holds a small number of ARGB images, which can be
+ * reused for short-lived offscreen rendering.
+ * <p>
+ * An image acquired from the pool is at least as large as requested. Its
+ * requested area is cleared to transparent. The image must be released to
+ * the pool when it is no longer needed.
+ * <p>
+ * The sizes of the images are rounded up, so that images can be reused for
+ * similar sizes. When the pool is full, the least recently released image
+ * is discarded.
+ * <p>
+ * This class is thread safe.
+ *
+ * @author Werner Randelshofer
+ * @version 1.0 2026-10-18 Created.
+ */
+public class OffscreenImagePool {
+
+    /**
+     * Image sizes are rounded up to a multiple of this value.
+     */
+    private final static int GRANULARITY = 64;
+    private static OffscreenImagePool instance;
+    /**
+     * The pooled images. The most recently released image is the first one.
+     */
+    private LinkedList<BufferedImage> images = new LinkedList<BufferedImage>();
+    private int maxImages;
+    private int maxPixels;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param maxImages The maximal number of images held by the pool.
+     * @param maxPixels The maximal number of pixels of an image held by the
+     * pool. Larger images are not kept.
+     */
+    public OffscreenImagePool(int maxImages, int maxPixels) {
+        this.maxImages = maxImages;
+        this.maxPixels = maxPixels;
+    }
+
+    /**
+     * Returns the shared pool, which holds at most 8 images with at most
+     * 4 million pixels each.
+     */
+    public static synchronized OffscreenImagePool getInstance() {
+        if (instance == null) {
+            instance = new OffscreenImagePool(8, 4 << 20);
+        }
+        return instance;
+    }
+
+    /**
+     * Returns an image with at least the specified width and height. The
+     * area from 0,0 to width,height of the image is transparent.
+     */
+    public BufferedImage acquire(int width, int height) {
+        BufferedImage image = null;
+        synchronized (this) {
+            long bestPixels = Long.MAX_VALUE;
+            for (BufferedImage candidate : images) {
+                long pixels = (long) candidate.getWidth() * candidate.getHeight();
+                if (candidate.getWidth() >= width && candidate.getHeight() >= height &&
+                        pixels < bestPixels) {
+                    image = candidate;
+                    bestPixels = pixels;
+                }
+            }
+            if (image != null) {
+                images.remove(image);
+            }
+        }
+        if (image == null) {
+            return new BufferedImage(roundUp(width), roundUp(height), BufferedImage.TYPE_INT_ARGB);
+        }
+        Graphics2D g = image.createGraphics();
+        g.setComposite(AlphaComposite.Clear);
+        g.fillRect(0, 0, width, height);
+        g.dispose();
+        return image;
+    }
+
+    /**
+     * Returns an image to the pool. The image must not be used anymore
+     * after it has been released.
+     */
+    public void release(BufferedImage image) {
+        if (image.getType() != BufferedImage.TYPE_INT_ARGB ||
+                (long) image.getWidth() * image.getHeight() > maxPixels) {
+            return;
+        }
+        synchronized (this) {
+            images.addFirst(image);
+            while (images.size() > maxImages) {
+                images.removeLast();
+            }
+        }
+    }
+
+    /**
+     * Discards all images held by the pool.
+     */
+    public synchronized void clear() {
+        images.clear();
+    }
+
+    private static int roundUp(int size) {
+        return Math.max(1, (size + GRANULARITY - 1) / GRANULARITY) * GRANULARITY;
+    }
+}
@@ -32,9 +32,19 @@ import org.jhotdraw.xml.*;
  * SVGAttributedFigure.
  *
  * @author Werner Randelshofer
- * @version 1.0 December 10, 2006 Created.
+ * @version 1.2 2026-10-18 Memoize paints, stroke and font.
+ * <br>1.1 2026-10-18 Cache the rendered image of translucent figures.
+ * <br>1.0 December 10, 2006 Created.
  */
 public abstract class SVGAttributedFigure extends AbstractAttributedFigure {
+    /**
+     * Holds the rendered image of the figure, if the figure is translucent.
+     */
+    private transient TranslucentImageCache translucentImageCache;
+    /**
+     * Holds the paints, the stroke and the font of the figure.
+     */
+    private transient SVGStyleCache styleCache;
     
     /** Creates a new instance. */
     public SVGAttributedFigure() {
@@ -45,31 +55,16 @@ public abstract class SVGAttributedFigure extends AbstractAttributedFigure {
         opacity = Math.min(Math.max(0d, opacity), 1d);
         if (opacity != 0d) {
             if (opacity != 1d) {
-                Rectangle2D.Double drawingArea = getDrawingArea();
-                
-                Rectangle2D clipBounds = g.getClipBounds();
-                if (clipBounds != null) {
-                    Rectangle2D.intersect(drawingArea, clipBounds, drawingArea);
-                }
-                
-                if (! drawingArea.isEmpty()) {
-                    
-                    BufferedImage buf = new BufferedImage(
-                            Math.max(1, (int) ((2 + drawingArea.width) * g.getTransform().getScaleX())),
-                            Math.max(1, (int) ((2 + drawingArea.height) * g.getTransform().getScaleY())),
-                            BufferedImage.TYPE_INT_ARGB);
-                    Graphics2D gr = buf.createGraphics();
-                    gr.scale(g.getTransform().getScaleX(), g.getTransform().getScaleY());
-                    gr.translate((int) -drawingArea.x, (int) -drawingArea.y);
-                    gr.setRenderingHints(g.getRenderingHints());
-                    drawFigure(gr);
-                    gr.dispose();
-                    Composite savedComposite = g.getComposite();
-                    g.setComposite(AlphaComposite.getInstance(AlphaComposite.SRC_OVER, (float) opacity));
-                    g.drawImage(buf, (int) drawingArea.x, (int) drawingArea.y,
-                            2 + (int) drawingArea.width, 2 + (int) drawingArea.height, null);
-                    g.setComposite(savedComposite);
+                TranslucentImageCache cache = translucentImageCache;
+                if (cache == null) {
+                    cache = translucentImageCache = new TranslucentImageCache() {
+
+                        protected void drawFigure(Graphics2D g) {
+                            SVGAttributedFigure.this.drawFigure(g);
+                        }
+                    };
                 }
+                cache.draw(g, opacity, getDrawingArea());
             } else {
                 drawFigure(g);
             }
@@ -87,27 +82,61 @@ public abstract class SVGAttributedFigure extends AbstractAttributedFigure {
             g.transform(TRANSFORM.get(this));
         }
         
-        Paint paint = SVGAttributeKeys.getFillPaint(this);
+        SVGStyleCache style = getStyleCache();
+        Paint paint = style.getFillPaint(this);
         if (paint != null) {
             g.setPaint(paint);
             drawFill(g);
         }
-        paint = SVGAttributeKeys.getStrokePaint(this);
+        paint = style.getStrokePaint(this);
         if (paint != null && STROKE_WIDTH.get(this) > 0) {
             g.setPaint(paint);
-            g.setStroke(SVGAttributeKeys.getStroke(this));
+            g.setStroke(style.getStroke(this));
             drawStroke(g);
         }
         if (TRANSFORM.get(this) != null) {
             g.setTransform(savedTransform);
         }
     }
+    /**
+     * Returns the memoized paints, stroke and font of this figure.
+     */
+    protected SVGStyleCache getStyleCache() {
+        SVGStyleCache cache = styleCache;
+        if (cache == null) {
+            cache = styleCache = new SVGStyleCache();
+        }
+        return cache;
+    }
     @Override
     public <T> void setAttribute(AttributeKey<T> key, T newValue) {
         if (key == TRANSFORM) {
             invalidate();
         }
         super.setAttribute(key, newValue);
+        if (translucentImageCache != null) {
+            translucentImageCache.invalidate();
+        }
+        if (styleCache != null) {
+            styleCache.invalidate();
+        }
+    }
+    @Override
+    protected void invalidate() {
+        super.invalidate();
+        if (translucentImageCache != null) {
+            translucentImageCache.invalidate();
+        }
+        if (styleCache != null) {
+            styleCache.invalidate();
+        }
+    }
+    @Override
+    public SVGAttributedFigure clone() {
+        SVGAttributedFigure that = (SVGAttributedFigure) super.clone();
+        that.translucentImageCache = null;
+        that.styleCache = null;
+        return that;
     }
     @Override public Collection<Action> getActions(Point2D.Double p) {
         LinkedList<Action> actions = new LinkedList<Action>();
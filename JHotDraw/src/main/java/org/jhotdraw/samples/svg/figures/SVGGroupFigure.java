@@ -15,7 +15,6 @@ package org.jhotdraw.samples.svg.figures;
 
 import java.awt.*;
 import java.awt.geom.*;
-import java.awt.image.BufferedImage;
 import java.io.*;
 import java.util.*;
 import org.jhotdraw.draw.*;
@@ -27,12 +26,18 @@ import static org.jhotdraw.samples.svg.SVGAttributeKeys.*;
  * SVGGroupFigure.
  *
  * @author Werner Randelshofer
- * @version 1.0.1 2007-07-28 Bounds were not computed correctly. 
+ * @version 1.2 2026-10-18 Store the attributes in a compact Attributes object.
+ * <br>1.1 2026-10-18 Cache the rendered image of translucent groups.
+ * <br>1.0.1 2007-07-28 Bounds were not computed correctly. 
  * <br>1.0 July 8, 2006 Created.
  */
 public class SVGGroupFigure extends GroupFigure implements SVGFigure {
 
-    private HashMap<AttributeKey, Object> attributes = new HashMap<AttributeKey, Object>();
+    private Attributes attributes = new Attributes();
+    /**
+     * Holds the rendered image of the figure, if the figure is translucent.
+     */
+    private transient TranslucentImageCache translucentImageCache;
 
     /** Creates a new instance. */
     public SVGGroupFigure() {
@@ -58,7 +63,7 @@ public class SVGGroupFigure extends GroupFigure implements SVGFigure {
 
     @Override
     public Map<AttributeKey, Object> getAttributes() {
-        return new HashMap<AttributeKey, Object>(attributes);
+        return attributes.toMap();
     }
 
     @SuppressWarnings("unchecked")
@@ -74,31 +79,16 @@ public class SVGGroupFigure extends GroupFigure implements SVGFigure {
         opacity = Math.min(Math.max(0d, opacity), 1d);
         if (opacity != 0d) {
             if (opacity != 1d) {
-                Rectangle2D.Double drawingArea = getDrawingArea();
-
-                Rectangle2D clipBounds = g.getClipBounds();
-                if (clipBounds != null) {
-                    Rectangle2D.intersect(drawingArea, clipBounds, drawingArea);
-                }
-
-                if (!drawingArea.isEmpty()) {
-
-                    BufferedImage buf = new BufferedImage(
-                            Math.max(1, (int) ((2 + drawingArea.width) * g.getTransform().getScaleX())),
-                            Math.max(1, (int) ((2 + drawingArea.height) * g.getTransform().getScaleY())),
-                            BufferedImage.TYPE_INT_ARGB);
-                    Graphics2D gr = buf.createGraphics();
-                    gr.scale(g.getTransform().getScaleX(), g.getTransform().getScaleY());
-                    gr.translate((int) -drawingArea.x, (int) -drawingArea.y);
-                    gr.setRenderingHints(g.getRenderingHints());
-                    super.draw(gr);
-                    gr.dispose();
-                    Composite savedComposite = g.getComposite();
-                    g.setComposite(AlphaComposite.getInstance(AlphaComposite.SRC_OVER, (float) opacity));
-                    g.drawImage(buf, (int) drawingArea.x, (int) drawingArea.y,
-                            2 + (int) drawingArea.width, 2 + (int) drawingArea.height, null);
-                    g.setComposite(savedComposite);
+                TranslucentImageCache cache = translucentImageCache;
+                if (cache == null) {
+                    cache = translucentImageCache = new TranslucentImageCache() {
+
+                        protected void drawFigure(Graphics2D g) {
+                            SVGGroupFigure.super.draw(g);
+                        }
+                    };
                 }
+                cache.draw(g, opacity, getDrawingArea());
             } else {
                 super.draw(g);
             }
@@ -126,6 +116,14 @@ public class SVGGroupFigure extends GroupFigure implements SVGFigure {
         return (Rectangle2D.Double) cachedBounds.clone();
     }
 
+    @Override
+    protected void invalidate() {
+        super.invalidate();
+        if (translucentImageCache != null) {
+            translucentImageCache.invalidate();
+        }
+    }
+
     @Override
     public LinkedList<Handle> createHandles(int detailLevel) {
         LinkedList<Handle> handles = new LinkedList<Handle>();
@@ -176,7 +174,8 @@ public class SVGGroupFigure extends GroupFigure implements SVGFigure {
 
     public SVGGroupFigure clone() {
         SVGGroupFigure that = (SVGGroupFigure) super.clone();
-        that.attributes = new HashMap<AttributeKey, Object>(this.attributes);
+        that.attributes = this.attributes.clone();
+        that.translucentImageCache = null;
         return that;
     }
 }
@@ -20,7 +20,6 @@ import java.awt.geom.*;
 import java.awt.image.*;
 import java.io.*;
 import java.util.*;
-import javax.imageio.ImageIO;
 import javax.swing.*;
 import org.jhotdraw.app.JHotDrawFeatures;
 import org.jhotdraw.draw.*;
@@ -33,7 +32,18 @@ import org.jhotdraw.geom.*;
  * SVGImage.
  *
  * @author Werner Randelshofer
- * @version 2.1 2008-05-17 Rendering hints must be copied, when creating
+ * @version 2.6 2026-10-18 The render cache is only used for drawing on the
+ * screen and into the tiles of a DrawingTileCache.
+ * <br>2.5 2026-10-18 The render cache is also used for drawing into
+ * images, and on any thread.
+ * <br>2.4 2026-10-18 Image data which can not be decoded is kept, and
+ * the figure is drawn as a broken image placeholder.
+ * <br>2.3 2026-10-18 Scaled and transformed images are drawn from a
+ * SVGImageRenderCache.
+ * <br>2.2 2026-10-18 The image is held by an entry of the shared
+ * ImageStore. Identical images are shared, and are decoded lazily at the
+ * resolution needed for drawing.
+ * <br>2.1 2008-05-17 Rendering hints must be copied, when creating
  * a local Graphics2D object. Remove transformation action was not undoable. 
  * <br>2.0.1 2008-04-13 We must catch all throwables when calling ImageIO.read(). 
  * <br>2.0 2007-04-14 Adapted for new AttributeKeys.TRANSFORM support.
@@ -54,15 +64,14 @@ public class SVGImageFigure extends SVGAttributedFigure implements SVGFigure, Im
      */
     private transient Shape cachedHitShape;
     /**
-     * The image data. This can be null, if the image was created from a
-     * BufferedImage.
+     * The image. This is null, if the figure has no image.
+     * Entries are immutable, and can thus be shared by clones of the figure.
      */
-    private byte[] imageData;
+    private ImageStore.Entry imageEntry;
     /**
-     * The buffered image. This can be null, if we haven't yet parsed the
-     * imageData.
+     * This is used to draw scaled and transformed images faster.
      */
-    private BufferedImage bufferedImage;
+    private transient SVGImageRenderCache renderCache;
 
     /** Creates a new instance. */
     public SVGImageFigure() {
@@ -89,11 +98,26 @@ public class SVGImageFigure extends SVGAttributedFigure implements SVGFigure, Im
                 g.setComposite(AlphaComposite.getInstance(AlphaComposite.SRC_OVER, (float) opacity));
             }
 
-            BufferedImage image = getBufferedImage();
-            if (image != null) {
+            ImageStore.Entry entry = imageEntry;
+            boolean isDrawn = false;
+            if (entry != null && isRenderCacheUsable(g)) {
+                Graphics2D gx = g;
+                if (TRANSFORM.get(this) != null) {
+                    gx = (Graphics2D) g.create();
+                    gx.transform(TRANSFORM.get(this));
+                }
+                isDrawn = getRenderCache().draw(gx, entry, new Rectangle(
+                        (int) rectangle.x, (int) rectangle.y, (int) rectangle.width, (int) rectangle.height));
+                if (gx != g) {
+                    gx.dispose();
+                }
+            }
+
+            BufferedImage image = (isDrawn) ? null : getBufferedImage(g);
+            if (isDrawn) {
+                // The image has been drawn from the render cache
+            } else if (image != null) {
                 if (TRANSFORM.get(this) != null) {
-                    // FIXME - We should cache the transformed image.
-                    //         Drawing a transformed image appears to be very slow.
                     Graphics2D gx = (Graphics2D) g.create();
                     
                     // Use same rendering hints like parent graphics
@@ -118,6 +142,40 @@ public class SVGImageFigure extends SVGAttributedFigure implements SVGFigure, Im
         }
     }
 
+    /**
+     * Returns true, if the image can be drawn from the render cache.
+     * The render cache is only used for drawing on the screen, including the
+     * tiles of a DrawingTileCache. It may draw an approximation of the image,
+     * while the exact rendering is being created. Printing and image export
+     * never use the render cache.
+     */
+    protected boolean isRenderCacheUsable(Graphics2D g) {
+        return isScreen(g);
+    }
+
+    /**
+     * Returns true, if the graphics draws on the screen.
+     */
+    private static boolean isScreen(Graphics2D g) {
+        if (DrawingTileCache.isTileGraphics(g)) {
+            return true;
+        }
+        GraphicsConfiguration gc = g.getDeviceConfiguration();
+        return gc != null && gc.getDevice().getType() == GraphicsDevice.TYPE_RASTER_SCREEN;
+    }
+
+    private synchronized SVGImageRenderCache getRenderCache() {
+        if (renderCache == null) {
+            renderCache = new SVGImageRenderCache(new Runnable() {
+
+                public void run() {
+                    fireAreaInvalidated();
+                }
+            });
+        }
+        return renderCache;
+    }
+
     protected void drawFill(Graphics2D g) {
 
     }
@@ -299,12 +357,13 @@ public class SVGImageFigure extends SVGAttributedFigure implements SVGFigure, Im
         that.rectangle = (Rectangle2D.Double) this.rectangle.clone();
         that.cachedTransformedShape = null;
         that.cachedHitShape = null;
+        that.renderCache = null;
         return that;
     }
 
     public boolean isEmpty() {
         Rectangle2D.Double b = getBounds();
-        return b.width <= 0 || b.height <= 0 || imageData == null && bufferedImage == null;
+        return b.width <= 0 || b.height <= 0 || imageEntry == null;
     }
 
     @Override
@@ -323,8 +382,7 @@ public class SVGImageFigure extends SVGAttributedFigure implements SVGFigure, Im
      */
     public void setImage(byte[] imageData, BufferedImage bufferedImage) {
         willChange();
-        this.imageData = imageData;
-        this.bufferedImage = bufferedImage;
+        imageEntry = createEntry(imageData, bufferedImage);
         changed();
     }
 
@@ -334,8 +392,7 @@ public class SVGImageFigure extends SVGAttributedFigure implements SVGFigure, Im
      */
     public void setImageData(byte[] imageData) {
         willChange();
-        this.imageData = imageData;
-        this.bufferedImage = null;
+        imageEntry = createEntry(imageData, null);
         changed();
     }
 
@@ -345,29 +402,64 @@ public class SVGImageFigure extends SVGAttributedFigure implements SVGFigure, Im
      */
     public void setBufferedImage(BufferedImage image) {
         willChange();
-        this.imageData = null;
-        this.bufferedImage = image;
+        imageEntry = createEntry(null, image);
         changed();
     }
 
+    private static ImageStore.Entry createEntry(byte[] imageData, BufferedImage bufferedImage) {
+        ImageStore store = ImageStore.getDefault();
+        if (imageData != null) {
+            return (bufferedImage == null) ? store.put(imageData) : store.put(imageData, bufferedImage);
+        } else if (bufferedImage != null) {
+            return store.put(bufferedImage);
+        } else {
+            return null;
+        }
+    }
+
     /**
-     * Gets the buffered image. If necessary, this method creates the buffered
-     * image from the image data.
+     * Gets the buffered image at full resolution. If necessary, this method
+     * decodes the buffered image from the image data.
      */
     public BufferedImage getBufferedImage() {
-        if (bufferedImage == null && imageData != null) {
-            //System.out.println("recreateing bufferedImage");
-            try {
-                bufferedImage = ImageIO.read(new ByteArrayInputStream(imageData));
-            } catch (Throwable e) {
-                e.printStackTrace();
-                // If we can't create a buffered image from the image data,
-                // there is no use to keep the image data and try again, so
-                // we drop the image data.
-                imageData = null;
+        return getBufferedImage(1);
+    }
+
+    /**
+     * Gets the buffered image with the resolution needed for drawing it
+     * into the specified graphics.
+     */
+    private BufferedImage getBufferedImage(Graphics2D g) {
+        if (imageEntry == null) {
+            return null;
+        }
+        int subsampling = 1;
+        int imageWidth = imageEntry.getWidth();
+        int imageHeight = imageEntry.getHeight();
+        if (imageWidth > 0 && imageHeight > 0) {
+            AffineTransform tx = g.getTransform();
+            if (TRANSFORM.get(this) != null) {
+                tx.concatenate(TRANSFORM.get(this));
             }
+            double deviceScale = Math.sqrt(Math.abs(tx.getDeterminant()));
+            double scale = Math.max(
+                    rectangle.width * deviceScale / imageWidth,
+                    rectangle.height * deviceScale / imageHeight);
+            subsampling = ImageStore.getSubsampling(scale);
+        }
+        return getBufferedImage(subsampling);
+    }
+
+    private BufferedImage getBufferedImage(int subsampling) {
+        ImageStore.Entry entry = imageEntry;
+        if (entry == null) {
+            return null;
         }
-        return bufferedImage;
+        // If the image data can not be decoded, we keep the image data, so
+        // that it is not lost when the drawing is saved. The entry marks
+        // itself as broken, and does not try to decode the data again. The
+        // figure is drawn as a broken image placeholder.
+        return entry.getImage(subsampling);
     }
 
     /**
@@ -375,19 +467,16 @@ public class SVGImageFigure extends SVGAttributedFigure implements SVGFigure, Im
      * data from the buffered image.
      */
     public byte[] getImageData() {
-        if (bufferedImage != null && imageData == null) {
-            try {
-                ByteArrayOutputStream bout = new ByteArrayOutputStream();
-                ImageIO.write(bufferedImage, "PNG", bout);
-                bout.close();
-                imageData = bout.toByteArray();
-            } catch (IOException e) {
-                e.printStackTrace();
-                // If we can't create image data from the buffered image,
-                // there is no use to keep the buffered image and try again, so
-                // we drop the buffered image.
-                bufferedImage = null;
-            }
+        ImageStore.Entry entry = imageEntry;
+        if (entry == null) {
+            return null;
+        }
+        byte[] imageData = entry.getData();
+        if (imageData == null) {
+            // If we can't create image data from the buffered image,
+            // there is no use to keep the buffered image and try again, so
+            // we drop the image.
+            imageEntry = null;
         }
         return imageData;
     }
@@ -417,17 +506,11 @@ public class SVGImageFigure extends SVGAttributedFigure implements SVGFigure, Im
         while ((bytesRead = in.read(buf)) > 0) {
             baos.write(buf, 0, bytesRead);
         }
-        BufferedImage img;
-        try {
-            img = ImageIO.read(new ByteArrayInputStream(baos.toByteArray()));
-        } catch (Throwable t) {
-            img = null;
-        }
-        if (img == null) {
+        ImageStore.Entry entry = ImageStore.getDefault().put(baos.toByteArray());
+        if (entry.getImage() == null) {
             ResourceBundleUtil labels = ResourceBundleUtil.getBundle("org.jhotdraw.draw.Labels");
             throw new IOException(labels.getFormatted("file.failedToLoadImage.message", in.toString()));
         }
-        imageData = baos.toByteArray();
-        bufferedImage = img;
+        imageEntry = entry;
     }
 }
@@ -0,0 +1,397 @@
+/*
+ * @(#)SVGImageRenderCache.java  1.0  2026-10-18
+ *
+ * Copyright (c) 1996-2026 by the original authors of JHotDraw
+ * and all its contributors.
+ * All rights reserved.
+ *
+ * The copyright of this software is owned by the authors and
+ * contributors of the JHotDraw project ("the copyright holders").
+ * You may not use, copy or modify this software, except in
+ * accordance with the license agreement you entered into with
+ * the copyright holders. For details see accompanying license terms.
+ */
+package org.jhotdraw.samples.svg.figures;
+
+import java.awt.*;
+import java.awt.geom.*;
+import java.awt.image.*;
+import java.lang.ref.*;
+import java.util.*;
+import java.util.concurrent.*;
+import org.jhotdraw.draw.*;
+import org.jhotdraw.gui.Worker;
+
+/**
+ * Caches the rendering of the image of a {@link SVGImageFigure} at the
+ * current scale and rotation of the device.
+ * <p>
+ * Drawing a large image with a scaling or rotating transform is slow,
+ * because the image is resampled on each paint. This cache resamples the
+ * image once per effective device transform and interpolation quality, and
+ * then copies the resampled image to the device with a plain translation.
+ * <p>
+ * Images, which are drawn at less than half of their size, are resampled
+ * from a mipmap level. The mipmap levels are created by halving the image
+ * with bilinear interpolation until the remaining scale is at least one
+ * half. If the interpolation is nearest neighbor, the image is instead
+ * decoded with subsampling by the {@link ImageStore}.
+ * <p>
+ * When the transform changes - for example because the user zoomed the
+ * drawing - the image is resampled on a worker thread. In the meantime the
+ * most recent rendering is drawn with the new transform, and when the worker
+ * has finished, the figure repaints itself. Therefore the cache must only be
+ * used for drawing on the screen, including the tiles of a
+ * {@link DrawingTileCache}. Printing and image export must draw the image
+ * directly.
+ * <p>
+ * The renderings of all figures share a cache, which is bounded by the
+ * number of bytes of the resampled images. Renderings, which drop out of
+ * this cache, are only softly referenced by their figure.
+ * <p>
+ * This class is thread safe.
+ *
+ * @author Werner Randelshofer
+ * @version 1.2 2026-10-18 Approximations are always drawn. The cache must
+ * only be used for drawing on the screen.
+ * <br>1.1 2026-10-18 Thread safe. Approximations are optional.
+ * <br>1.0 2026-10-18 Created.
+ */
+public class SVGImageRenderCache {
+
+    /**
+     * The maximal number of pixels of a rendering. Larger images are drawn
+     * directly.
+     */
+    public final static int MAX_RENDERING_PIXELS = 4 * 1024 * 1024;
+    /**
+     * The maximal number of bytes of the renderings of all figures, which
+     * are strongly referenced.
+     */
+    public final static long MAX_CACHED_BYTES = 64L * 1024L * 1024L;
+    /**
+     * The most recently drawn renderings of all figures.
+     */
+    private final static LinkedHashMap<Rendering, Rendering> recentRenderings = new LinkedHashMap<Rendering, Rendering>(16, 0.75f, true);
+    private static long recentBytes;
+    private static ExecutorService executor;
+    private Runnable repainter;
+    /**
+     * The state below is guarded by this.
+     */
+    private SoftReference<Rendering> rendering;
+    /**
+     * The key of the rendering, which is being created by a worker.
+     */
+    private Key pendingKey;
+    private long renderCount;
+
+    /**
+     * The key of a rendering consists of the image, the linear part of the
+     * transform from image pixels to device pixels, and the interpolation
+     * rendering hint.
+     */
+    private static class Key {
+
+        private final ImageStore.Entry entry;
+        private final double m00, m10, m01, m11;
+        private final Object interpolation;
+
+        public Key(ImageStore.Entry entry, AffineTransform tx, Object interpolation) {
+            this.entry = entry;
+            this.m00 = tx.getScaleX();
+            this.m10 = tx.getShearY();
+            this.m01 = tx.getShearX();
+            this.m11 = tx.getScaleY();
+            this.interpolation = interpolation;
+        }
+
+        public AffineTransform getTransform() {
+            return new AffineTransform(m00, m10, m01, m11, 0, 0);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (o instanceof Key) {
+                Key that = (Key) o;
+                return that.entry == this.entry &&
+                        that.m00 == this.m00 && that.m10 == this.m10 &&
+                        that.m01 == this.m01 && that.m11 == this.m11 &&
+                        (that.interpolation == null ? this.interpolation == null : that.interpolation.equals(this.interpolation));
+            }
+            return false;
+        }
+
+        @Override
+        public int hashCode() {
+            long bits = Double.doubleToLongBits(m00) + 31 * Double.doubleToLongBits(m11);
+            return System.identityHashCode(entry) ^ (int) (bits ^ (bits >>> 32));
+        }
+    }
+
+    /**
+     * A resampled image. The pixel (0,0) of the image corresponds to the
+     * point (x,y) of the key transform applied to the image.
+     */
+    private static class Rendering {
+
+        private final Key key;
+        private final BufferedImage image;
+        private final int x;
+        private final int y;
+
+        public Rendering(Key key, BufferedImage image, int x, int y) {
+            this.key = key;
+            this.image = image;
+            this.x = x;
+            this.y = y;
+        }
+
+        public long getByteCount() {
+            return (long) image.getWidth() * image.getHeight() * 4;
+        }
+    }
+
+    /**
+     * Creates a new instance.
+     *
+     * @param repainter Repaints the figure, when a rendering has been
+     * created by a worker.
+     */
+    public SVGImageRenderCache(Runnable repainter) {
+        this.repainter = repainter;
+    }
+
+    /**
+     * Draws the image of the specified entry into the specified bounds.
+     * <p>
+     * If there is no rendering for the current transform of the graphics,
+     * this method starts a worker, which creates the rendering, and invokes
+     * the repainter on the AWT event dispatcher thread when it is done.
+     *
+     * @param g The graphics.
+     * @param entry The image.
+     * @param bounds The bounds of the image in the coordinate system of the
+     * graphics.
+     * @return True if the image has been drawn. False if there was no
+     * suitable rendering, and the caller must draw the image by itself.
+     */
+    public synchronized boolean draw(Graphics2D g, ImageStore.Entry entry, Rectangle bounds) {
+        int imageWidth = entry.getWidth();
+        int imageHeight = entry.getHeight();
+        if (imageWidth <= 0 || imageHeight <= 0 || bounds.width <= 0 || bounds.height <= 0) {
+            return false;
+        }
+
+        // Compute the transform from image pixels to device pixels
+        AffineTransform tx = g.getTransform();
+        tx.translate(bounds.x, bounds.y);
+        tx.scale(bounds.width / (double) imageWidth, bounds.height / (double) imageHeight);
+
+        Key key = new Key(entry, tx, g.getRenderingHint(RenderingHints.KEY_INTERPOLATION));
+        Rendering r = (rendering == null) ? null : rendering.get();
+        if (r != null && r.key.entry != entry) {
+            r = null;
+        }
+
+        if (r != null && r.key.equals(key)) {
+            touch(r);
+            Graphics2D gx = (Graphics2D) g.create();
+            gx.setTransform(new AffineTransform());
+            gx.drawImage(r.image,
+                    (int) Math.round(tx.getTranslateX() + r.x),
+                    (int) Math.round(tx.getTranslateY() + r.y), null);
+            gx.dispose();
+            return true;
+        }
+
+        if (tx.getScaleX() == 1 && tx.getScaleY() == 1 &&
+                tx.getShearX() == 0 && tx.getShearY() == 0) {
+            // The image is not resampled, so drawing it directly is fast
+            return false;
+        }
+
+        Rectangle2D deviceBounds = key.getTransform().createTransformedShape(
+                new Rectangle(0, 0, imageWidth, imageHeight)).getBounds2D();
+        if (deviceBounds.getWidth() * deviceBounds.getHeight() > MAX_RENDERING_PIXELS) {
+            return false;
+        }
+
+        if (!key.equals(pendingKey)) {
+            pendingKey = key;
+            render(key);
+        }
+
+        if (r == null) {
+            return false;
+        }
+
+        // Draw the nearest rendering with the new transform until the
+        // worker has finished.
+        try {
+            AffineTransform rx = new AffineTransform(tx);
+            rx.concatenate(r.key.getTransform().createInverse());
+            rx.translate(r.x, r.y);
+            Graphics2D gx = (Graphics2D) g.create();
+            gx.setTransform(rx);
+            gx.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            gx.drawImage(r.image, 0, 0, null);
+            gx.dispose();
+            touch(r);
+            return true;
+        } catch (NoninvertibleTransformException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Discards the rendering.
+     */
+    public synchronized void clear() {
+        if (rendering != null) {
+            Rendering r = rendering.get();
+            if (r != null) {
+                synchronized (recentRenderings) {
+                    if (recentRenderings.remove(r) != null) {
+                        recentBytes -= r.getByteCount();
+                    }
+                }
+            }
+            rendering = null;
+        }
+        pendingKey = null;
+    }
+
+    /**
+     * Returns the number of renderings, which have been created for the
+     * figure.
+     */
+    public synchronized long getRenderCount() {
+        return renderCount;
+    }
+
+    private void render(final Key key) {
+        getExecutor().execute(new Worker() {
+
+            public Object construct() {
+                return createRendering(key);
+            }
+
+            public void finished(Object value) {
+                boolean isRendered = false;
+                synchronized (SVGImageRenderCache.this) {
+                    if (key.equals(pendingKey)) {
+                        pendingKey = null;
+                        if (value != null) {
+                            Rendering r = (Rendering) value;
+                            clear();
+                            rendering = new SoftReference<Rendering>(r);
+                            renderCount++;
+                            touch(r);
+                            isRendered = true;
+                        }
+                    }
+                }
+                if (isRendered) {
+                    repainter.run();
+                }
+            }
+        });
+    }
+
+    private static synchronized ExecutorService getExecutor() {
+        if (executor == null) {
+            executor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+
+                public Thread newThread(Runnable r) {
+                    Thread t = new Thread(r, "SVGImageRenderCache");
+                    t.setDaemon(true);
+                    t.setPriority(Thread.NORM_PRIORITY - 1);
+                    return t;
+                }
+            });
+        }
+        return executor;
+    }
+
+    /**
+     * Resamples the image of the specified key. This method is invoked on a
+     * worker thread.
+     */
+    private static Rendering createRendering(Key key) {
+        AffineTransform tx = key.getTransform();
+        int imageWidth = key.entry.getWidth();
+        int imageHeight = key.entry.getHeight();
+
+        // Subsampling drops pixels, so we only use it for nearest neighbor
+        // interpolation, which drops pixels anyway
+        boolean isNearestNeighbor = key.interpolation == null ||
+                key.interpolation == RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR;
+        double scale = Math.min(
+                Math.hypot(tx.getScaleX(), tx.getShearY()),
+                Math.hypot(tx.getShearX(), tx.getScaleY()));
+        BufferedImage source = key.entry.getImage(isNearestNeighbor ? ImageStore.getSubsampling(scale) : 1);
+        if (source == null) {
+            return null;
+        }
+        tx.scale(imageWidth / (double) source.getWidth(), imageHeight / (double) source.getHeight());
+
+        // Halve the image until we are at most scaling it down by half
+        if (!isNearestNeighbor) {
+            while (Math.min(Math.hypot(tx.getScaleX(), tx.getShearY()),
+                    Math.hypot(tx.getShearX(), tx.getScaleY())) < 0.5 &&
+                    source.getWidth() > 1 && source.getHeight() > 1) {
+                int w = source.getWidth() / 2;
+                int h = source.getHeight() / 2;
+                BufferedImage half = new BufferedImage(w, h, BufferedImage.TYPE_INT_ARGB_PRE);
+                Graphics2D g = half.createGraphics();
+                g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                g.drawImage(source, 0, 0, w, h, null);
+                g.dispose();
+                tx.scale(source.getWidth() / (double) w, source.getHeight() / (double) h);
+                source = half;
+            }
+        }
+
+        Rectangle2D b = tx.createTransformedShape(
+                new Rectangle(0, 0, source.getWidth(), source.getHeight())).getBounds2D();
+        int x = (int) Math.floor(b.getX());
+        int y = (int) Math.floor(b.getY());
+        int w = (int) Math.ceil(b.getMaxX()) - x;
+        int h = (int) Math.ceil(b.getMaxY()) - y;
+        if (w <= 0 || h <= 0) {
+            return null;
+        }
+        BufferedImage image = new BufferedImage(w, h, BufferedImage.TYPE_INT_ARGB_PRE);
+        Graphics2D g = image.createGraphics();
+        if (key.interpolation != null) {
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, key.interpolation);
+        }
+        g.translate(-x, -y);
+        g.transform(tx);
+        g.drawImage(source, 0, 0, null);
+        g.dispose();
+        return new Rendering(key, image, x, y);
+    }
+
+    /**
+     * Marks a rendering as recently used, and discards the least recently
+     * used renderings of all figures, when the cache is full.
+     */
+    private static void touch(Rendering r) {
+        synchronized (recentRenderings) {
+            if (recentRenderings.get(r) == null) {
+                recentRenderings.put(r, r);
+                recentBytes += r.getByteCount();
+                for (Iterator<Rendering> i = recentRenderings.keySet().iterator();
+                        recentBytes > MAX_CACHED_BYTES && i.hasNext();) {
+                    Rendering eldest = i.next();
+                    if (eldest != r) {
+                        recentBytes -= eldest.getByteCount();
+                        i.remove();
+                    }
+                }
+            }
+        }
+    }
+}
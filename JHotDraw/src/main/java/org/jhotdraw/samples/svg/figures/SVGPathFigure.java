@@ -17,7 +17,6 @@ import dk.sdu.mmmi.featuretracer.lib.FeatureEntryPoint;
 import java.awt.*;
 import java.awt.event.*;
 import java.awt.geom.*;
-import java.awt.image.BufferedImage;
 import java.io.*;
 import java.util.*;
 import javax.swing.*;
@@ -35,7 +34,14 @@ import static org.jhotdraw.samples.svg.SVGAttributeKeys.*;
  * SVGBezierFigures as its children.
  *
  * @author Werner Randelshofer
- * @version 2.1 2009-04-17 Method contains() takes now into account
+ * @version 2.6 2026-10-18 getPath publishes the path after it has been
+ * built.
+ * <br>2.5 2026-10-18 flattenTransform did not clone the gradients,
+ * which may be shared with other figures.
+ * <br>2.4 2026-10-18 Memoize paints and stroke.
+ * <br>2.3 2026-10-18 Cache the geometry used for hit testing.
+ * <br>2.2 2026-10-18 Cache the rendered image of translucent figures.
+ * <br>2.1 2009-04-17 Method contains() takes now into account
  * whether the figure is filled.
  * <br>1.1.1 2008-03-20 Attributes must be set on child figures in order
  * to ensure that the drawing area of the child figures is computed properly. 
@@ -53,6 +59,28 @@ public class SVGPathFigure extends AbstractAttributedCompositeFigure implements
      * This is used to perform faster hit testing.
      */
     private transient Shape cachedHitShape;
+    private transient Rectangle2D cachedHitShapeBounds;
+    /**
+     * The outline of the path grown by the hit growth. This is used for
+     * hit testing filled paths.
+     */
+    private transient Shape cachedGrowShape;
+    private transient Rectangle2D cachedGrowShapeBounds;
+    private transient double cachedGrow;
+    private transient double cachedMiterLimit;
+    /**
+     * The flattened outline of the path. This is used for hit testing
+     * open paths.
+     */
+    private transient FlattenedOutline cachedOutline;
+    /**
+     * Holds the rendered image of the figure, if the figure is translucent.
+     */
+    private transient TranslucentImageCache translucentImageCache;
+    /**
+     * Holds the paints and the stroke of the figure.
+     */
+    private transient SVGStyleCache styleCache;
     private final static boolean DEBUG = false;
 
     /** Creates a new instance. */
@@ -73,31 +101,16 @@ public class SVGPathFigure extends AbstractAttributedCompositeFigure implements
         opacity = Math.min(Math.max(0d, opacity), 1d);
         if (opacity != 0d) {
             if (opacity != 1d) {
-                Rectangle2D.Double drawingArea = getDrawingArea();
-
-                Rectangle2D clipBounds = g.getClipBounds();
-                if (clipBounds != null) {
-                    Rectangle2D.intersect(drawingArea, clipBounds, drawingArea);
-                }
+                TranslucentImageCache cache = translucentImageCache;
+                if (cache == null) {
+                    cache = translucentImageCache = new TranslucentImageCache() {
 
-                if (!drawingArea.isEmpty()) {
-
-                    BufferedImage buf = new BufferedImage(
-                            Math.max(1, (int) ((2 + drawingArea.width) * g.getTransform().getScaleX())),
-                            Math.max(1, (int) ((2 + drawingArea.height) * g.getTransform().getScaleY())),
-                            BufferedImage.TYPE_INT_ARGB);
-                    Graphics2D gr = buf.createGraphics();
-                    gr.scale(g.getTransform().getScaleX(), g.getTransform().getScaleY());
-                    gr.translate((int) -drawingArea.x, (int) -drawingArea.y);
-                    gr.setRenderingHints(g.getRenderingHints());
-                    drawFigure(gr);
-                    gr.dispose();
-                    Composite savedComposite = g.getComposite();
-                    g.setComposite(AlphaComposite.getInstance(AlphaComposite.SRC_OVER, (float) opacity));
-                    g.drawImage(buf, (int) drawingArea.x, (int) drawingArea.y,
-                            2 + (int) drawingArea.width, 2 + (int) drawingArea.height, null);
-                    g.setComposite(savedComposite);
+                        protected void drawFigure(Graphics2D g) {
+                            SVGPathFigure.this.drawFigure(g);
+                        }
+                    };
                 }
+                cache.draw(g, opacity, getDrawingArea());
             } else {
                 drawFigure(g);
             }
@@ -110,15 +123,19 @@ public class SVGPathFigure extends AbstractAttributedCompositeFigure implements
             savedTransform = g.getTransform();
             g.transform(TRANSFORM.get(this));
         }
-        Paint paint = SVGAttributeKeys.getFillPaint(this);
+        SVGStyleCache style = styleCache;
+        if (style == null) {
+            style = styleCache = new SVGStyleCache();
+        }
+        Paint paint = style.getFillPaint(this);
         if (paint != null) {
             g.setPaint(paint);
             drawFill(g);
         }
-        paint = SVGAttributeKeys.getStrokePaint(this);
+        paint = style.getStrokePaint(this);
         if (paint != null) {
             g.setPaint(paint);
-            g.setStroke(SVGAttributeKeys.getStroke(this));
+            g.setStroke(style.getStroke(this));
             drawStroke(g);
         }
         if (TRANSFORM.get(this) != null) {
@@ -143,21 +160,33 @@ public class SVGPathFigure extends AbstractAttributedCompositeFigure implements
         cachedPath = null;
         cachedDrawingArea = null;
         cachedHitShape = null;
+        cachedGrowShape = null;
+        cachedOutline = null;
+        if (translucentImageCache != null) {
+            translucentImageCache.invalidate();
+        }
+        if (styleCache != null) {
+            styleCache.invalidate();
+        }
     }
 
     protected GeneralPath getPath() {
-        if (cachedPath == null) {
-            cachedPath = new GeneralPath();
-            cachedPath.setWindingRule(WINDING_RULE.get(this) == WindingRule.EVEN_ODD ? GeneralPath.WIND_EVEN_ODD : GeneralPath.WIND_NON_ZERO);
+        GeneralPath path = cachedPath;
+        if (path == null) {
+            // Build the path before publishing it
+            path = new GeneralPath();
+            path.setWindingRule(WINDING_RULE.get(this) == WindingRule.EVEN_ODD ? GeneralPath.WIND_EVEN_ODD : GeneralPath.WIND_NON_ZERO);
             for (Figure child : getChildren()) {
                 SVGBezierFigure b = (SVGBezierFigure) child;
-                cachedPath.append(b.getBezierPath(), false);
+                path.append(b.getBezierPath(), false);
             }
+            cachedPath = path;
         }
-        return cachedPath;
+        return path;
     }
     protected Shape getHitShape() {
         if (cachedHitShape == null) {
+            cachedHitShapeBounds = null;
             cachedHitShape = getPath();
             if (FILL_COLOR.get(this) == null && FILL_GRADIENT.get(this) == null) {
                 cachedHitShape = SVGAttributeKeys.getHitStroke(this).createStrokedShape(cachedHitShape);
@@ -214,7 +243,11 @@ public class SVGPathFigure extends AbstractAttributedCompositeFigure implements
         }
         boolean isClosed = CLOSED.get(getChild(0));
         if (isClosed && FILL_COLOR.get(this) == null && FILL_GRADIENT.get(this)==null) {
-            return getHitShape().contains(p);
+            Shape hitShape = getHitShape();
+            if (cachedHitShapeBounds == null) {
+                cachedHitShapeBounds = hitShape.getBounds2D();
+            }
+            return cachedHitShapeBounds.contains(p) && hitShape.contains(p);
         }
         /*
         return cachedPath.contains(p2);
@@ -225,10 +258,16 @@ public class SVGPathFigure extends AbstractAttributedCompositeFigure implements
                 return true;
             }
             double grow = AttributeKeys.getPerpendicularHitGrowth(this) /** 2d*/;
-            GrowStroke gs = new GrowStroke((float) grow,
-                    (float) (AttributeKeys.getStrokeTotalWidth(this) *
-                    STROKE_MITER_LIMIT.get(this)));
-            if (gs.createStrokedShape(getPath()).contains(p)) {
+            double miterLimit = AttributeKeys.getStrokeTotalWidth(this) *
+                    STROKE_MITER_LIMIT.get(this);
+            if (cachedGrowShape == null || cachedGrow != grow || cachedMiterLimit != miterLimit) {
+                GrowStroke gs = new GrowStroke((float) grow, (float) miterLimit);
+                cachedGrowShape = gs.createStrokedShape(getPath());
+                cachedGrowShapeBounds = cachedGrowShape.getBounds2D();
+                cachedGrow = grow;
+                cachedMiterLimit = miterLimit;
+            }
+            if (cachedGrowShapeBounds.contains(p) && cachedGrowShape.contains(p)) {
                 return true;
             } else {
                 if (isClosed) {
@@ -237,7 +276,10 @@ public class SVGPathFigure extends AbstractAttributedCompositeFigure implements
             }
         }
         if (!isClosed) {
-            if (Shapes.outlineContains(getPath(), p, tolerance)) {
+            if (cachedOutline == null || cachedOutline.getFlatness() != tolerance) {
+                cachedOutline = new FlattenedOutline(getPath(), tolerance);
+            }
+            if (cachedOutline.outlineContains(p, tolerance)) {
                 return true;
             }
         }
@@ -494,6 +536,8 @@ public class SVGPathFigure extends AbstractAttributedCompositeFigure implements
 
     public SVGPathFigure clone() {
         SVGPathFigure that = (SVGPathFigure) super.clone();
+        that.translucentImageCache = null;
+        that.styleCache = null;
         return that;
     }
 
@@ -507,10 +551,14 @@ public class SVGPathFigure extends AbstractAttributedCompositeFigure implements
             }
         }
         if (FILL_GRADIENT.get(this) != null) {
-            FILL_GRADIENT.get(this).transform(tx);
+            Gradient g = FILL_GRADIENT.getClone(this);
+            g.transform(tx);
+            FILL_GRADIENT.basicSet(this, g);
         }
         if (STROKE_GRADIENT.get(this) != null) {
-            STROKE_GRADIENT.get(this).transform(tx);
+            Gradient g = STROKE_GRADIENT.getClone(this);
+            g.transform(tx);
+            STROKE_GRADIENT.basicSet(this, g);
         }
         TRANSFORM.basicSet(this, null);
         changed();
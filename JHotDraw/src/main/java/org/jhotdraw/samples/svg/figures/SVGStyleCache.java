@@ -0,0 +1,217 @@
+/*
+ * @(#)SVGStyleCache.java  1.0  2026-10-18
+ *
+ * Copyright (c) 1996-2026 by the original authors of JHotDraw
+ * and all its contributors.
+ * All rights reserved.
+ *
+ * The copyright of this software is owned by the authors and
+ * contributors of the JHotDraw project ("the copyright holders").
+ * You may not use, copy or modify this software, except in
+ * accordance with the license agreement you entered into with
+ * the copyright holders. For details see accompanying license terms.
+ */
+package org.jhotdraw.samples.svg.figures;
+
+import java.awt.*;
+import java.awt.geom.*;
+import java.lang.ref.*;
+import java.util.*;
+import org.jhotdraw.draw.*;
+import org.jhotdraw.samples.svg.*;
+import static org.jhotdraw.samples.svg.SVGAttributeKeys.*;
+
+/**
+ * Memoizes the Paint, Stroke and Font objects, which an SVG figure derives
+ * from its attributes.
+ * <p>
+ * The objects are derived on first use with the methods of
+ * {@link SVGAttributeKeys}, and then returned again until the figure calls
+ * {@link #invalidate}. A figure must invalidate the cache, when one of its
+ * attributes or its bounds change.
+ * <p>
+ * Equal colors, basic strokes and fonts of all figures are interned, so that
+ * figures with the same style share the same objects. Gradient paints are
+ * shared between figures with equal gradients, opacities and - for
+ * gradients which are relative to the figure bounds - equal bounds.
+ * <p>
+ * This class is thread safe.
+ *
+ * @author Werner Randelshofer
+ * @version 1.0 2026-10-18 Created.
+ */
+public class SVGStyleCache {
+
+    /**
+     * The maximal number of shared gradient paints.
+     */
+    private final static int MAX_GRADIENT_PAINTS = 256;
+    /**
+     * Interned colors, strokes and fonts.
+     */
+    private final static WeakHashMap<Object, WeakReference<Object>> interned = new WeakHashMap<Object, WeakReference<Object>>();
+    /**
+     * Shared gradient paints. The least recently used paints are discarded
+     * first.
+     */
+    private final static LinkedHashMap<GradientKey, Paint> gradientPaints = new LinkedHashMap<GradientKey, Paint>(16, 0.75f, true) {
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<GradientKey, Paint> eldest) {
+            return size() > MAX_GRADIENT_PAINTS;
+        }
+    };
+    private Paint fillPaint;
+    private boolean isFillPaintValid;
+    private Paint strokePaint;
+    private boolean isStrokePaintValid;
+    private Stroke stroke;
+    private Font font;
+
+    /**
+     * Key for a shared gradient paint.
+     */
+    private static class GradientKey {
+
+        private final Gradient gradient;
+        private final double opacity;
+        private final Rectangle2D.Double bounds;
+
+        public GradientKey(Gradient gradient, double opacity, Rectangle2D.Double bounds) {
+            this.gradient = gradient;
+            this.opacity = opacity;
+            this.bounds = bounds;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof GradientKey)) {
+                return false;
+            }
+            GradientKey that = (GradientKey) o;
+            return this.opacity == that.opacity &&
+                    this.gradient.equals(that.gradient) &&
+                    (this.bounds == null ? that.bounds == null : this.bounds.equals(that.bounds));
+        }
+
+        @Override
+        public int hashCode() {
+            long bits = Double.doubleToLongBits(opacity);
+            int hash = gradient.hashCode() * 31 + (int) (bits ^ (bits >>> 32));
+            return (bounds == null) ? hash : hash * 31 + bounds.hashCode();
+        }
+    }
+
+    /** Creates a new instance. */
+    public SVGStyleCache() {
+    }
+
+    /**
+     * Discards all memoized objects.
+     */
+    public synchronized void invalidate() {
+        isFillPaintValid = false;
+        fillPaint = null;
+        isStrokePaintValid = false;
+        strokePaint = null;
+        stroke = null;
+        font = null;
+    }
+
+    /**
+     * Returns the fill paint of the figure.
+     *
+     * @see SVGAttributeKeys#getFillPaint
+     */
+    public synchronized Paint getFillPaint(Figure f) {
+        if (!isFillPaintValid) {
+            fillPaint = getPaint(f, FILL_GRADIENT.get(f), FILL_COLOR.get(f), FILL_OPACITY.get(f));
+            isFillPaintValid = true;
+        }
+        return fillPaint;
+    }
+
+    /**
+     * Returns the stroke paint of the figure.
+     *
+     * @see SVGAttributeKeys#getStrokePaint
+     */
+    public synchronized Paint getStrokePaint(Figure f) {
+        if (!isStrokePaintValid) {
+            strokePaint = getPaint(f, STROKE_GRADIENT.get(f), STROKE_COLOR.get(f), STROKE_OPACITY.get(f));
+            isStrokePaintValid = true;
+        }
+        return strokePaint;
+    }
+
+    /**
+     * Returns the stroke of the figure.
+     *
+     * @see AttributeKeys#getStroke
+     */
+    public synchronized Stroke getStroke(Figure f) {
+        if (stroke == null) {
+            stroke = SVGAttributeKeys.getStroke(f);
+            if (stroke instanceof BasicStroke) {
+                stroke = intern(stroke);
+            }
+        }
+        return stroke;
+    }
+
+    /**
+     * Returns the font of the figure.
+     *
+     * @see AttributeKeys#getFont
+     */
+    public synchronized Font getFont(Figure f) {
+        if (font == null) {
+            font = SVGAttributeKeys.getFont(f);
+            if (font != null) {
+                font = intern(font);
+            }
+        }
+        return font;
+    }
+
+    private static Paint getPaint(Figure f, Gradient gradient, Color color, double opacity) {
+        if (gradient != null) {
+            GradientKey key = new GradientKey(gradient, opacity,
+                    gradient.isRelativeToFigureBounds() ? f.getBounds() : null);
+            synchronized (gradientPaints) {
+                Paint paint = gradientPaints.get(key);
+                if (paint == null) {
+                    paint = gradient.getPaint(f, opacity);
+                    // Gradients are mutable, so we use a copy for the key
+                    gradientPaints.put(new GradientKey((Gradient) gradient.clone(), opacity, key.bounds), paint);
+                }
+                return paint;
+            }
+        }
+        if (color != null) {
+            if (opacity != 1) {
+                color = new Color(
+                        (color.getRGB() & 0xffffff) | (int) (opacity * 255) << 24,
+                        true);
+            }
+            color = intern(color);
+        }
+        return color;
+    }
+
+    /**
+     * Returns a canonical instance of the specified value.
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> T intern(T value) {
+        synchronized (interned) {
+            WeakReference<Object> ref = interned.get(value);
+            Object canonical = (ref == null) ? null : ref.get();
+            if (canonical == null) {
+                interned.put(value, new WeakReference<Object>(value));
+                canonical = value;
+            }
+            return (T) canonical;
+        }
+    }
+}
@@ -29,7 +29,8 @@ import org.jhotdraw.geom.*;
  * SVGTextArea.
  *
  * @author Werner Randelshofer
- * @version 2.1.1 2009-03-29 Two consecutive tab-characters in text caused
+ * @version 2.2 2026-10-18 Use the memoized font of the figure.
+ * <br>2.1.1 2009-03-29 Two consecutive tab-characters in text caused
  * ArrayIndexOutOfBoundsException.
  * <br>2.1 2008-05-31 Added method getPreferredTextSize.
  * <br>2.0.1 Rectangle returned by getDrawingArea needs to be cloned.
@@ -418,7 +419,7 @@ public class SVGTextAreaFigure extends SVGAttributedFigure
     }
 
     public Font getFont() {
-        return SVGAttributeKeys.getFont(this);
+        return getStyleCache().getFont(this);
     }
 
     public Color getTextColor() {
@@ -38,7 +38,8 @@ import static org.jhotdraw.samples.svg.SVGAttributeKeys.*;
  * Cache outline to improve performance.
  *
  * @author Werner Randelshofer
- * @version 2.1.1 Rectangle returned by getDrawingArea needs to be cloned.
+ * @version 2.2 2026-10-18 Use the memoized font of the figure.
+ * <br>2.1.1 Rectangle returned by getDrawingArea needs to be cloned.
  * <br>2.1 2007-05-13 Fixed transformation issues.
  * <br>2.0 2007-04-14 Adapted for new AttributeKeys.TRANSFORM support.
  * <br>1.0 July 8, 2006 Created.
@@ -284,7 +285,7 @@ public class SVGTextFigure
     }
     
     public Font getFont() {
-        return SVGAttributeKeys.getFont(this);
+        return getStyleCache().getFont(this);
     }
     
     public Color getTextColor() {
@@ -0,0 +1,176 @@
+/*
+ * @(#)TranslucentImageCache.java  1.0  2026-10-18
+ *
+ * Copyright (c) 1996-2026 by the original authors of JHotDraw
+ * and all its contributors.
+ * All rights reserved.
+ *
+ * The copyright of this software is owned by the authors and
+ * contributors of the JHotDraw project ("the copyright holders").
+ * You may not use, copy or modify this software, except in
+ * accordance with the license agreement you entered into with
+ * the copyright holders. For details see accompanying license terms.
+ */
+package org.jhotdraw.samples.svg.figures;
+
+import java.awt.*;
+import java.awt.geom.*;
+import java.awt.image.*;
+import java.lang.ref.*;
+import org.jhotdraw.draw.DrawingTileCache;
+
+/**
+ * A TranslucentImageCache draws a figure with group opacity.
+ * <p>
+ * Group opacity requires that the figure is rendered into an offscreen
+ * image, which is then composited with the opacity of the figure. The
+ * cache keeps the rendered image of the figure, and composites it again
+ * until the figure changes, or until the figure is drawn with a different
+ * scale or with different rendering hints. The figure must call
+ * {@link #invalidate} whenever its rendering changes.
+ * <p>
+ * The rendered image is held by a soft reference, so that it can be
+ * reclaimed by the garbage collector when memory gets low. If the image
+ * would exceed {@link #MAX_CACHED_PIXELS}, only the visible part of the
+ * figure is rendered into an image from the {@link OffscreenImagePool}.
+ * <p>
+ * Subclasses implement {@link #drawFigure}, which draws the figure without
+ * opacity.
+ * <p>
+ * This class is thread safe.
+ *
+ * @author Werner Randelshofer
+ * @version 1.1 2026-10-18 Figures are not drawn as on the screen into the
+ * cached image.
+ * <br>1.0 2026-10-18 Created.
+ */
+public abstract class TranslucentImageCache {
+
+    /**
+     * The maximal number of pixels of a cached image.
+     */
+    public final static int MAX_CACHED_PIXELS = 1 << 20;
+    /**
+     * The revision of the figure. This is incremented each time the figure
+     * is invalidated.
+     */
+    private int revision;
+    private int imageRevision = -1;
+    private SoftReference<BufferedImage> imageRef;
+    private double imageScaleX;
+    private double imageScaleY;
+    private Rectangle2D.Double imageArea;
+    private RenderingHints imageHints;
+
+    /** Creates a new instance. */
+    public TranslucentImageCache() {
+    }
+
+    /**
+     * Draws the figure without opacity.
+     */
+    protected abstract void drawFigure(Graphics2D g);
+
+    /**
+     * Marks the cached image as invalid.
+     */
+    public synchronized void invalidate() {
+        revision++;
+    }
+
+    /**
+     * Draws the figure with the specified opacity.
+     *
+     * @param g The graphics.
+     * @param opacity The opacity, a value between 0 and 1.
+     * @param drawingArea The drawing area of the figure.
+     */
+    public synchronized void draw(Graphics2D g, double opacity, Rectangle2D.Double drawingArea) {
+        double scaleX = g.getTransform().getScaleX();
+        double scaleY = g.getTransform().getScaleY();
+        int width = Math.max(1, (int) ((2 + drawingArea.width) * scaleX));
+        int height = Math.max(1, (int) ((2 + drawingArea.height) * scaleY));
+
+        if ((long) width * height > MAX_CACHED_PIXELS) {
+            imageRef = null;
+            drawUncached(g, opacity, drawingArea);
+            return;
+        }
+
+        BufferedImage image = (imageRef == null) ? null : imageRef.get();
+        RenderingHints hints = g.getRenderingHints();
+        if (image == null || imageRevision != revision ||
+                imageScaleX != scaleX || imageScaleY != scaleY ||
+                !drawingArea.equals(imageArea) || !hints.equals(imageHints)) {
+            if (image == null || image.getWidth() != width || image.getHeight() != height) {
+                image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+            }
+            render(image, width, height, drawingArea, scaleX, scaleY, hints, true);
+            imageRef = new SoftReference<BufferedImage>(image);
+            imageRevision = revision;
+            imageScaleX = scaleX;
+            imageScaleY = scaleY;
+            imageArea = (Rectangle2D.Double) drawingArea.clone();
+            imageHints = hints;
+        }
+        composite(g, opacity, image, width, height, drawingArea);
+    }
+
+    /**
+     * Renders only the visible part of the figure into a pooled image.
+     */
+    private void drawUncached(Graphics2D g, double opacity, Rectangle2D.Double drawingArea) {
+        Rectangle2D.Double visibleArea = (Rectangle2D.Double) drawingArea.clone();
+        Rectangle2D clipBounds = g.getClipBounds();
+        if (clipBounds != null) {
+            Rectangle2D.intersect(visibleArea, clipBounds, visibleArea);
+        }
+        if (visibleArea.isEmpty()) {
+            return;
+        }
+        double scaleX = g.getTransform().getScaleX();
+        double scaleY = g.getTransform().getScaleY();
+        int width = Math.max(1, (int) ((2 + visibleArea.width) * scaleX));
+        int height = Math.max(1, (int) ((2 + visibleArea.height) * scaleY));
+
+        OffscreenImagePool pool = OffscreenImagePool.getInstance();
+        BufferedImage image = pool.acquire(width, height);
+        try {
+            render(image, width, height, visibleArea, scaleX, scaleY, g.getRenderingHints(), false);
+            composite(g, opacity, image, width, height, visibleArea);
+        } finally {
+            pool.release(image);
+        }
+    }
+
+    private void render(BufferedImage image, int width, int height,
+            Rectangle2D.Double area, double scaleX, double scaleY,
+            RenderingHints hints, boolean clear) {
+        Graphics2D gr = image.createGraphics();
+        if (clear) {
+            gr.setComposite(AlphaComposite.Clear);
+            gr.fillRect(0, 0, width, height);
+            gr.setComposite(AlphaComposite.SrcOver);
+        }
+        gr.clipRect(0, 0, width, height);
+        gr.scale(scaleX, scaleY);
+        gr.translate((int) -area.x, (int) -area.y);
+        gr.setRenderingHints(hints);
+        // The image may be kept, so it must not contain approximations which
+        // are only good enough for a tile on the screen
+        DrawingTileCache.unmarkTileGraphics(gr);
+        drawFigure(gr);
+        gr.dispose();
+    }
+
+    private void composite(Graphics2D g, double opacity, BufferedImage image,
+            int width, int height, Rectangle2D.Double area) {
+        Composite savedComposite = g.getComposite();
+        g.setComposite(AlphaComposite.getInstance(AlphaComposite.SRC_OVER, (float) opacity));
+        int x = (int) area.x;
+        int y = (int) area.y;
+        g.drawImage(image, x, y, x + 2 + (int) area.width, y + 2 + (int) area.height,
+                0, 0, width, height, null);
+        g.setComposite(savedComposite);
+    }
+}
@@ -28,7 +28,9 @@ import org.jhotdraw.samples.svg.figures.*;
  * DefaultSVGFigureFactory.
  *
  * @author Werner Randelshofer
- * @version 1.0.1 2009-03-29 createCircle created figures at wrong location
+ * @version 1.1 2026-10-18 createPolyline and createPolygon create figures
+ * with packed bezier paths.
+ * <br>1.0.1 2009-03-29 createCircle created figures at wrong location
  * and with wrong radius.
  * <br>1.0 December 7, 2006 Created.
  */
@@ -73,9 +75,12 @@ public class DefaultSVGFigureFactory implements SVGFigureFactory {
         SVGPathFigure figure = new SVGPathFigure();
         figure.removeAllChildren();
         SVGBezierFigure bf = new SVGBezierFigure();
+        BezierPath path = new BezierPath();
         for (int i=0; i < points.length; i++) {
-            bf.addNode(new BezierPath.Node(points[i].x, points[i].y));
+            path.addPoint(points[i].x, points[i].y);
         }
+        path.pack();
+        bf.setBezierPath(path);
         figure.add(bf);
         figure.setAttributes(a);
         return figure;
@@ -85,10 +90,13 @@ public class DefaultSVGFigureFactory implements SVGFigureFactory {
         SVGPathFigure figure = new SVGPathFigure();
         figure.removeAllChildren();
         SVGBezierFigure bf = new SVGBezierFigure();
+        BezierPath path = new BezierPath();
         for (int i=0; i < points.length; i++) {
-            bf.addNode(new BezierPath.Node(points[i].x, points[i].y));
+            path.addPoint(points[i].x, points[i].y);
         }
-        bf.setClosed(true);
+        path.setClosed(true);
+        path.pack();
+        bf.setBezierPath(path);
         figure.add(bf);
         figure.setAttributes(a);
         return figure;
@@ -27,11 +27,12 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedList;
+import java.util.ListIterator;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Stack;
 import java.util.StringTokenizer;
-import javax.imageio.*;
+import java.util.concurrent.*;
 import javax.swing.*;
 import javax.swing.text.*;
 import net.n3.nanoxml.*;
@@ -59,7 +60,18 @@ import org.jhotdraw.xml.css.CSSParser;
  *
  *
  * @author Werner Randelshofer
- * @version 1.3 2009-04-17 Added support for link target. Added support for
+ * @version 1.11 2026-10-18 Streaming mode keeps a copy of each identified
+ * figure as it has been read, for the "use" elements which reference it.
+ * <br>1.10 2026-10-18 Streaming mode resolves forward references of
+ * "use" elements inside of "a" elements, and chains of "use" elements.
+ * <br>1.9 2026-10-18 The bezier paths of path elements are packed.
+ * <br>1.8 2026-10-18 Image elements are no longer decoded while reading.
+ * <br>1.7 2026-10-18 Figures with equal attributes share their
+ * attributes.
+ * <br>1.6 2026-10-18 Added parallel mode.
+ * <br>1.5 2026-10-18 Path data is parsed by SVGPathParser.
+ * <br>1.4 2026-10-18 Added streaming mode.
+ * <br>1.3 2009-04-17 Added support for link target. Added support for
  * linked SVG images.
  * <br>1.2.2 2009-03-29 Ignore Transform "ref(...") attribute instead of
  * refusing to load the SVG file. Ignore malformed JPEG-image instead of
@@ -99,10 +111,9 @@ public class SVGInputFormat implements InputFormat {
      */
     private HashMap<IXMLElement, Object> elementObjects;
     /**
-     * Tokenizer for parsing SVG path expressions.
-     *
+     * Parser for SVG path expressions.
      */
-    private StreamPosTokenizer toPathTokenizer;
+    private SVGPathParser pathParser;
 
     /**
      * Each SVG element establishes a new Viewport.
@@ -141,6 +152,21 @@ public class SVGInputFormat implements InputFormat {
         public boolean isPreserveAspectRatio = true;
         private HashMap<AttributeKey, Object> attributes = new HashMap<AttributeKey, Object>();
 
+        /**
+         * Returns a copy of this viewport with an empty attribute map.
+         */
+        public Viewport copyWithoutAttributes() {
+            Viewport that = new Viewport();
+            that.width = this.width;
+            that.height = this.height;
+            that.viewBox = (Rectangle2D.Double) this.viewBox.clone();
+            that.widthPercentFactor = this.widthPercentFactor;
+            that.heightPercentFactor = this.heightPercentFactor;
+            that.numberFactor = this.numberFactor;
+            that.isPreserveAspectRatio = this.isPreserveAspectRatio;
+            return that;
+        }
+
         public String toString() {
             return "widthPercentFactor:" + widthPercentFactor + ";" +
                     "heightPercentFactor:" + heightPercentFactor + ";" +
@@ -166,6 +192,166 @@ public class SVGInputFormat implements InputFormat {
      * Holds the document that is currently being read.
      */
     private IXMLElement document;
+    /**
+     * Set this to true, to read the figures while the document is being
+     * parsed, instead of building a complete document tree first.
+     */
+    private boolean isStreaming;
+    /**
+     * In streaming mode, maps the identifiers of elements which have been
+     * discarded to the figures that were read from them.
+     */
+    private HashMap<String, StreamedFigure> streamedFigures;
+    /**
+     * In streaming mode, holds the placeholder figures of "use" elements
+     * which reference elements that have not been read yet.
+     */
+    private LinkedList<StreamedFigure> deferredReferences;
+    /**
+     * In streaming mode, maps placeholder figures to their entries in the
+     * list of deferred references.
+     */
+    private HashMap<Figure, StreamedFigure> placeholders;
+    /**
+     * Set this to true, to read the top-level "g" elements concurrently.
+     */
+    private boolean isParallel;
+    /**
+     * In parallel mode, holds the gradients and solid colors of the whole
+     * document. The map is shared by all workers, and must not be changed
+     * while they are reading.
+     */
+    private Map<IXMLElement, Object> paintServers;
+
+    /**
+     * Holds the state of an element, while it is being read in streaming
+     * mode.
+     */
+    private static class StreamingContext {
+
+        /** The element. */
+        public IXMLElement elem;
+        /** The context of the parent element, or null. */
+        public StreamingContext parent;
+        /**
+         * True, if the element or one of its ancestors is not in the SVG
+         * namespace.
+         */
+        public boolean isForeign;
+        /** True, if the element is inside of the outermost "svg" element. */
+        public boolean isInside;
+        /**
+         * True, if the children of the element are read and discarded as
+         * soon as they end. This is the case for "svg", "g", "a" and
+         * "switch" elements, whose ancestors are also structural.
+         */
+        public boolean isStructural;
+        /**
+         * True, if the element and its descendants are kept in memory,
+         * because they may be referenced. This is the case for "defs"
+         * elements, for gradients and for solid colors.
+         */
+        public boolean isRetained;
+        /** The view box transform of an "svg" element. */
+        public AffineTransform viewBoxTransform;
+        /** The figures read from the children of a "g" or "a" element. */
+        public ArrayList<Figure> childFigures;
+        /** The figure of a "switch" element. */
+        public Figure switchFigure;
+        /** True, if a child of a "switch" element has been selected. */
+        public boolean isSwitchMatched;
+        /**
+         * The identified figures and the placeholder figures, which are part
+         * of the figure of this element.
+         */
+        public ArrayList<StreamedFigure> streamedFigures;
+
+        public StreamingContext(IXMLElement elem, StreamingContext parent) {
+            this.elem = elem;
+            this.parent = parent;
+        }
+
+        public void add(StreamedFigure sf) {
+            if (streamedFigures == null) {
+                streamedFigures = new ArrayList<StreamedFigure>();
+            }
+            streamedFigures.add(sf);
+        }
+
+        public void addAll(StreamingContext child) {
+            if (child.streamedFigures != null) {
+                for (StreamedFigure sf : child.streamedFigures) {
+                    add(sf);
+                }
+            }
+        }
+
+        /**
+         * Records a transform, which has been applied to the figure
+         * of this element.
+         */
+        public void transformed(AffineTransform tx) {
+            if (streamedFigures != null) {
+                for (StreamedFigure sf : streamedFigures) {
+                    sf.transform.preConcatenate(tx);
+                }
+            }
+        }
+    }
+
+    /**
+     * A figure which has been read in streaming mode from an element with an
+     * identifier, or a placeholder figure for a "use" element whose
+     * reference has not been read yet.
+     */
+    private static class StreamedFigure {
+
+        /** The figure. */
+        public Figure figure;
+        /**
+         * A copy of the figure as it has been read, before the transforms
+         * and the link of enclosing elements have been applied to it. This
+         * is null for a placeholder, until it has been resolved.
+         */
+        public Figure original;
+        /**
+         * The transform, which has been applied to the placeholder since it
+         * has been read. It is applied to the figure, which replaces the
+         * placeholder.
+         */
+        public AffineTransform transform = new AffineTransform();
+        /** The referenced identifier of a placeholder. */
+        public String href;
+        /** The attributes of the "use" element of a placeholder. */
+        public HashMap<AttributeKey, Object> useAttributes;
+        /** The transform of the "use" element of a placeholder. */
+        public AffineTransform useTransform;
+        /**
+         * The group which holds the placeholder, or null if the placeholder
+         * is a top level figure.
+         */
+        public CompositeFigure parent;
+        /**
+         * True, if the placeholder is the child of an "a" element. The
+         * link is set on the figure, which replaces the placeholder.
+         */
+        public boolean isLinked;
+        /** The link of a placeholder. */
+        public String link;
+        /** The link target of a placeholder. */
+        public String linkTarget;
+
+        public StreamedFigure(Figure figure) {
+            this.figure = figure;
+        }
+
+        /**
+         * Returns a copy of the figure as it has been read.
+         */
+        public Figure createOriginal() {
+            return (Figure) original.clone();
+        }
+    }
 
     /** Creates a new instance. */
     public SVGInputFormat() {
@@ -176,6 +362,84 @@ public class SVGInputFormat implements InputFormat {
         this.factory = factory;
     }
 
+    /**
+     * Creates a worker, which reads children of the outermost "svg" element
+     * of the specified input format in parallel mode.
+     * <p>
+     * The worker shares the read-only tables of the input format. It has its
+     * own viewport stack, figure list and element map, which are merged
+     * into the input format when the worker is done.
+     */
+    private SVGInputFormat(SVGInputFormat that) {
+        this.factory = that.factory;
+        this.url = that.url;
+        this.identifiedElements = that.identifiedElements;
+        this.paintServers = that.paintServers;
+        this.styleManager = that.styleManager;
+        this.document = that.document;
+        this.elementObjects = new HashMap<IXMLElement, Object>();
+        this.figures = new LinkedList<Figure>();
+        this.viewportStack = new Stack<Viewport>();
+        viewportStack.addAll(that.viewportStack);
+        viewportStack.set(0, that.viewportStack.firstElement().copyWithoutAttributes());
+    }
+
+    /**
+     * Turns the streaming mode on or off.
+     * <p>
+     * By default, the input format builds a tree of the whole document
+     * before it reads the figures. In streaming mode, the figures are read
+     * as soon as their elements end, and the elements are discarded
+     * afterwards. Memory use is then proportional to the nesting depth of
+     * the document plus the size of the "defs" elements, gradients and
+     * solid colors, which are retained because they may be referenced.
+     * <p>
+     * References of "use" elements are resolved through a table of
+     * deferred references: If the referenced element has already been read,
+     * a copy of its figure is used. Otherwise a placeholder is inserted,
+     * which is replaced when the whole document has been read.
+     * <p>
+     * In streaming mode, CSS rules only apply to elements which follow the
+     * "style" element in the document.
+     */
+    public void setStreaming(boolean newValue) {
+        isStreaming = newValue;
+    }
+
+    /**
+     * Returns true, if the input format is in streaming mode.
+     */
+    public boolean isStreaming() {
+        return isStreaming;
+    }
+
+    /**
+     * Turns the parallel mode on or off.
+     * <p>
+     * By default, the input format reads the figures of the document on the
+     * calling thread. In parallel mode, each "g" element, which is a child
+     * of the outermost "svg" element, is read by a task of the common
+     * fork join pool. The figures are added to the drawing in document
+     * order.
+     * <p>
+     * Before the tasks are started, all gradients and solid colors of the
+     * document are read, so that they can be shared by the tasks. Therefore
+     * in parallel mode, paint servers can also be referenced by elements
+     * which precede them in the document.
+     * <p>
+     * The parallel mode has no effect in streaming mode.
+     */
+    public void setParallel(boolean newValue) {
+        isParallel = newValue;
+    }
+
+    /**
+     * Returns true, if the input format is in parallel mode.
+     */
+    public boolean isParallel() {
+        return isParallel;
+    }
+
     public void read(File file, Drawing drawing) throws IOException {
         read(file, drawing, true);
     }
@@ -192,6 +456,45 @@ public class SVGInputFormat implements InputFormat {
     public void read(InputStream in, Drawing drawing, boolean replace) throws IOException {
         long start = System.currentTimeMillis();
         this.figures = new LinkedList<Figure>();
+        if (isStreaming) {
+            readStream(in);
+        } else {
+            readTree(in);
+        }
+
+        // Figures with equal attributes share the storage of their
+        // attributes. Typically, many figures of a document have the same
+        // style.
+        AttributesInterner interner = new AttributesInterner();
+        for (Figure f : figures) {
+            interner.intern(f);
+        }
+
+        long end = System.currentTimeMillis();
+        if (DEBUG) {
+            System.out.println("SVGInputFormat elapsed:" + (end - start));
+        }
+        if (replace) {
+            drawing.removeAllChildren();
+        }
+        drawing.addAll(figures);
+
+
+        if (replace) {
+            Viewport viewport = viewportStack.firstElement();
+            VIEWPORT_FILL.basicSet(drawing, VIEWPORT_FILL.get(viewport.attributes));
+            VIEWPORT_FILL_OPACITY.basicSet(drawing, VIEWPORT_FILL_OPACITY.get(viewport.attributes));
+            VIEWPORT_HEIGHT.basicSet(drawing, VIEWPORT_HEIGHT.get(viewport.attributes));
+            VIEWPORT_WIDTH.basicSet(drawing, VIEWPORT_WIDTH.get(viewport.attributes));
+        }
+    }
+
+    /**
+     * Reads the figures from a document tree, which is built from the
+     * complete input stream.
+     */
+    private void readTree(InputStream in) throws IOException {
+        long start = System.currentTimeMillis();
         IXMLParser parser;
         try {
             parser = XMLParserFactory.createDefaultXMLParser();
@@ -254,27 +557,11 @@ public class SVGInputFormat implements InputFormat {
 
         readElement(svg);
 
-        long end = System.currentTimeMillis();
-        if (DEBUG) {
-            System.out.println("SVGInputFormat elapsed:" + (end - start));
-        }
-        /*if (DEBUG) System.out.println("SVGInputFormat read:"+(end1-start));
+        /*long end = System.currentTimeMillis();
+        if (DEBUG) System.out.println("SVGInputFormat read:"+(end1-start));
         if (DEBUG) System.out.println("SVGInputFormat flatten:"+(end2-end1));
         if (DEBUG) System.out.println("SVGInputFormat build:"+(end-end2));
          */
-        if (replace) {
-            drawing.removeAllChildren();
-        }
-        drawing.addAll(figures);
-
-
-        if (replace) {
-            Viewport viewport = viewportStack.firstElement();
-            VIEWPORT_FILL.basicSet(drawing, VIEWPORT_FILL.get(viewport.attributes));
-            VIEWPORT_FILL_OPACITY.basicSet(drawing, VIEWPORT_FILL_OPACITY.get(viewport.attributes));
-            VIEWPORT_HEIGHT.basicSet(drawing, VIEWPORT_HEIGHT.get(viewport.attributes));
-            VIEWPORT_WIDTH.basicSet(drawing, VIEWPORT_WIDTH.get(viewport.attributes));
-        }
     }
 
     private void initStorageContext(IXMLElement root) {
@@ -303,19 +590,7 @@ public class SVGInputFormat implements InputFormat {
             if (elem.getNamespace() == null ||
                     elem.getNamespace().equals(SVG_NAMESPACE)) {
 
-                String style = readAttribute(elem, "style", null);
-                if (style != null) {
-                    for (String styleProperty : style.split(";")) {
-                        String[] stylePropertyElements = styleProperty.split(":");
-                        if (stylePropertyElements.length == 2 &&
-                                !elem.hasAttribute(stylePropertyElements[0].trim(), SVG_NAMESPACE)) {
-                            //if (DEBUG) System.out.println("flatten:"+Arrays.toString(stylePropertyElements));
-                            elem.setAttribute(stylePropertyElements[0].trim(), SVG_NAMESPACE, stylePropertyElements[1].trim());
-                        }
-                    }
-                }
-
-                styleManager.applyStylesTo(elem);
+                flattenStyle(elem);
 
                 for (IXMLElement node : elem.getChildren()) {
                     if (node instanceof IXMLElement) {
@@ -327,6 +602,25 @@ public class SVGInputFormat implements InputFormat {
         }
     }
 
+    /**
+     * Flattens the CSS styles of a single element.
+     */
+    private void flattenStyle(IXMLElement elem) {
+        String style = readAttribute(elem, "style", null);
+        if (style != null) {
+            for (String styleProperty : style.split(";")) {
+                String[] stylePropertyElements = styleProperty.split(":");
+                if (stylePropertyElements.length == 2 &&
+                        !elem.hasAttribute(stylePropertyElements[0].trim(), SVG_NAMESPACE)) {
+                    //if (DEBUG) System.out.println("flatten:"+Arrays.toString(stylePropertyElements));
+                    elem.setAttribute(stylePropertyElements[0].trim(), SVG_NAMESPACE, stylePropertyElements[1].trim());
+                }
+            }
+        }
+
+        styleManager.applyStylesTo(elem);
+    }
+
     /**
      * Reads an SVG element of any kind.
      * @return Returns the Figure, if the SVG element represents a Figure.
@@ -414,6 +708,15 @@ public class SVGInputFormat implements InputFormat {
         return f;
     }
 
+    /**
+     * Returns true, if the figure of the specified element is displayed.
+     * Figures which are not displayed are not added to the drawing.
+     */
+    private boolean isDisplayed(IXMLElement elem) {
+        return readAttribute(elem, "visibility", "visible").equals("visible") &&
+                !readAttribute(elem, "display", "inline").equals("none");
+    }
+
     /**
      * Reads an SVG "defs" element.
      */
@@ -442,8 +745,7 @@ public class SVGInputFormat implements InputFormat {
                 IXMLElement child = (IXMLElement) node;
                 Figure childFigure = readElement(child);
                 // skip invisible elements
-                if (readAttribute(child, "visibility", "visible").equals("visible") &&
-                        !readAttribute(child, "display", "inline").equals("none")) {
+                if (isDisplayed(child)) {
                     if (childFigure != null) {
                         g.basicAdd(childFigure);
                     }
@@ -480,8 +782,7 @@ public class SVGInputFormat implements InputFormat {
                 IXMLElement child = (IXMLElement) node;
                 Figure childFigure = readElement(child);
                 // skip invisible elements
-                if (readAttribute(child, "visibility", "visible").equals("visible") &&
-                        !readAttribute(child, "display", "inline").equals("none")) {
+                if (isDisplayed(child)) {
                     if (childFigure != null) {
                         g.basicAdd(childFigure);
                     }
@@ -505,6 +806,149 @@ public class SVGInputFormat implements InputFormat {
      */
     private Figure readSVGElement(IXMLElement elem)
             throws IOException {
+        AffineTransform viewBoxTransform = readViewport(elem);
+
+        // Read the figures
+        if (isParallel && viewportStack.size() == 2) {
+            readSVGChildrenInParallel(elem, viewBoxTransform);
+        } else {
+            for (IXMLElement node : elem.getChildren()) {
+                if (node instanceof IXMLElement) {
+                    IXMLElement child = (IXMLElement) node;
+                    readSVGChild(child, viewBoxTransform);
+                }
+            }
+        }
+
+        viewportStack.pop();
+        return null;
+    }
+
+    /**
+     * Reads a child of an SVG "svg" element, and adds its figure to the
+     * figures which are currently being read.
+     */
+    private void readSVGChild(IXMLElement child, AffineTransform viewBoxTransform)
+            throws IOException {
+        Figure childFigure = readElement(child);
+        // skip invisible elements
+        if (isDisplayed(child)) {
+
+            if (childFigure != null) {
+                childFigure.transform(viewBoxTransform);
+                figures.add(childFigure);
+            }
+        }
+    }
+
+    /**
+     * Reads the children of the outermost SVG "svg" element in parallel
+     * mode.
+     * <p>
+     * Each "g" child is read by its own worker in the common fork join pool.
+     * The other children are read by workers on the calling thread, one for
+     * each run of consecutive children. When all workers are done, their
+     * results are merged in document order.
+     */
+    @SuppressWarnings("unchecked")
+    private void readSVGChildrenInParallel(IXMLElement elem, final AffineTransform viewBoxTransform)
+            throws IOException {
+        readPaintServers(elem);
+        paintServers = new HashMap<IXMLElement, Object>(elementObjects);
+
+        ForkJoinPool pool = ForkJoinPool.commonPool();
+        ArrayList<Object> parts = new ArrayList<Object>();
+        SVGInputFormat run = null;
+        for (final IXMLElement child : elem.getChildren()) {
+            if ("g".equals(child.getName()) &&
+                    (child.getNamespace() == null ||
+                    child.getNamespace().equals(SVG_NAMESPACE))) {
+                run = null;
+                parts.add(pool.submit(new Callable<SVGInputFormat>() {
+
+                    public SVGInputFormat call() throws IOException {
+                        SVGInputFormat worker = new SVGInputFormat(SVGInputFormat.this);
+                        worker.readSVGChild(child, viewBoxTransform);
+                        return worker;
+                    }
+                }));
+            } else {
+                if (run == null) {
+                    run = new SVGInputFormat(this);
+                    parts.add(run);
+                }
+                run.readSVGChild(child, viewBoxTransform);
+            }
+        }
+
+        // Wait for all workers, before we report a failure
+        Throwable failure = null;
+        for (Object part : parts) {
+            SVGInputFormat worker;
+            if (part instanceof ForkJoinTask) {
+                try {
+                    worker = ((ForkJoinTask<SVGInputFormat>) part).get();
+                } catch (InterruptedException e) {
+                    InterruptedIOException ie = new InterruptedIOException();
+                    ie.initCause(e);
+                    throw ie;
+                } catch (ExecutionException e) {
+                    if (failure == null) {
+                        failure = e.getCause();
+                    }
+                    continue;
+                }
+            } else {
+                worker = (SVGInputFormat) part;
+            }
+            viewportStack.firstElement().attributes.putAll(
+                    worker.viewportStack.firstElement().attributes);
+            elementObjects.putAll(worker.elementObjects);
+            figures.addAll(worker.figures);
+        }
+        paintServers = null;
+        if (failure instanceof IOException) {
+            throw (IOException) failure;
+        } else if (failure instanceof RuntimeException) {
+            throw (RuntimeException) failure;
+        } else if (failure instanceof Error) {
+            throw (Error) failure;
+        } else if (failure != null) {
+            IOException e = new IOException(failure.getMessage());
+            e.initCause(failure);
+            throw e;
+        }
+    }
+
+    /**
+     * Reads all gradients and solid colors of the specified element and its
+     * descendants.
+     */
+    private void readPaintServers(IXMLElement elem)
+            throws IOException {
+        for (IXMLElement child : elem.getChildren()) {
+            if (child.getNamespace() == null ||
+                    child.getNamespace().equals(SVG_NAMESPACE)) {
+                String name = child.getName();
+                if ("linearGradient".equals(name) ||
+                        "radialGradient".equals(name) ||
+                        "solidColor".equals(name)) {
+                    readElement(child);
+                } else {
+                    readPaintServers(child);
+                }
+            }
+        }
+    }
+
+    /**
+     * Establishes the viewport of an SVG "svg" element, and pushes it on
+     * the viewport stack.
+     *
+     * @return The transform from the view box into the viewport.
+     */
+    private AffineTransform readViewport(IXMLElement elem)
+            throws IOException {
         // Establish a new viewport
         Viewport viewport = new Viewport();
 
@@ -564,27 +1008,7 @@ public class SVGInputFormat implements InputFormat {
 
         viewportStack.push(viewport);
         readViewportAttributes(elem, viewportStack.firstElement().attributes);
-
-
-        // Read the figures
-        for (IXMLElement node : elem.getChildren()) {
-            if (node instanceof IXMLElement) {
-                IXMLElement child = (IXMLElement) node;
-                Figure childFigure = readElement(child);
-                // skip invisible elements
-                if (readAttribute(child, "visibility", "visible").equals("visible") &&
-                        !readAttribute(child, "display", "inline").equals("none")) {
-
-                    if (childFigure != null) {
-                        childFigure.transform(viewBoxTransform);
-                        figures.add(childFigure);
-                    }
-                }
-            }
-        }
-
-        viewportStack.pop();
-        return null;
+        return viewBoxTransform;
     }
 
     /**
@@ -729,20 +1153,13 @@ public class SVGInputFormat implements InputFormat {
                 }
             }
         }
-        // Create a buffered image from the image data
+        // Check whether we can read the image data. The image data is
+        // decoded lazily, when the figure is drawn.
         BufferedImage bufferedImage = null;
-        if (imageData != null) {
-            try {
-                bufferedImage = ImageIO.read(new ByteArrayInputStream(imageData));
-            } catch (IIOException e) {
-                System.err.println("SVGInputFormat warning: skipped unsupported image format.");
-                e.printStackTrace();
-            }
-        }
-        // Delete the image data in case of failure
-        if (bufferedImage == null) {
+        if (imageData != null && ImageStore.readSize(imageData) == null) {
+            System.err.println("SVGInputFormat warning: skipped unsupported image format.");
+            // Delete the image data in case of failure
             imageData = null;
-        //if (DEBUG) System.out.println("FAILED:"+imageUrl);
         }
 
         // Create a figure from the image data and the buffered image.
@@ -832,6 +1249,9 @@ public class SVGInputFormat implements InputFormat {
         readShapeAttributes(elem, a);
 
         BezierPath[] beziers = toPath(elem, readAttribute(elem, "d", ""));
+        for (BezierPath b : beziers) {
+            b.pack();
+        }
 
         Figure figure = factory.createPath(beziers, a);
         elementObjects.put(elem, figure);
@@ -1043,42 +1463,9 @@ public class SVGInputFormat implements InputFormat {
         for (IXMLElement node : elem.getChildren()) {
             if (node instanceof IXMLElement) {
                 IXMLElement child = (IXMLElement) node;
-                String[] requiredFeatures = toWSOrCommaSeparatedArray(readAttribute(child, "requiredFeatures", ""));
-                String[] requiredExtensions = toWSOrCommaSeparatedArray(readAttribute(child, "requiredExtensions", ""));
-                String[] systemLanguage = toWSOrCommaSeparatedArray(readAttribute(child, "systemLanguage", ""));
-                String[] requiredFormats = toWSOrCommaSeparatedArray(readAttribute(child, "requiredFormats", ""));
-                String[] requiredFonts = toWSOrCommaSeparatedArray(readAttribute(child, "requiredFonts", ""));
-
-                boolean isMatch;
-
-                isMatch = supportedFeatures.containsAll(Arrays.asList(requiredFeatures)) &&
-                        requiredExtensions.length == 0 &&
-                        requiredFormats.length == 0 &&
-                        requiredFonts.length == 0;
-
-                if (isMatch && systemLanguage.length > 0) {
-                    isMatch = false;
-                    Locale locale = Locale.getDefault();
-                    for (String lng : systemLanguage) {
-                        int p = lng.indexOf('-');
-                        if (p == -1) {
-                            if (locale.getLanguage().equals(lng)) {
-                                isMatch = true;
-                                break;
-                            }
-                        } else {
-                            if (locale.getLanguage().equals(lng.substring(0, p)) &&
-                                    locale.getCountry().toLowerCase().equals(lng.substring(p + 1))) {
-                                isMatch = true;
-                                break;
-                            }
-                        }
-                    }
-                }
-                if (isMatch) {
+                if (isSwitchMatch(child)) {
                     Figure figure = readElement(child);
-                    if (readAttribute(child, "visibility", "visible").equals("visible") &&
-                            !readAttribute(child, "display", "inline").equals("none")) {
+                    if (isDisplayed(child)) {
                         return figure;
                     } else {
                         return null;
@@ -1089,20 +1476,53 @@ public class SVGInputFormat implements InputFormat {
         return null;
     }
 
+    /**
+     * Returns true, if the conditional processing attributes of a child
+     * of an SVG "switch" element evaluate to true.
+     */
+    private boolean isSwitchMatch(IXMLElement child)
+            throws IOException {
+        String[] requiredFeatures = toWSOrCommaSeparatedArray(readAttribute(child, "requiredFeatures", ""));
+        String[] requiredExtensions = toWSOrCommaSeparatedArray(readAttribute(child, "requiredExtensions", ""));
+        String[] systemLanguage = toWSOrCommaSeparatedArray(readAttribute(child, "systemLanguage", ""));
+        String[] requiredFormats = toWSOrCommaSeparatedArray(readAttribute(child, "requiredFormats", ""));
+        String[] requiredFonts = toWSOrCommaSeparatedArray(readAttribute(child, "requiredFonts", ""));
+
+        boolean isMatch;
+
+        isMatch = supportedFeatures.containsAll(Arrays.asList(requiredFeatures)) &&
+                requiredExtensions.length == 0 &&
+                requiredFormats.length == 0 &&
+                requiredFonts.length == 0;
+
+        if (isMatch && systemLanguage.length > 0) {
+            isMatch = false;
+            Locale locale = Locale.getDefault();
+            for (String lng : systemLanguage) {
+                int p = lng.indexOf('-');
+                if (p == -1) {
+                    if (locale.getLanguage().equals(lng)) {
+                        isMatch = true;
+                        break;
+                    }
+                } else {
+                    if (locale.getLanguage().equals(lng.substring(0, p)) &&
+                            locale.getCountry().toLowerCase().equals(lng.substring(p + 1))) {
+                        isMatch = true;
+                        break;
+                    }
+                }
+            }
+        }
+        return isMatch;
+    }
+
     /**
      * Reads an SVG "use" element.
      */
     @SuppressWarnings("unchecked")
     private Figure readUseElement(IXMLElement elem)
             throws IOException {
-        HashMap<AttributeKey, Object> a = new HashMap<AttributeKey, Object>();
-        readCoreAttributes(elem, a);
-        HashMap<AttributeKey, Object> a2 = new HashMap<AttributeKey, Object>();
-        readTransformAttribute(elem, a);
-        readOpacityAttribute(elem, a2);
-        readUseShapeAttributes(elem, a2);
-        readFontAttributes(elem, a2);
-
         String href = readAttribute(elem, "xlink:href", null);
         if (href != null && href.startsWith("#")) {
             IXMLElement refElem = identifiedElements.get(href.substring(1));
@@ -1114,24 +1534,57 @@ public class SVGInputFormat implements InputFormat {
                 Object obj = readElement(refElem);
                 if (obj instanceof Figure) {
                     Figure figure = (Figure) ((Figure) obj).clone();
-                    for (Map.Entry<AttributeKey, Object> entry : a2.entrySet()) {
-                        figure.setAttribute(entry.getKey(), entry.getValue());
-                    }
-
-                    AffineTransform tx =
-                            (TRANSFORM.get(a) == null) ? new AffineTransform() : TRANSFORM.get(a);
-                    double x = toNumber(elem, readAttribute(elem, "x", "0"));
-                    double y = toNumber(elem, readAttribute(elem, "y", "0"));
-                    tx.translate(x, y);
-                    figure.transform(tx);
-
-                    return figure;
+                    return useFigure(figure, readUseAttributes(elem), readUseTransform(elem));
                 }
             }
         }
         return null;
     }
 
+    /**
+     * Reads the attributes of an SVG "use" element, which override the
+     * attributes of the referenced figure.
+     */
+    private HashMap<AttributeKey, Object> readUseAttributes(IXMLElement elem)
+            throws IOException {
+        HashMap<AttributeKey, Object> a = new HashMap<AttributeKey, Object>();
+        readCoreAttributes(elem, a);
+        HashMap<AttributeKey, Object> a2 = new HashMap<AttributeKey, Object>();
+        readOpacityAttribute(elem, a2);
+        readUseShapeAttributes(elem, a2);
+        readFontAttributes(elem, a2);
+        return a2;
+    }
+
+    /**
+     * Reads the transform of an SVG "use" element, which is applied to
+     * the referenced figure.
+     */
+    private AffineTransform readUseTransform(IXMLElement elem)
+            throws IOException {
+        HashMap<AttributeKey, Object> a = new HashMap<AttributeKey, Object>();
+        readTransformAttribute(elem, a);
+        AffineTransform tx =
+                (TRANSFORM.get(a) == null) ? new AffineTransform() : TRANSFORM.get(a);
+        double x = toNumber(elem, readAttribute(elem, "x", "0"));
+        double y = toNumber(elem, readAttribute(elem, "y", "0"));
+        tx.translate(x, y);
+        return tx;
+    }
+
+    /**
+     * Applies the attributes and the transform of an SVG "use" element to
+     * a copy of the referenced figure.
+     */
+    @SuppressWarnings("unchecked")
+    private Figure useFigure(Figure figure, Map<AttributeKey, Object> a2, AffineTransform tx) {
+        for (Map.Entry<AttributeKey, Object> entry : a2.entrySet()) {
+            figure.setAttribute(entry.getKey(), entry.getValue());
+        }
+        figure.transform(tx);
+        return figure;
+    }
+
     /**
      * Reads an attribute that is inherited.
      */
@@ -1297,522 +1750,79 @@ public class SVGInputFormat implements InputFormat {
             str = str.substring(0, str.length() - 2);
             scaleFactor = 1.25;
         } else if (str.endsWith("pc")) {
-            str = str.substring(0, str.length() - 2);
-            scaleFactor = 15;
-        } else if (str.endsWith("mm")) {
-            str = str.substring(0, str.length() - 2);
-            scaleFactor = 3.543307;
-        } else if (str.endsWith("cm")) {
-            str = str.substring(0, str.length() - 2);
-            scaleFactor = 35.43307;
-        } else if (str.endsWith("in")) {
-            str = str.substring(0, str.length() - 2);
-            scaleFactor = 90;
-        } else if (str.endsWith("em")) {
-            str = str.substring(0, str.length() - 2);
-            // XXX - This doesn't work
-            scaleFactor = toLength(elem, readAttribute(elem, "font-size", "0"), percentFactor);
-        } else {
-            scaleFactor = 1d;
-        }
-
-        return Double.parseDouble(str) * scaleFactor;
-    }
-
-    /**
-     * Returns a value as a String array.
-     * The values are separated by commas with optional white space.
-     */
-    public static String[] toCommaSeparatedArray(String str) throws IOException {
-        return str.split("\\s*,\\s*");
-    }
-
-    /**
-     * Returns a value as a String array.
-     * The values are separated by whitespace or by commas with optional white
-     * space.
-     */
-    public static String[] toWSOrCommaSeparatedArray(String str) throws IOException {
-        String[] result = str.split("(\\s*,\\s*|\\s+)");
-        if (result.length == 1 && result[0].equals("")) {
-            return new String[0];
-        } else {
-            return result;
-        }
-    }
-
-    /**
-     * Returns a value as a Point2D.Double array.
-     * as specified in http://www.w3.org/TR/SVGMobile12/shapes.html#PointsBNF
-     */
-    private Point2D.Double[] toPoints(IXMLElement elem, String str) throws IOException {
-
-        StringTokenizer tt = new StringTokenizer(str, " ,");
-        Point2D.Double[] points = new Point2D.Double[tt.countTokens() / 2];
-        for (int i = 0; i < points.length; i++) {
-
-            points[i] = new Point2D.Double(
-                    toNumber(elem, tt.nextToken()),
-                    toNumber(elem, tt.nextToken()));
-        }
-        return points;
-    }
-
-    /**
-     * Returns a value as a BezierPath array.
-     * as specified in http://www.w3.org/TR/SVGMobile12/paths.html#PathDataBNF
-     *
-     * Also supports elliptical arc commands 'a' and 'A' as specified in
-     * http://www.w3.org/TR/SVG/paths.html#PathDataEllipticalArcCommands
-     */
-    private BezierPath[] toPath(IXMLElement elem, String str) throws IOException {
-        LinkedList<BezierPath> paths = new LinkedList<BezierPath>();
-
-        BezierPath path = null;
-        Point2D.Double p = new Point2D.Double();
-        Point2D.Double c1 = new Point2D.Double();
-        Point2D.Double c2 = new Point2D.Double();
-
-        StreamPosTokenizer tt;
-        if (toPathTokenizer == null) {
-            tt = new StreamPosTokenizer(new StringReader(str));
-            tt.resetSyntax();
-            tt.parseNumbers();
-            tt.parseExponents();
-            tt.parsePlusAsNumber();
-            tt.whitespaceChars(0, ' ');
-            tt.whitespaceChars(',', ',');
-            toPathTokenizer = tt;
-        } else {
-            tt = toPathTokenizer;
-            tt.setReader(new StringReader(str));
-        }
-
-
-        char nextCommand = 'M';
-        char command = 'M';
-        Commands:
-        while (tt.nextToken() != StreamPosTokenizer.TT_EOF) {
-            if (tt.ttype > 0) {
-                command = (char) tt.ttype;
-            } else {
-                command = nextCommand;
-                tt.pushBack();
-            }
-
-            BezierPath.Node node;
-
-            switch (command) {
-                case 'M':
-                    // absolute-moveto x y
-                    if (path != null) {
-                        paths.add(path);
-                    }
-                    path = new BezierPath();
-
-                    if (tt.nextToken() != StreamPosTokenizer.TT_NUMBER) {
-                        throw new IOException("x coordinate missing for 'M' at position " + tt.getStartPosition() + " in " + str);
-                    }
-                    p.x = tt.nval;
-                    if (tt.nextToken() != StreamPosTokenizer.TT_NUMBER) {
-                        throw new IOException("y coordinate missing for 'M' at position " + tt.getStartPosition() + " in " + str);
-                    }
-                    p.y = tt.nval;
-                    path.moveTo(p.x, p.y);
-                    nextCommand = 'L';
-                    break;
-                case 'm':
-                    // relative-moveto dx dy
-                    if (path != null) {
-                        paths.add(path);
-                    }
-                    path = new BezierPath();
-
-                    if (tt.nextToken() != StreamPosTokenizer.TT_NUMBER) {
-                        throw new IOException("dx coordinate missing for 'm' at position " + tt.getStartPosition() + " in " + str);
-                    }
-                    p.x += tt.nval;
-                    if (tt.nextToken() != StreamPosTokenizer.TT_NUMBER) {
-                        throw new IOException("dy coordinate missing for 'm' at position " + tt.getStartPosition() + " in " + str);
-                    }
-                    p.y += tt.nval;
-                    path.moveTo(p.x, p.y);
-                    nextCommand = 'l';
-
-                    break;
-                case 'Z':
-                case 'z':
-                    // close path
-                    p.x = path.get(0).x[0];
-                    p.y = path.get(0).y[0];
-
-                    // If the last point and the first point are the same, we
-                    // can merge them
-                    if (path.size() > 1) {
-                        BezierPath.Node first = path.get(0);
-                        BezierPath.Node last = path.get(path.size() - 1);
-                        if (first.x[0] == last.x[0] &&
-                                first.y[0] == last.y[0]) {
-                            if ((last.mask & BezierPath.C1_MASK) != 0) {
-                                first.mask |= BezierPath.C1_MASK;
-                                first.x[1] = last.x[1];
-                                first.y[1] = last.y[1];
-                            }
-                            path.remove(path.size() - 1);
-                        }
-                    }
-                    path.setClosed(true);
-
-                    break;
-                case 'L':
-                    // absolute-lineto x y
-                    if (tt.nextToken() != StreamPosTokenizer.TT_NUMBER) {
-                        throw new IOException("x coordinate missing for 'L' at position " + tt.getStartPosition() + " in " + str);
-                    }
-                    p.x = tt.nval;
-                    if (tt.nextToken() != StreamPosTokenizer.TT_NUMBER) {
-                        throw new IOException("y coordinate missing for 'L' at position " + tt.getStartPosition() + " in " + str);
-                    }
-                    p.y = tt.nval;
-                    path.lineTo(p.x, p.y);
-                    nextCommand = 'L';
-
-                    break;
-                case 'l':
-                    // relative-lineto dx dy
-                    if (tt.nextToken() != StreamPosTokenizer.TT_NUMBER) {
-                        throw new IOException("dx coordinate missing for 'l' at position " + tt.getStartPosition() + " in " + str);
-                    }
-                    p.x += tt.nval;
-                    if (tt.nextToken() != StreamPosTokenizer.TT_NUMBER) {
-                        throw new IOException("dy coordinate missing for 'l' at position " + tt.getStartPosition() + " in " + str);
-                    }
-                    p.y += tt.nval;
-                    path.lineTo(p.x, p.y);
-                    nextCommand = 'l';
-
-                    break;
-                case 'H':
-                    // absolute-horizontal-lineto x
-                    if (tt.nextToken() != StreamPosTokenizer.TT_NUMBER) {
-                        throw new IOException("x coordinate missing for 'H' at position " + tt.getStartPosition() + " in " + str);
-                    }
-                    p.x = tt.nval;
-                    path.lineTo(p.x, p.y);
-                    nextCommand = 'H';
-
-                    break;
-                case 'h':
-                    // relative-horizontal-lineto dx
-                    if (tt.nextToken() != StreamPosTokenizer.TT_NUMBER) {
-                        throw new IOException("dx coordinate missing for 'h' at position " + tt.getStartPosition() + " in " + str);
-                    }
-                    p.x += tt.nval;
-                    path.lineTo(p.x, p.y);
-                    nextCommand = 'h';
-
-                    break;
-                case 'V':
-                    // absolute-vertical-lineto y
-                    if (tt.nextToken() != StreamPosTokenizer.TT_NUMBER) {
-                        throw new IOException("y coordinate missing for 'V' at position " + tt.getStartPosition() + " in " + str);
-                    }
-                    p.y = tt.nval;
-                    path.lineTo(p.x, p.y);
-                    nextCommand = 'V';
-
-                    break;
-                case 'v':
-                    // relative-vertical-lineto dy
-                    if (tt.nextToken() != StreamPosTokenizer.TT_NUMBER) {
-                        throw new IOException("dy coordinate missing for 'v' at position " + tt.getStartPosition() + " in " + str);
-                    }
-                    p.y += tt.nval;
-                    path.lineTo(p.x, p.y);
-                    nextCommand = 'v';
-
-                    break;
-                case 'C':
-                    // absolute-curveto x1 y1 x2 y2 x y
-                    if (tt.nextToken() != StreamPosTokenizer.TT_NUMBER) {
-                        throw new IOException("x1 coordinate missing for 'C' at position " + tt.getStartPosition() + " in " + str);
-                    }
-                    c1.x = tt.nval;
-                    if (tt.nextToken() != StreamPosTokenizer.TT_NUMBER) {
-                        throw new IOException("y1 coordinate missing for 'C' at position " + tt.getStartPosition() + " in " + str);
-                    }
-                    c1.y = tt.nval;
-                    if (tt.nextToken() != StreamPosTokenizer.TT_NUMBER) {
-                        throw new IOException("x2 coordinate missing for 'C' at position " + tt.getStartPosition() + " in " + str);
-                    }
-                    c2.x = tt.nval;
-                    if (tt.nextToken() != StreamPosTokenizer.TT_NUMBER) {
-                        throw new IOException("y2 coordinate missing for 'C' at position " + tt.getStartPosition() + " in " + str);
-                    }
-                    c2.y = tt.nval;
-                    if (tt.nextToken() != StreamPosTokenizer.TT_NUMBER) {
-                        throw new IOException("x coordinate missing for 'C' at position " + tt.getStartPosition() + " in " + str);
-                    }
-                    p.x = tt.nval;
-                    if (tt.nextToken() != StreamPosTokenizer.TT_NUMBER) {
-                        throw new IOException("y coordinate missing for 'C' at position " + tt.getStartPosition() + " in " + str);
-                    }
-                    p.y = tt.nval;
-                    path.curveTo(c1.x, c1.y, c2.x, c2.y, p.x, p.y);
-                    nextCommand = 'C';
-                    break;
-
-                case 'c':
-                    // relative-curveto dx1 dy1 dx2 dy2 dx dy
-                    if (tt.nextToken() != StreamPosTokenizer.TT_NUMBER) {
-                        throw new IOException("dx1 coordinate missing for 'c' at position " + tt.getStartPosition() + " in " + str);
-                    }
-                    c1.x = p.x + tt.nval;
-                    if (tt.nextToken() != StreamPosTokenizer.TT_NUMBER) {
-                        throw new IOException("dy1 coordinate missing for 'c' at position " + tt.getStartPosition() + " in " + str);
-                    }
-                    c1.y = p.y + tt.nval;
-                    if (tt.nextToken() != StreamPosTokenizer.TT_NUMBER) {
-                        throw new IOException("dx2 coordinate missing for 'c' at position " + tt.getStartPosition() + " in " + str);
-                    }
-                    c2.x = p.x + tt.nval;
-                    if (tt.nextToken() != StreamPosTokenizer.TT_NUMBER) {
-                        throw new IOException("dy2 coordinate missing for 'c' at position " + tt.getStartPosition() + " in " + str);
-                    }
-                    c2.y = p.y + tt.nval;
-                    if (tt.nextToken() != StreamPosTokenizer.TT_NUMBER) {
-                        throw new IOException("dx coordinate missing for 'c' at position " + tt.getStartPosition() + " in " + str);
-                    }
-                    p.x += tt.nval;
-                    if (tt.nextToken() != StreamPosTokenizer.TT_NUMBER) {
-                        throw new IOException("dy coordinate missing for 'c' at position " + tt.getStartPosition() + " in " + str);
-                    }
-                    p.y += tt.nval;
-                    path.curveTo(c1.x, c1.y, c2.x, c2.y, p.x, p.y);
-                    nextCommand = 'c';
-                    break;
-
-                case 'S':
-                    // absolute-shorthand-curveto x2 y2 x y
-                    node = path.get(path.size() - 1);
-                    c1.x = node.x[0] * 2d - node.x[1];
-                    c1.y = node.y[0] * 2d - node.y[1];
-                    if (tt.nextToken() != StreamPosTokenizer.TT_NUMBER) {
-                        throw new IOException("x2 coordinate missing for 'S' at position " + tt.getStartPosition() + " in " + str);
-                    }
-                    c2.x = tt.nval;
-                    if (tt.nextToken() != StreamPosTokenizer.TT_NUMBER) {
-                        throw new IOException("y2 coordinate missing for 'S' at position " + tt.getStartPosition() + " in " + str);
-                    }
-                    c2.y = tt.nval;
-                    if (tt.nextToken() != StreamPosTokenizer.TT_NUMBER) {
-                        throw new IOException("x coordinate missing for 'S' at position " + tt.getStartPosition() + " in " + str);
-                    }
-                    p.x = tt.nval;
-                    if (tt.nextToken() != StreamPosTokenizer.TT_NUMBER) {
-                        throw new IOException("y coordinate missing for 'S' at position " + tt.getStartPosition() + " in " + str);
-                    }
-                    p.y = tt.nval;
-                    path.curveTo(c1.x, c1.y, c2.x, c2.y, p.x, p.y);
-                    nextCommand = 'S';
-                    break;
-
-                case 's':
-                    // relative-shorthand-curveto dx2 dy2 dx dy
-                    node = path.get(path.size() - 1);
-                    c1.x = node.x[0] * 2d - node.x[1];
-                    c1.y = node.y[0] * 2d - node.y[1];
-                    if (tt.nextToken() != StreamPosTokenizer.TT_NUMBER) {
-                        throw new IOException("dx2 coordinate missing for 's' at position " + tt.getStartPosition() + " in " + str);
-                    }
-                    c2.x = p.x + tt.nval;
-                    if (tt.nextToken() != StreamPosTokenizer.TT_NUMBER) {
-                        throw new IOException("dy2 coordinate missing for 's' at position " + tt.getStartPosition() + " in " + str);
-                    }
-                    c2.y = p.y + tt.nval;
-                    if (tt.nextToken() != StreamPosTokenizer.TT_NUMBER) {
-                        throw new IOException("dx coordinate missing for 's' at position " + tt.getStartPosition() + " in " + str);
-                    }
-                    p.x += tt.nval;
-                    if (tt.nextToken() != StreamPosTokenizer.TT_NUMBER) {
-                        throw new IOException("dy coordinate missing for 's' at position " + tt.getStartPosition() + " in " + str);
-                    }
-                    p.y += tt.nval;
-                    path.curveTo(c1.x, c1.y, c2.x, c2.y, p.x, p.y);
-                    nextCommand = 's';
-                    break;
-
-                case 'Q':
-                    // absolute-quadto x1 y1 x y
-                    if (tt.nextToken() != StreamPosTokenizer.TT_NUMBER) {
-                        throw new IOException("x1 coordinate missing for 'Q' at position " + tt.getStartPosition() + " in " + str);
-                    }
-                    c1.x = tt.nval;
-                    if (tt.nextToken() != StreamPosTokenizer.TT_NUMBER) {
-                        throw new IOException("y1 coordinate missing for 'Q' at position " + tt.getStartPosition() + " in " + str);
-                    }
-                    c1.y = tt.nval;
-                    if (tt.nextToken() != StreamPosTokenizer.TT_NUMBER) {
-                        throw new IOException("x coordinate missing for 'Q' at position " + tt.getStartPosition() + " in " + str);
-                    }
-                    p.x = tt.nval;
-                    if (tt.nextToken() != StreamPosTokenizer.TT_NUMBER) {
-                        throw new IOException("y coordinate missing for 'Q' at position " + tt.getStartPosition() + " in " + str);
-                    }
-                    p.y = tt.nval;
-                    path.quadTo(c1.x, c1.y, p.x, p.y);
-                    nextCommand = 'Q';
-
-                    break;
-
-                case 'q':
-                    // relative-quadto dx1 dy1 dx dy
-                    if (tt.nextToken() != StreamPosTokenizer.TT_NUMBER) {
-                        throw new IOException("dx1 coordinate missing for 'q' at position " + tt.getStartPosition() + " in " + str);
-                    }
-                    c1.x = p.x + tt.nval;
-                    if (tt.nextToken() != StreamPosTokenizer.TT_NUMBER) {
-                        throw new IOException("dy1 coordinate missing for 'q' at position " + tt.getStartPosition() + " in " + str);
-                    }
-                    c1.y = p.y + tt.nval;
-                    if (tt.nextToken() != StreamPosTokenizer.TT_NUMBER) {
-                        throw new IOException("dx coordinate missing for 'q' at position " + tt.getStartPosition() + " in " + str);
-                    }
-                    p.x += tt.nval;
-                    if (tt.nextToken() != StreamPosTokenizer.TT_NUMBER) {
-                        throw new IOException("dy coordinate missing for 'q' at position " + tt.getStartPosition() + " in " + str);
-                    }
-                    p.y += tt.nval;
-                    path.quadTo(c1.x, c1.y, p.x, p.y);
-                    nextCommand = 'q';
-
-                    break;
-                case 'T':
-                    // absolute-shorthand-quadto x y
-                    node = path.get(path.size() - 1);
-                    c1.x = node.x[0] * 2d - node.x[1];
-                    c1.y = node.y[0] * 2d - node.y[1];
-                    if (tt.nextToken() != StreamPosTokenizer.TT_NUMBER) {
-                        throw new IOException("x coordinate missing for 'T' at position " + tt.getStartPosition() + " in " + str);
-                    }
-                    p.x = tt.nval;
-                    if (tt.nextToken() != StreamPosTokenizer.TT_NUMBER) {
-                        throw new IOException("y coordinate missing for 'T' at position " + tt.getStartPosition() + " in " + str);
-                    }
-                    p.y = tt.nval;
-                    path.quadTo(c1.x, c1.y, p.x, p.y);
-                    nextCommand = 'T';
-
-                    break;
-
-                case 't':
-                    // relative-shorthand-quadto dx dy
-                    node = path.get(path.size() - 1);
-                    c1.x = node.x[0] * 2d - node.x[1];
-                    c1.y = node.y[0] * 2d - node.y[1];
-                    if (tt.nextToken() != StreamPosTokenizer.TT_NUMBER) {
-                        throw new IOException("dx coordinate missing for 't' at position " + tt.getStartPosition() + " in " + str);
-                    }
-                    p.x += tt.nval;
-                    if (tt.nextToken() != StreamPosTokenizer.TT_NUMBER) {
-                        throw new IOException("dy coordinate missing for 't' at position " + tt.getStartPosition() + " in " + str);
-                    }
-                    p.y += tt.nval;
-                    path.quadTo(c1.x, c1.y, p.x, p.y);
-                    nextCommand = 's';
-
-                    break;
+            str = str.substring(0, str.length() - 2);
+            scaleFactor = 15;
+        } else if (str.endsWith("mm")) {
+            str = str.substring(0, str.length() - 2);
+            scaleFactor = 3.543307;
+        } else if (str.endsWith("cm")) {
+            str = str.substring(0, str.length() - 2);
+            scaleFactor = 35.43307;
+        } else if (str.endsWith("in")) {
+            str = str.substring(0, str.length() - 2);
+            scaleFactor = 90;
+        } else if (str.endsWith("em")) {
+            str = str.substring(0, str.length() - 2);
+            // XXX - This doesn't work
+            scaleFactor = toLength(elem, readAttribute(elem, "font-size", "0"), percentFactor);
+        } else {
+            scaleFactor = 1d;
+        }
 
+        return Double.parseDouble(str) * scaleFactor;
+    }
 
-                case 'A': {
-                    // absolute-elliptical-arc rx ry x-axis-rotation large-arc-flag sweep-flag x y
-                    if (tt.nextToken() != StreamPosTokenizer.TT_NUMBER) {
-                        throw new IOException("rx coordinate missing for 'A' at position " + tt.getStartPosition() + " in " + str);
-                    }
-                    // If rX or rY have negative signs, these are dropped;
-                    // the absolute value is used instead.
-                    double rx = tt.nval;
-                    if (tt.nextToken() != StreamPosTokenizer.TT_NUMBER) {
-                        throw new IOException("ry coordinate missing for 'A' at position " + tt.getStartPosition() + " in " + str);
-                    }
-                    double ry = tt.nval;
-                    if (tt.nextToken() != StreamPosTokenizer.TT_NUMBER) {
-                        throw new IOException("x-axis-rotation missing for 'A' at position " + tt.getStartPosition() + " in " + str);
-                    }
-                    double xAxisRotation = tt.nval;
-                    if (tt.nextToken() != StreamPosTokenizer.TT_NUMBER) {
-                        throw new IOException("large-arc-flag missing for 'A' at position " + tt.getStartPosition() + " in " + str);
-                    }
-                    boolean largeArcFlag = tt.nval != 0;
-                    if (tt.nextToken() != StreamPosTokenizer.TT_NUMBER) {
-                        throw new IOException("sweep-flag missing for 'A' at position " + tt.getStartPosition() + " in " + str);
-                    }
-                    boolean sweepFlag = tt.nval != 0;
-                    if (tt.nextToken() != StreamPosTokenizer.TT_NUMBER) {
-                        throw new IOException("x coordinate missing for 'A' at position " + tt.getStartPosition() + " in " + str);
-                    }
-                    p.x = tt.nval;
-                    if (tt.nextToken() != StreamPosTokenizer.TT_NUMBER) {
-                        throw new IOException("y coordinate missing for 'A' at position " + tt.getStartPosition() + " in " + str);
-                    }
-                    p.y = tt.nval;
+    /**
+     * Returns a value as a String array.
+     * The values are separated by commas with optional white space.
+     */
+    public static String[] toCommaSeparatedArray(String str) throws IOException {
+        return str.split("\\s*,\\s*");
+    }
 
-                    path.arcTo(rx, ry, xAxisRotation, largeArcFlag, sweepFlag, p.x, p.y);
+    /**
+     * Returns a value as a String array.
+     * The values are separated by whitespace or by commas with optional white
+     * space.
+     */
+    public static String[] toWSOrCommaSeparatedArray(String str) throws IOException {
+        String[] result = str.split("(\\s*,\\s*|\\s+)");
+        if (result.length == 1 && result[0].equals("")) {
+            return new String[0];
+        } else {
+            return result;
+        }
+    }
 
-                    nextCommand = 'A';
-                    break;
-                }
-                case 'a': {
-                    // absolute-elliptical-arc rx ry x-axis-rotation large-arc-flag sweep-flag x y
-                    if (tt.nextToken() != StreamPosTokenizer.TT_NUMBER) {
-                        throw new IOException("rx coordinate missing for 'A' at position " + tt.getStartPosition() + " in " + str);
-                    }
-                    // If rX or rY have negative signs, these are dropped;
-                    // the absolute value is used instead.
-                    double rx = tt.nval;
-                    if (tt.nextToken() != StreamPosTokenizer.TT_NUMBER) {
-                        throw new IOException("ry coordinate missing for 'A' at position " + tt.getStartPosition() + " in " + str);
-                    }
-                    double ry = tt.nval;
-                    if (tt.nextToken() != StreamPosTokenizer.TT_NUMBER) {
-                        throw new IOException("x-axis-rotation missing for 'A' at position " + tt.getStartPosition() + " in " + str);
-                    }
-                    double xAxisRotation = tt.nval;
-                    if (tt.nextToken() != StreamPosTokenizer.TT_NUMBER) {
-                        throw new IOException("large-arc-flag missing for 'A' at position " + tt.getStartPosition() + " in " + str);
-                    }
-                    boolean largeArcFlag = tt.nval != 0;
-                    if (tt.nextToken() != StreamPosTokenizer.TT_NUMBER) {
-                        throw new IOException("sweep-flag missing for 'A' at position " + tt.getStartPosition() + " in " + str);
-                    }
-                    boolean sweepFlag = tt.nval != 0;
-                    if (tt.nextToken() != StreamPosTokenizer.TT_NUMBER) {
-                        throw new IOException("x coordinate missing for 'A' at position " + tt.getStartPosition() + " in " + str);
-                    }
-                    p.x += tt.nval;
-                    if (tt.nextToken() != StreamPosTokenizer.TT_NUMBER) {
-                        throw new IOException("y coordinate missing for 'A' at position " + tt.getStartPosition() + " in " + str);
-                    }
-                    p.y += tt.nval;
+    /**
+     * Returns a value as a Point2D.Double array.
+     * as specified in http://www.w3.org/TR/SVGMobile12/shapes.html#PointsBNF
+     */
+    private Point2D.Double[] toPoints(IXMLElement elem, String str) throws IOException {
 
-                    path.arcTo(rx, ry, xAxisRotation, largeArcFlag, sweepFlag, p.x, p.y);
+        StringTokenizer tt = new StringTokenizer(str, " ,");
+        Point2D.Double[] points = new Point2D.Double[tt.countTokens() / 2];
+        for (int i = 0; i < points.length; i++) {
 
-                    nextCommand = 'a';
-                    break;
-                }
-                default:
-                    if (DEBUG) {
-                        System.out.println("SVGInputFormat.toPath aborting after illegal path command: " + command + " found in path " + str);
-                    }
-                    break Commands;
-                //throw new IOException("Illegal command: "+command);
-            }
-        }
-        if (path != null) {
-            paths.add(path);
+            points[i] = new Point2D.Double(
+                    toNumber(elem, tt.nextToken()),
+                    toNumber(elem, tt.nextToken()));
         }
+        return points;
+    }
 
-        return paths.toArray(new BezierPath[paths.size()]);
+    /**
+     * Returns a value as a BezierPath array.
+     * as specified in http://www.w3.org/TR/SVGMobile12/paths.html#PathDataBNF
+     *
+     * Also supports elliptical arc commands 'a' and 'A' as specified in
+     * http://www.w3.org/TR/SVG/paths.html#PathDataEllipticalArcCommands
+     */
+    private BezierPath[] toPath(IXMLElement elem, String str) throws IOException {
+        if (pathParser == null) {
+            pathParser = new SVGPathParser();
+        }
+        return pathParser.parse(str);
     }
     /* Reads core attributes as listed in
      * http://www.w3.org/TR/SVGMobile12/feature.html#CoreAttribute
@@ -1836,8 +1846,8 @@ public class SVGInputFormat implements InputFormat {
      * hashtable {@code identifiedElements}.
      */
     private void identifyElements(IXMLElement elem) {
-        identifiedElements.put(elem.getAttribute("id"), elem);
-        identifiedElements.put(elem.getAttribute("xml:id"), elem);
+        identifiedElements.put(elem.getAttribute("id", null), elem);
+        identifiedElements.put(elem.getAttribute("xml:id", null), elem);
 
         for (IXMLElement child : elem.getChildren()) {
             identifyElements(child);
@@ -3078,10 +3088,14 @@ public class SVGInputFormat implements InputFormat {
             }
         } else if (str.startsWith("url(")) {
             String href = value.substring(4, value.length() - 1);
-            if (identifiedElements.containsKey(href.substring(1)) &&
-                    elementObjects.containsKey(identifiedElements.get(href.substring(1)))) {
-                Object obj = elementObjects.get(identifiedElements.get(href.substring(1)));
-                return obj;
+            IXMLElement refElem = identifiedElements.get(href.substring(1));
+            if (refElem != null) {
+                if (elementObjects.containsKey(refElem)) {
+                    return elementObjects.get(refElem);
+                }
+                if (paintServers != null && paintServers.containsKey(refElem)) {
+                    return paintServers.get(refElem);
+                }
             }
             // XXX - Implement me
             if (DEBUG) {
@@ -3307,6 +3321,529 @@ public class SVGInputFormat implements InputFormat {
         return t;
     }
 
+    /**
+     * Reads the figures while the document is being parsed.
+     */
+    private void readStream(InputStream in) throws IOException {
+        IXMLParser parser;
+        StreamingBuilder builder = new StreamingBuilder();
+        try {
+            parser = XMLParserFactory.createDefaultXMLParser(builder);
+        } catch (Exception ex) {
+            InternalError e = new InternalError("Unable to instantiate NanoXML Parser");
+            e.initCause(ex);
+            throw e;
+        }
+        IXMLReader reader = new StdXMLReader(in);
+        parser.setReader(reader);
+
+        identifiedElements = new HashMap<String, IXMLElement>();
+        elementObjects = new HashMap<IXMLElement, Object>();
+        viewportStack = new Stack<Viewport>();
+        viewportStack.push(new Viewport());
+        styleManager = new StyleManager();
+        streamedFigures = new HashMap<String, StreamedFigure>();
+        deferredReferences = new LinkedList<StreamedFigure>();
+        placeholders = new HashMap<Figure, StreamedFigure>();
+        try {
+            try {
+                document = (IXMLElement) parser.parse();
+            } catch (XMLException ex) {
+                if (ex.getException() instanceof IOException) {
+                    throw (IOException) ex.getException();
+                }
+                IOException e = new IOException(ex.getMessage());
+                e.initCause(ex);
+                throw e;
+            }
+            if (!builder.isSVGFound) {
+                throw new IOException("'svg' element expected: " + ((document == null) ? null : document.getName()));
+            }
+            resolveDeferredReferences();
+        } finally {
+            streamedFigures = null;
+            deferredReferences = null;
+            placeholders = null;
+        }
+    }
+
+    /**
+     * Builds the document tree in streaming mode. The builder only keeps
+     * the elements which are currently open and the elements which are
+     * retained, and reads the figures of all other elements as soon as
+     * they end.
+     */
+    private class StreamingBuilder implements IXMLBuilder {
+
+        private Stack<StreamingContext> stack = new Stack<StreamingContext>();
+        private IXMLElement root;
+        private boolean isSVGFound;
+
+        public void startBuilding(String systemID, int lineNr) {
+        }
+
+        public void newProcessingInstruction(String target, Reader reader) {
+        }
+
+        public void startElement(String name, String nsPrefix, String nsURI, String systemID, int lineNr) {
+            String fullName = name;
+            if (nsPrefix != null) {
+                fullName = nsPrefix + ':' + name;
+            }
+            IXMLElement elem = new XMLElement(fullName, nsURI, systemID, lineNr);
+            StreamingContext parent = (stack.empty()) ? null : stack.peek();
+            if (parent == null) {
+                root = elem;
+            } else {
+                parent.elem.addChild(elem);
+            }
+            stack.push(new StreamingContext(elem, parent));
+        }
+
+        public void addAttribute(String key, String nsPrefix, String nsURI, String value, String type)
+                throws Exception {
+            String fullName = key;
+            if (nsPrefix != null) {
+                fullName = nsPrefix + ':' + key;
+            }
+            IXMLElement top = stack.peek().elem;
+            if (top.hasAttribute(fullName)) {
+                throw new XMLParseException(top.getSystemID(),
+                        top.getLineNr(),
+                        "Duplicate attribute: " + key);
+            }
+            if (nsPrefix != null) {
+                top.setAttribute(fullName, nsURI, value);
+            } else {
+                top.setAttribute(fullName, value);
+            }
+        }
+
+        public void elementAttributesProcessed(String name, String nsPrefix, String nsURI)
+                throws Exception {
+            StreamingContext c = stack.peek();
+            startStreamedElement(c, !isSVGFound);
+            if (c.isInside) {
+                isSVGFound = true;
+            }
+        }
+
+        public void endElement(String name, String nsPrefix, String nsURI)
+                throws Exception {
+            StreamingContext c = stack.pop();
+            IXMLElement elem = c.elem;
+            if (elem.getChildrenCount() == 1) {
+                IXMLElement child = elem.getChildAtIndex(0);
+                if (child.getName() == null) {
+                    elem.setContent(child.getContent());
+                    elem.removeChildAtIndex(0);
+                }
+            }
+            endStreamedElement(c);
+        }
+
+        public void addPCData(Reader reader, String systemID, int lineNr)
+                throws Exception {
+            // Structural elements have no text content. Skipping the text
+            // keeps the white space between elements out of memory.
+            if (stack.empty() || stack.peek().isStructural) {
+                return;
+            }
+            StringBuilder buf = new StringBuilder();
+            char[] cbuf = new char[2048];
+            for (int len; (len = reader.read(cbuf)) > 0;) {
+                buf.append(cbuf, 0, len);
+            }
+            IXMLElement elem = new XMLElement(null, systemID, lineNr);
+            elem.setContent(buf.toString());
+            stack.peek().elem.addChild(elem);
+        }
+
+        public Object getResult() {
+            return root;
+        }
+    }
+
+    /**
+     * Is invoked in streaming mode, when the attributes of an element
+     * have been read.
+     *
+     * @param c The context of the element.
+     * @param isSearching True, if the outermost "svg" element has not been
+     * found yet.
+     */
+    private void startStreamedElement(StreamingContext c, boolean isSearching)
+            throws IOException {
+        IXMLElement elem = c.elem;
+        StreamingContext p = c.parent;
+        String id = elem.getAttribute("id", null);
+        if (id != null) {
+            identifiedElements.put(id, elem);
+        }
+        id = elem.getAttribute("xml:id", null);
+        if (id != null) {
+            identifiedElements.put(id, elem);
+        }
+
+        c.isForeign = (p != null && p.isForeign) ||
+                elem.getNamespace() != null &&
+                !elem.getNamespace().equals(SVG_NAMESPACE);
+        if (c.isForeign) {
+            return;
+        }
+        String name = elem.getName();
+        if (p == null || !p.isInside) {
+            // Search for the first 'svg' element in the XML document
+            if (isSearching && name.equals("svg")) {
+                c.isInside = true;
+                c.isStructural = true;
+                flattenStyle(elem);
+                c.viewBoxTransform = readViewport(elem);
+            }
+            return;
+        }
+
+        c.isInside = true;
+        if (!name.equals("style")) {
+            flattenStyle(elem);
+        }
+        c.isRetained = p.isRetained ||
+                name.equals("defs") ||
+                name.equals("linearGradient") ||
+                name.equals("radialGradient") ||
+                name.equals("solidColor");
+        if (p.isStructural && !c.isRetained) {
+            if (name.equals("svg")) {
+                c.isStructural = true;
+                c.viewBoxTransform = readViewport(elem);
+            } else if (name.equals("g") || name.equals("a")) {
+                c.isStructural = true;
+                c.childFigures = new ArrayList<Figure>();
+            } else if (name.equals("switch")) {
+                c.isStructural = true;
+            }
+        }
+    }
+
+    /**
+     * Is invoked in streaming mode, when an element ends.
+     */
+    private void endStreamedElement(StreamingContext c)
+            throws IOException {
+        IXMLElement elem = c.elem;
+        StreamingContext p = c.parent;
+        if (c.isForeign) {
+            if (p != null && p.isStructural) {
+                detach(p.elem, elem);
+            }
+            return;
+        }
+        if (elem.getName().equals("style")) {
+            if (readAttribute(elem, "type", "").equals("text/css") &&
+                    elem.getContent() != null) {
+                CSSParser cssParser = new CSSParser();
+                cssParser.parse(elem.getContent(), styleManager);
+            }
+        }
+        if (!c.isInside || p == null || !p.isStructural) {
+            // Elements outside of the outermost "svg" element are ignored.
+            // Elements which are not children of structural elements are
+            // read, when their ancestor is read.
+            if (c.isInside && (p == null || !p.isInside)) {
+                // The outermost "svg" element ends.
+                viewportStack.pop();
+            }
+            return;
+        }
+
+        // The element is the child of a structural element.
+        detach(p.elem, elem);
+        if (c.isRetained) {
+            readElement(elem);
+            return;
+        }
+        String parentName = p.elem.getName();
+        if (parentName.equals("switch") && (p.isSwitchMatched || !isSwitchMatch(elem))) {
+            forgetElement(elem);
+            return;
+        }
+
+        Figure f = readStreamedElement(c);
+        if (f != null) {
+            String id = elem.getAttribute("id", elem.getAttribute("xml:id", null));
+            if (id != null) {
+                // A placeholder is registered with its own entry, so that
+                // references to it see the figure which replaces it.
+                StreamedFigure sf = placeholders.get(f);
+                if (sf == null) {
+                    sf = new StreamedFigure(f);
+                    sf.original = (Figure) f.clone();
+                    c.add(sf);
+                }
+                streamedFigures.put(id, sf);
+            }
+        }
+        forgetElement(elem);
+        if (f == null) {
+            return;
+        }
+
+        boolean isDisplayed = isDisplayed(elem);
+        if (parentName.equals("switch")) {
+            p.isSwitchMatched = true;
+            if (isDisplayed) {
+                p.switchFigure = f;
+                p.addAll(c);
+            }
+        } else if (parentName.equals("a")) {
+            String href = readAttribute(p.elem, "xlink:href", null);
+            if (href == null) {
+                href = readAttribute(p.elem, "href", null);
+            }
+            String target = readAttribute(p.elem, "target", null);
+            LINK.basicSet(f, href);
+            LINK_TARGET.basicSet(f, target);
+            StreamedFigure placeholder = placeholders.get(f);
+            if (placeholder != null) {
+                placeholder.isLinked = true;
+                placeholder.link = href;
+                placeholder.linkTarget = target;
+            }
+            if (isDisplayed) {
+                p.childFigures.add(f);
+                p.addAll(c);
+            }
+        } else if (!isDisplayed) {
+            // skip invisible elements
+        } else if (parentName.equals("svg")) {
+            f.transform(p.viewBoxTransform);
+            c.transformed(p.viewBoxTransform);
+            figures.add(f);
+        } else {
+            p.childFigures.add(f);
+            p.addAll(c);
+        }
+    }
+
+    /**
+     * Reads the figure of a child of a structural element in streaming mode.
+     * The children of the element have already been read.
+     */
+    private Figure readStreamedElement(StreamingContext c)
+            throws IOException {
+        IXMLElement elem = c.elem;
+        String name = elem.getName();
+        Figure f;
+        if (name.equals("svg")) {
+            // The figures of the children have been added to the drawing.
+            viewportStack.pop();
+            f = null;
+        } else if (name.equals("g") || name.equals("a")) {
+            HashMap<AttributeKey, Object> a = new HashMap<AttributeKey, Object>();
+            readCoreAttributes(elem, a);
+            if (name.equals("g")) {
+                readOpacityAttribute(elem, a);
+            }
+            CompositeFigure g = factory.createG(a);
+            for (Figure child : c.childFigures) {
+                g.basicAdd(child);
+                StreamedFigure placeholder = placeholders.get(child);
+                if (placeholder != null) {
+                    placeholder.parent = g;
+                }
+            }
+            if (name.equals("g")) {
+                readTransformAttribute(elem, a);
+                if (TRANSFORM.get(a) != null) {
+                    g.transform(TRANSFORM.get(a));
+                    c.transformed(TRANSFORM.get(a));
+                }
+                f = g;
+            } else if (g.getChildCount() == 1) {
+                f = g.getChild(0);
+                StreamedFigure placeholder = placeholders.get(f);
+                if (placeholder != null) {
+                    placeholder.parent = null;
+                }
+            } else {
+                f = g;
+            }
+            if (f instanceof SVGFigure && ((SVGFigure) f).isEmpty() &&
+                    !placeholders.containsKey(f)) {
+                f = null;
+            }
+        } else if (name.equals("switch")) {
+            f = c.switchFigure;
+        } else if (name.equals("use")) {
+            f = readStreamedUseElement(c);
+        } else {
+            f = readElement(elem);
+        }
+        return f;
+    }
+
+    /**
+     * Reads an SVG "use" element in streaming mode.
+     */
+    private Figure readStreamedUseElement(StreamingContext c)
+            throws IOException {
+        IXMLElement elem = c.elem;
+        String href = readAttribute(elem, "xlink:href", null);
+        if (href == null || !href.startsWith("#")) {
+            return null;
+        }
+        String id = href.substring(1);
+        StreamedFigure target = streamedFigures.get(id);
+        if (target != null && !placeholders.containsKey(target.figure)) {
+            return useFigure(target.createOriginal(), readUseAttributes(elem), readUseTransform(elem));
+        }
+        if (identifiedElements.containsKey(id)) {
+            return readUseElement(elem);
+        }
+
+        // The referenced element has not been read yet, or it is a
+        // placeholder itself. We insert a placeholder, and resolve the
+        // reference at the end of the document.
+        StreamedFigure placeholder = new StreamedFigure(factory.createG(new HashMap<AttributeKey, Object>()));
+        placeholder.href = id;
+        placeholder.useAttributes = readUseAttributes(elem);
+        placeholder.useTransform = readUseTransform(elem);
+        deferredReferences.add(placeholder);
+        placeholders.put(placeholder.figure, placeholder);
+        c.add(placeholder);
+        return placeholder.figure;
+    }
+
+    /**
+     * Removes a child from its parent element.
+     * <p>
+     * We can not use {@code IXMLElement.removeChild}, because it compares the
+     * children by equality instead of by identity. Since elements are
+     * detached when they end, the child is usually the last one.
+     */
+    private void detach(IXMLElement parent, IXMLElement child) {
+        for (int i = parent.getChildrenCount() - 1; i >= 0; i--) {
+            if (parent.getChildAtIndex(i) == child) {
+                parent.removeChildAtIndex(i);
+                break;
+            }
+        }
+    }
+
+    /**
+     * Removes the identifiers of an element and of its descendants from the
+     * table of identified elements, and discards the objects read from them.
+     * Retained elements are not removed.
+     */
+    private void forgetElement(IXMLElement elem) {
+        String name = elem.getName();
+        if (name != null && (name.equals("defs") ||
+                name.equals("linearGradient") ||
+                name.equals("radialGradient") ||
+                name.equals("solidColor"))) {
+            return;
+        }
+        String id = elem.getAttribute("id", null);
+        if (id != null && identifiedElements.get(id) == elem) {
+            identifiedElements.remove(id);
+        }
+        id = elem.getAttribute("xml:id", null);
+        if (id != null && identifiedElements.get(id) == elem) {
+            identifiedElements.remove(id);
+        }
+        elementObjects.remove(elem);
+        for (IXMLElement child : elem.getChildren()) {
+            forgetElement(child);
+        }
+    }
+
+    /**
+     * Replaces the placeholders of "use" elements by the figures of the
+     * elements they reference.
+     * <p>
+     * A placeholder may reference another placeholder. Therefore the
+     * placeholders are resolved in passes, until no more placeholders can
+     * be resolved. The remaining placeholders are removed.
+     */
+    private void resolveDeferredReferences()
+            throws IOException {
+        boolean isResolving = true;
+        while (isResolving) {
+            isResolving = false;
+            for (Iterator<StreamedFigure> i = deferredReferences.iterator(); i.hasNext();) {
+                StreamedFigure placeholder = i.next();
+                Figure figure = null;
+                StreamedFigure target = streamedFigures.get(placeholder.href);
+                if (target != null) {
+                    if (!placeholders.containsKey(target.figure)) {
+                        figure = target.createOriginal();
+                    } else {
+                        // The target is resolved in a later pass
+                        continue;
+                    }
+                } else if (identifiedElements.containsKey(placeholder.href)) {
+                    Object obj = readElement(identifiedElements.get(placeholder.href));
+                    if (obj instanceof Figure) {
+                        figure = (Figure) ((Figure) obj).clone();
+                    }
+                }
+                if (figure != null) {
+                    useFigure(figure, placeholder.useAttributes, placeholder.useTransform);
+                    placeholder.original = (Figure) figure.clone();
+                    figure.transform(placeholder.transform);
+                    if (placeholder.isLinked) {
+                        LINK.basicSet(figure, placeholder.link);
+                        LINK_TARGET.basicSet(figure, placeholder.linkTarget);
+                    }
+                    isResolving = true;
+                } else if (DEBUG) {
+                    System.out.println("SVGInputFormat couldn't find href for <use> element:" + placeholder.href);
+                }
+                i.remove();
+                replacePlaceholder(placeholder, figure);
+            }
+        }
+        for (StreamedFigure placeholder : deferredReferences) {
+            if (DEBUG) {
+                System.out.println("SVGInputFormat couldn't resolve href for <use> element:" + placeholder.href);
+            }
+            replacePlaceholder(placeholder, null);
+        }
+        deferredReferences.clear();
+    }
+
+    /**
+     * Replaces the figure of a placeholder by the specified figure, or
+     * removes it, if the figure is null. The entry of the placeholder then
+     * refers to the figure, so that placeholders which reference it can be
+     * resolved.
+     */
+    private void replacePlaceholder(StreamedFigure placeholder, Figure figure) {
+        Figure placeholderFigure = placeholder.figure;
+        placeholders.remove(placeholderFigure);
+        if (placeholder.parent != null) {
+            CompositeFigure parent = placeholder.parent;
+            int index = parent.basicRemove(placeholderFigure);
+            if (index != -1 && figure != null) {
+                parent.basicAdd(index, figure);
+            }
+        } else {
+            for (ListIterator<Figure> i = figures.listIterator(); i.hasNext();) {
+                if (i.next() == placeholderFigure) {
+                    if (figure == null) {
+                        i.remove();
+                    } else {
+                        i.set(figure);
+                    }
+                    break;
+                }
+            }
+        }
+        if (figure != null) {
+            placeholder.figure = figure;
+        }
+    }
+
     public javax.swing.filechooser.FileFilter getFileFilter() {
         return new ExtensionFileFilter("Scalable Vector Graphics (SVG)", "svg");
     }
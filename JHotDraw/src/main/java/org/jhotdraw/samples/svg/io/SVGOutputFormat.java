@@ -19,7 +19,12 @@ import java.awt.datatransfer.*;
 import java.awt.geom.*;
 import java.io.*;
 import java.net.*;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.Map;
 import javax.swing.*;
@@ -28,6 +33,7 @@ import net.n3.nanoxml.*;
 import org.jhotdraw.app.JHotDrawFeatures;
 import org.jhotdraw.draw.*;
 import org.jhotdraw.geom.*;
+import org.jhotdraw.gui.ProgressIndicator;
 import org.jhotdraw.gui.datatransfer.*;
 import org.jhotdraw.io.*;
 import org.jhotdraw.samples.svg.*;
@@ -40,7 +46,15 @@ import static org.jhotdraw.samples.svg.SVGConstants.*;
  * Scalable Vector Graphics SVG Tiny 1.2.
  *
  * @author Werner Randelshofer
- * @version 1.3 2009-04-17 Added support for link target.
+ * @version 1.8 2026-10-18 Writes polygon, polyline and line elements without
+ * unpacking packed bezier paths.
+ * <br>1.7 2026-10-18 Reports its progress to a ProgressIndicator.
+ * <br>1.6 2026-10-18 Method toPath iterates over the segments of
+ * the path, instead of over its nodes.
+ * <br>1.5 2026-10-18 Presentation attributes, which are shared by
+ * several elements, can be written as CSS classes.
+ * <br>1.4 2026-10-18 Added streaming mode.
+ * <br>1.3 2009-04-17 Added support for link target.
  * <br>1.2.1 2009-03-29 createTextArea only added the last line of
  * a multiline text to the output.
  * <br>1.2 2007-12-16 Adapted to changes in OutputFormat.
@@ -78,6 +92,50 @@ public class SVGOutputFormat implements OutputFormat {
      * Set this to true for pretty printing.
      */
     private boolean isPrettyPrint;
+    /**
+     * Set this to true, to write the elements of the figures as soon as
+     * they have been created, instead of building a complete document tree
+     * first.
+     */
+    private boolean isStreaming;
+    /**
+     * In streaming mode, maps "image" elements to their image data. The
+     * image data is encoded when the element is written.
+     */
+    private IdentityHashMap<IXMLElement, byte[]> streamedImageData;
+    /**
+     * Set this to true, to write presentation attributes, which are shared
+     * by several elements, as CSS classes.
+     */
+    private boolean isStyleClasses;
+    /**
+     * Maps style declarations to the names of CSS classes.
+     */
+    private HashMap<String, String> styleToClassMap;
+    /**
+     * The progress indicator, or null.
+     */
+    private ProgressIndicator progressIndicator;
+    /**
+     * The number of figures which have been processed by the current
+     * write operation.
+     */
+    private int progress;
+    /**
+     * The names of the presentation attributes, which are written as
+     * CSS classes.
+     */
+    private final static HashSet<String> styleProperties = new HashSet<String>(Arrays.asList(new String[]{
+                "fill", "fill-opacity", "fill-rule",
+                "stroke", "stroke-dasharray", "stroke-dashoffset", "stroke-linecap",
+                "stroke-linejoin", "stroke-miterlimit", "stroke-opacity", "stroke-width",
+                "font-family", "font-size", "font-style", "font-variant", "font-weight",
+                "text-decoration"
+            }));
+    /**
+     * The prefix of the "xlink:href" attribute of "image" elements.
+     */
+    private final static String IMAGE_DATA_PREFIX = "data:image;base64,";
     private final static HashMap<Integer, String> strokeLinejoinMap;
 
 
@@ -124,6 +182,82 @@ public class SVGOutputFormat implements OutputFormat {
         return isPrettyPrint;
     }
 
+    /**
+     * Turns the streaming mode on or off.
+     * <p>
+     * By default, the output format builds a document tree for the whole
+     * drawing before it writes the document. In streaming mode, the element
+     * of each figure is written and discarded as soon as it has been
+     * created, and image data is encoded directly into the output stream.
+     * Memory use is then proportional to the size of the largest figure.
+     * <p>
+     * The gradients of the figures are collected in advance and written
+     * into a "defs" element at the beginning of the document. Gradients,
+     * which are only encountered while writing the figures, are written
+     * into a second "defs" element at the end of the document.
+     */
+    public void setStreaming(boolean newValue) {
+        isStreaming = newValue;
+    }
+
+    /**
+     * Returns true, if the output format is in streaming mode.
+     */
+    public boolean isStreaming() {
+        return isStreaming;
+    }
+
+    /**
+     * Sets a progress indicator, to which the write methods report the
+     * number of top level figures they have processed. If the user cancels
+     * the operation, the write methods throw an InterruptedIOException.
+     *
+     * @param newValue A progress indicator or null.
+     */
+    public void setProgressIndicator(ProgressIndicator newValue) {
+        progressIndicator = newValue;
+    }
+
+    public ProgressIndicator getProgressIndicator() {
+        return progressIndicator;
+    }
+
+    /**
+     * Reports that a top level figure has been processed.
+     */
+    private void figureProcessed() throws InterruptedIOException {
+        progress++;
+        if (progressIndicator != null) {
+            if (progressIndicator.isCanceled()) {
+                throw new InterruptedIOException("Writing of SVG document canceled");
+            }
+            progressIndicator.setProgress(progress);
+        }
+    }
+
+    /**
+     * Turns the writing of CSS classes on or off.
+     * <p>
+     * By default, the presentation attributes, such as "fill" and "stroke",
+     * are written into each element. If this is turned on, each combination
+     * of presentation attributes, which is used by more than one element, is
+     * written once as a CSS class into a "style" element, and the elements
+     * refer to the class with a "class" attribute.
+     * <p>
+     * In streaming mode, the elements of all figures are created twice: once
+     * for collecting the styles, and once for writing them.
+     */
+    public void setStyleClasses(boolean newValue) {
+        isStyleClasses = newValue;
+    }
+
+    /**
+     * Returns true, if presentation attributes are written as CSS classes.
+     */
+    public boolean isStyleClasses() {
+        return isStyleClasses;
+    }
+
     protected void writeElement(IXMLElement parent, Figure f) throws IOException {
         // Write link attribute as encosing "a" element
         if (LINK.get(f) != null && LINK.get(f).trim().length() > 0) {
@@ -152,14 +286,7 @@ public class SVGOutputFormat implements OutputFormat {
             SVGPathFigure path = (SVGPathFigure) f;
             if (path.getChildCount() == 1) {
                 BezierFigure bezier = (BezierFigure) path.getChild(0);
-                boolean isLinear = true;
-                for (int i = 0, n = bezier.getNodeCount(); i < n; i++) {
-                    if (bezier.getNode(i).getMask() != 0) {
-                        isLinear = false;
-                        break;
-                    }
-                }
-                if (isLinear) {
+                if (bezier.getBezierPath().isLinear()) {
                     if (bezier.isClosed()) {
                         writePolygonElement(parent, path);
                     } else {
@@ -323,7 +450,12 @@ public class SVGOutputFormat implements OutputFormat {
         writeAttribute(elem, "y", y, 0d);
         writeAttribute(elem, "width", w, 0d);
         writeAttribute(elem, "height", h, 0d);
-        writeAttribute(elem, "xlink:href", "data:image;base64," + Base64.encodeBytes(imageData), "");
+        if (streamedImageData != null) {
+            writeAttribute(elem, "xlink:href", IMAGE_DATA_PREFIX, "");
+            streamedImageData.put(elem, imageData);
+        } else {
+            writeAttribute(elem, "xlink:href", IMAGE_DATA_PREFIX + Base64.encodeBytes(imageData), "");
+        }
         writeOpacityAttribute(elem, attributes);
         writeTransformAttribute(elem, attributes);
         return elem;
@@ -353,12 +485,8 @@ public class SVGOutputFormat implements OutputFormat {
 
     protected void writePolygonElement(IXMLElement parent, SVGPathFigure f) throws IOException {
         LinkedList<Point2D.Double> points = new LinkedList<Point2D.Double>();
-        BezierPath[] beziers = new BezierPath[f.getChildCount()];
         for (int i = 0, n = f.getChildCount(); i < n; i++) {
-            BezierPath bezier = ((BezierFigure) f.getChild(i)).getBezierPath();
-            for (BezierPath.Node node : bezier) {
-                points.add(new Point2D.Double(node.x[0], node.y[0]));
-            }
+            addNodePoints(((BezierFigure) f.getChild(i)).getBezierPath(), points);
         }
 
         parent.addChild(createPolygon(
@@ -381,12 +509,8 @@ public class SVGOutputFormat implements OutputFormat {
 
     protected void writePolylineElement(IXMLElement parent, SVGPathFigure f) throws IOException {
         LinkedList<Point2D.Double> points = new LinkedList<Point2D.Double>();
-        BezierPath[] beziers = new BezierPath[f.getChildCount()];
         for (int i = 0, n = f.getChildCount(); i < n; i++) {
-            BezierPath bezier = ((BezierFigure) f.getChild(i)).getBezierPath();
-            for (BezierPath.Node node : bezier) {
-                points.add(new Point2D.Double(node.x[0], node.y[0]));
-            }
+            addNodePoints(((BezierFigure) f.getChild(i)).getBezierPath(), points);
         }
 
         parent.addChild(createPolyline(
@@ -409,16 +533,40 @@ public class SVGOutputFormat implements OutputFormat {
 
     protected void writeLineElement(IXMLElement parent, SVGPathFigure f)
             throws IOException {
-        BezierFigure bezier = (BezierFigure) f.getChild(0);
+        LinkedList<Point2D.Double> points = new LinkedList<Point2D.Double>();
+        addNodePoints(((BezierFigure) f.getChild(0)).getBezierPath(), points);
         parent.addChild(createLine(
                 document,
-                bezier.getNode(0).x[0],
-                bezier.getNode(0).y[0],
-                bezier.getNode(1).x[0],
-                bezier.getNode(1).y[0],
+                points.get(0).x,
+                points.get(0).y,
+                points.get(1).x,
+                points.get(1).y,
                 f.getAttributes()));
     }
 
+    /**
+     * Adds the points of the nodes of a linear BezierPath to the
+     * specified list.
+     * <p>
+     * The path iterator does not create node objects for packed bezier
+     * paths.
+     */
+    private static void addNodePoints(BezierPath bezier, LinkedList<Point2D.Double> points) {
+        double[] coords = new double[6];
+        int count = 0;
+        for (PathIterator i = bezier.getPathIterator(null); count < bezier.size() && !i.isDone(); i.next()) {
+            switch (i.currentSegment(coords)) {
+                case PathIterator.SEG_MOVETO:
+                case PathIterator.SEG_LINETO:
+                    points.add(new Point2D.Double(coords[0], coords[1]));
+                    count++;
+                    break;
+                default:
+                    break;
+            }
+        }
+    }
+
     protected IXMLElement createLine(IXMLElement doc,
             double x1, double y1, double x2, double y2,
             Map<AttributeKey, Object> attributes) throws IOException {
@@ -587,6 +735,46 @@ public class SVGOutputFormat implements OutputFormat {
     // ------------
     // Attributes
     // ------------
+    /**
+     * Returns the id of the specified gradient. If the gradient has not
+     * been written yet, an element is created for it in the "defs" element.
+     */
+    private String getGradientId(Gradient gradient) throws IOException {
+        String id;
+        if (gradientToIDMap.containsKey(gradient)) {
+            id = gradientToIDMap.get(gradient);
+        } else {
+            IXMLElement gradientElem;
+            if (gradient instanceof LinearGradient) {
+                LinearGradient lg = (LinearGradient) gradient;
+                gradientElem = createLinearGradient(document,
+                        lg.getX1(), lg.getY1(),
+                        lg.getX2(), lg.getY2(),
+                        lg.getStopOffsets(),
+                        lg.getStopColors(),
+                        lg.getStopOpacities(),
+                        lg.isRelativeToFigureBounds(),
+                        lg.getTransform());
+            } else /*if (gradient instanceof RadialGradient)*/ {
+                RadialGradient rg = (RadialGradient) gradient;
+                gradientElem = createRadialGradient(document,
+                        rg.getCX(), rg.getCY(),
+                        rg.getFX(), rg.getFY(),
+                        rg.getR(),
+                        rg.getStopOffsets(),
+                        rg.getStopColors(),
+                        rg.getStopOpacities(),
+                        rg.isRelativeToFigureBounds(),
+                        rg.getTransform());
+            }
+            id = getId(gradientElem);
+            gradientElem.setAttribute("id", "xml", id);
+            defs.addChild(gradientElem);
+            gradientToIDMap.put(gradient, id);
+        }
+        return id;
+    }
+
     /* Writes shape attributes.
      */
     protected void writeShapeAttributes(IXMLElement elem, Map<AttributeKey, Object> f)
@@ -630,38 +818,7 @@ public class SVGOutputFormat implements OutputFormat {
         // Computed value:  	 "none", system paint, specified <color> value or absolute IRI
         Gradient gradient = FILL_GRADIENT.get(f);
         if (gradient != null) {
-            String id;
-            if (gradientToIDMap.containsKey(gradient)) {
-                id = gradientToIDMap.get(gradient);
-            } else {
-                IXMLElement gradientElem;
-                if (gradient instanceof LinearGradient) {
-                    LinearGradient lg = (LinearGradient) gradient;
-                    gradientElem = createLinearGradient(document,
-                            lg.getX1(), lg.getY1(),
-                            lg.getX2(), lg.getY2(),
-                            lg.getStopOffsets(),
-                            lg.getStopColors(),
-                            lg.getStopOpacities(),
-                            lg.isRelativeToFigureBounds(),
-                            lg.getTransform());
-                } else /*if (gradient instanceof RadialGradient)*/ {
-                    RadialGradient rg = (RadialGradient) gradient;
-                    gradientElem = createRadialGradient(document,
-                            rg.getCX(), rg.getCY(),
-                            rg.getFX(), rg.getFY(),
-                            rg.getR(),
-                            rg.getStopOffsets(),
-                            rg.getStopColors(),
-                            rg.getStopOpacities(),
-                            rg.isRelativeToFigureBounds(),
-                            rg.getTransform());
-                }
-                id = getId(gradientElem);
-                gradientElem.setAttribute("id", "xml", id);
-                defs.addChild(gradientElem);
-                gradientToIDMap.put(gradient, id);
-            }
+            String id = getGradientId(gradient);
             writeAttribute(elem, "fill", "url(#" + id + ")", "#000");
         } else {
             writeAttribute(elem, "fill", toColor(FILL_COLOR.get(f)), "#000");
@@ -704,38 +861,7 @@ public class SVGOutputFormat implements OutputFormat {
         // or absolute IRI
         gradient = STROKE_GRADIENT.get(f);
         if (gradient != null) {
-            String id;
-            if (gradientToIDMap.containsKey(gradient)) {
-                id = gradientToIDMap.get(gradient);
-            } else {
-                IXMLElement gradientElem;
-                if (gradient instanceof LinearGradient) {
-                    LinearGradient lg = (LinearGradient) gradient;
-                    gradientElem = createLinearGradient(document,
-                            lg.getX1(), lg.getY1(),
-                            lg.getX2(), lg.getY2(),
-                            lg.getStopOffsets(),
-                            lg.getStopColors(),
-                            lg.getStopOpacities(),
-                            lg.isRelativeToFigureBounds(),
-                            lg.getTransform());
-                } else /*if (gradient instanceof RadialGradient)*/ {
-                    RadialGradient rg = (RadialGradient) gradient;
-                    gradientElem = createRadialGradient(document,
-                            rg.getCX(), rg.getCY(),
-                            rg.getFX(), rg.getFY(),
-                            rg.getR(),
-                            rg.getStopOffsets(),
-                            rg.getStopColors(),
-                            rg.getStopOpacities(),
-                            rg.isRelativeToFigureBounds(),
-                            rg.getTransform());
-                }
-                id = getId(gradientElem);
-                gradientElem.setAttribute("id", "xml", id);
-                defs.addChild(gradientElem);
-                gradientToIDMap.put(gradient, id);
-            }
+            String id = getGradientId(gradient);
             writeAttribute(elem, "stroke", "url(#" + id + ")", "none");
         } else {
             writeAttribute(elem, "stroke", toColor(STROKE_COLOR.get(f)), "none");
@@ -1007,6 +1133,7 @@ public class SVGOutputFormat implements OutputFormat {
      */
     public static String toPath(BezierPath[] paths) {
         StringBuilder buf = new StringBuilder();
+        double[] coords = new double[6];
 
         for (int j = 0; j < paths.length; j++) {
             BezierPath path = paths[j];
@@ -1014,161 +1141,79 @@ public class SVGOutputFormat implements OutputFormat {
             if (path.size() == 0) {
                 // nothing to do
             } else if (path.size() == 1) {
-                BezierPath.Node current = path.get(0);
+                path.getPathIterator(null).currentSegment(coords);
                 buf.append("M ");
-                buf.append(toNumber(current.x[0]));
+                buf.append(toNumber(coords[0]));
                 buf.append(' ');
-                buf.append(toNumber(current.y[0]));
+                buf.append(toNumber(coords[1]));
                 //buf.append(" L ");
-                buf.append(toNumber(current.x[0]));
+                buf.append(toNumber(coords[0]));
                 buf.append(' ');
-                buf.append(toNumber(current.y[0] + 1));
+                buf.append(toNumber(coords[1] + 1));
             } else {
-                BezierPath.Node previous;
-                BezierPath.Node current;
-
-                previous = current = path.get(0);
-                buf.append("M ");
-                buf.append(toNumber(current.x[0]));
-                buf.append(' ');
-                buf.append(toNumber(current.y[0]));
+                // The path iterator does not create node objects for
+                // packed bezier paths.
                 char nextCommand = 'L';
-                for (int i = 1, n = path.size(); i < n; i++) {
-                    previous = current;
-                    current = path.get(i);
-
-                    if ((previous.mask & BezierPath.C2_MASK) == 0) {
-                        if ((current.mask & BezierPath.C1_MASK) == 0) {
+                for (PathIterator i = path.getPathIterator(null); !i.isDone(); i.next()) {
+                    switch (i.currentSegment(coords)) {
+                        case PathIterator.SEG_MOVETO:
+                            buf.append("M ");
+                            buf.append(toNumber(coords[0]));
+                            buf.append(' ');
+                            buf.append(toNumber(coords[1]));
+                            nextCommand = 'L';
+                            break;
+                        case PathIterator.SEG_LINETO:
                             if (nextCommand != 'L') {
                                 buf.append(" L ");
                                 nextCommand = 'L';
                             } else {
                                 buf.append(' ');
                             }
-                            buf.append(toNumber(current.x[0]));
+                            buf.append(toNumber(coords[0]));
                             buf.append(' ');
-                            buf.append(toNumber(current.y[0]));
-                        } else {
+                            buf.append(toNumber(coords[1]));
+                            break;
+                        case PathIterator.SEG_QUADTO:
                             if (nextCommand != 'Q') {
                                 buf.append(" Q ");
                                 nextCommand = 'Q';
                             } else {
                                 buf.append(' ');
                             }
-                            buf.append(toNumber(current.x[1]));
+                            buf.append(toNumber(coords[0]));
                             buf.append(' ');
-                            buf.append(toNumber(current.y[1]));
+                            buf.append(toNumber(coords[1]));
                             buf.append(' ');
-                            buf.append(toNumber(current.x[0]));
+                            buf.append(toNumber(coords[2]));
                             buf.append(' ');
-                            buf.append(toNumber(current.y[0]));
-                        }
-                    } else {
-                        if ((current.mask & BezierPath.C1_MASK) == 0) {
-                            if (nextCommand != 'Q') {
-                                buf.append(" Q ");
-                                nextCommand = 'Q';
-                            } else {
-                                buf.append(' ');
-                            }
-                            buf.append(toNumber(previous.x[2]));
-                            buf.append(' ');
-                            buf.append(toNumber(previous.y[2]));
-                            buf.append(' ');
-                            buf.append(toNumber(current.x[0]));
-                            buf.append(' ');
-                            buf.append(toNumber(current.y[0]));
-                        } else {
+                            buf.append(toNumber(coords[3]));
+                            break;
+                        case PathIterator.SEG_CUBICTO:
                             if (nextCommand != 'C') {
                                 buf.append(" C ");
                                 nextCommand = 'C';
                             } else {
                                 buf.append(' ');
                             }
-                            buf.append(toNumber(previous.x[2]));
+                            buf.append(toNumber(coords[0]));
                             buf.append(' ');
-                            buf.append(toNumber(previous.y[2]));
+                            buf.append(toNumber(coords[1]));
                             buf.append(' ');
-                            buf.append(toNumber(current.x[1]));
+                            buf.append(toNumber(coords[2]));
                             buf.append(' ');
-                            buf.append(toNumber(current.y[1]));
+                            buf.append(toNumber(coords[3]));
                             buf.append(' ');
-                            buf.append(toNumber(current.x[0]));
+                            buf.append(toNumber(coords[4]));
                             buf.append(' ');
-                            buf.append(toNumber(current.y[0]));
-                        }
+                            buf.append(toNumber(coords[5]));
+                            break;
+                        case PathIterator.SEG_CLOSE:
+                            buf.append(" Z");
+                            nextCommand = '\0';
+                            break;
                     }
                 }
-                if (path.isClosed()) {
-                    if (path.size() > 1) {
-                        previous = path.get(path.size() - 1);
-                        current = path.get(0);
-
-                        if ((previous.mask & BezierPath.C2_MASK) == 0) {
-                            if ((current.mask & BezierPath.C1_MASK) == 0) {
-                                if (nextCommand != 'L') {
-                                    buf.append(" L ");
-                                    nextCommand = 'L';
-                                } else {
-                                    buf.append(' ');
-                                }
-                                buf.append(toNumber(current.x[0]));
-                                buf.append(' ');
-                                buf.append(toNumber(current.y[0]));
-                            } else {
-                                if (nextCommand != 'Q') {
-                                    buf.append(" Q ");
-                                    nextCommand = 'Q';
-                                } else {
-                                    buf.append(' ');
-                                }
-                                buf.append(toNumber(current.x[1]));
-                                buf.append(' ');
-                                buf.append(toNumber(current.y[1]));
-                                buf.append(' ');
-                                buf.append(toNumber(current.x[0]));
-                                buf.append(' ');
-                                buf.append(toNumber(current.y[0]));
-                            }
-                        } else {
-                            if ((current.mask & BezierPath.C1_MASK) == 0) {
-                                if (nextCommand != 'Q') {
-                                    buf.append(" Q ");
-                                    nextCommand = 'Q';
-                                } else {
-                                    buf.append(' ');
-                                }
-                                buf.append(toNumber(previous.x[2]));
-                                buf.append(' ');
-                                buf.append(toNumber(previous.y[2]));
-                                buf.append(' ');
-                                buf.append(toNumber(current.x[0]));
-                                buf.append(' ');
-                                buf.append(toNumber(current.y[0]));
-                            } else {
-                                if (nextCommand != 'C') {
-                                    buf.append(" C ");
-                                    nextCommand = 'C';
-                                } else {
-                                    buf.append(' ');
-                                }
-                                buf.append(toNumber(previous.x[2]));
-                                buf.append(' ');
-                                buf.append(toNumber(previous.y[2]));
-                                buf.append(' ');
-                                buf.append(toNumber(current.x[1]));
-                                buf.append(' ');
-                                buf.append(toNumber(current.y[1]));
-                                buf.append(' ');
-                                buf.append(toNumber(current.x[0]));
-                                buf.append(' ');
-                                buf.append(toNumber(current.y[0]));
-                            }
-                        }
-                    }
-                    buf.append(" Z");
-                    nextCommand = '\0';
-                }
             }
         }
         return buf.toString();
@@ -1323,6 +1368,17 @@ public class SVGOutputFormat implements OutputFormat {
      */
     @FeatureEntryPoint(JHotDrawFeatures.VIEW_SOURCE)
     public void write(OutputStream out, Drawing drawing, java.util.List<Figure> figures) throws IOException {
+        if (isStreaming) {
+            writeStream(out, drawing, figures);
+        } else {
+            writeTree(out, drawing, figures);
+        }
+    }
+
+    /**
+     * Builds a document tree for the figures, and then writes the tree.
+     */
+    private void writeTree(OutputStream out, Drawing drawing, java.util.List<Figure> figures) throws IOException {
         document = new XMLElement("svg", SVG_NAMESPACE);
         document.setAttribute("xmlns:xlink", "http://www.w3.org/1999/xlink");
         document.setAttribute("version", "1.2");
@@ -1331,11 +1387,28 @@ public class SVGOutputFormat implements OutputFormat {
 
         initStorageContext(document);
 
+        IXMLElement style = new XMLElement("style");
+        document.addChild(style);
         defs = new XMLElement("defs");
         document.addChild(defs);
 
+        progress = 0;
+        if (progressIndicator != null) {
+            progressIndicator.setRange(0, figures.size());
+        }
         for (Figure f : figures) {
             writeElement(document, f);
+            figureProcessed();
+        }
+
+        if (isStyleClasses) {
+            LinkedHashMap<String, Integer> styleCounts = new LinkedHashMap<String, Integer>();
+            collectStyles(document, styleCounts);
+            writeStyleElement(style, styleCounts);
+            applyStyleClasses(document);
+        }
+        if (style.getContent() == null) {
+            document.removeChild(style);
         }
 
         // Write XML prolog
@@ -1351,6 +1424,387 @@ public class SVGOutputFormat implements OutputFormat {
         writer.flush();
     }
 
+    /**
+     * Writes the elements of the figures as soon as they have been created.
+     */
+    private void writeStream(OutputStream out, Drawing drawing, java.util.List<Figure> figures) throws IOException {
+        document = new XMLElement("svg", SVG_NAMESPACE);
+        document.setAttribute("xmlns:xlink", "http://www.w3.org/1999/xlink");
+        document.setAttribute("version", "1.2");
+        document.setAttribute("baseProfile", "tiny");
+        writeViewportAttributes(document, drawing.getAttributes());
+
+        initStorageContext(document);
+
+        // Collect the gradients in advance, so that we can write them
+        // before the figures.
+        defs = new XMLElement("defs");
+        for (Figure f : figures) {
+            collectGradients(f);
+        }
+        streamedImageData = new IdentityHashMap<IXMLElement, byte[]>();
+
+        // Collect the styles in advance, so that we can write the
+        // CSS classes before the figures.
+        progress = 0;
+        if (progressIndicator != null) {
+            progressIndicator.setRange(0, isStyleClasses ? figures.size() * 2 : figures.size());
+        }
+        IXMLElement style = new XMLElement("style");
+        if (isStyleClasses) {
+            LinkedHashMap<String, Integer> styleCounts = new LinkedHashMap<String, Integer>();
+            for (Figure f : figures) {
+                IXMLElement parent = new XMLElement("svg");
+                writeElement(parent, f);
+                collectStyles(parent, styleCounts);
+                streamedImageData.clear();
+                figureProcessed();
+            }
+            writeStyleElement(style, styleCounts);
+        }
+        int predefinedCount = defs.getChildrenCount();
+
+        try {
+            // Write XML prolog
+            PrintWriter writer = new PrintWriter(new BufferedWriter(
+                    new OutputStreamWriter(out, "UTF-8")));
+            writer.println("<?xml version=\"1.0\" encoding=\"UTF-8\"?>");
+
+            // Write XML content
+            StreamWriter streamWriter = new StreamWriter(writer, isPrettyPrint);
+            streamWriter.writeStartTag(document, 0);
+            if (style.getContent() != null) {
+                streamWriter.write(style, 4);
+            }
+            streamWriter.write(defs, 4);
+            for (Figure f : figures) {
+                IXMLElement parent = new XMLElement("svg");
+                writeElement(parent, f);
+                if (isStyleClasses) {
+                    applyStyleClasses(parent);
+                }
+                for (Iterator<?> i = parent.iterateChildren(); i.hasNext();) {
+                    streamWriter.write((IXMLElement) i.next(), 4);
+                }
+                streamedImageData.clear();
+                figureProcessed();
+            }
+            if (defs.getChildrenCount() > predefinedCount) {
+                IXMLElement lateDefs = new XMLElement("defs");
+                for (IXMLElement child : defs.getChildren().subList(predefinedCount, defs.getChildrenCount())) {
+                    lateDefs.addChild(child);
+                }
+                streamWriter.write(lateDefs, 4);
+            }
+            streamWriter.writeEndTag(document, 0);
+
+            // Flush writer
+            writer.flush();
+            if (writer.checkError()) {
+                throw new IOException("Unable to write SVG document");
+            }
+        } finally {
+            streamedImageData = null;
+        }
+    }
+
+    /**
+     * Returns the style declaration of the presentation attributes of an
+     * element, or null if the element has no presentation attributes.
+     */
+    private String getStyleDeclaration(IXMLElement elem) {
+        StringBuilder buf = null;
+        for (Iterator<?> i = elem.iterateAttributeNames(); i.hasNext();) {
+            String name = (String) i.next();
+            if (styleProperties.contains(name)) {
+                if (buf == null) {
+                    buf = new StringBuilder();
+                } else {
+                    buf.append(';');
+                }
+                buf.append(name);
+                buf.append(':');
+                buf.append(elem.getAttribute(name, null));
+            }
+        }
+        return (buf == null) ? null : buf.toString();
+    }
+
+    /**
+     * Counts how often each style declaration is used by the specified
+     * element and its descendants.
+     */
+    private void collectStyles(IXMLElement elem, LinkedHashMap<String, Integer> styleCounts) {
+        String declaration = getStyleDeclaration(elem);
+        if (declaration != null) {
+            Integer count = styleCounts.get(declaration);
+            styleCounts.put(declaration, (count == null) ? 1 : count + 1);
+        }
+        for (Iterator<?> i = elem.iterateChildren(); i.hasNext();) {
+            collectStyles((IXMLElement) i.next(), styleCounts);
+        }
+    }
+
+    /**
+     * Creates a CSS class for each style declaration, which is used more
+     * than once, and writes the classes into the "style" element.
+     * The content of the "style" element remains null, if no class has
+     * been created.
+     */
+    private void writeStyleElement(IXMLElement style, LinkedHashMap<String, Integer> styleCounts) {
+        styleToClassMap = new HashMap<String, String>();
+        StringBuilder buf = new StringBuilder();
+        for (Map.Entry<String, Integer> entry : styleCounts.entrySet()) {
+            if (entry.getValue() > 1) {
+                String className = "s" + Integer.toString(styleToClassMap.size(), Character.MAX_RADIX);
+                styleToClassMap.put(entry.getKey(), className);
+                buf.append('.');
+                buf.append(className);
+                buf.append('{');
+                buf.append(entry.getKey());
+                buf.append("}\n");
+            }
+        }
+        if (buf.length() > 0) {
+            style.setAttribute("type", "text/css");
+            style.setContent(buf.toString());
+        }
+    }
+
+    /**
+     * Replaces the presentation attributes of the specified element and
+     * its descendants by CSS classes.
+     */
+    private void applyStyleClasses(IXMLElement elem) {
+        String declaration = getStyleDeclaration(elem);
+        if (declaration != null) {
+            String className = styleToClassMap.get(declaration);
+            if (className != null) {
+                for (String name : styleProperties) {
+                    elem.removeAttribute(name);
+                }
+                writeAttribute(elem, "class", className, null);
+            }
+        }
+        for (Iterator<?> i = elem.iterateChildren(); i.hasNext();) {
+            applyStyleClasses((IXMLElement) i.next());
+        }
+    }
+
+    /**
+     * Creates the elements for the gradients of the specified figure and of
+     * its descendants.
+     */
+    private void collectGradients(Figure f) throws IOException {
+        if (f instanceof SVGGroupFigure) {
+            for (Figure child : ((SVGGroupFigure) f).getChildren()) {
+                collectGradients(child);
+            }
+        } else if (!(f instanceof SVGImageFigure)) {
+            if (FILL_GRADIENT.get(f) != null) {
+                getGradientId(FILL_GRADIENT.get(f));
+            }
+            if (STROKE_GRADIENT.get(f) != null) {
+                getGradientId(STROKE_GRADIENT.get(f));
+            }
+        }
+    }
+
+    /**
+     * Writes elements in the same format as {@link XMLWriter}, but allows to
+     * write the start tag and the end tag of an element separately. Image
+     * data of "image" elements is encoded directly into the writer.
+     */
+    private class StreamWriter {
+
+        private PrintWriter writer;
+        private boolean isPrettyPrint;
+
+        public StreamWriter(PrintWriter writer, boolean isPrettyPrint) {
+            this.writer = writer;
+            this.isPrettyPrint = isPrettyPrint;
+        }
+
+        /**
+         * Writes an element with all its children.
+         */
+        public void write(IXMLElement xml, int indent) throws IOException {
+            if (xml.getName() == null) {
+                indent(indent);
+                if (xml.getContent() != null) {
+                    if (isPrettyPrint) {
+                        writeEncoded(xml.getContent().trim());
+                        writer.println();
+                    } else {
+                        writeEncoded(xml.getContent());
+                    }
+                }
+            } else if (xml.getContent() != null && xml.getContent().length() > 0) {
+                writeStartTag(xml, indent, false);
+                writeEncoded(xml.getContent());
+                writer.print("</" + xml.getFullName() + '>');
+                if (isPrettyPrint) {
+                    writer.println();
+                }
+            } else if (xml.hasChildren()) {
+                writeStartTag(xml, indent);
+                for (Iterator<?> i = xml.iterateChildren(); i.hasNext();) {
+                    write((IXMLElement) i.next(), indent + 4);
+                }
+                writeEndTag(xml, indent);
+            } else {
+                indent(indent);
+                writeTagAndAttributes(xml);
+                writer.print("/>");
+                if (isPrettyPrint) {
+                    writer.println();
+                }
+            }
+        }
+
+        /**
+         * Writes the start tag of an element, which has children.
+         */
+        public void writeStartTag(IXMLElement xml, int indent) throws IOException {
+            writeStartTag(xml, indent, true);
+        }
+
+        private void writeStartTag(IXMLElement xml, int indent, boolean hasChildren) throws IOException {
+            indent(indent);
+            writeTagAndAttributes(xml);
+            writer.print('>');
+            if (hasChildren && isPrettyPrint) {
+                writer.println();
+            }
+        }
+
+        /**
+         * Writes the end tag of an element, which has children.
+         */
+        public void writeEndTag(IXMLElement xml, int indent) {
+            indent(indent);
+            writer.print("</" + xml.getFullName() + ">");
+            if (isPrettyPrint) {
+                writer.println();
+            }
+        }
+
+        private void indent(int indent) {
+            if (isPrettyPrint) {
+                for (int i = 0; i < indent; i++) {
+                    writer.print(' ');
+                }
+            }
+        }
+
+        private void writeTagAndAttributes(IXMLElement xml) throws IOException {
+            writer.print('<');
+            writer.print(xml.getFullName());
+            LinkedList<String> nsprefixes = new LinkedList<String>();
+
+            if (xml.getNamespace() != null) {
+                if (xml.getName().equals(xml.getFullName())) {
+                    writer.print(" xmlns=\"" + xml.getNamespace() + '"');
+                } else {
+                    String prefix = xml.getFullName();
+                    prefix = prefix.substring(0, prefix.indexOf(':'));
+                    nsprefixes.add(prefix);
+                    writer.print(" xmlns:" + prefix);
+                    writer.print("=\"" + xml.getNamespace() + "\"");
+                }
+            }
+
+            for (Iterator<?> i = xml.iterateAttributeNames(); i.hasNext();) {
+                String key = (String) i.next();
+                int index = key.indexOf(':');
+
+                if (index >= 0) {
+                    String namespace = xml.getAttributeNamespace(key);
+
+                    if (namespace != null) {
+                        String prefix = key.substring(0, index);
+
+                        if (!nsprefixes.contains(prefix)) {
+                            writer.print(" xmlns:" + prefix);
+                            writer.print("=\"" + namespace + '"');
+                            nsprefixes.add(prefix);
+                        }
+                    }
+                }
+            }
+
+            byte[] imageData = streamedImageData.get(xml);
+            for (Iterator<?> i = xml.iterateAttributeNames(); i.hasNext();) {
+                String key = (String) i.next();
+                String value = xml.getAttribute(key, null);
+                writer.print(" " + key + "=\"");
+                writeEncoded(value);
+                if (imageData != null && key.equals("xlink:href")) {
+                    writeBase64(imageData);
+                }
+                writer.print('"');
+            }
+        }
+
+        /**
+         * Encodes the specified data into the writer.
+         */
+        private void writeBase64(byte[] data) throws IOException {
+            Base64.OutputStream b64 = new Base64.OutputStream(new OutputStream() {
+
+                @Override
+                public void write(int b) {
+                    // Base64 characters are ASCII, the line breaks are
+                    // written unencoded like by XMLWriter
+                    writer.print((char) b);
+                }
+            });
+            b64.write(data);
+            b64.close();
+        }
+
+        private void writeEncoded(String str) {
+            for (int i = 0; i < str.length(); i++) {
+                char c = str.charAt(i);
+
+                switch (c) {
+                    case 0x0A:
+                        writer.print(c);
+                        break;
+
+                    case '<':
+                        writer.print("&lt;");
+                        break;
+
+                    case '>':
+                        writer.print("&gt;");
+                        break;
+
+                    case '&':
+                        writer.print("&amp;");
+                        break;
+
+                    case '\'':
+                        writer.print("&apos;");
+                        break;
+
+                    case '"':
+                        writer.print("&quot;");
+                        break;
+
+                    default:
+                        if ((c < ' ') || (c > 0x7E)) {
+                            writer.print("&#x");
+                            writer.print(Integer.toString(c, 16));
+                            writer.print(';');
+                        } else {
+                            writer.print(c);
+                        }
+                }
+            }
+        }
+    }
+
     private void initStorageContext(IXMLElement root) {
         identifiedElements = new HashMap<IXMLElement, String>();
         gradientToIDMap = new HashMap<Gradient, String>();
@@ -0,0 +1,580 @@
+/*
+ * @(#)SVGPathParser.java  1.0  2026-10-18
+ *
+ * Copyright (c) 1996-2026 by the original authors of JHotDraw
+ * and all its contributors.
+ * All rights reserved.
+ *
+ * The copyright of this software is owned by the authors and
+ * contributors of the JHotDraw project ("the copyright holders").
+ * You may not use, copy or modify this software, except in
+ * accordance with the license agreement you entered into with
+ * the copyright holders. For details see accompanying license terms.
+ */
+package org.jhotdraw.samples.svg.io;
+
+import java.io.*;
+import java.util.ArrayList;
+import org.jhotdraw.geom.*;
+
+/**
+ * Parses SVG path data into {@code BezierPath}s, as specified in
+ * http://www.w3.org/TR/SVGMobile12/paths.html#PathDataBNF
+ * <p>
+ * Also supports elliptical arc commands 'a' and 'A' as specified in
+ * http://www.w3.org/TR/SVG/paths.html#PathDataEllipticalArcCommands
+ * <p>
+ * The parser scans the characters of the path data directly. Numbers are
+ * converted without creating intermediate strings, and the nodes are added
+ * to the paths without creating intermediate points. Each path is sized in
+ * advance by a quick look ahead over its path data.
+ * <p>
+ * A parser can be reused for any number of path data strings, but it must
+ * not be used by multiple threads at the same time.
+ *
+ * @author Werner Randelshofer
+ * @version 1.0 2026-10-18 Created.
+ */
+public class SVGPathParser {
+
+    /**
+     * Powers of ten, which can be represented exactly by a double.
+     */
+    private final static double[] POWERS_OF_TEN = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+        1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+    /**
+     * The largest mantissa, which can be represented exactly by a double.
+     */
+    private final static long MAX_EXACT_MANTISSA = 1L << 53;
+    private final static String[] ABSOLUTE_XY = {"x coordinate", "y coordinate"};
+    private final static String[] RELATIVE_XY = {"dx coordinate", "dy coordinate"};
+    private final static String[] ABSOLUTE_X = {"x coordinate"};
+    private final static String[] RELATIVE_X = {"dx coordinate"};
+    private final static String[] ABSOLUTE_Y = {"y coordinate"};
+    private final static String[] RELATIVE_Y = {"dy coordinate"};
+    private final static String[] ABSOLUTE_CURVE = {"x1 coordinate", "y1 coordinate", "x2 coordinate", "y2 coordinate", "x coordinate", "y coordinate"};
+    private final static String[] RELATIVE_CURVE = {"dx1 coordinate", "dy1 coordinate", "dx2 coordinate", "dy2 coordinate", "dx coordinate", "dy coordinate"};
+    private final static String[] ABSOLUTE_SHORTHAND_CURVE = {"x2 coordinate", "y2 coordinate", "x coordinate", "y coordinate"};
+    private final static String[] RELATIVE_SHORTHAND_CURVE = {"dx2 coordinate", "dy2 coordinate", "dx coordinate", "dy coordinate"};
+    private final static String[] ABSOLUTE_QUAD = {"x1 coordinate", "y1 coordinate", "x coordinate", "y coordinate"};
+    private final static String[] RELATIVE_QUAD = {"dx1 coordinate", "dy1 coordinate", "dx coordinate", "dy coordinate"};
+    private final static String[] ARC = {"rx coordinate", "ry coordinate", "x-axis-rotation", "large-arc-flag", "sweep-flag", "x coordinate", "y coordinate"};
+    private CharSequence str;
+    private int pos;
+    private int end;
+    /**
+     * Start position of the current number.
+     */
+    private int start;
+    /**
+     * The current command.
+     */
+    private char command;
+    /**
+     * The numbers of the current command.
+     */
+    private final double[] args = new double[7];
+    private final ArrayList<BezierPath> paths = new ArrayList<BezierPath>();
+
+    /** Creates a new instance. */
+    public SVGPathParser() {
+    }
+
+    /**
+     * Parses the specified path data.
+     * <p>
+     * If the path data contains an illegal command, parsing stops, and the
+     * paths up to the illegal command are returned.
+     *
+     * @param str The path data.
+     * @return An array with one BezierPath for each moveto command.
+     * @throws IOException if a number is missing, or if the path data does
+     * not start with a moveto command.
+     */
+    public BezierPath[] parse(CharSequence str) throws IOException {
+        this.str = str;
+        pos = 0;
+        end = str.length();
+        paths.clear();
+        try {
+            parse();
+            return paths.toArray(new BezierPath[paths.size()]);
+        } finally {
+            this.str = null;
+            paths.clear();
+        }
+    }
+
+    private void parse() throws IOException {
+        BezierPath path = null;
+        BezierPath.Node node;
+        double px = 0, py = 0;
+        double c1x, c1y;
+        char nextCommand = 'M';
+
+        Commands:
+        while (skipSeparators()) {
+            char c = str.charAt(pos);
+            if (isNumberStart(c)) {
+                command = nextCommand;
+            } else {
+                command = c;
+                pos++;
+            }
+
+            if (path == null && command != 'M' && command != 'm') {
+                if (isCommand(command)) {
+                    throw new IOException("moveto missing before '" + command + "' at position " + (pos - 1) + " in " + str);
+                }
+                break;
+            }
+
+            switch (command) {
+                case 'M':
+                    // absolute-moveto x y
+                    readNumbers(ABSOLUTE_XY);
+                    px = args[0];
+                    py = args[1];
+                    path = new BezierPath();
+                    path.ensureCapacity(estimateNodes());
+                    paths.add(path);
+                    path.moveTo(px, py);
+                    nextCommand = 'L';
+                    break;
+                case 'm':
+                    // relative-moveto dx dy
+                    readNumbers(RELATIVE_XY);
+                    px += args[0];
+                    py += args[1];
+                    path = new BezierPath();
+                    path.ensureCapacity(estimateNodes());
+                    paths.add(path);
+                    path.moveTo(px, py);
+                    nextCommand = 'l';
+                    break;
+                case 'Z':
+                case 'z':
+                    // close path
+                    node = path.get(0);
+                    px = node.x[0];
+                    py = node.y[0];
+
+                    // If the last point and the first point are the same, we
+                    // can merge them
+                    if (path.size() > 1) {
+                        BezierPath.Node last = path.get(path.size() - 1);
+                        if (node.x[0] == last.x[0] &&
+                                node.y[0] == last.y[0]) {
+                            if ((last.mask & BezierPath.C1_MASK) != 0) {
+                                node.mask |= BezierPath.C1_MASK;
+                                node.x[1] = last.x[1];
+                                node.y[1] = last.y[1];
+                            }
+                            path.remove(path.size() - 1);
+                        }
+                    }
+                    path.setClosed(true);
+                    break;
+                case 'L':
+                    // absolute-lineto x y
+                    readNumbers(ABSOLUTE_XY);
+                    px = args[0];
+                    py = args[1];
+                    path.lineTo(px, py);
+                    nextCommand = 'L';
+                    break;
+                case 'l':
+                    // relative-lineto dx dy
+                    readNumbers(RELATIVE_XY);
+                    px += args[0];
+                    py += args[1];
+                    path.lineTo(px, py);
+                    nextCommand = 'l';
+                    break;
+                case 'H':
+                    // absolute-horizontal-lineto x
+                    readNumbers(ABSOLUTE_X);
+                    px = args[0];
+                    path.lineTo(px, py);
+                    nextCommand = 'H';
+                    break;
+                case 'h':
+                    // relative-horizontal-lineto dx
+                    readNumbers(RELATIVE_X);
+                    px += args[0];
+                    path.lineTo(px, py);
+                    nextCommand = 'h';
+                    break;
+                case 'V':
+                    // absolute-vertical-lineto y
+                    readNumbers(ABSOLUTE_Y);
+                    py = args[0];
+                    path.lineTo(px, py);
+                    nextCommand = 'V';
+                    break;
+                case 'v':
+                    // relative-vertical-lineto dy
+                    readNumbers(RELATIVE_Y);
+                    py += args[0];
+                    path.lineTo(px, py);
+                    nextCommand = 'v';
+                    break;
+                case 'C':
+                    // absolute-curveto x1 y1 x2 y2 x y
+                    readNumbers(ABSOLUTE_CURVE);
+                    px = args[4];
+                    py = args[5];
+                    path.curveTo(args[0], args[1], args[2], args[3], px, py);
+                    nextCommand = 'C';
+                    break;
+                case 'c':
+                    // relative-curveto dx1 dy1 dx2 dy2 dx dy
+                    readNumbers(RELATIVE_CURVE);
+                    path.curveTo(px + args[0], py + args[1], px + args[2], py + args[3],
+                            px += args[4], py += args[5]);
+                    nextCommand = 'c';
+                    break;
+                case 'S':
+                    // absolute-shorthand-curveto x2 y2 x y
+                    node = path.get(path.size() - 1);
+                    c1x = node.x[0] * 2d - node.x[1];
+                    c1y = node.y[0] * 2d - node.y[1];
+                    readNumbers(ABSOLUTE_SHORTHAND_CURVE);
+                    px = args[2];
+                    py = args[3];
+                    path.curveTo(c1x, c1y, args[0], args[1], px, py);
+                    nextCommand = 'S';
+                    break;
+                case 's':
+                    // relative-shorthand-curveto dx2 dy2 dx dy
+                    node = path.get(path.size() - 1);
+                    c1x = node.x[0] * 2d - node.x[1];
+                    c1y = node.y[0] * 2d - node.y[1];
+                    readNumbers(RELATIVE_SHORTHAND_CURVE);
+                    path.curveTo(c1x, c1y, px + args[0], py + args[1],
+                            px += args[2], py += args[3]);
+                    nextCommand = 's';
+                    break;
+                case 'Q':
+                    // absolute-quadto x1 y1 x y
+                    readNumbers(ABSOLUTE_QUAD);
+                    px = args[2];
+                    py = args[3];
+                    path.quadTo(args[0], args[1], px, py);
+                    nextCommand = 'Q';
+                    break;
+                case 'q':
+                    // relative-quadto dx1 dy1 dx dy
+                    readNumbers(RELATIVE_QUAD);
+                    path.quadTo(px + args[0], py + args[1], px += args[2], py += args[3]);
+                    nextCommand = 'q';
+                    break;
+                case 'T':
+                    // absolute-shorthand-quadto x y
+                    node = path.get(path.size() - 1);
+                    c1x = node.x[0] * 2d - node.x[1];
+                    c1y = node.y[0] * 2d - node.y[1];
+                    readNumbers(ABSOLUTE_XY);
+                    px = args[0];
+                    py = args[1];
+                    path.quadTo(c1x, c1y, px, py);
+                    nextCommand = 'T';
+                    break;
+                case 't':
+                    // relative-shorthand-quadto dx dy
+                    node = path.get(path.size() - 1);
+                    c1x = node.x[0] * 2d - node.x[1];
+                    c1y = node.y[0] * 2d - node.y[1];
+                    readNumbers(RELATIVE_XY);
+                    px += args[0];
+                    py += args[1];
+                    path.quadTo(c1x, c1y, px, py);
+                    nextCommand = 't';
+                    break;
+                case 'A':
+                    // absolute-elliptical-arc rx ry x-axis-rotation large-arc-flag sweep-flag x y
+                    readNumbers(ARC);
+                    px = args[5];
+                    py = args[6];
+                    path.arcTo(args[0], args[1], args[2], args[3] != 0, args[4] != 0, px, py);
+                    nextCommand = 'A';
+                    break;
+                case 'a':
+                    // relative-elliptical-arc rx ry x-axis-rotation large-arc-flag sweep-flag dx dy
+                    readNumbers(ARC);
+                    px += args[5];
+                    py += args[6];
+                    path.arcTo(args[0], args[1], args[2], args[3] != 0, args[4] != 0, px, py);
+                    nextCommand = 'a';
+                    break;
+                default:
+                    break Commands;
+            }
+        }
+    }
+
+    /**
+     * Reads the numbers of the current command into {@code args}.
+     *
+     * @param names The names of the numbers. The length of the array
+     * determines how many numbers are read.
+     */
+    private void readNumbers(String[] names) throws IOException {
+        boolean isArc = names == ARC;
+        for (int i = 0; i < names.length; i++) {
+            // The flags of an arc are single digits, which need not be
+            // separated from the following number.
+            if (isArc && (i == 3 || i == 4) ? !nextFlag(i) : !nextNumber(i)) {
+                throw new IOException(names[i] + " missing for '" + command + "' at position " + start + " in " + str);
+            }
+        }
+    }
+
+    /**
+     * Skips white space and commas.
+     *
+     * @return false if the end of the path data has been reached.
+     */
+    private boolean skipSeparators() {
+        while (pos < end) {
+            char c = str.charAt(pos);
+            if (c > ' ' && c != ',') {
+                return true;
+            }
+            pos++;
+        }
+        return false;
+    }
+
+    private static boolean isNumberStart(char c) {
+        return c >= '0' && c <= '9' || c == '.' || c == '-' || c == '+';
+    }
+
+    private static boolean isCommand(char c) {
+        switch (c) {
+            case 'M':
+            case 'm':
+            case 'Z':
+            case 'z':
+            case 'L':
+            case 'l':
+            case 'H':
+            case 'h':
+            case 'V':
+            case 'v':
+            case 'C':
+            case 'c':
+            case 'S':
+            case 's':
+            case 'Q':
+            case 'q':
+            case 'T':
+            case 't':
+            case 'A':
+            case 'a':
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Reads a flag into {@code args[index]}.
+     *
+     * @return false if there is no flag at the current position.
+     */
+    private boolean nextFlag(int index) {
+        skipSeparators();
+        start = pos;
+        if (pos < end) {
+            char c = str.charAt(pos);
+            if (c == '0' || c == '1') {
+                args[index] = c - '0';
+                pos++;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Reads a number into {@code args[index]}.
+     * <p>
+     * The digits are accumulated into a long mantissa and a decimal
+     * exponent. If both can be represented exactly by doubles, the number is
+     * computed with a single multiplication or division, which yields
+     * the correctly rounded result. Otherwise the number is converted with
+     * {@code Double.parseDouble}.
+     *
+     * @return false if there is no number at the current position.
+     */
+    private boolean nextNumber(int index) {
+        skipSeparators();
+        start = pos;
+        int i = pos;
+        char c = (i < end) ? str.charAt(i) : '\0';
+        boolean isNegative = false;
+        if (c == '-' || c == '+') {
+            isNegative = c == '-';
+            c = (++i < end) ? str.charAt(i) : '\0';
+        }
+        long mantissa = 0;
+        int digits = 0;
+        int exponent = 0;
+        boolean isExact = true;
+        boolean hasDigits = false;
+        for (; c >= '0' && c <= '9'; c = (++i < end) ? str.charAt(i) : '\0') {
+            hasDigits = true;
+            if (digits < 18) {
+                mantissa = mantissa * 10 + (c - '0');
+                if (mantissa != 0) {
+                    digits++;
+                }
+            } else {
+                exponent++;
+                isExact &= c == '0';
+            }
+        }
+        if (c == '.') {
+            for (c = (++i < end) ? str.charAt(i) : '\0'; c >= '0' && c <= '9'; c = (++i < end) ? str.charAt(i) : '\0') {
+                hasDigits = true;
+                if (digits < 18) {
+                    mantissa = mantissa * 10 + (c - '0');
+                    if (mantissa != 0) {
+                        digits++;
+                    }
+                    exponent--;
+                } else {
+                    isExact &= c == '0';
+                }
+            }
+        }
+        if (!hasDigits) {
+            return false;
+        }
+        if (c == 'e' || c == 'E') {
+            // The exponent is only consumed, if it contains digits
+            int j = i + 1;
+            char ec = (j < end) ? str.charAt(j) : '\0';
+            boolean isNegativeExponent = false;
+            if (ec == '-' || ec == '+') {
+                isNegativeExponent = ec == '-';
+                ec = (++j < end) ? str.charAt(j) : '\0';
+            }
+            if (ec >= '0' && ec <= '9') {
+                int e = 0;
+                for (; ec >= '0' && ec <= '9'; ec = (++j < end) ? str.charAt(j) : '\0') {
+                    if (e < 100000) {
+                        e = e * 10 + (ec - '0');
+                    }
+                }
+                exponent += isNegativeExponent ? -e : e;
+                i = j;
+            }
+        }
+        pos = i;
+
+        double value;
+        if (mantissa == 0) {
+            value = 0d;
+        } else if (isExact && mantissa <= MAX_EXACT_MANTISSA &&
+                exponent >= -22 && exponent <= 22) {
+            value = (exponent < 0) ? mantissa / POWERS_OF_TEN[-exponent] : mantissa * POWERS_OF_TEN[exponent];
+        } else {
+            value = Double.parseDouble(str.subSequence(start, pos).toString());
+            isNegative = false;
+        }
+        args[index] = isNegative ? -value : value;
+        return true;
+    }
+
+    /**
+     * Estimates the number of nodes of the current subpath, by counting the
+     * commands and numbers up to the next moveto command.
+     */
+    private int estimateNodes() {
+        // The moveto node, and the implicit lineto commands following it
+        int nodes = 1;
+        int numbers = 0;
+        int arity = 2;
+        int nodesPerCommand = 1;
+        boolean isImplicit = true;
+        boolean inNumber = false;
+        boolean hasDot = false;
+        Scan:
+        for (int i = pos; i < end; i++) {
+            char c = str.charAt(i);
+            if (c >= '0' && c <= '9') {
+                if (!inNumber) {
+                    numbers++;
+                    inNumber = true;
+                    hasDot = false;
+                }
+            } else if (c == '.') {
+                if (!inNumber || hasDot) {
+                    numbers++;
+                    inNumber = true;
+                }
+                hasDot = true;
+            } else if (c == '-' || c == '+') {
+                char prev = str.charAt(i - 1);
+                if (prev != 'e' && prev != 'E') {
+                    numbers++;
+                    inNumber = true;
+                    hasDot = false;
+                }
+            } else if ((c == 'e' || c == 'E') && inNumber) {
+                // The dot of a fraction can not follow the exponent
+                hasDot = true;
+            } else {
+                inNumber = false;
+                if (c > ' ' && c != ',') {
+                    nodes += nodesPerCommand * (isImplicit ? numbers / arity : Math.max(1, numbers / arity));
+                    numbers = 0;
+                    isImplicit = false;
+                    switch (c) {
+                        case 'M':
+                        case 'm':
+                            break Scan;
+                        case 'Z':
+                        case 'z':
+                            nodesPerCommand = 0;
+                            break;
+                        case 'H':
+                        case 'h':
+                        case 'V':
+                        case 'v':
+                            arity = 1;
+                            nodesPerCommand = 1;
+                            break;
+                        case 'C':
+                        case 'c':
+                            arity = 6;
+                            nodesPerCommand = 1;
+                            break;
+                        case 'S':
+                        case 's':
+                        case 'Q':
+                        case 'q':
+                            arity = 4;
+                            nodesPerCommand = 1;
+                            break;
+                        case 'A':
+                        case 'a':
+                            // An arc needs up to four curve segments
+                            arity = 7;
+                            nodesPerCommand = 4;
+                            break;
+                        default:
+                            arity = 2;
+                            nodesPerCommand = 1;
+                            break;
+                    }
+                }
+            }
+        }
+        return nodes + nodesPerCommand * (isImplicit ? numbers / arity : Math.max(1, numbers / arity));
+    }
+}
@@ -27,7 +27,8 @@ import org.jhotdraw.util.*;
  * redo operations.
  *
  * @author  Werner Randelshofer
- * @version 1.3.1 2006-04-12 Method setLocale added.
+ * @version 1.4 2026-10-18 Method getRevision added.
+ * <br>1.3.1 2006-04-12 Method setLocale added.
  * <br>1.3 2006-02-28 Support for PropertyChangeListener added.
  * <br>1.2.2 2006-02-25 Configure actions from resource bundle.
  * <br>1.2.1 2003-11-02 Adapted to changes in ResourceBundleUtil.
@@ -63,6 +64,10 @@ public class UndoRedoManager extends UndoManager {//javax.swing.undo.UndoManager
      * this flag is true.
      */
     private boolean undoOrRedoInProgress;
+    /**
+     * The revision is incremented on each edit, undo and redo.
+     */
+    private int revision;
     
     /**
      * Sending this UndoableEdit event to the UndoRedoManager
@@ -151,6 +156,7 @@ public class UndoRedoManager extends UndoManager {//javax.swing.undo.UndoManager
      * Discards all edits.
      */
     public void discardAllEdits() {
+        revision++;
         super.discardAllEdits();
         updateActions();
         setHasSignificantEdits(false);
@@ -193,12 +199,22 @@ public class UndoRedoManager extends UndoManager {//javax.swing.undo.UndoManager
             return true;
         }
         boolean success = super.addEdit(anEdit);
+        revision++;
         updateActions();
         if (success && anEdit.isSignificant() && editToBeUndone() == anEdit) {
             setHasSignificantEdits(true);
         }
         return success;
     }
+    /**
+     * Returns the revision of the edited document. The revision changes,
+     * whenever an edit is added, undone or redone. Two equal revisions
+     * indicate that the document has not been changed in between.
+     */
+    public int getRevision() {
+        return revision;
+    }
+
     /**
      * Gets the undo action for use as an Undo menu item.
      */
@@ -256,6 +272,7 @@ public class UndoRedoManager extends UndoManager {//javax.swing.undo.UndoManager
             super.undo();
         } finally {
             undoOrRedoInProgress = false;
+            revision++;
             updateActions();
         }
     }
@@ -272,6 +289,7 @@ public class UndoRedoManager extends UndoManager {//javax.swing.undo.UndoManager
             super.redo();
         } finally {
             undoOrRedoInProgress = false;
+            revision++;
             updateActions();
         }
     }
@@ -288,6 +306,7 @@ public class UndoRedoManager extends UndoManager {//javax.swing.undo.UndoManager
             super.undoOrRedo();
         } finally {
             undoOrRedoInProgress = false;
+            revision++;
             updateActions();
         }
     }
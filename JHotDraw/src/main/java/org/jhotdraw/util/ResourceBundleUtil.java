@@ -1 +1 @@
-/* * @(#)ResourceBundleUtil.java  3.0  2009-02-14 * * Copyright (c) 1996-2009 by the original authors of JHotDraw * and all its contributors. * All rights reserved. * * The copyright of this software is owned by the authors and * contributors of the JHotDraw project ("the copyright holders"). * You may not use, copy or modify this software, except in * accordance with the license agreement you entered into with * the copyright holders. For details see accompanying license terms. */package org.jhotdraw.util;import java.io.IOException;import java.io.ObjectInputStream;import java.io.Serializable;import java.util.*;import javax.swing.*;import java.text.*;import java.net.*;/** * This is a convenience wrapper for accessing resources stored in a * ResourceBundle. * <p> * <b>Placeholders</b><br> * On top of the functionality provided by ResourceBundle, a property value * can include text from another property, by specifying the desired * property name between <code>"${"</code> and <code>"}"</code>. * <p> * For example, if there is a {@code "imagedir"} property with the value * {@code "/org/jhotdraw/undo/images"}, then this could be used in an attribute * like this: <code>${imagedir}/editUndo.png</code>. This is resolved at run-time * as {@code /org/jhotdraw/undo/images/editUndo.png}. * <p> * Property names in placeholders can contain modifiers. Modifiers are written * between @code "[$"} and {@code "]"}. Each modifier has a fallback chain. * <p> * For example, if the property name modifier {@code "os"} has the value "win", * and its fallback chain is {@code "mac","default"}, then the property name * <code>${preferences.text.[$os]}</code> is first evaluted to {@code * preferences.text.win},  and - if no property with this name exists - * it is evaluated to {@code preferences.text.mac}, and then to * {@code preferences.text.default}. * <p> * The property name modifier "os" is defined by default. It can assume the * values "win", "mac" and "other". Its fallback chain is "default". * * @author  Werner Randelshofer, Staldenmattweg 2, CH-6405 Immensee, Switzerland * @version 3.0 2009-03-14 Got rid of platform-specific property files and * am using property name placeholders now. * <br>2.0 2008-10-05 Refactored - got rid of the 'hungarian'-style suffixes *                          "mnem","acc","tip". The suffixes are now JavaBeans *                          property names "text", "mnemonic", "accelerator", *                          "toolTipText". Added support for String-formatting *                          using java.util.Formatter. * <br>     1.7.1 2006-12-11 Method configureToolBarButton sets the text of the *                           button when no image is provided. * <br>     1.7 2006-05-06 Suffixes changed. Redirection via LocaleUtil added. * <br>     1.6.1 2006-04-12 Method getWrappedBundle() added. * <br>     1.6 2006-03-15  Method setBaseClass/getBaseClass added. * <br>     1.5 2006-02-15   Methods getInteger, getBundle, configureButton *                            and getToolTipTextProperty() added. * <br>      1.4 2005-01-04   Methods configureAction and configureMenu added. * <br>      1.3 2001-10-10   The default resource name changed from 'name_Metal' *                            to 'name'. * <br>      1.2 2001-07-23   Adaptation to JDK 1.3 in progress. * <br>      1.0 2000-06-10   Created. */public class ResourceBundleUtil implements Serializable {    /** The wrapped resource bundle. */    private transient ResourceBundle resource;    /** The locale. */    private Locale locale;    private Class baseClass = getClass();    /**     * The base name of the resource bundle.     */    private String baseName;    /**     * The global verbose property.     */    private static boolean isVerbose = false;    /**     * The global map of property name modifiers.     * The key of this map is the name of the property name modifier,     * the value of this map is a fallback chain.     */    private static HashMap<String, String[]> propertyNameModifiers = new HashMap<String, String[]>();    static {        String osName = System.getProperty("os.name").toLowerCase();        String os;        if (osName.startsWith("mac os x")) {            os = "mac";        } else if (osName.startsWith("windows")) {            os = "win";        } else {            os = "other";        }        propertyNameModifiers.put("os", new String[]{os, "default"});    }    /**     * Creates a new ResouceBundleUtil which wraps     * the provided resource bundle.     */    public ResourceBundleUtil(String baseName, Locale locale) {        this.locale = locale;        this.baseName = baseName;        this.resource = ResourceBundle.getBundle(baseName, locale);    }    /**     * Returns the wrapped resource bundle.     * @return The wrapped resource bundle.     */    public ResourceBundle getWrappedBundle() {        return resource;    }    /**     * Get a String from the ResourceBundle.     * <br>Convenience method to save casting.     *     * @param key The key of the property.     * @return The value of the property. Returns the key     *          if the property is missing.     */    public String getString(String key) {        try {            String value = getStringRecursive(key);            // System.out.println("ResourceBundleUtil "+baseName+" get("+key+"):"+value);            return value;        } catch (MissingResourceException e) {            // System.out.println("ResourceBundleUtil "+baseName+" get("+key+"):***MISSING***");            if (isVerbose) {                System.err.println("Warning ResourceBundleUtil[" + baseName + "] \"" + key + "\" not found.");            //e.printStackTrace();            }            return key;        }    }    /**     * Recursive part of the getString method.     *     * @param key     * @return     * @throws java.util.MissingResourceException     */    private String getStringRecursive(String key) throws MissingResourceException {        String value = resource.getString(key);        // Substitute placeholders in the value        for (int p1 = value.indexOf("${"); p1 != -1; p1 = value.indexOf("${")) {            int p2 = value.indexOf('}', p1 + 2);            if (p2 == -1) {                break;            }            String placeholderKey = value.substring(p1 + 2, p2);            ArrayList<String> fallbackKeys = new ArrayList<String>();            generateFallbackKeys(placeholderKey, fallbackKeys);            boolean resourceFound = false;            for (String fk : fallbackKeys) {                try {                    value = value.substring(0, p1) + getStringRecursive(fk) + value.substring(p2 + 1);                    resourceFound = true;                    break;                } catch (MissingResourceException e) {                }            }            if (resourceFound == false) {                throw new MissingResourceException("Resource not found.", baseName, key);            }        }        return value;    }    /**     * Generates fallback keys by processing all property name modifiers     * in the key.     */    private void generateFallbackKeys(String key, ArrayList<String> fallbackKeys) {        int p1 = key.indexOf("[$");        if (p1 == -1) {            fallbackKeys.add(key);        } else {            int p2 = key.indexOf(']', p1 + 2);            if (p2 == -1) {                return;            }            String modifierKey = key.substring(p1 + 2, p2);            String[] modifierValues = propertyNameModifiers.get(modifierKey);            if (modifierValues == null) {                modifierValues = new String[]{"default"};            }            for (String mv : modifierValues) {                generateFallbackKeys(key.substring(0, p1) + mv + key.substring(p2 + 1), fallbackKeys);            }        }    }    /**     * Returns a formatted string using javax.text.MessageFormat.     * @param key     * @param arguments     * @return formatted String     */    public String getFormatted(String key, Object... arguments) {        return MessageFormat.format(getString(key), arguments);    }    /**     * Returns a formatted string using java.util.Formatter().     * @param key     * @param arguments     * @return formatted String     */    public String format(String key, Object... arguments) {        //return String.format(resource.getLocale(), getString(key), arguments);        return new Formatter(resource.getLocale()).format(getString(key), arguments).toString();    }    /**     * Get an Integer from the ResourceBundle.     * <br>Convenience method to save casting.     *     * @param key The key of the property.     * @return The value of the property. Returns -1     *          if the property is missing.     */    public Integer getInteger(String key) {        try {            return Integer.valueOf(getStringRecursive(key));        } catch (MissingResourceException e) {            if (isVerbose) {                System.err.println("Warning ResourceBundleUtil[" + baseName + "] \"" + key + "\" not found.");            //e.printStackTrace();            }            return new Integer(-1);        }    }    /**     * Get an image icon from the ResourceBundle.     * <br>Convenience method .     *     * @param key The key of the property. This method appends ".icon" to the key.     * @return The value of the property. Returns null     *          if the property is missing.     */    public ImageIcon getIconProperty(String key, Class baseClass) {        try {            String rsrcName = getStringRecursive(key + ".icon");            if (rsrcName.equals("")) {                return null;            }            URL url = baseClass.getResource(rsrcName);            if (isVerbose && url == null) {                System.err.println("Warning ResourceBundleUtil[" + baseName + "].getIconProperty \"" + key + ".icon\" not found.");            }            return (url == null) ? null : new ImageIcon(url);        } catch (MissingResourceException e) {            if (isVerbose) {                System.err.println("Warning ResourceBundleUtil[" + baseName + "].getIconProperty \"" + key + ".icon\" not found.");            //e.printStackTrace();            }            return null;        }    }    /**     * Get a Mnemonic from the ResourceBundle.     * <br>Convenience method.     *     * @param key The key of the property.     * @return The first char of the value of the property.     *          Returns '\0' if the property is missing.     */    public char getMnemonic(String key) {        String s = getStringRecursive(key);        return (s == null || s.length() == 0) ? '\0' : s.charAt(0);    }    /**     * Gets a char for a JavaBeans "mnemonic" property from the ResourceBundle.     * <br>Convenience method.     *     * @param key The key of the property. This method appends ".mnemonic" to the key.     * @return The first char of the value of the property.     *          Returns '\0' if the property is missing.     */    public char getMnemonicProperty(String key) {        String s;        try {            s = getStringRecursive(key + ".mnemonic");        } catch (MissingResourceException e) {            if (isVerbose) {                System.err.println("Warning ResourceBundleUtil[" + baseName + "] \"" + key + ".mnemonic\" not found.");            //e.printStackTrace();            }            s = null;        }        return (s == null || s.length() == 0) ? '\0' : s.charAt(0);    }    /**     * Get a String for a JavaBeans "toolTipText" property from the ResourceBundle.     * <br>Convenience method.     *     * @param key The key of the property. This method appends ".toolTipText" to the key.     * @return The ToolTip. Returns null if no tooltip is defined.     */    public String getToolTipTextProperty(String key) {        try {            String value = getStringRecursive(key + ".toolTipText");            return value;        } catch (MissingResourceException e) {            if (isVerbose) {                System.err.println("Warning ResourceBundleUtil[" + baseName + "] \"" + key + ".toolTipText\" not found.");            //e.printStackTrace();            }            return null;        }    }    /**     * Get a String for a JavaBeans "text" property from the ResourceBundle.     * <br>Convenience method.     *     * @param key The key of the property. This method appends ".text" to the key.     * @return The ToolTip. Returns null if no tooltip is defined.     */    public String getTextProperty(String key) {        try {            String value = getStringRecursive(key + ".text");            return value;        } catch (MissingResourceException e) {            if (isVerbose) {                System.err.println("Warning ResourceBundleUtil[" + baseName + "] \"" + key + ".text\" not found.");            //e.printStackTrace();            }            return null;        }    }    /**     * Get a KeyStroke from the ResourceBundle.     * <BR>Convenience method.     *     * @param key The key of the property.     * @return <code>javax.swing.KeyStroke.getKeyStroke(value)</code>.     *          Returns null if the property is missing.     */    public KeyStroke getKeyStroke(String key) {        KeyStroke ks = null;        try {            String s = getStringRecursive(key);            ks = (s == null) ? (KeyStroke) null : KeyStroke.getKeyStroke(s);        } catch (NoSuchElementException e) {        }        return ks;    }    /**     * Gets a KeyStroke for a JavaBeans "accelerator" property from the ResourceBundle.     * <BR>Convenience method.     *     * @param key The key of the property. This method adds ".accelerator" to the key.     * @return <code>javax.swing.KeyStroke.getKeyStroke(value)</code>.     *          Returns null if the property is missing.     */    public KeyStroke getAcceleratorProperty(String key) {        KeyStroke ks = null;        try {            String s;            s = getStringRecursive(key + ".accelerator");            ks = (s == null) ? (KeyStroke) null : KeyStroke.getKeyStroke(s);        } catch (MissingResourceException e) {            if (isVerbose) {                System.err.println("Warning ResourceBundleUtil[" + baseName + "] \"" + key + ".accelerator\" not found.");            //e.printStackTrace();            }        } catch (NoSuchElementException e) {        }        return ks;    }    /**     * Get the appropriate ResourceBundle subclass.     *     * @see java.util.ResourceBundle     */    public static ResourceBundleUtil getBundle(String baseName)            throws MissingResourceException {        return getBundle(baseName, LocaleUtil.getDefault());    }    public void setBaseClass(Class baseClass) {        this.baseClass = baseClass;    }    public Class getBaseClass() {        return baseClass;    }    public void configureAction(Action action, String argument) {        configureAction(action, argument, getBaseClass());    }    public void configureAction(Action action, String argument, Class baseClass) {        action.putValue(Action.NAME, getTextProperty(argument));        String shortDescription = getToolTipTextProperty(argument);        if (shortDescription != null && shortDescription.length() > 0) {            action.putValue(Action.SHORT_DESCRIPTION, shortDescription);        }        action.putValue(Action.ACCELERATOR_KEY, getAcceleratorProperty(argument));        action.putValue(Action.MNEMONIC_KEY, new Integer(getMnemonicProperty(argument)));        action.putValue(Action.SMALL_ICON, getIconProperty(argument, baseClass));    }    public void configureButton(AbstractButton button, String argument) {        configureButton(button, argument, getBaseClass());    }    public void configureButton(AbstractButton button, String argument, Class baseClass) {        button.setText(getTextProperty(argument));        //button.setACCELERATOR_KEY, getAcceleratorProperty(argument));        //action.putValue(Action.MNEMONIC_KEY, new Integer(getMnemonicProperty(argument)));        button.setIcon(getIconProperty(argument, baseClass));        button.setToolTipText(getToolTipTextProperty(argument));    }    public void configureToolBarButton(AbstractButton button, String argument) {        configureToolBarButton(button, argument, getBaseClass());    }    public void configureToolBarButton(AbstractButton button, String argument, Class baseClass) {        Icon icon = getIconProperty(argument, baseClass);        if (icon != null) {            button.setIcon(getIconProperty(argument, baseClass));            button.setText(null);        } else {            button.setIcon(null);            button.setText(getTextProperty(argument));        }        button.setToolTipText(getToolTipTextProperty(argument));    }    public void configureMenu(JMenuItem menu, String argument) {        menu.setText(getTextProperty(argument));        if (!(menu instanceof JMenu)) {            menu.setAccelerator(getAcceleratorProperty(argument));        }        menu.setMnemonic(getMnemonicProperty(argument));        menu.setIcon(getIconProperty(argument, baseClass));    }    public JMenuItem createMenuItem(Action a, String baseName) {        JMenuItem mi = new JMenuItem();        mi.setAction(a);        configureMenu(mi, baseName);        return mi;    }    /**     * Get the appropriate ResourceBundle subclass.     *     * @see java.util.ResourceBundle     */    public static ResourceBundleUtil getBundle(String baseName, Locale locale)            throws MissingResourceException {        ResourceBundleUtil r;        r = new ResourceBundleUtil(baseName,locale);        return r;    }    @Override    public String toString() {        return super.toString() + "[" + resource + "]";    }    public static void setVerbose(boolean newValue) {        isVerbose = newValue;    }    public static boolean isVerbose() {        return isVerbose;    }    /**     * Puts a property name modifier along with a fallback chain.     *     * @param name The name of the modifier.     * @param fallbackChain The fallback chain of the modifier.     */    public static void putPropertyNameModifier(String name, String... fallbackChain) {        propertyNameModifiers.put(name, fallbackChain);    }    /**     * Removes a property name modifier.     */    public static void removePropertyNameModifier(String name) {        propertyNameModifiers.remove(name);    }    /** Read object from ObjectInputStream and re-establish ResourceBundle. */    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {        // our "pseudo-constructor"        in.defaultReadObject();        // re-establish the "resource" variable        this.resource = ResourceBundle.getBundle(baseName, locale);    }}
\ No newline at end of file
+/* * @(#)ResourceBundleUtil.java  3.0  2009-02-14 * * Copyright (c) 1996-2009 by the original authors of JHotDraw * and all its contributors. * All rights reserved. * * The copyright of this software is owned by the authors and * contributors of the JHotDraw project ("the copyright holders"). * You may not use, copy or modify this software, except in * accordance with the license agreement you entered into with * the copyright holders. For details see accompanying license terms. */package org.jhotdraw.util;import java.io.IOException;import java.io.ObjectInputStream;import java.io.Serializable;import java.util.*;import javax.swing.*;import java.text.*;import java.net.*;/** * This is a convenience wrapper for accessing resources stored in a * ResourceBundle. * <p> * <b>Placeholders</b><br> * On top of the functionality provided by ResourceBundle, a property value * can include text from another property, by specifying the desired * property name between <code>"${"</code> and <code>"}"</code>. * <p> * For example, if there is a {@code "imagedir"} property with the value * {@code "/org/jhotdraw/undo/images"}, then this could be used in an attribute * like this: <code>${imagedir}/editUndo.png</code>. This is resolved at run-time * as {@code /org/jhotdraw/undo/images/editUndo.png}. * <p> * Property names in placeholders can contain modifiers. Modifiers are written * between @code "[$"} and {@code "]"}. Each modifier has a fallback chain. * <p> * For example, if the property name modifier {@code "os"} has the value "win", * and its fallback chain is {@code "mac","default"}, then the property name * <code>${preferences.text.[$os]}</code> is first evaluted to {@code * preferences.text.win},  and - if no property with this name exists - * it is evaluated to {@code preferences.text.mac}, and then to * {@code preferences.text.default}. * <p> * The property name modifier "os" is defined by default. It can assume the * values "win", "mac" and "other". Its fallback chain is "default". * <p> * <b>Caching</b><br> * Method {@code getBundle} returns the same instance for the same base name * and locale. Resolved property values are memoized by each instance, and * icons are shared by all instances. * * @author  Werner Randelshofer, Staldenmattweg 2, CH-6405 Immensee, Switzerland * @version 3.2 2026-10-18 Added method prefetchIcons. * <br>3.1 2026-10-18 Bundles, resolved property values and icons are * cached. * <br>3.0 2009-03-14 Got rid of platform-specific property files and * am using property name placeholders now. * <br>2.0 2008-10-05 Refactored - got rid of the 'hungarian'-style suffixes *                          "mnem","acc","tip". The suffixes are now JavaBeans *                          property names "text", "mnemonic", "accelerator", *                          "toolTipText". Added support for String-formatting *                          using java.util.Formatter. * <br>     1.7.1 2006-12-11 Method configureToolBarButton sets the text of the *                           button when no image is provided. * <br>     1.7 2006-05-06 Suffixes changed. Redirection via LocaleUtil added. * <br>     1.6.1 2006-04-12 Method getWrappedBundle() added. * <br>     1.6 2006-03-15  Method setBaseClass/getBaseClass added. * <br>     1.5 2006-02-15   Methods getInteger, getBundle, configureButton *                            and getToolTipTextProperty() added. * <br>      1.4 2005-01-04   Methods configureAction and configureMenu added. * <br>      1.3 2001-10-10   The default resource name changed from 'name_Metal' *                            to 'name'. * <br>      1.2 2001-07-23   Adaptation to JDK 1.3 in progress. * <br>      1.0 2000-06-10   Created. */public class ResourceBundleUtil implements Serializable {    /** The wrapped resource bundle. */    private transient ResourceBundle resource;    /** The locale. */    private Locale locale;    private Class baseClass = getClass();    /**     * The base name of the resource bundle.     */    private String baseName;    /**     * The global verbose property.     */    private static boolean isVerbose = false;    /**     * The global map of property name modifiers.     * The key of this map is the name of the property name modifier,     * the value of this map is a fallback chain.     */    private static HashMap<String, String[]> propertyNameModifiers = new HashMap<String, String[]>();    /**     * The global cache of bundles. The key is the base name and the locale.     */    private final static HashMap<String, ResourceBundleUtil> bundles = new HashMap<String, ResourceBundleUtil>();    /**     * The global cache of icons. The key is the name of the base class and     * the resource name of the icon. Missing icons are cached as null values.     */    private final static HashMap<String, ImageIcon> icons = new HashMap<String, ImageIcon>();    /**     * Marks a missing property in the cache of resolved values.     */    private final static Object MISSING = new Object();    /**     * Memoizes the values of the properties with all placeholders     * substituted. The values of missing properties are cached as MISSING.     */    private transient HashMap<String, Object> resolvedValues = new HashMap<String, Object>();    static {        String osName = System.getProperty("os.name").toLowerCase();        String os;        if (osName.startsWith("mac os x")) {            os = "mac";        } else if (osName.startsWith("windows")) {            os = "win";        } else {            os = "other";        }        propertyNameModifiers.put("os", new String[]{os, "default"});    }    /**     * Creates a new ResouceBundleUtil which wraps     * the provided resource bundle.     */    public ResourceBundleUtil(String baseName, Locale locale) {        this.locale = locale;        this.baseName = baseName;        this.resource = ResourceBundle.getBundle(baseName, locale);    }    /**     * Returns the wrapped resource bundle.     * @return The wrapped resource bundle.     */    public ResourceBundle getWrappedBundle() {        return resource;    }    /**     * Get a String from the ResourceBundle.     * <br>Convenience method to save casting.     *     * @param key The key of the property.     * @return The value of the property. Returns the key     *          if the property is missing.     */    public String getString(String key) {        try {            String value = getStringRecursive(key);            // System.out.println("ResourceBundleUtil "+baseName+" get("+key+"):"+value);            return value;        } catch (MissingResourceException e) {            // System.out.println("ResourceBundleUtil "+baseName+" get("+key+"):***MISSING***");            if (isVerbose) {                System.err.println("Warning ResourceBundleUtil[" + baseName + "] \"" + key + "\" not found.");            //e.printStackTrace();            }            return key;        }    }    /**     * Recursive part of the getString method.     *     * @param key     * @return     * @throws java.util.MissingResourceException     */    private String getStringRecursive(String key) throws MissingResourceException {        Object value;        synchronized (resolvedValues) {            value = resolvedValues.get(key);        }        if (value == null) {            try {                value = resolveString(key);            } catch (MissingResourceException e) {                value = MISSING;            }            synchronized (resolvedValues) {                resolvedValues.put(key, value);            }        }        if (value == MISSING) {            throw new MissingResourceException("Resource not found.", baseName, key);        }        return (String) value;    }    /**     * Gets a String from the ResourceBundle, and substitutes its placeholders.     */    private String resolveString(String key) throws MissingResourceException {        String value = resource.getString(key);        // Substitute placeholders in the value        for (int p1 = value.indexOf("${"); p1 != -1; p1 = value.indexOf("${")) {            int p2 = value.indexOf('}', p1 + 2);            if (p2 == -1) {                break;            }            String placeholderKey = value.substring(p1 + 2, p2);            ArrayList<String> fallbackKeys = new ArrayList<String>();            generateFallbackKeys(placeholderKey, fallbackKeys);            boolean resourceFound = false;            for (String fk : fallbackKeys) {                try {                    value = value.substring(0, p1) + getStringRecursive(fk) + value.substring(p2 + 1);                    resourceFound = true;                    break;                } catch (MissingResourceException e) {                }            }            if (resourceFound == false) {                throw new MissingResourceException("Resource not found.", baseName, key);            }        }        return value;    }    /**     * Generates fallback keys by processing all property name modifiers     * in the key.     */    private void generateFallbackKeys(String key, ArrayList<String> fallbackKeys) {        int p1 = key.indexOf("[$");        if (p1 == -1) {            fallbackKeys.add(key);        } else {            int p2 = key.indexOf(']', p1 + 2);            if (p2 == -1) {                return;            }            String modifierKey = key.substring(p1 + 2, p2);            String[] modifierValues = propertyNameModifiers.get(modifierKey);            if (modifierValues == null) {                modifierValues = new String[]{"default"};            }            for (String mv : modifierValues) {                generateFallbackKeys(key.substring(0, p1) + mv + key.substring(p2 + 1), fallbackKeys);            }        }    }    /**     * Returns a formatted string using javax.text.MessageFormat.     * @param key     * @param arguments     * @return formatted String     */    public String getFormatted(String key, Object... arguments) {        return MessageFormat.format(getString(key), arguments);    }    /**     * Returns a formatted string using java.util.Formatter().     * @param key     * @param arguments     * @return formatted String     */    public String format(String key, Object... arguments) {        //return String.format(resource.getLocale(), getString(key), arguments);        return new Formatter(resource.getLocale()).format(getString(key), arguments).toString();    }    /**     * Get an Integer from the ResourceBundle.     * <br>Convenience method to save casting.     *     * @param key The key of the property.     * @return The value of the property. Returns -1     *          if the property is missing.     */    public Integer getInteger(String key) {        try {            return Integer.valueOf(getStringRecursive(key));        } catch (MissingResourceException e) {            if (isVerbose) {                System.err.println("Warning ResourceBundleUtil[" + baseName + "] \"" + key + "\" not found.");            //e.printStackTrace();            }            return new Integer(-1);        }    }    /**     * Get an image icon from the ResourceBundle.     * <br>Convenience method .     *     * @param key The key of the property. This method appends ".icon" to the key.     * @return The value of the property. Returns null     *          if the property is missing.     */    public ImageIcon getIconProperty(String key, Class baseClass) {        try {            String rsrcName = getStringRecursive(key + ".icon");            if (rsrcName.equals("")) {                return null;            }            String iconKey = baseClass.getName() + ' ' + rsrcName;            synchronized (icons) {                if (icons.containsKey(iconKey)) {                    return icons.get(iconKey);                }            }            URL url = baseClass.getResource(rsrcName);            if (isVerbose && url == null) {                System.err.println("Warning ResourceBundleUtil[" + baseName + "].getIconProperty \"" + key + ".icon\" not found.");            }            ImageIcon icon = (url == null) ? null : new ImageIcon(url);            synchronized (icons) {                icons.put(iconKey, icon);            }            return icon;        } catch (MissingResourceException e) {            if (isVerbose) {                System.err.println("Warning ResourceBundleUtil[" + baseName + "].getIconProperty \"" + key + ".icon\" not found.");            //e.printStackTrace();            }            return null;        }    }    /**     * Loads all icons of the ResourceBundle into the icon cache, so that     * subsequent calls to getIconProperty return without decoding images.     * <p>     * The icons are resolved relative to the current base class.     * This method can be invoked on a worker thread.     */    public void prefetchIcons() {        Class<?> base = getBaseClass();        for (Enumeration<String> i = resource.getKeys(); i.hasMoreElements();) {            String key = i.nextElement();            if (key.endsWith(".icon")) {                try {                    String rsrcName = getStringRecursive(key);                    if (rsrcName.length() > 0 && !rsrcName.endsWith("/")) {                        getIconProperty(key.substring(0, key.length() - 5), base);                    }                } catch (MissingResourceException e) {                    // Icons with unresolvable names are reported, when                    // they are requested.                }            }        }    }    /**     * Get a Mnemonic from the ResourceBundle.     * <br>Convenience method.     *     * @param key The key of the property.     * @return The first char of the value of the property.     *          Returns '\0' if the property is missing.     */    public char getMnemonic(String key) {        String s = getStringRecursive(key);        return (s == null || s.length() == 0) ? '\0' : s.charAt(0);    }    /**     * Gets a char for a JavaBeans "mnemonic" property from the ResourceBundle.     * <br>Convenience method.     *     * @param key The key of the property. This method appends ".mnemonic" to the key.     * @return The first char of the value of the property.     *          Returns '\0' if the property is missing.     */    public char getMnemonicProperty(String key) {        String s;        try {            s = getStringRecursive(key + ".mnemonic");        } catch (MissingResourceException e) {            if (isVerbose) {                System.err.println("Warning ResourceBundleUtil[" + baseName + "] \"" + key + ".mnemonic\" not found.");            //e.printStackTrace();            }            s = null;        }        return (s == null || s.length() == 0) ? '\0' : s.charAt(0);    }    /**     * Get a String for a JavaBeans "toolTipText" property from the ResourceBundle.     * <br>Convenience method.     *     * @param key The key of the property. This method appends ".toolTipText" to the key.     * @return The ToolTip. Returns null if no tooltip is defined.     */    public String getToolTipTextProperty(String key) {        try {            String value = getStringRecursive(key + ".toolTipText");            return value;        } catch (MissingResourceException e) {            if (isVerbose) {                System.err.println("Warning ResourceBundleUtil[" + baseName + "] \"" + key + ".toolTipText\" not found.");            //e.printStackTrace();            }            return null;        }    }    /**     * Get a String for a JavaBeans "text" property from the ResourceBundle.     * <br>Convenience method.     *     * @param key The key of the property. This method appends ".text" to the key.     * @return The ToolTip. Returns null if no tooltip is defined.     */    public String getTextProperty(String key) {        try {            String value = getStringRecursive(key + ".text");            return value;        } catch (MissingResourceException e) {            if (isVerbose) {                System.err.println("Warning ResourceBundleUtil[" + baseName + "] \"" + key + ".text\" not found.");            //e.printStackTrace();            }            return null;        }    }    /**     * Get a KeyStroke from the ResourceBundle.     * <BR>Convenience method.     *     * @param key The key of the property.     * @return <code>javax.swing.KeyStroke.getKeyStroke(value)</code>.     *          Returns null if the property is missing.     */    public KeyStroke getKeyStroke(String key) {        KeyStroke ks = null;        try {            String s = getStringRecursive(key);            ks = (s == null) ? (KeyStroke) null : KeyStroke.getKeyStroke(s);        } catch (NoSuchElementException e) {        }        return ks;    }    /**     * Gets a KeyStroke for a JavaBeans "accelerator" property from the ResourceBundle.     * <BR>Convenience method.     *     * @param key The key of the property. This method adds ".accelerator" to the key.     * @return <code>javax.swing.KeyStroke.getKeyStroke(value)</code>.     *          Returns null if the property is missing.     */    public KeyStroke getAcceleratorProperty(String key) {        KeyStroke ks = null;        try {            String s;            s = getStringRecursive(key + ".accelerator");            ks = (s == null) ? (KeyStroke) null : KeyStroke.getKeyStroke(s);        } catch (MissingResourceException e) {            if (isVerbose) {                System.err.println("Warning ResourceBundleUtil[" + baseName + "] \"" + key + ".accelerator\" not found.");            //e.printStackTrace();            }        } catch (NoSuchElementException e) {        }        return ks;    }    /**     * Get the appropriate ResourceBundle subclass.     *     * @see java.util.ResourceBundle     */    public static ResourceBundleUtil getBundle(String baseName)            throws MissingResourceException {        return getBundle(baseName, LocaleUtil.getDefault());    }    /**     * Sets the class, which is used for resolving the resource names of     * icons. Since bundles are cached, this affects all users of the bundle.     */    public void setBaseClass(Class baseClass) {        this.baseClass = baseClass;    }    public Class getBaseClass() {        return baseClass;    }    public void configureAction(Action action, String argument) {        configureAction(action, argument, getBaseClass());    }    public void configureAction(Action action, String argument, Class baseClass) {        action.putValue(Action.NAME, getTextProperty(argument));        String shortDescription = getToolTipTextProperty(argument);        if (shortDescription != null && shortDescription.length() > 0) {            action.putValue(Action.SHORT_DESCRIPTION, shortDescription);        }        action.putValue(Action.ACCELERATOR_KEY, getAcceleratorProperty(argument));        action.putValue(Action.MNEMONIC_KEY, new Integer(getMnemonicProperty(argument)));        action.putValue(Action.SMALL_ICON, getIconProperty(argument, baseClass));    }    public void configureButton(AbstractButton button, String argument) {        configureButton(button, argument, getBaseClass());    }    public void configureButton(AbstractButton button, String argument, Class baseClass) {        button.setText(getTextProperty(argument));        //button.setACCELERATOR_KEY, getAcceleratorProperty(argument));        //action.putValue(Action.MNEMONIC_KEY, new Integer(getMnemonicProperty(argument)));        button.setIcon(getIconProperty(argument, baseClass));        button.setToolTipText(getToolTipTextProperty(argument));    }    public void configureToolBarButton(AbstractButton button, String argument) {        configureToolBarButton(button, argument, getBaseClass());    }    public void configureToolBarButton(AbstractButton button, String argument, Class baseClass) {        Icon icon = getIconProperty(argument, baseClass);        if (icon != null) {            button.setIcon(getIconProperty(argument, baseClass));            button.setText(null);        } else {            button.setIcon(null);            button.setText(getTextProperty(argument));        }        button.setToolTipText(getToolTipTextProperty(argument));    }    public void configureMenu(JMenuItem menu, String argument) {        menu.setText(getTextProperty(argument));        if (!(menu instanceof JMenu)) {            menu.setAccelerator(getAcceleratorProperty(argument));        }        menu.setMnemonic(getMnemonicProperty(argument));        menu.setIcon(getIconProperty(argument, baseClass));    }    public JMenuItem createMenuItem(Action a, String baseName) {        JMenuItem mi = new JMenuItem();        mi.setAction(a);        configureMenu(mi, baseName);        return mi;    }    /**     * Get the appropriate ResourceBundle subclass.     * <p>     * The bundles are cached. This method returns the same instance for     * the same base name and locale.     *     * @see java.util.ResourceBundle     */    public static ResourceBundleUtil getBundle(String baseName, Locale locale)            throws MissingResourceException {        String bundleKey = baseName + '_' + locale;        synchronized (bundles) {            ResourceBundleUtil r = bundles.get(bundleKey);            if (r == null) {                r = new ResourceBundleUtil(baseName, locale);                bundles.put(bundleKey, r);            }            return r;        }    }    @Override    public String toString() {        return super.toString() + "[" + resource + "]";    }    public static void setVerbose(boolean newValue) {        isVerbose = newValue;    }    public static boolean isVerbose() {        return isVerbose;    }    /**     * Puts a property name modifier along with a fallback chain.     *     * @param name The name of the modifier.     * @param fallbackChain The fallback chain of the modifier.     */    public static void putPropertyNameModifier(String name, String... fallbackChain) {        propertyNameModifiers.put(name, fallbackChain);        clearResolvedValues();    }    /**     * Removes a property name modifier.     */    public static void removePropertyNameModifier(String name) {        propertyNameModifiers.remove(name);        clearResolvedValues();    }    /**     * Clears the resolved property values of all cached bundles, because     * they depend on the property name modifiers.     */    private static void clearResolvedValues() {        synchronized (bundles) {            for (ResourceBundleUtil r : bundles.values()) {                synchronized (r.resolvedValues) {                    r.resolvedValues.clear();                }            }        }    }    /** Read object from ObjectInputStream and re-establish ResourceBundle. */    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {        // our "pseudo-constructor"        in.defaultReadObject();        // re-establish the "resource" variable        this.resource = ResourceBundle.getBundle(baseName, locale);        this.resolvedValues = new HashMap<String, Object>();    }}
\ No newline at end of file
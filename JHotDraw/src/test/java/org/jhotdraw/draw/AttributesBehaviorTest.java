@@ -0,0 +1,88 @@
+package org.jhotdraw.draw;
+
+import com.tngtech.jgiven.junit.ScenarioTest;
+import org.junit.Test;
+
+public class AttributesBehaviorTest extends ScenarioTest<GivenSomeAttributes, WhenChangingAttributes, ThenTheAttributesAreIndependent> {
+
+    @Test
+    public void valuesCanBePutAndRemoved() {
+        given().emptyAttributes();
+
+        when().puttingAStrokeWidthAFillColorAndAText()
+                .and().replacingTheStrokeWidth()
+                .and().removingTheFillColor();
+
+        then().theAttributesHaveTheReplacedStrokeWidthAndTheText()
+                .and().theKeysAreInOrdinalOrder();
+    }
+
+    @Test
+    public void clearedAttributesAreEmpty() {
+        given().attributesWithAStrokeWidthAndAFillColor();
+
+        when().clearingTheAttributes();
+
+        then().theAttributesAreEmpty();
+    }
+
+    @Test
+    public void changingACloneDoesNotChangeTheOriginal() {
+        given().attributesWithAStrokeWidthAndAFillColor()
+                .and().aCloneOfTheAttributes();
+
+        when().changingTheClone();
+
+        then().theOriginalIsUnchanged()
+                .and().theCloneDiffersFromTheOriginal();
+    }
+
+    @Test
+    public void changingTheOriginalDoesNotChangeAClone() {
+        given().attributesWithAStrokeWidthAndAFillColor()
+                .and().aCloneOfTheAttributes();
+
+        when().changingTheOriginal()
+                .and().clearingTheAttributes();
+
+        then().theCloneIsUnchanged();
+    }
+
+    @Test
+    public void equalAttributesHaveEqualHashCodes() {
+        given().attributesWithAStrokeWidthAndDashes()
+                .and().equalAttributesPutInADifferentOrder();
+
+        then().theAttributesAreEqualWithEqualHashCodes();
+    }
+
+    @Test
+    public void attributesWithDifferentDashesAreNotEqual() {
+        given().attributesWithAStrokeWidthAndDashes()
+                .and().equalAttributesPutInADifferentOrder();
+
+        when().changingTheDashesOfTheOther();
+
+        then().theAttributesAreNotEqual();
+    }
+
+    @Test
+    public void aMapIsConvertedWithAllValues() {
+        given().aMapWithAStrokeWidthAFillColorAndANullText();
+
+        when().convertingTheMapToAttributes();
+
+        then().theAttributesConvertBackToTheMap();
+    }
+
+    @Test
+    public void serializedAttributesAreEqualAndIndependent() throws Exception {
+        given().attributesWithAStrokeWidthAndAFillColor()
+                .and().aCloneOfTheAttributes();
+
+        when().serializingAndDeserializingTheClone()
+                .and().changingTheOther();
+
+        then().theOriginalIsUnchanged();
+    }
+}
@@ -0,0 +1,51 @@
+package org.jhotdraw.draw;
+
+import com.tngtech.jgiven.Stage;
+import com.tngtech.jgiven.annotation.BeforeStage;
+import com.tngtech.jgiven.annotation.ProvidedScenarioState;
+import java.util.ArrayList;
+import java.util.List;
+import org.jhotdraw.samples.svg.figures.SVGRectFigure;
+
+class GivenOverlappingFigures extends Stage<GivenOverlappingFigures> {
+
+    @ProvidedScenarioState
+    private QuadTreeDrawing drawing;
+
+    /** The figures in the order in which they were added to the drawing. */
+    @ProvidedScenarioState
+    private List<Figure> figures;
+
+    @BeforeStage
+    private void before() {
+        drawing = new QuadTreeDrawing();
+        figures = new ArrayList<Figure>();
+    }
+
+    GivenOverlappingFigures threeStackedFigures() {
+        add(0, 0, 100, 100);
+        add(20, 20, 100, 100);
+        add(40, 40, 100, 100);
+        return this;
+    }
+
+    GivenOverlappingFigures threeFiguresOnTopOfEachOther() {
+        add(0, 0, 100, 100);
+        add(0, 0, 100, 100);
+        add(0, 0, 100, 100);
+        return this;
+    }
+
+    GivenOverlappingFigures manyScatteredFigures(int count) {
+        for (int i = 0; i < count; i++) {
+            add((i * 37) % 300, (i * 53) % 300, 50, 50);
+        }
+        return this;
+    }
+
+    private void add(double x, double y, double width, double height) {
+        Figure f = new SVGRectFigure(x, y, width, height);
+        drawing.add(f);
+        figures.add(f);
+    }
+}
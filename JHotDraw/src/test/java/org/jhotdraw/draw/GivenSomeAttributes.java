@@ -0,0 +1,60 @@
+package org.jhotdraw.draw;
+
+import com.tngtech.jgiven.Stage;
+import com.tngtech.jgiven.annotation.ProvidedScenarioState;
+import com.tngtech.jgiven.annotation.ScenarioState;
+import java.awt.Color;
+import java.util.HashMap;
+import java.util.Map;
+import static org.jhotdraw.draw.AttributeKeys.*;
+
+class GivenSomeAttributes extends Stage<GivenSomeAttributes> {
+
+    @ProvidedScenarioState(resolution = ScenarioState.Resolution.NAME)
+    private Attributes attributes;
+
+    @ProvidedScenarioState(resolution = ScenarioState.Resolution.NAME)
+    private Attributes other;
+
+    @ProvidedScenarioState
+    private Map<AttributeKey<?>, Object> map;
+
+    GivenSomeAttributes emptyAttributes() {
+        attributes = new Attributes();
+        return this;
+    }
+
+    GivenSomeAttributes attributesWithAStrokeWidthAndAFillColor() {
+        attributes = new Attributes();
+        attributes.put(STROKE_WIDTH, 2d);
+        attributes.put(FILL_COLOR, Color.red);
+        return this;
+    }
+
+    GivenSomeAttributes attributesWithAStrokeWidthAndDashes() {
+        attributes = new Attributes();
+        attributes.put(STROKE_WIDTH, 2d);
+        attributes.put(STROKE_DASHES, new double[]{4, 2});
+        return this;
+    }
+
+    GivenSomeAttributes aCloneOfTheAttributes() {
+        other = attributes.clone();
+        return this;
+    }
+
+    GivenSomeAttributes equalAttributesPutInADifferentOrder() {
+        other = new Attributes();
+        other.put(STROKE_DASHES, new double[]{4, 2});
+        other.put(STROKE_WIDTH, 2d);
+        return this;
+    }
+
+    GivenSomeAttributes aMapWithAStrokeWidthAFillColorAndANullText() {
+        map = new HashMap<AttributeKey<?>, Object>();
+        map.put(STROKE_WIDTH, 2d);
+        map.put(FILL_COLOR, Color.green);
+        map.put(TEXT, null);
+        return this;
+    }
+}
@@ -0,0 +1,67 @@
+package org.jhotdraw.draw;
+
+import com.tngtech.jgiven.junit.ScenarioTest;
+import org.junit.Test;
+
+public class QuadTreeDrawingBehaviorTest extends ScenarioTest<GivenOverlappingFigures, WhenChangingTheZOrder, ThenFiguresAreFoundInZOrder> {
+
+    @Test
+    public void findingAFigureReturnsTheTopmostFigure() {
+        given().threeStackedFigures();
+
+        then().theTopmostFigureIsFoundAtEachPoint()
+                .and().figuresBehindOtherFiguresAreFound();
+    }
+
+    @Test
+    public void bringingAFigureToTheFrontMakesItTheTopmostFigure() {
+        given().threeFiguresOnTopOfEachOther();
+
+        when().bringingTheBackFigureToTheFront();
+
+        then().theChildrenAreInTheOrder(1, 2, 0)
+                .and().theFigureAtTheCenterIs(0);
+    }
+
+    @Test
+    public void sendingAFigureToTheBackMakesItTheBottommostFigure() {
+        given().threeFiguresOnTopOfEachOther();
+
+        when().sendingTheFrontFigureToTheBack();
+
+        then().theChildrenAreInTheOrder(2, 0, 1)
+                .and().theFigureAtTheCenterIs(1);
+    }
+
+    @Test
+    public void queriesReturnTheFiguresInZOrder() {
+        given().manyScatteredFigures(200);
+
+        when().bringingTheBackFigureToTheFront()
+                .and().sendingTheFrontFigureToTheBack();
+
+        then().theFiguresInAnAreaAreFoundInZOrder()
+                .and().sortingFiguresRestoresTheZOrder();
+    }
+
+    @Test
+    public void aMovedFigureIsFoundAtItsNewLocation() {
+        given().threeStackedFigures();
+
+        when().movingTheFrontFigureAway();
+
+        then().theFigureAtTheCenterIs(1)
+                .and().theMovedFigureIsFoundAtItsNewLocation();
+    }
+
+    @Test
+    public void aRemovedFigureIsNotFound() {
+        given().threeFiguresOnTopOfEachOther();
+
+        when().removingTheFrontFigure();
+
+        then().theChildrenAreInTheOrder(0, 1)
+                .and().theFigureAtTheCenterIs(1)
+                .and().theRemovedFigureIsNotFound();
+    }
+}
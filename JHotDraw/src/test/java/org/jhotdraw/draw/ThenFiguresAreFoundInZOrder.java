@@ -0,0 +1,104 @@
+package org.jhotdraw.draw;
+
+import com.tngtech.jgiven.Stage;
+import com.tngtech.jgiven.annotation.ExpectedScenarioState;
+import java.awt.geom.Point2D;
+import java.awt.geom.Rectangle2D;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+class ThenFiguresAreFoundInZOrder extends Stage<ThenFiguresAreFoundInZOrder> {
+
+    @ExpectedScenarioState
+    private QuadTreeDrawing drawing;
+
+    @ExpectedScenarioState
+    private List<Figure> figures;
+
+    @ExpectedScenarioState
+    private Figure changedFigure;
+
+    ThenFiguresAreFoundInZOrder theTopmostFigureIsFoundAtEachPoint() {
+        assertSame(figures.get(2), drawing.findFigure(new Point2D.Double(50, 50)));
+        assertSame(figures.get(1), drawing.findFigure(new Point2D.Double(30, 30)));
+        assertSame(figures.get(0), drawing.findFigure(new Point2D.Double(10, 10)));
+        assertNull(drawing.findFigure(new Point2D.Double(500, 500)));
+        return this;
+    }
+
+    ThenFiguresAreFoundInZOrder figuresBehindOtherFiguresAreFound() {
+        Point2D.Double p = new Point2D.Double(50, 50);
+        assertSame(figures.get(1), drawing.findFigureBehind(p, figures.get(2)));
+        assertSame(figures.get(0), drawing.findFigureBehind(p, figures.subList(1, 3)));
+        assertSame(figures.get(1), drawing.findFigureExcept(p, figures.get(2)));
+        return this;
+    }
+
+    ThenFiguresAreFoundInZOrder theChildrenAreInTheOrder(int... indices) {
+        List<Figure> expected = new ArrayList<Figure>();
+        for (int i : indices) {
+            expected.add(figures.get(i));
+        }
+        assertEquals(expected, drawing.getChildren());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(i, drawing.indexOf(expected.get(i)));
+        }
+        Collections.reverse(expected);
+        assertEquals(expected, drawing.getFiguresFrontToBack());
+        return this;
+    }
+
+    ThenFiguresAreFoundInZOrder theFigureAtTheCenterIs(int index) {
+        assertSame(figures.get(index), drawing.findFigure(new Point2D.Double(50, 50)));
+        return this;
+    }
+
+    ThenFiguresAreFoundInZOrder theFiguresInAnAreaAreFoundInZOrder() {
+        Rectangle2D.Double r = new Rectangle2D.Double(100, 100, 80, 80);
+        List<Figure> expected = figuresTouching(r);
+        assertTrue(expected.size() > 1);
+        assertEquals(expected, drawing.findFigures(r));
+        return this;
+    }
+
+    ThenFiguresAreFoundInZOrder sortingFiguresRestoresTheZOrder() {
+        List<Figure> expected = figuresTouching(new Rectangle2D.Double(100, 100, 80, 80));
+        List<Figure> shuffled = new ArrayList<Figure>(expected);
+        Collections.shuffle(shuffled);
+        assertEquals(expected, drawing.sort(shuffled));
+        return this;
+    }
+
+    ThenFiguresAreFoundInZOrder theMovedFigureIsFoundAtItsNewLocation() {
+        assertSame(changedFigure, drawing.findFigure(new Point2D.Double(505, 505)));
+        assertEquals(Arrays.asList(changedFigure), drawing.findFigures(new Rectangle2D.Double(490, 490, 30, 30)));
+        return this;
+    }
+
+    ThenFiguresAreFoundInZOrder theRemovedFigureIsNotFound() {
+        assertEquals(-1, drawing.indexOf(changedFigure));
+        assertFalse(drawing.contains(changedFigure));
+        assertFalse(drawing.findFigures(new Rectangle2D.Double(0, 0, 100, 100)).contains(changedFigure));
+        return this;
+    }
+
+    private List<Figure> figuresTouching(Rectangle2D.Double r) {
+        List<Figure> touching = new ArrayList<Figure>();
+        for (Figure f : drawing.getChildren()) {
+            // Figures touching the rectangle are found as well
+            Rectangle2D.Double a = f.getDrawingArea();
+            if (a.x <= r.x + r.width && r.x <= a.x + a.width
+                    && a.y <= r.y + r.height && r.y <= a.y + a.height) {
+                touching.add(f);
+            }
+        }
+        return touching;
+    }
+}
@@ -0,0 +1,88 @@
+package org.jhotdraw.draw;
+
+import com.tngtech.jgiven.Stage;
+import com.tngtech.jgiven.annotation.ExpectedScenarioState;
+import com.tngtech.jgiven.annotation.ScenarioState;
+import java.awt.Color;
+import java.util.Map;
+import static org.jhotdraw.draw.AttributeKeys.*;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+class ThenTheAttributesAreIndependent extends Stage<ThenTheAttributesAreIndependent> {
+
+    @ExpectedScenarioState(resolution = ScenarioState.Resolution.NAME)
+    private Attributes attributes;
+
+    @ExpectedScenarioState(resolution = ScenarioState.Resolution.NAME)
+    private Attributes other;
+
+    @ExpectedScenarioState
+    private Map<AttributeKey<?>, Object> map;
+
+    ThenTheAttributesAreIndependent theAttributesHaveTheReplacedStrokeWidthAndTheText() {
+        assertEquals(2, attributes.size());
+        assertEquals(3d, attributes.get(STROKE_WIDTH));
+        assertEquals("hello", attributes.get(TEXT));
+        assertFalse(attributes.containsKey(FILL_COLOR));
+        assertNull(attributes.get(FILL_COLOR));
+        return this;
+    }
+
+    ThenTheAttributesAreIndependent theKeysAreInOrdinalOrder() {
+        for (int i = 1; i < attributes.size(); i++) {
+            assertTrue(attributes.getKey(i - 1).getOrdinal() < attributes.getKey(i).getOrdinal());
+        }
+        return this;
+    }
+
+    ThenTheAttributesAreIndependent theAttributesAreEmpty() {
+        assertTrue(attributes.isEmpty());
+        assertEquals(0, attributes.size());
+        assertNull(attributes.get(STROKE_WIDTH));
+        return this;
+    }
+
+    ThenTheAttributesAreIndependent theOriginalIsUnchanged() {
+        assertEquals(2, attributes.size());
+        assertEquals(2d, attributes.get(STROKE_WIDTH));
+        assertEquals(Color.red, attributes.get(FILL_COLOR));
+        assertNull(attributes.get(TEXT));
+        return this;
+    }
+
+    ThenTheAttributesAreIndependent theCloneIsUnchanged() {
+        assertEquals(2, other.size());
+        assertEquals(2d, other.get(STROKE_WIDTH));
+        assertEquals(Color.red, other.get(FILL_COLOR));
+        return this;
+    }
+
+    ThenTheAttributesAreIndependent theCloneDiffersFromTheOriginal() {
+        assertEquals(5d, other.get(STROKE_WIDTH));
+        assertEquals("clone", other.get(TEXT));
+        assertNotEquals(attributes, other);
+        return this;
+    }
+
+    ThenTheAttributesAreIndependent theAttributesAreEqualWithEqualHashCodes() {
+        assertEquals(attributes, other);
+        assertEquals(attributes.hashCode(), other.hashCode());
+        return this;
+    }
+
+    ThenTheAttributesAreIndependent theAttributesAreNotEqual() {
+        assertNotEquals(attributes, other);
+        return this;
+    }
+
+    ThenTheAttributesAreIndependent theAttributesConvertBackToTheMap() {
+        assertEquals(map.size(), attributes.size());
+        assertTrue(attributes.containsKey(TEXT));
+        assertEquals(map, attributes.toMap());
+        return this;
+    }
+}
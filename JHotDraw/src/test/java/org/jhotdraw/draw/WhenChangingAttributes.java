@@ -0,0 +1,91 @@
+package org.jhotdraw.draw;
+
+import com.tngtech.jgiven.Stage;
+import com.tngtech.jgiven.annotation.ExpectedScenarioState;
+import com.tngtech.jgiven.annotation.ProvidedScenarioState;
+import com.tngtech.jgiven.annotation.ScenarioState;
+import java.awt.Color;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.Map;
+import static org.jhotdraw.draw.AttributeKeys.*;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+class WhenChangingAttributes extends Stage<WhenChangingAttributes> {
+
+    @ExpectedScenarioState(resolution = ScenarioState.Resolution.NAME)
+    @ProvidedScenarioState(resolution = ScenarioState.Resolution.NAME)
+    private Attributes attributes;
+
+    @ExpectedScenarioState(resolution = ScenarioState.Resolution.NAME)
+    @ProvidedScenarioState(resolution = ScenarioState.Resolution.NAME)
+    private Attributes other;
+
+    @ExpectedScenarioState
+    private Map<AttributeKey<?>, Object> map;
+
+    WhenChangingAttributes puttingAStrokeWidthAFillColorAndAText() {
+        assertNull(attributes.put(TEXT, "hello"));
+        assertNull(attributes.put(STROKE_WIDTH, 2d));
+        assertNull(attributes.put(FILL_COLOR, Color.red));
+        return this;
+    }
+
+    WhenChangingAttributes replacingTheStrokeWidth() {
+        assertEquals(2d, attributes.put(STROKE_WIDTH, 3d));
+        return this;
+    }
+
+    WhenChangingAttributes removingTheFillColor() {
+        assertEquals(Color.red, attributes.remove(FILL_COLOR));
+        return this;
+    }
+
+    WhenChangingAttributes clearingTheAttributes() {
+        attributes.clear();
+        return this;
+    }
+
+    WhenChangingAttributes changingTheClone() {
+        other.put(STROKE_WIDTH, 5d);
+        other.put(TEXT, "clone");
+        other.remove(FILL_COLOR);
+        return this;
+    }
+
+    WhenChangingAttributes changingTheOriginal() {
+        attributes.put(STROKE_WIDTH, 7d);
+        attributes.remove(FILL_COLOR);
+        return this;
+    }
+
+    WhenChangingAttributes changingTheDashesOfTheOther() {
+        other.put(STROKE_DASHES, new double[]{4, 3});
+        return this;
+    }
+
+    WhenChangingAttributes changingTheOther() {
+        other.put(STROKE_WIDTH, 3d);
+        return this;
+    }
+
+    WhenChangingAttributes convertingTheMapToAttributes() {
+        attributes = new Attributes(map);
+        return this;
+    }
+
+    WhenChangingAttributes serializingAndDeserializingTheClone() throws IOException, ClassNotFoundException {
+        ByteArrayOutputStream buf = new ByteArrayOutputStream();
+        ObjectOutputStream out = new ObjectOutputStream(buf);
+        out.writeObject(other);
+        out.close();
+        ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(buf.toByteArray()));
+        other = (Attributes) in.readObject();
+        assertEquals(attributes, other);
+        return this;
+    }
+}
@@ -0,0 +1,45 @@
+package org.jhotdraw.draw;
+
+import com.tngtech.jgiven.Stage;
+import com.tngtech.jgiven.annotation.ExpectedScenarioState;
+import com.tngtech.jgiven.annotation.ProvidedScenarioState;
+import java.awt.geom.Point2D;
+import java.util.List;
+
+class WhenChangingTheZOrder extends Stage<WhenChangingTheZOrder> {
+
+    @ExpectedScenarioState
+    private QuadTreeDrawing drawing;
+
+    @ExpectedScenarioState
+    private List<Figure> figures;
+
+    @ProvidedScenarioState
+    private Figure changedFigure;
+
+    WhenChangingTheZOrder bringingTheBackFigureToTheFront() {
+        changedFigure = figures.get(0);
+        drawing.bringToFront(changedFigure);
+        return this;
+    }
+
+    WhenChangingTheZOrder sendingTheFrontFigureToTheBack() {
+        changedFigure = figures.get(figures.size() - 1);
+        drawing.sendToBack(changedFigure);
+        return this;
+    }
+
+    WhenChangingTheZOrder movingTheFrontFigureAway() {
+        changedFigure = figures.get(figures.size() - 1);
+        changedFigure.willChange();
+        changedFigure.setBounds(new Point2D.Double(500, 500), new Point2D.Double(510, 510));
+        changedFigure.changed();
+        return this;
+    }
+
+    WhenChangingTheZOrder removingTheFrontFigure() {
+        changedFigure = figures.get(figures.size() - 1);
+        drawing.remove(changedFigure);
+        return this;
+    }
+}
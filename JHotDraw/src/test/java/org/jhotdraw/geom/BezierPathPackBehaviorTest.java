@@ -0,0 +1,61 @@
+package org.jhotdraw.geom;
+
+import com.tngtech.jgiven.junit.ScenarioTest;
+import org.junit.Test;
+
+public class BezierPathPackBehaviorTest extends ScenarioTest<GivenBezierPaths, WhenPackingPaths, ThenPackedPathsMatchTheirOriginals> {
+
+    @Test
+    public void aPackedPathHasTheSameBoundsAndSegments() {
+        given().randomPaths(2000);
+
+        when().packingCopiesOfThePaths();
+
+        then().theCopiesHaveTheSameSizeBoundsAndSegments()
+                .and().theCopiesAreStillPacked();
+    }
+
+    @Test
+    public void anUnpackedPathEqualsItsOriginal() {
+        given().randomPaths(2000);
+
+        when().packingCopiesOfThePaths()
+                .and().readingANodeOfEachCopy();
+
+        then().theCopiesAreUnpacked()
+                .and().theCopiesEqualTheirOriginals();
+    }
+
+    @Test
+    public void aCloneOfAPackedPathIsIndependent() {
+        given().aPolyline();
+
+        when().packingThePath()
+                .and().cloningThePath()
+                .and().movingANodeOfTheClone();
+
+        then().thePathIsStillPacked()
+                .and().onlyTheCloneHasTheMovedNode();
+    }
+
+    @Test
+    public void aPackedPolylineIsLinear() {
+        given().aPolyline();
+
+        when().packingThePath();
+
+        then().thePathIsStillPacked()
+                .and().thePathIsLinear();
+    }
+
+    @Test
+    public void aPackedPathWithACurveIsNotLinear() {
+        given().aPolyline()
+                .and().aCurveAtTheEnd();
+
+        when().packingThePath();
+
+        then().thePathIsStillPacked()
+                .and().thePathIsNotLinear();
+    }
+}
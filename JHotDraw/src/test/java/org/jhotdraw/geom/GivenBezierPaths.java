@@ -0,0 +1,48 @@
+package org.jhotdraw.geom;
+
+import com.tngtech.jgiven.Stage;
+import com.tngtech.jgiven.annotation.ProvidedScenarioState;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+class GivenBezierPaths extends Stage<GivenBezierPaths> {
+
+    @ProvidedScenarioState
+    private List<BezierPath> paths;
+
+    @ProvidedScenarioState
+    private BezierPath path;
+
+    GivenBezierPaths randomPaths(int count) {
+        Random r = new Random(5);
+        paths = new ArrayList<BezierPath>();
+        for (int i = 0; i < count; i++) {
+            BezierPath p = new BezierPath();
+            p.setClosed(r.nextBoolean());
+            for (int j = 0, n = 1 + r.nextInt(12); j < n; j++) {
+                BezierPath.Node node = new BezierPath.Node(r.nextInt(4),
+                        r.nextInt(100), r.nextInt(100),
+                        r.nextInt(100), r.nextInt(100),
+                        r.nextInt(100), r.nextInt(100));
+                node.keepColinear = r.nextBoolean();
+                p.add(node);
+            }
+            paths.add(p);
+        }
+        return this;
+    }
+
+    GivenBezierPaths aPolyline() {
+        path = new BezierPath();
+        path.moveTo(0, 0);
+        path.lineTo(10, 0);
+        path.lineTo(10, 10);
+        return this;
+    }
+
+    GivenBezierPaths aCurveAtTheEnd() {
+        path.quadTo(15, 5, 20, 0);
+        return this;
+    }
+}
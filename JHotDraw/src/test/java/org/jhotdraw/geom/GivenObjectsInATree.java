@@ -0,0 +1,68 @@
+package org.jhotdraw.geom;
+
+import com.tngtech.jgiven.Stage;
+import com.tngtech.jgiven.annotation.BeforeStage;
+import com.tngtech.jgiven.annotation.ProvidedScenarioState;
+import java.awt.geom.Rectangle2D;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+class GivenObjectsInATree extends Stage<GivenObjectsInATree> {
+
+    @ProvidedScenarioState
+    private RTree<Integer> tree;
+
+    @ProvidedScenarioState
+    private Map<Integer, Rectangle2D.Double> objects;
+
+    @ProvidedScenarioState
+    private Random random;
+
+    @BeforeStage
+    private void before() {
+        objects = new HashMap<Integer, Rectangle2D.Double>();
+        random = new Random(1);
+    }
+
+    GivenObjectsInATree anEmptyTree() {
+        tree = new RTree<Integer>();
+        return this;
+    }
+
+    GivenObjectsInATree aTreeWithAtMostEntriesPerNode(int maxEntries) {
+        tree = new RTree<Integer>(maxEntries);
+        return this;
+    }
+
+    GivenObjectsInATree twoObjectsSideBySide() {
+        objects.put(0, new Rectangle2D.Double(0, 0, 10, 10));
+        objects.put(1, new Rectangle2D.Double(20, 0, 10, 10));
+        tree.addAll(objects);
+        return this;
+    }
+
+    GivenObjectsInATree randomObjectsAddedOneByOne(int count) {
+        for (int i = 0; i < count; i++) {
+            Rectangle2D.Double bounds = randomBounds(random);
+            tree.add(i, bounds);
+            objects.put(i, bounds);
+        }
+        return this;
+    }
+
+    GivenObjectsInATree randomObjectsLoadedInBulk(int count) {
+        Map<Integer, Rectangle2D.Double> loaded = new HashMap<Integer, Rectangle2D.Double>();
+        for (int i = 0; i < count; i++) {
+            loaded.put(i, randomBounds(random));
+        }
+        tree.addAll(loaded);
+        objects.putAll(loaded);
+        return this;
+    }
+
+    static Rectangle2D.Double randomBounds(Random r) {
+        return new Rectangle2D.Double(r.nextDouble() * 10000 - 2000, r.nextDouble() * 10000 - 2000,
+                r.nextDouble() * 100, r.nextDouble() * 100);
+    }
+}
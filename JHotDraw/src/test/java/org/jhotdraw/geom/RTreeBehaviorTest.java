@@ -0,0 +1,79 @@
+package org.jhotdraw.geom;
+
+import com.tngtech.jgiven.junit.ScenarioTest;
+import org.junit.Test;
+
+public class RTreeBehaviorTest extends ScenarioTest<GivenObjectsInATree, WhenChangingTheTree, ThenTheTreeFindsObjects> {
+
+    @Test
+    public void anEmptyTreeFindsNothing() {
+        given().anEmptyTree();
+
+        then().theTreeIsEmpty();
+    }
+
+    @Test
+    public void creatingATreeWithTooFewEntriesPerNodeIsRejected() {
+        when().creatingATreeWithAtMostEntriesPerNode(3);
+
+        then().theTreeIsRejected();
+    }
+
+    @Test
+    public void queriesFindObjectsTouchingTheirBorder() {
+        given().anEmptyTree()
+                .and().twoObjectsSideBySide();
+
+        then().objectsTouchingTheQueryAreFound();
+    }
+
+    @Test
+    public void aBulkLoadedTreeFindsTheSameObjectsAsABruteForceSearch() {
+        given().anEmptyTree()
+                .and().randomObjectsLoadedInBulk(5000);
+
+        then().theTreeContainsAllObjects()
+                .and().queriesFindTheSameObjectsAsABruteForceSearch(200);
+    }
+
+    @Test
+    public void aTreeBuiltByInsertionFindsTheSameObjectsAsABruteForceSearch() {
+        given().aTreeWithAtMostEntriesPerNode(4)
+                .and().randomObjectsAddedOneByOne(2000);
+
+        then().theTreeContainsAllObjects()
+                .and().queriesFindTheSameObjectsAsABruteForceSearch(200);
+    }
+
+    @Test
+    public void addingRemovingAndMovingObjectsKeepsTheTreeConsistent() {
+        given().anEmptyTree()
+                .and().randomObjectsLoadedInBulk(3000);
+
+        when().randomObjectsAreAddedRemovedAndMoved(20000);
+
+        then().theTreeContainsAllObjects()
+                .and().queriesFindTheSameObjectsAsABruteForceSearch(200);
+    }
+
+    @Test
+    public void bulkLoadingIntoANonEmptyTreeKeepsTheExistingObjects() {
+        given().anEmptyTree()
+                .and().randomObjectsAddedOneByOne(10);
+
+        when().moreObjectsAreLoadedInBulk(1000);
+
+        then().theTreeContainsAllObjects()
+                .and().queriesFindTheSameObjectsAsABruteForceSearch(200);
+    }
+
+    @Test
+    public void aClearedTreeFindsNothing() {
+        given().anEmptyTree()
+                .and().randomObjectsLoadedInBulk(1000);
+
+        when().theTreeIsCleared();
+
+        then().theTreeIsEmpty();
+    }
+}
@@ -0,0 +1,102 @@
+package org.jhotdraw.geom;
+
+import com.tngtech.jgiven.Stage;
+import com.tngtech.jgiven.annotation.ExpectedScenarioState;
+import com.tngtech.jgiven.annotation.ScenarioState;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.PathIterator;
+import java.awt.geom.Point2D;
+import java.util.List;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+class ThenPackedPathsMatchTheirOriginals extends Stage<ThenPackedPathsMatchTheirOriginals> {
+
+    @ExpectedScenarioState(resolution = ScenarioState.Resolution.NAME)
+    private List<BezierPath> paths;
+
+    @ExpectedScenarioState(resolution = ScenarioState.Resolution.NAME)
+    private List<BezierPath> copies;
+
+    @ExpectedScenarioState(resolution = ScenarioState.Resolution.NAME)
+    private BezierPath path;
+
+    @ExpectedScenarioState(resolution = ScenarioState.Resolution.NAME)
+    private BezierPath clone;
+
+    ThenPackedPathsMatchTheirOriginals theCopiesHaveTheSameSizeBoundsAndSegments() {
+        AffineTransform tx = AffineTransform.getRotateInstance(0.3);
+        for (int i = 0; i < paths.size(); i++) {
+            BezierPath p = paths.get(i);
+            BezierPath copy = copies.get(i);
+            assertEquals(p.size(), copy.size());
+            assertEquals(p.getBounds2D(), copy.getBounds2D());
+            assertEquals(p.isLinear(), copy.isLinear());
+            assertSameSegments(p.getPathIterator(null), copy.getPathIterator(null));
+            assertSameSegments(p.getPathIterator(tx), copy.getPathIterator(tx));
+        }
+        return this;
+    }
+
+    ThenPackedPathsMatchTheirOriginals theCopiesAreStillPacked() {
+        for (BezierPath copy : copies) {
+            assertTrue(copy.isPacked());
+        }
+        return this;
+    }
+
+    ThenPackedPathsMatchTheirOriginals theCopiesAreUnpacked() {
+        for (BezierPath copy : copies) {
+            assertFalse(copy.isPacked());
+        }
+        return this;
+    }
+
+    ThenPackedPathsMatchTheirOriginals theCopiesEqualTheirOriginals() {
+        for (int i = 0; i < paths.size(); i++) {
+            BezierPath p = paths.get(i);
+            BezierPath copy = copies.get(i);
+            assertEquals(p, copy);
+            for (int j = 0; j < p.size(); j++) {
+                assertEquals(p.get(j).keepColinear, copy.get(j).keepColinear);
+            }
+        }
+        return this;
+    }
+
+    ThenPackedPathsMatchTheirOriginals thePathIsStillPacked() {
+        assertTrue(path.isPacked());
+        return this;
+    }
+
+    ThenPackedPathsMatchTheirOriginals onlyTheCloneHasTheMovedNode() {
+        assertEquals(new Point2D.Double(10, 0), path.get(1, 0));
+        assertEquals(new Point2D.Double(20, 0), clone.get(1, 0));
+        return this;
+    }
+
+    ThenPackedPathsMatchTheirOriginals thePathIsLinear() {
+        assertTrue(path.isLinear());
+        return this;
+    }
+
+    ThenPackedPathsMatchTheirOriginals thePathIsNotLinear() {
+        assertFalse(path.isLinear());
+        return this;
+    }
+
+    private static void assertSameSegments(PathIterator expected, PathIterator actual) {
+        double[] c1 = new double[6];
+        double[] c2 = new double[6];
+        while (!expected.isDone()) {
+            assertFalse(actual.isDone());
+            assertEquals(expected.currentSegment(c1), actual.currentSegment(c2));
+            assertArrayEquals(c1, c2, 0);
+            expected.next();
+            actual.next();
+        }
+        assertTrue(actual.isDone());
+    }
+}
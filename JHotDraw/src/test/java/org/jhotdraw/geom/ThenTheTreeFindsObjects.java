@@ -0,0 +1,88 @@
+package org.jhotdraw.geom;
+
+import com.tngtech.jgiven.Stage;
+import com.tngtech.jgiven.annotation.ExpectedScenarioState;
+import java.awt.geom.Point2D;
+import java.awt.geom.Rectangle2D;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+class ThenTheTreeFindsObjects extends Stage<ThenTheTreeFindsObjects> {
+
+    @ExpectedScenarioState
+    private RTree<Integer> tree;
+
+    @ExpectedScenarioState
+    private Map<Integer, Rectangle2D.Double> objects;
+
+    @ExpectedScenarioState
+    private Random random;
+
+    @ExpectedScenarioState
+    private IllegalArgumentException failure;
+
+    ThenTheTreeFindsObjects theTreeIsRejected() {
+        assertNotNull(failure);
+        return this;
+    }
+
+    ThenTheTreeFindsObjects theTreeIsEmpty() {
+        assertEquals(0, tree.size());
+        assertTrue(tree.findIntersects(new Rectangle2D.Double(-5000, -5000, 20000, 20000)).isEmpty());
+        assertTrue(tree.findContains(new Point2D.Double(0, 0)).isEmpty());
+        assertEquals(new Rectangle2D.Double(), tree.getBounds());
+        return this;
+    }
+
+    ThenTheTreeFindsObjects theTreeContainsAllObjects() {
+        assertEquals(objects.size(), tree.size());
+        return this;
+    }
+
+    ThenTheTreeFindsObjects objectsTouchingTheQueryAreFound() {
+        assertEquals(set(0), new HashSet<Integer>(tree.findContains(new Point2D.Double(10, 10))));
+        assertEquals(set(0, 1), new HashSet<Integer>(tree.findIntersects(new Rectangle2D.Double(10, 5, 10, 1))));
+        assertEquals(set(0), new HashSet<Integer>(tree.findInside(new Rectangle2D.Double(0, 0, 10, 10))));
+        assertEquals(new Rectangle2D.Double(0, 0, 30, 10), tree.getBounds());
+        return this;
+    }
+
+    ThenTheTreeFindsObjects queriesFindTheSameObjectsAsABruteForceSearch(int queries) {
+        for (int i = 0; i < queries; i++) {
+            Rectangle2D.Double q = new Rectangle2D.Double(random.nextDouble() * 10000 - 2000, random.nextDouble() * 10000 - 2000,
+                    random.nextDouble() * 1000, random.nextDouble() * 1000);
+            Point2D.Double p = new Point2D.Double(q.x, q.y);
+            Set<Integer> intersects = new HashSet<Integer>();
+            Set<Integer> inside = new HashSet<Integer>();
+            Set<Integer> contains = new HashSet<Integer>();
+            for (Map.Entry<Integer, Rectangle2D.Double> entry : objects.entrySet()) {
+                Rectangle2D.Double b = entry.getValue();
+                if (b.x <= q.x + q.width && q.x <= b.x + b.width && b.y <= q.y + q.height && q.y <= b.y + b.height) {
+                    intersects.add(entry.getKey());
+                }
+                if (q.x <= b.x && b.x + b.width <= q.x + q.width && q.y <= b.y && b.y + b.height <= q.y + q.height) {
+                    inside.add(entry.getKey());
+                }
+                if (b.x <= p.x && p.x <= b.x + b.width && b.y <= p.y && p.y <= b.y + b.height) {
+                    contains.add(entry.getKey());
+                }
+            }
+            assertEquals(intersects.size(), tree.findIntersects(q).size());
+            assertEquals(intersects, new HashSet<Integer>(tree.findIntersects(q)));
+            assertEquals(intersects, new HashSet<Integer>(tree.findIntersects((Rectangle2D) q)));
+            assertEquals(inside, new HashSet<Integer>(tree.findInside(q)));
+            assertEquals(contains, new HashSet<Integer>(tree.findContains(p)));
+        }
+        return this;
+    }
+
+    private static Set<Integer> set(Integer... values) {
+        return new HashSet<Integer>(Arrays.asList(values));
+    }
+}
@@ -0,0 +1,79 @@
+package org.jhotdraw.geom;
+
+import com.tngtech.jgiven.Stage;
+import com.tngtech.jgiven.annotation.ExpectedScenarioState;
+import com.tngtech.jgiven.annotation.ProvidedScenarioState;
+import java.awt.geom.Rectangle2D;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+class WhenChangingTheTree extends Stage<WhenChangingTheTree> {
+
+    @ExpectedScenarioState
+    @ProvidedScenarioState
+    private RTree<Integer> tree;
+
+    @ExpectedScenarioState
+    @ProvidedScenarioState
+    private Map<Integer, Rectangle2D.Double> objects;
+
+    @ExpectedScenarioState
+    private Random random;
+
+    @ProvidedScenarioState
+    private IllegalArgumentException failure;
+
+    WhenChangingTheTree creatingATreeWithAtMostEntriesPerNode(int maxEntries) {
+        try {
+            tree = new RTree<Integer>(maxEntries);
+        } catch (IllegalArgumentException e) {
+            failure = e;
+        }
+        return this;
+    }
+
+    WhenChangingTheTree randomObjectsAreAddedRemovedAndMoved(int operations) {
+        for (int i = 0; i < operations; i++) {
+            Integer key = random.nextInt(objects.size() + 1000);
+            switch (random.nextInt(3)) {
+                case 0:
+                    Rectangle2D.Double bounds = GivenObjectsInATree.randomBounds(random);
+                    tree.add(key, bounds);
+                    objects.put(key, bounds);
+                    break;
+                case 1:
+                    tree.remove(key);
+                    objects.remove(key);
+                    break;
+                default:
+                    Rectangle2D.Double old = objects.get(key);
+                    if (old != null) {
+                        // Mostly small moves, which stay in their leaf
+                        Rectangle2D.Double moved = (random.nextInt(10) == 0) ? GivenObjectsInATree.randomBounds(random)
+                                : new Rectangle2D.Double(old.x + random.nextGaussian(), old.y + random.nextGaussian(), old.width, old.height);
+                        tree.update(key, moved);
+                        objects.put(key, moved);
+                    }
+                    break;
+            }
+        }
+        return this;
+    }
+
+    WhenChangingTheTree moreObjectsAreLoadedInBulk(int count) {
+        Map<Integer, Rectangle2D.Double> more = new HashMap<Integer, Rectangle2D.Double>();
+        for (int i = objects.size(); i < objects.size() + count; i++) {
+            more.put(i, GivenObjectsInATree.randomBounds(random));
+        }
+        tree.addAll(more);
+        objects.putAll(more);
+        return this;
+    }
+
+    WhenChangingTheTree theTreeIsCleared() {
+        tree.clear();
+        objects.clear();
+        return this;
+    }
+}
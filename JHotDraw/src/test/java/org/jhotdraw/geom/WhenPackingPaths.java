@@ -0,0 +1,56 @@
+package org.jhotdraw.geom;
+
+import com.tngtech.jgiven.Stage;
+import com.tngtech.jgiven.annotation.ExpectedScenarioState;
+import com.tngtech.jgiven.annotation.ProvidedScenarioState;
+import com.tngtech.jgiven.annotation.ScenarioState;
+import java.awt.geom.Point2D;
+import java.util.ArrayList;
+import java.util.List;
+
+class WhenPackingPaths extends Stage<WhenPackingPaths> {
+
+    @ExpectedScenarioState(resolution = ScenarioState.Resolution.NAME)
+    private List<BezierPath> paths;
+
+    @ProvidedScenarioState(resolution = ScenarioState.Resolution.NAME)
+    private List<BezierPath> copies;
+
+    @ExpectedScenarioState(resolution = ScenarioState.Resolution.NAME)
+    private BezierPath path;
+
+    @ProvidedScenarioState(resolution = ScenarioState.Resolution.NAME)
+    private BezierPath clone;
+
+    WhenPackingPaths packingCopiesOfThePaths() {
+        copies = new ArrayList<BezierPath>();
+        for (BezierPath p : paths) {
+            BezierPath copy = p.clone();
+            copy.pack();
+            copies.add(copy);
+        }
+        return this;
+    }
+
+    WhenPackingPaths readingANodeOfEachCopy() {
+        for (BezierPath copy : copies) {
+            copy.get(0);
+        }
+        return this;
+    }
+
+    WhenPackingPaths packingThePath() {
+        path.pack();
+        return this;
+    }
+
+    WhenPackingPaths cloningThePath() {
+        clone = path.clone();
+        return this;
+    }
+
+    WhenPackingPaths movingANodeOfTheClone() {
+        clone.set(1, 0, new Point2D.Double(20, 0));
+        return this;
+    }
+}
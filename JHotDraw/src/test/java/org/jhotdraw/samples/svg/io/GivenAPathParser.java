@@ -0,0 +1,15 @@
+package org.jhotdraw.samples.svg.io;
+
+import com.tngtech.jgiven.Stage;
+import com.tngtech.jgiven.annotation.ProvidedScenarioState;
+
+class GivenAPathParser extends Stage<GivenAPathParser> {
+
+    @ProvidedScenarioState
+    private SVGPathParser parser;
+
+    GivenAPathParser aPathParser() {
+        parser = new SVGPathParser();
+        return this;
+    }
+}
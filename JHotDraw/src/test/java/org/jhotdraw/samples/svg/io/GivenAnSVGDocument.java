@@ -0,0 +1,71 @@
+package org.jhotdraw.samples.svg.io;
+
+import com.tngtech.jgiven.Stage;
+import com.tngtech.jgiven.annotation.ProvidedScenarioState;
+
+class GivenAnSVGDocument extends Stage<GivenAnSVGDocument> {
+
+    private static final String HEADER = "<svg xmlns='http://www.w3.org/2000/svg' "
+            + "xmlns:xlink='http://www.w3.org/1999/xlink' width='400' height='300'>";
+
+    @ProvidedScenarioState
+    private String document;
+
+    GivenAnSVGDocument aDocumentWithShapesGroupsAndGradients() {
+        document = HEADER
+                + "<defs>"
+                + "<linearGradient id='lg' x1='0' y1='0' x2='1' y2='0'>"
+                + "<stop offset='0' stop-color='red'/><stop offset='1' stop-color='blue'/>"
+                + "</linearGradient>"
+                + "</defs>"
+                + "<rect x='10' y='10' width='50' height='30' fill='url(#lg)' stroke='black'/>"
+                + "<g transform='translate(100,0)' opacity='0.5'>"
+                + "<circle cx='20' cy='20' r='10' fill='green'/>"
+                + "<ellipse cx='50' cy='20' rx='20' ry='10'/>"
+                + "</g>"
+                + "<path d='M10 100 C 20 120 40 120 50 100 S 80 80 90 100 z' fill='none' stroke='blue'/>"
+                + "<polygon points='100,100 150,100 125,140'/>"
+                + "<polyline points='200,100 250,120 300,100' fill='none' stroke='red'/>"
+                + "<line x1='10' y1='200' x2='100' y2='250' stroke='black'/>"
+                + "<text x='200' y='200' font-size='12'>Hello</text>"
+                + "</svg>";
+        return this;
+    }
+
+    GivenAnSVGDocument aUseElementBeforeItsTarget() {
+        document = HEADER
+                + "<use xlink:href='#r' x='10'/>"
+                + "<rect id='r' x='2' y='2' width='3' height='3'/>"
+                + "</svg>";
+        return this;
+    }
+
+    GivenAnSVGDocument aChainOfForwardReferences() {
+        document = HEADER
+                + "<use xlink:href='#u2' y='20'/>"
+                + "<use id='u2' xlink:href='#r' x='10'/>"
+                + "<rect id='r' x='2' y='2' width='3' height='3'/>"
+                + "</svg>";
+        return this;
+    }
+
+    GivenAnSVGDocument aLinkedUseElementBeforeItsTarget() {
+        document = HEADER
+                + "<a xlink:href='http://www.jhotdraw.org' target='_blank'><use xlink:href='#r' x='10'/></a>"
+                + "<rect id='r' x='2' y='2' width='3' height='3'/>"
+                + "</svg>";
+        return this;
+    }
+
+    GivenAnSVGDocument aCopyOfALinkedUseElement() {
+        document = HEADER
+                + "<g transform='translate(5,5)'>"
+                + "<a xlink:href='l'><use id='u' xlink:href='#r'/></a>"
+                + "<rect x='0' y='0' width='1' height='1'/>"
+                + "</g>"
+                + "<use xlink:href='#u' x='100'/>"
+                + "<rect id='r' x='2' y='2' width='3' height='3'/>"
+                + "</svg>";
+        return this;
+    }
+}
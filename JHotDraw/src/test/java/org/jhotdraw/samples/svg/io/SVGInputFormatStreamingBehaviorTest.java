@@ -0,0 +1,66 @@
+package org.jhotdraw.samples.svg.io;
+
+import com.tngtech.jgiven.junit.ScenarioTest;
+import org.junit.Test;
+
+public class SVGInputFormatStreamingBehaviorTest extends ScenarioTest<GivenAnSVGDocument, WhenReadingTheDocument, ThenTheStreamedDrawingMatchesTheTree> {
+
+    @Test
+    public void streamingReadsTheSameFiguresAsTheTree() throws Exception {
+        given().aDocumentWithShapesGroupsAndGradients();
+
+        when().readingItWithAndWithoutStreaming();
+
+        then().theStreamedDrawingHasChildren(7)
+                .and().bothDrawingsHaveTheSameFigures();
+    }
+
+    @Test
+    public void aUseElementBeforeItsTargetIsResolved() throws Exception {
+        given().aUseElementBeforeItsTarget();
+
+        when().readingItWithAndWithoutStreaming();
+
+        then().bothDrawingsHaveTheSameFigures()
+                .and().theStreamedDrawingHasChildren(2)
+                .and().theChildHasTheBounds(0, 12, 2, 3, 3)
+                .and().theChildHasTheBounds(1, 2, 2, 3, 3);
+    }
+
+    @Test
+    public void chainedForwardReferencesAreResolved() throws Exception {
+        given().aChainOfForwardReferences();
+
+        when().readingItWithAndWithoutStreaming();
+
+        then().bothDrawingsHaveTheSameFigures()
+                .and().theStreamedDrawingHasChildren(3)
+                .and().theChildHasTheBounds(0, 12, 22, 3, 3)
+                .and().theChildHasTheBounds(1, 12, 2, 3, 3);
+    }
+
+    @Test
+    public void aUseElementInsideALinkKeepsTheLink() throws Exception {
+        given().aLinkedUseElementBeforeItsTarget();
+
+        when().readingItWithAndWithoutStreaming();
+
+        then().bothDrawingsHaveTheSameFigures()
+                .and().theStreamedDrawingHasChildren(2)
+                .and().theChildHasTheLink(0, "http://www.jhotdraw.org", "_blank")
+                .and().theChildHasNoLink(1);
+    }
+
+    @Test
+    public void aCopyOfALinkedFigureDoesNotKeepTheLink() throws Exception {
+        given().aCopyOfALinkedUseElement();
+
+        when().readingItWithAndWithoutStreaming();
+
+        then().bothDrawingsHaveTheSameFigures()
+                .and().theStreamedDrawingHasChildren(3)
+                .and().theFirstChildOfTheGroupHasTheLink("l")
+                .and().theChildHasNoLink(1)
+                .and().theChildHasTheBounds(1, 102, 2, 3, 3);
+    }
+}
@@ -0,0 +1,34 @@
+package org.jhotdraw.samples.svg.io;
+
+import com.tngtech.jgiven.junit.ScenarioTest;
+import org.junit.Test;
+
+public class SVGOutputFormatBehaviorTest extends ScenarioTest<GivenAnSVGDocument, WhenWritingTheDrawing, ThenTheWrittenDocumentReadsBackUnchanged> {
+
+    @Test
+    public void aWrittenDrawingReadsBackUnchanged() throws Exception {
+        given().aDocumentWithShapesGroupsAndGradients();
+
+        when().readingItAndWritingItTwice();
+
+        then().theSecondDocumentEqualsTheFirst();
+    }
+
+    @Test
+    public void aStreamedDrawingIsWrittenLikeADrawingReadAsATree() throws Exception {
+        given().aDocumentWithShapesGroupsAndGradients();
+
+        when().readingItWithAndWithoutStreamingAndWritingBoth();
+
+        then().theSecondDocumentEqualsTheFirst();
+    }
+
+    @Test
+    public void aWrittenDrawingWithResolvedReferencesReadsBackUnchanged() throws Exception {
+        given().aCopyOfALinkedUseElement();
+
+        when().readingItAndWritingItTwice();
+
+        then().theSecondDocumentEqualsTheFirst();
+    }
+}
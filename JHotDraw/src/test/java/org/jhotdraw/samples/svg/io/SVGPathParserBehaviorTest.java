@@ -0,0 +1,149 @@
+package org.jhotdraw.samples.svg.io;
+
+import com.tngtech.jgiven.junit.ScenarioTest;
+import org.jhotdraw.geom.BezierPath;
+import org.junit.Test;
+
+public class SVGPathParserBehaviorTest extends ScenarioTest<GivenAPathParser, WhenParsingPathData, ThenThePathsAreParsed> {
+
+    @Test
+    public void emptyPathDataHasNoPaths() {
+        given().aPathParser();
+
+        when().parsing("");
+
+        then().thereArePaths(0);
+    }
+
+    @Test
+    public void absoluteLinesAreParsed() {
+        given().aPathParser();
+
+        when().parsing("M10 20L30 40z");
+
+        then().thereArePaths(1)
+                .and().thePathIsClosed(0)
+                .and().thePathHasTheNodes(0, 10, 20, 30, 40)
+                .and().thePathIsLinear(0);
+    }
+
+    @Test
+    public void relativeLinesAndImplicitCommandsAreParsed() {
+        given().aPathParser();
+
+        when().parsing("m10 20 l5 5 10 0");
+
+        then().thereArePaths(1)
+                .and().thePathIsOpen(0)
+                .and().thePathHasTheNodes(0, 10, 20, 15, 25, 25, 25);
+    }
+
+    @Test
+    public void anImplicitLinetoFollowsAMoveto() {
+        given().aPathParser();
+
+        when().parsing("M0 0 10 0 10 10");
+
+        then().thePathHasTheNodes(0, 0, 0, 10, 0, 10, 10);
+    }
+
+    @Test
+    public void compactNumbersAreParsed() {
+        given().aPathParser();
+
+        when().parsing("M1-2.5.5e1,1E-1");
+
+        then().thePathHasTheNodes(0, 1, -2.5, 5, 0.1);
+    }
+
+    @Test
+    public void horizontalAndVerticalLinesAreParsed() {
+        given().aPathParser();
+
+        when().parsing("M0 0H10V5h-5v-5Z");
+
+        then().thePathIsClosed(0)
+                .and().thePathHasTheNodes(0, 0, 0, 10, 0, 10, 5, 5, 5, 5, 0)
+                .and().thePathIsLinear(0);
+    }
+
+    @Test
+    public void eachMovetoStartsANewPath() {
+        given().aPathParser();
+
+        when().parsing("M0 0 L10 0 M20 20 l1 1");
+
+        then().thereArePaths(2)
+                .and().thePathHasTheNodes(0, 0, 0, 10, 0)
+                .and().thePathHasTheNodes(1, 20, 20, 21, 21);
+    }
+
+    @Test
+    public void aSmoothCubicCurveReflectsTheControlPoint() {
+        given().aPathParser();
+
+        when().parsing("M0 0C1 1 2 2 3 3S5 5 6 6");
+
+        then().thePathHasTheNodes(0, 0, 0, 3, 3, 6, 6)
+                .and().theNodeHasTheMask(0, BezierPath.C2_MASK)
+                .and().theControlPointIs(0, 2, 1, 1)
+                .and().theNodeHasTheMask(1, BezierPath.C1C2_MASK)
+                .and().theControlPointIs(1, 1, 2, 2)
+                .and().theControlPointIs(1, 2, 4, 4)
+                .and().theNodeHasTheMask(2, BezierPath.C1_MASK)
+                .and().theControlPointIs(2, 1, 5, 5);
+    }
+
+    @Test
+    public void aSmoothQuadraticCurveReflectsTheControlPoint() {
+        given().aPathParser();
+
+        when().parsing("M0 0Q5 5 10 0T20 0");
+
+        then().thePathHasTheNodes(0, 0, 0, 10, 0, 20, 0)
+                .and().theNodeHasTheMask(1, BezierPath.C1_MASK)
+                .and().theControlPointIs(1, 1, 5, 5)
+                .and().theNodeHasTheMask(2, BezierPath.C1_MASK)
+                .and().theControlPointIs(2, 1, 15, -5);
+    }
+
+    @Test
+    public void anArcEndsAtItsEndPoint() {
+        given().aPathParser();
+
+        when().parsing("M0 0 A10 10 0 0 1 20 0");
+
+        // The arc runs through the top of the circle
+        then().thePathEndsAt(20, 0)
+                .and().thePathReachesUpTo(-10);
+    }
+
+    @Test
+    public void theParserCanBeReused() {
+        given().aPathParser();
+
+        when().parsing("M0 0 L1 1 M2 2 L3 3")
+                .and().parsing("M5 5 L6 6");
+
+        then().thereArePaths(1)
+                .and().thePathHasTheNodes(0, 5, 5, 6, 6);
+    }
+
+    @Test
+    public void aMissingMovetoIsAnError() {
+        given().aPathParser();
+
+        when().parsing("L10 10");
+
+        then().parsingFailed();
+    }
+
+    @Test
+    public void aMissingCoordinateIsAnError() {
+        given().aPathParser();
+
+        when().parsing("M 10");
+
+        then().parsingFailed();
+    }
+}
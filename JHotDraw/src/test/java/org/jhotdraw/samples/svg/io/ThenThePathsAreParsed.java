@@ -0,0 +1,84 @@
+package org.jhotdraw.samples.svg.io;
+
+import com.tngtech.jgiven.Stage;
+import com.tngtech.jgiven.annotation.ExpectedScenarioState;
+import java.io.IOException;
+import org.jhotdraw.geom.BezierPath;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+class ThenThePathsAreParsed extends Stage<ThenThePathsAreParsed> {
+
+    private static final double EPSILON = 1e-9;
+
+    @ExpectedScenarioState
+    private BezierPath[] paths;
+
+    @ExpectedScenarioState
+    private IOException failure;
+
+    ThenThePathsAreParsed thereArePaths(int count) {
+        assertNull(failure);
+        assertEquals(count, paths.length);
+        return this;
+    }
+
+    ThenThePathsAreParsed thePathIsClosed(int path) {
+        assertTrue(paths[path].isClosed());
+        return this;
+    }
+
+    ThenThePathsAreParsed thePathIsOpen(int path) {
+        assertFalse(paths[path].isClosed());
+        return this;
+    }
+
+    ThenThePathsAreParsed thePathHasTheNodes(int path, double... coords) {
+        BezierPath p = paths[path];
+        assertEquals(coords.length / 2, p.size());
+        for (int i = 0; i < p.size(); i++) {
+            assertEquals(coords[i * 2], p.get(i).x[0], EPSILON);
+            assertEquals(coords[i * 2 + 1], p.get(i).y[0], EPSILON);
+        }
+        return this;
+    }
+
+    ThenThePathsAreParsed thePathIsLinear(int path) {
+        for (BezierPath.Node node : paths[path]) {
+            assertEquals(0, node.mask);
+        }
+        return this;
+    }
+
+    ThenThePathsAreParsed theNodeHasTheMask(int node, int mask) {
+        assertEquals(mask, paths[0].get(node).mask);
+        return this;
+    }
+
+    ThenThePathsAreParsed theControlPointIs(int node, int controlPoint, double x, double y) {
+        assertEquals(x, paths[0].get(node).x[controlPoint], EPSILON);
+        assertEquals(y, paths[0].get(node).y[controlPoint], EPSILON);
+        return this;
+    }
+
+    ThenThePathsAreParsed thePathEndsAt(double x, double y) {
+        BezierPath p = paths[0];
+        assertTrue(p.size() > 2);
+        assertEquals(x, p.get(p.size() - 1).x[0], EPSILON);
+        assertEquals(y, p.get(p.size() - 1).y[0], EPSILON);
+        return this;
+    }
+
+    ThenThePathsAreParsed thePathReachesUpTo(double y) {
+        assertEquals(y, paths[0].getBounds2D().getMinY(), EPSILON);
+        return this;
+    }
+
+    ThenThePathsAreParsed parsingFailed() {
+        assertNotNull(failure);
+        return this;
+    }
+}
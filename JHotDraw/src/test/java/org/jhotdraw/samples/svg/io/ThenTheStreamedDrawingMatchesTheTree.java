@@ -0,0 +1,70 @@
+package org.jhotdraw.samples.svg.io;
+
+import com.tngtech.jgiven.Stage;
+import com.tngtech.jgiven.annotation.ExpectedScenarioState;
+import com.tngtech.jgiven.annotation.ScenarioState;
+import java.awt.geom.Rectangle2D;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import org.jhotdraw.draw.CompositeFigure;
+import org.jhotdraw.draw.Drawing;
+import org.jhotdraw.draw.Figure;
+import static org.jhotdraw.samples.svg.SVGAttributeKeys.*;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+class ThenTheStreamedDrawingMatchesTheTree extends Stage<ThenTheStreamedDrawingMatchesTheTree> {
+
+    @ExpectedScenarioState(resolution = ScenarioState.Resolution.NAME)
+    private Drawing treeDrawing;
+
+    @ExpectedScenarioState(resolution = ScenarioState.Resolution.NAME)
+    private Drawing streamedDrawing;
+
+    ThenTheStreamedDrawingMatchesTheTree bothDrawingsHaveTheSameFigures() throws IOException {
+        assertEquals(treeDrawing.getChildCount(), streamedDrawing.getChildCount());
+        for (int i = 0; i < treeDrawing.getChildCount(); i++) {
+            Figure t = treeDrawing.getChild(i);
+            Figure s = streamedDrawing.getChild(i);
+            assertEquals(t.getClass(), s.getClass());
+            assertEquals(t.getBounds(), s.getBounds());
+            assertEquals(LINK.get(t), LINK.get(s));
+        }
+        assertEquals(write(treeDrawing), write(streamedDrawing));
+        return this;
+    }
+
+    ThenTheStreamedDrawingMatchesTheTree theStreamedDrawingHasChildren(int count) {
+        assertEquals(count, streamedDrawing.getChildCount());
+        return this;
+    }
+
+    ThenTheStreamedDrawingMatchesTheTree theChildHasTheBounds(int index, double x, double y, double width, double height) {
+        assertEquals(new Rectangle2D.Double(x, y, width, height), streamedDrawing.getChild(index).getBounds());
+        return this;
+    }
+
+    ThenTheStreamedDrawingMatchesTheTree theChildHasTheLink(int index, String link, String target) {
+        assertEquals(link, LINK.get(streamedDrawing.getChild(index)));
+        assertEquals(target, LINK_TARGET.get(streamedDrawing.getChild(index)));
+        return this;
+    }
+
+    ThenTheStreamedDrawingMatchesTheTree theChildHasNoLink(int index) {
+        assertNull(LINK.get(streamedDrawing.getChild(index)));
+        return this;
+    }
+
+    ThenTheStreamedDrawingMatchesTheTree theFirstChildOfTheGroupHasTheLink(String link) {
+        assertTrue(streamedDrawing.getChild(0) instanceof CompositeFigure);
+        assertEquals(link, LINK.get(((CompositeFigure) streamedDrawing.getChild(0)).getChild(0)));
+        return this;
+    }
+
+    private static String write(Drawing d) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new SVGOutputFormat().write(out, d);
+        return out.toString("UTF-8");
+    }
+}
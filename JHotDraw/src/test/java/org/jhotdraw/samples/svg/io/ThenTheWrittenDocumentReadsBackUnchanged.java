@@ -0,0 +1,20 @@
+package org.jhotdraw.samples.svg.io;
+
+import com.tngtech.jgiven.Stage;
+import com.tngtech.jgiven.annotation.ExpectedScenarioState;
+import com.tngtech.jgiven.annotation.ScenarioState;
+import static org.junit.Assert.assertEquals;
+
+class ThenTheWrittenDocumentReadsBackUnchanged extends Stage<ThenTheWrittenDocumentReadsBackUnchanged> {
+
+    @ExpectedScenarioState(resolution = ScenarioState.Resolution.NAME)
+    private String firstDocument;
+
+    @ExpectedScenarioState(resolution = ScenarioState.Resolution.NAME)
+    private String secondDocument;
+
+    ThenTheWrittenDocumentReadsBackUnchanged theSecondDocumentEqualsTheFirst() {
+        assertEquals(firstDocument, secondDocument);
+        return this;
+    }
+}
@@ -0,0 +1,28 @@
+package org.jhotdraw.samples.svg.io;
+
+import com.tngtech.jgiven.Stage;
+import com.tngtech.jgiven.annotation.ExpectedScenarioState;
+import com.tngtech.jgiven.annotation.ProvidedScenarioState;
+import java.io.IOException;
+import org.jhotdraw.geom.BezierPath;
+
+class WhenParsingPathData extends Stage<WhenParsingPathData> {
+
+    @ExpectedScenarioState
+    private SVGPathParser parser;
+
+    @ProvidedScenarioState
+    private BezierPath[] paths;
+
+    @ProvidedScenarioState
+    private IOException failure;
+
+    WhenParsingPathData parsing(String pathData) {
+        try {
+            paths = parser.parse(pathData);
+        } catch (IOException e) {
+            failure = e;
+        }
+        return this;
+    }
+}
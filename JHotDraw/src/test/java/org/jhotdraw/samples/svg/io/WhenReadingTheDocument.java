@@ -0,0 +1,36 @@
+package org.jhotdraw.samples.svg.io;
+
+import com.tngtech.jgiven.Stage;
+import com.tngtech.jgiven.annotation.ExpectedScenarioState;
+import com.tngtech.jgiven.annotation.ProvidedScenarioState;
+import com.tngtech.jgiven.annotation.ScenarioState;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import org.jhotdraw.draw.Drawing;
+import org.jhotdraw.draw.QuadTreeDrawing;
+
+class WhenReadingTheDocument extends Stage<WhenReadingTheDocument> {
+
+    @ExpectedScenarioState
+    private String document;
+
+    @ProvidedScenarioState(resolution = ScenarioState.Resolution.NAME)
+    private Drawing treeDrawing;
+
+    @ProvidedScenarioState(resolution = ScenarioState.Resolution.NAME)
+    private Drawing streamedDrawing;
+
+    WhenReadingTheDocument readingItWithAndWithoutStreaming() throws IOException {
+        treeDrawing = read(document, false);
+        streamedDrawing = read(document, true);
+        return this;
+    }
+
+    static Drawing read(String document, boolean isStreaming) throws IOException {
+        SVGInputFormat in = new SVGInputFormat();
+        in.setStreaming(isStreaming);
+        Drawing d = new QuadTreeDrawing();
+        in.read(new ByteArrayInputStream(document.getBytes("UTF-8")), d, true);
+        return d;
+    }
+}
@@ -0,0 +1,39 @@
+package org.jhotdraw.samples.svg.io;
+
+import com.tngtech.jgiven.Stage;
+import com.tngtech.jgiven.annotation.ExpectedScenarioState;
+import com.tngtech.jgiven.annotation.ProvidedScenarioState;
+import com.tngtech.jgiven.annotation.ScenarioState;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import org.jhotdraw.draw.Drawing;
+
+class WhenWritingTheDrawing extends Stage<WhenWritingTheDrawing> {
+
+    @ExpectedScenarioState(resolution = ScenarioState.Resolution.NAME)
+    private String document;
+
+    @ProvidedScenarioState(resolution = ScenarioState.Resolution.NAME)
+    private String firstDocument;
+
+    @ProvidedScenarioState(resolution = ScenarioState.Resolution.NAME)
+    private String secondDocument;
+
+    WhenWritingTheDrawing readingItAndWritingItTwice() throws IOException {
+        firstDocument = write(WhenReadingTheDocument.read(document, true));
+        secondDocument = write(WhenReadingTheDocument.read(firstDocument, true));
+        return this;
+    }
+
+    WhenWritingTheDrawing readingItWithAndWithoutStreamingAndWritingBoth() throws IOException {
+        firstDocument = write(WhenReadingTheDocument.read(document, false));
+        secondDocument = write(WhenReadingTheDocument.read(document, true));
+        return this;
+    }
+
+    private static String write(Drawing d) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new SVGOutputFormat().write(out, d);
+        return out.toString("UTF-8");
+    }
+}